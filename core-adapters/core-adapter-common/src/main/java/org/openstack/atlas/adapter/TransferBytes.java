@@ -0,0 +1,29 @@
+package org.openstack.atlas.adapter;
+
+/**
+ * The TransferBytes class holds the inbound and outbound byte counters reported
+ * by the native load balancer for a single load balancer.
+ */
+
+public class TransferBytes {
+    private final Long bytesIn;
+    private final Long bytesOut;
+
+    public TransferBytes(Long bytesIn, Long bytesOut) {
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+    }
+
+    public Long getBytesIn() {
+        return bytesIn;
+    }
+
+    public Long getBytesOut() {
+        return bytesOut;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferBytes{bytesIn=" + bytesIn + ", bytesOut=" + bytesOut + "}";
+    }
+}
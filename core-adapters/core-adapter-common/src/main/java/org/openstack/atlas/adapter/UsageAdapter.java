@@ -11,4 +11,6 @@ public interface UsageAdapter {
     Map<Integer, Long> getTransferBytesIn(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException;
 
     Map<Integer, Long> getTransferBytesOut(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException;
+
+    Map<Integer, TransferBytes> getTransferBytes(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException;
 }
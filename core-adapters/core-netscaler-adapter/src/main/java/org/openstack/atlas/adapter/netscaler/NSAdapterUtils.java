@@ -5,11 +5,7 @@ import java.io.*;
 import java.net.*;
 
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.JAXBException;
-import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -55,22 +51,19 @@ public class NSAdapterUtils
     }
 
     
-    static String performRequest(String method, String urlStr, String requestBody) 
+    static String performRequest(String method, String urlStr, Object requestBody) 
            throws AdapterException
     {
         LOG.debug(String.format("Service URL string: '%s'...", urlStr));
-		
-        LOG.debug(String.format("Load balancer request " + new Throwable().getStackTrace()[1].getMethodName() + ": '%s'...", requestBody));
+
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug(String.format("Load balancer request " + new Throwable().getStackTrace()[1].getMethodName() + ": '%s'...", requestBody));
+        }
 	
-        Map<String, String> headers = new HashMap<String, String>();
-		
-        headers.put("Content-Type", "application/xml");
-        headers.put("Accept", "application/xml");
-        headers.put("X-Auth-Token", "tk82848ebd-f079-4959-bbd3-6c7e27ea4d9a");
-		
         try 
         {
-            return NSRequest.perform_request(method, urlStr, headers, requestBody);
+            return NSRequest.perform_request(method, urlStr, getRequestHeaders(), requestBody);
         } 
         catch (Exception e)
         {
@@ -92,24 +85,31 @@ public class NSAdapterUtils
     }
 
 
+    private static Map<String, String> getRequestHeaders()
+    {
+        Map<String, String> headers = new HashMap<String, String>();
+		
+        headers.put("Content-Type", "application/xml");
+        headers.put("Accept", "application/xml");
+        headers.put("X-Auth-Token", "tk82848ebd-f079-4959-bbd3-6c7e27ea4d9a");
+
+        return headers;
+    }
+
+
     static Object getResponseObject(String response) 
            throws AdapterException
     {
-        String requestBody;
-	 	
         try 
         {
-			JAXBContext ctxt = JAXBContext.newInstance("com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1");
-			Unmarshaller  u = ctxt.createUnmarshaller() ; 
-			return u.unmarshal( new StreamSource( new StringReader( response) ) );
-		} 
+            return NSJAXBContext.unmarshal(new StringReader(response));
+        } 
         catch (JAXBException e) 
         {
-			System.out.println("error: " + e.toString());
-			e.printStackTrace();
-			throw new AdapterException("Failed to transform a XML Payload to JAXB object", new Error());   
-		}
-	}
+            LOG.error("Failed to transform a XML Payload to JAXB object", e);
+            throw new AdapterException("Failed to transform a XML Payload to JAXB object", new Error());   
+        }
+    }
 
 
     static String getRequestBody(Object marshalObject) 
@@ -119,27 +119,37 @@ public class NSAdapterUtils
 	 	
         try 
         {
-            JAXBContext ctxt = JAXBContext.newInstance("com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1");
-            Marshaller m = ctxt.createMarshaller() ; 
-            m.setProperty( Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
             Writer writer = new StringWriter();
-			
-            m.marshal(marshalObject, writer);
-	        requestBody = writer.toString();
+            NSJAXBContext.marshal(marshalObject, writer);
+            requestBody = writer.toString();
 	
-	        LOG.debug("request body: " + requestBody);
-	    } 
+            LOG.debug("request body: " + requestBody);
+        } 
         catch (JAXBException e) 
         {
-	        System.out.println("error: " + e.toString());
-	        e.printStackTrace();
-	        throw new AdapterException("Failed to transform a JAXB object to XML payload...", new Error());   
-	    }
+            LOG.error("Failed to transform a JAXB object to XML payload", e);
+            throw new AdapterException("Failed to transform a JAXB object to XML payload...", new Error());   
+        }
 
     	return requestBody;
     }
 
 
+    static void performMarshalledRequest(String method, String urlStr, Object marshalObject) 
+           throws AdapterException
+    {
+        // The payload is only built as a String when it is going to be logged
+        if (LOG.isDebugEnabled())
+        {
+            NSAdapterUtils.performRequest(method, urlStr, NSAdapterUtils.getRequestBody(marshalObject));
+        }
+        else
+        {
+            NSAdapterUtils.performRequest(method, urlStr, NSJAXBContext.streamingEntity(marshalObject));
+        }
+    }
+
+
 
     static void populateNSLoadBalancer(LoadBalancer lb, com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.LoadBalancer nsLB) 
            throws BadRequestException
@@ -0,0 +1,126 @@
+package org.openstack.atlas.adapter.netscaler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Holds the one JAXBContext for the NetScaler API documents.
+ *
+ * Building a JAXBContext is expensive while the context itself is thread-safe, so it is created
+ * once. Marshallers and unmarshallers are cheap but not thread-safe, so each thread keeps its own.
+ */
+public class NSJAXBContext
+{
+    public static Log LOG = LogFactory.getLog(NSJAXBContext.class.getName());
+
+    static final String CONTEXT_PATH = "com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1";
+
+    private static final ThreadLocal<Marshaller> marshallers = new ThreadLocal<Marshaller>();
+    private static final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<Unmarshaller>();
+
+    private NSJAXBContext()
+    {
+    }
+
+    private static class ContextHolder
+    {
+        private static final JAXBContext CONTEXT = createContext();
+
+        private static JAXBContext createContext()
+        {
+            try
+            {
+                return JAXBContext.newInstance(CONTEXT_PATH);
+            }
+            catch (JAXBException e)
+            {
+                LOG.error("Failed to create JAXB context for " + CONTEXT_PATH, e);
+                throw new IllegalStateException("Failed to create JAXB context for " + CONTEXT_PATH, e);
+            }
+        }
+    }
+
+    static JAXBContext getContext()
+    {
+        return ContextHolder.CONTEXT;
+    }
+
+    static Marshaller getMarshaller() throws JAXBException
+    {
+        Marshaller m = marshallers.get();
+
+        if (m == null)
+        {
+            m = getContext().createMarshaller();
+            marshallers.set(m);
+        }
+
+        // Pretty printing is only useful when the payload ends up in the debug log
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, LOG.isDebugEnabled());
+        return m;
+    }
+
+    static Unmarshaller getUnmarshaller() throws JAXBException
+    {
+        Unmarshaller u = unmarshallers.get();
+
+        if (u == null)
+        {
+            u = getContext().createUnmarshaller();
+            unmarshallers.set(u);
+        }
+
+        return u;
+    }
+
+    static void marshal(Object marshalObject, Writer writer) throws JAXBException
+    {
+        getMarshaller().marshal(marshalObject, writer);
+    }
+
+    static void marshal(Object marshalObject, OutputStream out) throws JAXBException
+    {
+        getMarshaller().marshal(marshalObject, out);
+    }
+
+    static Object unmarshal(Reader reader) throws JAXBException
+    {
+        return getUnmarshaller().unmarshal(new StreamSource(reader));
+    }
+
+    /**
+     * Wraps a JAXB object so that it is marshalled straight onto the HTTP request stream
+     * instead of being built up as a String first.
+     */
+    static StreamingOutput streamingEntity(final Object marshalObject)
+    {
+        return new StreamingOutput()
+        {
+            @Override
+            public void write(OutputStream out) throws IOException, WebApplicationException
+            {
+                try
+                {
+                    marshal(marshalObject, out);
+                }
+                catch (JAXBException e)
+                {
+                    throw new IOException("Failed to transform a JAXB object to XML payload...", e);
+                }
+            }
+        };
+    }
+}
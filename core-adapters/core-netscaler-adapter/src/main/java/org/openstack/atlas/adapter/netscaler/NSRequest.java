@@ -13,11 +13,17 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.sun.jersey.api.client.*;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
 import javax.ws.rs.core.Response.Status;
 
 public class NSRequest
@@ -27,29 +33,54 @@ public class NSRequest
     private static final String DELETE = "DELETE";
     private static final String POST = "POST";
     
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+    // Matches the size of the JDK keep-alive cache (http.maxConnections) so no connection is discarded after use
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_ENDPOINT = 5;
+
     public static Log LOG = LogFactory.getLog(NetScalerAdapterImpl.class.getName());
 
-    static String perform_request(String method, String urlStr, Map<String,String> headers, String body)
+    private static volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private static volatile int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+    private static volatile int maxConcurrentRequestsPerEndpoint = DEFAULT_MAX_CONCURRENT_REQUESTS_PER_ENDPOINT;
+
+    private static final ConcurrentMap<String, EndpointClient> endpointClients = new ConcurrentHashMap<String, EndpointClient>();
+
+    /**
+     * Changes the settings used for endpoints contacted from now on. Clients that were
+     * already created keep their settings until {@link #shutdown()} is called.
+     */
+    public static void configure(int connectTimeout, int readTimeout, int maxConcurrentRequests)
+    {
+        connectTimeoutMillis = connectTimeout;
+        readTimeoutMillis = readTimeout;
+        maxConcurrentRequestsPerEndpoint = maxConcurrentRequests;
+    }
+
+    /**
+     * Drops every shared client.
+     */
+    public static synchronized void shutdown()
+    {
+        for (EndpointClient endpointClient : endpointClients.values())
+        {
+            endpointClient.client.destroy();
+        }
+        endpointClients.clear();
+    }
+
+    static String perform_request(String method, String urlStr, Map<String,String> headers, Object body)
     throws IOException
     {
     	
     	ClientResponse response;
     	
-        // sigh.  openConnection() doesn't actually open the connection,
-        // just gives you a URLConnection.  connect() will open the connection.
-
         LOG.debug("[issuing request: " + method + " " + urlStr + "]");
 
-        Client client = Client.create();
-        WebResource  resource = client.resource(urlStr);
+        // Clients are shared per endpoint so that connections are kept alive between requests
+        EndpointClient endpointClient = getEndpointClient(urlStr);
+        WebResource.Builder resourceBuilder = endpointClient.client.resource(urlStr).getRequestBuilder();
 
-        WebResource.Builder resourceBuilder = resource.getRequestBuilder();
-       
-        URL url = new URL(urlStr);
-        
-        LOG.debug("Before writing headers...");
-
-        
         LOG.debug("writing headers");
         // write  headers
         for (Map.Entry<String,String> header : headers.entrySet())
@@ -59,58 +90,130 @@ public class NSRequest
             resourceBuilder.header(header.getKey(), header.getValue());
         }
 
+        final String httpMethod = method.toUpperCase();
+
+        endpointClient.acquire(urlStr);
+        try
+        {
+            response = null;
+
+            if (GET.equals(httpMethod))
+            {
+                LOG.debug("Doing a GET request...");
+                response = resourceBuilder.get(ClientResponse.class);
+            }
+            else if (POST.equals(httpMethod))
+            {
+                LOG.debug("Doing a POST request...");
+                response = resourceBuilder.post(ClientResponse.class, body);
+            }
+            else if (PUT.equals(httpMethod))
+            {
+                LOG.debug("Doing a PUT request...");
+                response = resourceBuilder.put(ClientResponse.class, body);
+            }
+            else if (DELETE.equals(httpMethod))
+            {
+                LOG.debug("Doing a DELETE request...");
+                response = resourceBuilder.delete(ClientResponse.class);
+            }
+
+            String resp_body;
+
+            if (response != null)
+            {
+                int statuscode = response.getStatus();
+
+                LOG.debug("Status code of response is: " + statuscode);
 
-        response = null;
-        
-        if (method.toUpperCase() == "GET")
+                // Reading the entity fully releases the connection back to the keep-alive cache
+                resp_body = response.getEntity(String.class);
+                LOG.debug("Response body: " + resp_body);
+
+                if (!GET.equals(httpMethod) && statuscode != Status.ACCEPTED.getStatusCode())
+                {
+                    if(statuscode != Status.CREATED.getStatusCode())
+                        throw new IOException("Error : " + resp_body);
+                }
+
+            } else {
+                LOG.debug("response was set to null");
+                resp_body = null;
+            }
+
+            return resp_body;
+        }
+        catch (ClientHandlerException e)
+        {
+            throw new IOException("Error performing " + httpMethod + " on " + urlStr, e);
+        }
+        finally
         {
-        	LOG.debug("Doing a GET request...");
-        	
-        	response = resourceBuilder.get(ClientResponse.class);
+            endpointClient.release();
         }
-        
-        if (method.toUpperCase() == "POST")
+    }
+
+    private static EndpointClient getEndpointClient(String urlStr) throws IOException
+    {
+        URL url = new URL(urlStr);
+        String endpoint = url.getProtocol() + "://" + url.getAuthority();
+
+        EndpointClient endpointClient = endpointClients.get(endpoint);
+        if (endpointClient == null)
         {
-        	LOG.debug("Doing a POST request...");
-        	response = resourceBuilder.post(ClientResponse.class, body);
+            EndpointClient newClient = new EndpointClient(createClient(), maxConcurrentRequestsPerEndpoint);
+            endpointClient = endpointClients.putIfAbsent(endpoint, newClient);
+            if (endpointClient == null)
+            {
+                LOG.debug("Created shared client for endpoint " + endpoint);
+                endpointClient = newClient;
+            }
+            else
+            {
+                newClient.client.destroy();
+            }
         }
-        
-        
-        if (method.toUpperCase() == "PUT")
+        return endpointClient;
+    }
+
+    private static Client createClient()
+    {
+        ClientConfig clientConfig = new DefaultClientConfig();
+        clientConfig.getProperties().put(ClientConfig.PROPERTY_CONNECT_TIMEOUT, connectTimeoutMillis);
+        clientConfig.getProperties().put(ClientConfig.PROPERTY_READ_TIMEOUT, readTimeoutMillis);
+        return Client.create(clientConfig);
+    }
+
+    private static class EndpointClient
+    {
+        private final Client client;
+        private final Semaphore permits;
+
+        EndpointClient(Client client, int maxConcurrentRequests)
         {
-        	LOG.debug("Doing a PUT request...");
-        	response = resourceBuilder.put(ClientResponse.class, body);
+            this.client = client;
+            this.permits = new Semaphore(maxConcurrentRequests, true);
         }
-        
-        if (method.toUpperCase() == "DELETE")
+
+        void acquire(String urlStr) throws IOException
         {
-        	LOG.debug("Doing a DELETE request...");
-        	response = resourceBuilder.delete(ClientResponse.class);
+            try
+            {
+                if (!permits.tryAcquire(readTimeoutMillis, TimeUnit.MILLISECONDS))
+                {
+                    throw new IOException("Timed out waiting for a free connection to " + urlStr);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a free connection to " + urlStr, e);
+            }
         }
-        
-        String resp_body;
-        
-        if (response != null)
+
+        void release()
         {
-        	int statuscode = response.getStatus();
-        	
-
-        	LOG.debug("Status code of response is: " + statuscode);
-        
-        	resp_body = response.getEntity(String.class);
-        	LOG.debug("Response body: " + resp_body);
-        	
-        	if (method.toUpperCase() != "GET" && statuscode != Status.ACCEPTED.getStatusCode())
-        	{
-				if(statuscode != Status.CREATED.getStatusCode())
-					throw new IOException("Error : " + resp_body);
-        	}
-        	
-        } else {
-        	LOG.debug("response was set to null");
-        	resp_body = null;
+            permits.release();
         }
-        
-        return resp_body;
     }
 }
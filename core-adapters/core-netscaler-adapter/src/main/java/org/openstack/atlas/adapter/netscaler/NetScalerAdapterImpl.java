@@ -45,11 +45,10 @@ public class NetScalerAdapterImpl implements LoadBalancerAdapter {
 
         NSAdapterUtils.populateNSLoadBalancer(lb, nsLB);
 
-        String requestBody = NSAdapterUtils.getRequestBody(nsLB); 
         String serviceUrl = lb.getHost().getEndpoint();
         String resourceUrl = NSAdapterUtils.getLBURLStr(serviceUrl, accountId, resourceType);
 
-        NSAdapterUtils.performRequest("POST", resourceUrl, requestBody);
+        NSAdapterUtils.performMarshalledRequest("POST", resourceUrl, nsLB);
     }
 
     @Override
@@ -64,10 +63,9 @@ public class NetScalerAdapterImpl implements LoadBalancerAdapter {
         com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.LoadBalancer nsLB = new com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.LoadBalancer();
         NSAdapterUtils.populateNSLoadBalancer(lb, nsLB);
         
-		String requestBody = NSAdapterUtils.getRequestBody(nsLB);
 		String serviceUrl = config.getHost().getEndpoint();
 		String resourceUrl = NSAdapterUtils.getLBURLStr(serviceUrl, accountId, resourceType, resourceId);
-		NSAdapterUtils.performRequest("PUT", resourceUrl, requestBody);
+		NSAdapterUtils.performMarshalledRequest("PUT", resourceUrl, nsLB);
     }
 
     @Override
@@ -97,11 +95,10 @@ public class NetScalerAdapterImpl implements LoadBalancerAdapter {
         {
             com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.Nodes nsNodes = new com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.Nodes();
             NSAdapterUtils.populateNSNodes(nodes, nsNodes.getNodes());
-            String requestBody = NSAdapterUtils.getRequestBody(nsNodes);
             String serviceUrl = config.getHost().getEndpoint();
             String resourceUrl = NSAdapterUtils.getLBURLStr(serviceUrl, accountId, resourceType, resourceId, childResourceType);
 			
-            NSAdapterUtils.performRequest("PUT", resourceUrl, requestBody);
+            NSAdapterUtils.performMarshalledRequest("PUT", resourceUrl, nsNodes);
 		}
     }
     
@@ -135,11 +132,10 @@ public class NetScalerAdapterImpl implements LoadBalancerAdapter {
 		
         com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.ConnectionThrottle nsThrottle = new com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.ConnectionThrottle();
 		NSAdapterUtils.populateConnectionThrottle(conThrottle, nsThrottle);
-        String requestBody = NSAdapterUtils.getRequestBody(nsThrottle);
         String serviceUrl = config.getHost().getEndpoint();
         String resourceUrl = NSAdapterUtils.getLBURLStr(serviceUrl, accountId, resourceType, resourceId, childResourceType);
 
-        NSAdapterUtils.performRequest("PUT", resourceUrl, requestBody);
+        NSAdapterUtils.performMarshalledRequest("PUT", resourceUrl, nsThrottle);
     }
 
     @Override
@@ -170,11 +166,10 @@ public class NetScalerAdapterImpl implements LoadBalancerAdapter {
 
         NSAdapterUtils.populateNSHealthMonitor(monitor, nsMon);
 
-        String requestBody = NSAdapterUtils.getRequestBody(nsMon);
         String serviceUrl = config.getHost().getEndpoint();
         String resourceUrl = NSAdapterUtils.getLBURLStr(serviceUrl, accountId, resourceType, resourceId, childResourceType);
 
-        NSAdapterUtils.performRequest("PUT", resourceUrl, requestBody);
+        NSAdapterUtils.performMarshalledRequest("PUT", resourceUrl, nsMon);
     }
 
     @Override
@@ -201,11 +196,10 @@ public class NetScalerAdapterImpl implements LoadBalancerAdapter {
 		
         com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.SessionPersistence nsPersistence = new com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.SessionPersistence();
 		NSAdapterUtils.populateSessionPersistence(sessionPersistence, nsPersistence);
-        String requestBody = NSAdapterUtils.getRequestBody(nsPersistence);
         String serviceUrl = config.getHost().getEndpoint();
         String resourceUrl = NSAdapterUtils.getLBURLStr(serviceUrl, accountId, resourceType, resourceId, childResourceType);
 
-        NSAdapterUtils.performRequest("PUT", resourceUrl, requestBody);
+        NSAdapterUtils.performMarshalledRequest("PUT", resourceUrl, nsPersistence);
     }
 
     @Override
@@ -0,0 +1,75 @@
+package org.openstack.atlas.adapter.netscaler;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/*
+ * Compares building a JAXBContext, marshaller and unmarshaller for every request, as the adapter
+ * did before, with the shared NSJAXBContext. Each operation unmarshals a load balancer's nodes
+ * document and marshals it back, so no NetScaler is needed.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dnodes=500 -Doperations=2000 -cp ... org.openstack.atlas.adapter.netscaler.NSJAXBContextBenchmark
+ */
+public class NSJAXBContextBenchmark {
+
+    private interface RoundTrip {
+        String call(String document) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int nodes = Integer.getInteger("nodes", 500);
+        int operations = Integer.getInteger("operations", 2000);
+        String document = NSJAXBContextTest.nodesDocument(nodes);
+
+        RoundTrip perCall = new RoundTrip() {
+            @Override
+            public String call(String document) throws Exception {
+                JAXBContext context = JAXBContext.newInstance(NSJAXBContext.CONTEXT_PATH);
+                Object payload = context.createUnmarshaller().unmarshal(new StringReader(document));
+                Marshaller marshaller = context.createMarshaller();
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+                StringWriter writer = new StringWriter();
+                marshaller.marshal(payload, writer);
+                return writer.toString();
+            }
+        };
+        RoundTrip shared = new RoundTrip() {
+            @Override
+            public String call(String document) throws Exception {
+                Object payload = NSJAXBContext.unmarshal(new StringReader(document));
+                StringWriter writer = new StringWriter();
+                NSJAXBContext.marshal(payload, writer);
+                return writer.toString();
+            }
+        };
+
+        // Warm up both paths before measuring
+        run(perCall, document, operations / 10);
+        run(shared, document, operations / 10);
+
+        report("context per call", run(perCall, document, operations), operations, nodes);
+        report("shared context", run(shared, document, operations), operations, nodes);
+    }
+
+    private static long run(RoundTrip roundTrip, String document, int operations) throws Exception {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            bytes += roundTrip.call(document).length();
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        if (bytes == 0) {
+            throw new IllegalStateException("Marshalled nothing");
+        }
+        return totalNanos;
+    }
+
+    private static void report(String name, long totalNanos, int operations, int nodes) {
+        System.out.println(String.format("%-17s %10.2f us per %d node round trip, %10.0f round trips/sec",
+                name, totalNanos / 1000.0 / operations, nodes, operations / (totalNanos / 1000000000.0)));
+    }
+}
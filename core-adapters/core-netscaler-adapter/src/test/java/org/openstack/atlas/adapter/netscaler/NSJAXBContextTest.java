@@ -0,0 +1,112 @@
+package org.openstack.atlas.adapter.netscaler;
+
+import com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.Node;
+import com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.NodeCondition;
+import com.citrix.cloud.netscaler.atlas.docs.loadbalancers.api.v1.Nodes;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+import javax.xml.bind.JAXBIntrospector;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RunWith(Enclosed.class)
+public class NSJAXBContextTest {
+    static final int NODES = 500;
+
+    public static class WhenRoundTrippingAPayload {
+
+        @Test
+        public void shouldKeepEveryNodeThroughAStringWriter() throws Exception {
+            Object document = NSJAXBContext.unmarshal(new StringReader(nodesDocument(NODES)));
+
+            StringWriter writer = new StringWriter();
+            NSJAXBContext.marshal(document, writer);
+
+            assertNodes(NSJAXBContext.unmarshal(new StringReader(writer.toString())), NODES);
+        }
+
+        @Test
+        public void shouldKeepEveryNodeThroughTheStreamingEntity() throws Exception {
+            Object document = NSJAXBContext.unmarshal(new StringReader(nodesDocument(NODES)));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            NSJAXBContext.streamingEntity(document).write(out);
+
+            assertNodes(NSJAXBContext.unmarshal(new StringReader(out.toString("UTF-8"))), NODES);
+        }
+
+        @Test
+        public void shouldRoundTripOnEveryUse() throws Exception {
+            for (int i = 1; i <= 3; i++) {
+                Object document = NSJAXBContext.unmarshal(new StringReader(nodesDocument(i)));
+                StringWriter writer = new StringWriter();
+                NSJAXBContext.marshal(document, writer);
+                assertNodes(NSJAXBContext.unmarshal(new StringReader(writer.toString())), i);
+            }
+        }
+    }
+
+    public static class WhenSharingTheContext {
+
+        @Test
+        public void shouldCreateTheContextOnce() {
+            Assert.assertSame(NSJAXBContext.getContext(), NSJAXBContext.getContext());
+        }
+
+        @Test
+        public void shouldKeepOneMarshallerAndUnmarshallerPerThread() throws Exception {
+            final Marshaller marshaller = NSJAXBContext.getMarshaller();
+            final Unmarshaller unmarshaller = NSJAXBContext.getUnmarshaller();
+            Assert.assertSame(marshaller, NSJAXBContext.getMarshaller());
+            Assert.assertSame(unmarshaller, NSJAXBContext.getUnmarshaller());
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Object[] others = executor.submit(new Callable<Object[]>() {
+                    @Override
+                    public Object[] call() throws Exception {
+                        return new Object[]{NSJAXBContext.getMarshaller(), NSJAXBContext.getUnmarshaller()};
+                    }
+                }).get();
+
+                Assert.assertNotSame(marshaller, others[0]);
+                Assert.assertNotSame(unmarshaller, others[1]);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    static String nodesDocument(int nodes) {
+        StringBuilder document = new StringBuilder("<nodes xmlns=\"http://docs.citrix.com/cloud/netscaler/loadbalancers/api/v1.0\">");
+        for (int i = 1; i <= nodes; i++) {
+            document.append(String.format("<node id=\"%d\" address=\"10.%d.%d.%d\" port=\"%d\" condition=\"%s\" weight=\"%d\"/>",
+                    i, i / 65536 % 256, i / 256 % 256, i % 256, 1000 + i, i % 2 == 0 ? "ENABLED" : "DISABLED", i % 100 + 1));
+        }
+        return document.append("</nodes>").toString();
+    }
+
+    private static void assertNodes(Object document, int expectedNodes) {
+        List<Node> nodes = ((Nodes) JAXBIntrospector.getValue(document)).getNodes();
+
+        Assert.assertEquals(expectedNodes, nodes.size());
+        for (int i = 1; i <= expectedNodes; i++) {
+            Node node = nodes.get(i - 1);
+            Assert.assertEquals(Integer.valueOf(i), node.getId());
+            Assert.assertEquals(String.format("10.%d.%d.%d", i / 65536 % 256, i / 256 % 256, i % 256), node.getAddress());
+            Assert.assertEquals(Integer.valueOf(1000 + i), node.getPort());
+            Assert.assertEquals(i % 2 == 0 ? NodeCondition.ENABLED : NodeCondition.DISABLED, node.getCondition());
+            Assert.assertEquals(Integer.valueOf(i % 100 + 1), node.getWeight());
+        }
+    }
+}
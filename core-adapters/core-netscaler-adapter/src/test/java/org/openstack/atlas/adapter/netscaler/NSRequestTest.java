@@ -0,0 +1,210 @@
+package org.openstack.atlas.adapter.netscaler;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(Enclosed.class)
+public class NSRequestTest {
+    private static final int OPERATIONS = 1000;
+    private static final int CALLERS = 16;
+    private static final int BURSTS = 50;
+
+    public static class WhenRequestingSequentially {
+        private StubServer server;
+
+        @Before
+        public void standUp() throws Exception {
+            server = new StubServer(0);
+        }
+
+        @After
+        public void tearDown() {
+            NSRequest.shutdown();
+            server.stop();
+        }
+
+        @Test
+        public void shouldReuseOneConnection() throws Exception {
+            for (int i = 0; i < OPERATIONS; i++) {
+                assertEquals("ok", NSRequest.perform_request("get", server.baseUrl + "/1/loadbalancers/" + i, headers(), null));
+            }
+
+            assertTrue("Opened " + server.connections() + " connections for " + OPERATIONS + " operations", server.connections() <= 2);
+        }
+
+        @Test
+        public void shouldFailWhenUpdateIsNotAccepted() throws Exception {
+            try {
+                NSRequest.perform_request("PUT", server.baseUrl + "/fail", headers(), "<loadBalancer/>");
+                fail("Expected an IOException");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    /*
+     * The JDK keeps at most http.maxConnections (5) idle connections per endpoint and closes every
+     * connection returned beyond that. When a burst of callers finishes at once the extra connections
+     * are closed, and the next burst opens new ones, unless the endpoint limit holds the callers back.
+     */
+    public static class WhenRequestingConcurrently {
+        private StubServer server;
+        private ExecutorService callers;
+
+        @Before
+        public void standUp() throws Exception {
+            server = new StubServer(2);
+            callers = Executors.newFixedThreadPool(CALLERS);
+        }
+
+        @After
+        public void tearDown() {
+            callers.shutdownNow();
+            NSRequest.shutdown();
+            server.stop();
+        }
+
+        @Test
+        public void shouldKeepReusingTheConnectionsWithinTheEndpointLimit() throws Exception {
+            runConcurrently(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return NSRequest.perform_request("DELETE", server.baseUrl + "/1/loadbalancers/1/nodes/1", headers(), null);
+                }
+            });
+
+            assertTrue("Opened " + server.connections() + " connections for " + BURSTS + " bursts",
+                    server.connections() <= NSRequest.DEFAULT_MAX_CONCURRENT_REQUESTS_PER_ENDPOINT + 2);
+        }
+
+        @Test
+        public void shouldOpenNewConnectionsWithoutTheEndpointLimit() throws Exception {
+            // What every request did before clients were shared: a new client and no limit
+            runConcurrently(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    Client client = Client.create();
+                    try {
+                        return client.resource(server.baseUrl + "/1/loadbalancers/1/nodes/1").delete(ClientResponse.class).getEntity(String.class);
+                    } finally {
+                        client.destroy();
+                    }
+                }
+            });
+
+            assertTrue("Opened only " + server.connections() + " connections for " + BURSTS + " bursts",
+                    server.connections() > 2 * CALLERS);
+        }
+
+        private void runConcurrently(Callable<String> request) throws Exception {
+            for (int burst = 0; burst < BURSTS; burst++) {
+                List<Future<String>> responses = new ArrayList<Future<String>>();
+                for (int i = 0; i < CALLERS; i++) {
+                    responses.add(callers.submit(request));
+                }
+
+                for (Future<String> response : responses) {
+                    assertEquals("ok", response.get());
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> headers() {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Accept", "application/xml");
+        headers.put("Content-Type", "application/xml");
+        return headers;
+    }
+
+    /*
+     * Answers every request with "ok" after an optional delay and records the client port of each
+     * connection it served.
+     */
+    private static class StubServer implements HttpHandler {
+        private final HttpServer server;
+        private final ExecutorService handlers = Executors.newFixedThreadPool(CALLERS);
+        private final String baseUrl;
+        private final long delayMillis;
+        private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+        StubServer(long delayMillis) throws IOException {
+            this.delayMillis = delayMillis;
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this);
+            server.setExecutor(handlers);
+            server.start();
+            baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        int connections() {
+            return clientPorts.size();
+        }
+
+        void stop() {
+            server.stop(0);
+            handlers.shutdownNow();
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+
+            InputStream in = exchange.getRequestBody();
+            while (in.read() != -1) {
+            }
+            in.close();
+
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            int status;
+            if (exchange.getRequestURI().getPath().startsWith("/fail")) {
+                status = 500;
+            } else if ("GET".equals(exchange.getRequestMethod())) {
+                status = 200;
+            } else {
+                status = 202;
+            }
+
+            byte[] body = "ok".getBytes("UTF-8");
+            exchange.sendResponseHeaders(status, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+            out.close();
+        }
+    }
+}
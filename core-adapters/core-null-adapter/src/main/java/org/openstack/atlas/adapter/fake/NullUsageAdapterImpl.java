@@ -3,6 +3,7 @@ package org.openstack.atlas.adapter.fake;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
+import org.openstack.atlas.adapter.TransferBytes;
 import org.openstack.atlas.adapter.UsageAdapter;
 import org.openstack.atlas.adapter.exception.AdapterException;
 import org.openstack.atlas.service.domain.entity.LoadBalancer;
@@ -29,4 +30,10 @@ public class NullUsageAdapterImpl implements UsageAdapter {
         LOG.info("getTransferBytesOut"); // NOP
         return new HashMap<Integer, Long>();
     }
+
+    @Override
+    public Map<Integer, TransferBytes> getTransferBytes(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException {
+        LOG.info("getTransferBytes"); // NOP
+        return new HashMap<Integer, TransferBytes>();
+    }
 }
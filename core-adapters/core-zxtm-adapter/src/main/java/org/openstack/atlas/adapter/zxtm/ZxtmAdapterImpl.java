@@ -1,7 +1,6 @@
 package org.openstack.atlas.adapter.zxtm;
 
 import com.zxtm.service.client.*;
-import org.apache.axis.AxisFault;
 import org.apache.axis.types.UnsignedInt;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -9,9 +8,11 @@ import org.openstack.atlas.adapter.LoadBalancerAdapter;
 import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
 import org.openstack.atlas.adapter.exception.AdapterException;
 import org.openstack.atlas.adapter.exception.BadRequestException;
+import org.openstack.atlas.adapter.exception.ConnectionException;
 import org.openstack.atlas.adapter.exception.RollbackException;
 import org.openstack.atlas.adapter.zxtm.helper.*;
 import org.openstack.atlas.adapter.zxtm.service.ZxtmServiceStubs;
+import org.openstack.atlas.adapter.zxtm.service.ZxtmServiceStubsPool;
 import org.openstack.atlas.common.converters.StringConverter;
 import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
 import org.openstack.atlas.datamodel.CoreAlgorithmType;
@@ -40,10 +41,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
     public static final VirtualServerRule ruleRateLimitNonHttp = new VirtualServerRule(RATE_LIMIT_NON_HTTP, true, VirtualServerRuleRunFlag.run_every);
     public static final VirtualServerRule ruleXForwardedFor = new VirtualServerRule(XFF, true, VirtualServerRuleRunFlag.run_every);
 
+    private ZxtmServiceStubsPool serviceStubsPool = ZxtmServiceStubsPool.getSharedPool();
+
+    public void setServiceStubsPool(ZxtmServiceStubsPool serviceStubsPool) {
+        this.serviceStubsPool = serviceStubsPool;
+    }
+
     @Override
     public void createLoadBalancer(LoadBalancerEndpointConfiguration config, LoadBalancer lb) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String virtualServerName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lb);
             final String poolName = virtualServerName;
             String algorithm = lb.getAlgorithm() == null ? DEFAULT_ALGORITHM : lb.getAlgorithm();
@@ -52,7 +59,7 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
             LOG.debug(String.format("Creating load balancer '%s'...", virtualServerName));
 
             try {
-                createNodePool(config, lb.getId(), lb.getAccountId(), lb.getNodes());
+                createNodePool(serviceStubs, lb.getId(), lb.getAccountId(), lb.getNodes());
             } catch (Exception e) {
                 deleteNodePool(serviceStubs, poolName);
                 throw new RollbackException(rollBackMessage, e);
@@ -70,7 +77,7 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
             }
 
             try {
-                addVirtualIps(config, lb);
+                addVirtualIps(config, serviceStubs, lb);
                 serviceStubs.getVirtualServerBinding().setEnabled(new String[]{virtualServerName}, new boolean[]{true});
 
                 /* UPDATE REST OF LOADBALANCER CONFIG */
@@ -100,25 +107,29 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             LOG.info(String.format("Load balancer '%s' successfully created.", virtualServerName));
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void updateLoadBalancer(LoadBalancerEndpointConfiguration config, LoadBalancer lb) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             // Core spec only allows modification of algorithm attribute for now
             setLoadBalancingAlgorithm(serviceStubs, lb.getAccountId(), lb.getId(), lb.getAlgorithm());
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void deleteLoadBalancer(LoadBalancerEndpointConfiguration config, LoadBalancer lb) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String virtualServerName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lb.getId(), lb.getAccountId());
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lb.getId(), lb.getAccountId());
             final String[][] trafficIpGroups = serviceStubs.getVirtualServerBinding().getListenTrafficIPGroups(new String[]{virtualServerName});
@@ -133,14 +144,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             LOG.info(String.format("Successfully deleted load balancer '%s'.", virtualServerName));
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void createNodes(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId, Set<Node> nodes) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             final String rollBackMessage = "Set nodes request canceled.";
             final String[][] enabledNodesBackup;
@@ -168,9 +181,9 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             try {
                 final List<String> mergedIpAddresses = NodeHelper.getMergedIpAddresses(getNodesWithCondition(nodes, false), new String[0], disabledNodesBackup[0], new String[0]);
-                setDisabledNodes(config, poolName, mergedIpAddresses);
+                setDisabledNodes(serviceStubs, poolName, mergedIpAddresses);
 //                setDrainingNodes(config, poolName, getNodesWithCondition(nodes, NodeCondition.DRAINING));
-                setNodeWeights(config, lbId, accountId, nodes);
+                setNodeWeights(serviceStubs, lbId, accountId, nodes);
             } catch (RemoteException e) {
                 if (e instanceof InvalidInput) {
                     LOG.error(String.format("Error setting node conditions for pool '%s'. All nodes cannot be disabled.", poolName), e);
@@ -185,14 +198,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
                 throw new RollbackException(rollBackMessage, e);
             }
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void deleteNodes(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId, Set<Node> nodes) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             final String rollBackMessage = "Remove node request canceled.";
 
@@ -205,14 +220,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
                 throw new RollbackException(rollBackMessage, e);
             }
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void updateNode(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId, Node node) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             final String rollBackMessage = "Update node request canceled.";
             final String[][] enabledNodesBackup;
@@ -271,11 +288,11 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
             }
 
             try {
-                setDisabledNodes(config, poolName, newDisabledNodes);
+                setDisabledNodes(serviceStubs, poolName, newDisabledNodes);
 //                setDrainingNodes(config, poolName, getNodesWithCondition(nodes, NodeCondition.DRAINING));
                 final PoolWeightingsDefinition[][] nodesWeightings = serviceStubs.getPoolBinding().getNodesWeightings(new String[]{poolName}, ListUtil.wrap(ListUtil.wrap(nodeAsString)));
                 if (nodesWeightings[0][0].getWeighting() != node.getWeight()) {
-                    setNodeWeights(config, lbId, accountId, nodes);
+                    setNodeWeights(serviceStubs, lbId, accountId, nodes);
                 }
             } catch (RemoteException e) {
                 if (e instanceof InvalidInput) {
@@ -291,21 +308,23 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
                 throw new RollbackException(rollBackMessage, e);
             }
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void updateConnectionThrottle(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId, ConnectionThrottle connectionThrottle) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String virtualServerName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             final String protectionClassName = virtualServerName;
             final String rollBackMessage = "Update connection throttle request canceled.";
 
             LOG.debug(String.format("Updating connection throttle for virtual server '%s'...", virtualServerName));
 
-            addProtectionClass(config, protectionClassName);
+            addProtectionClass(serviceStubs, protectionClassName);
 
             try {
                 if (connectionThrottle.getMaxRequestRate() != null) {
@@ -332,7 +351,9 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             LOG.info(String.format("Successfully updated connection throttle for virtual server '%s'.", virtualServerName));
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
@@ -353,14 +374,14 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             LOG.info(String.format("Successfully deleted connection throttle for node pool '%s'.", poolName));
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
         }
     }
 
     @Override
     public void updateHealthMonitor(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId, HealthMonitor healthMonitor) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             final String monitorName = poolName;
 
@@ -392,14 +413,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             LOG.info(String.format("Health monitor successfully updated for node pool '%s'.", poolName));
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void deleteHealthMonitor(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             final String monitorName = poolName;
 
@@ -418,14 +441,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             deleteMonitorClass(serviceStubs, monitorName);
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void setSessionPersistence(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId, SessionPersistence sessionPersistence) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             boolean httpCookieClassConfigured = false;
             boolean sourceIpClassConfigured = false;
@@ -475,14 +500,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
             LOG.info(String.format("Session persistence successfully set for node pool '%s'.", poolName));
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
     @Override
     public void deleteSessionPersistence(LoadBalancerEndpointConfiguration config, Integer accountId, Integer lbId) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
         try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
             final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
             final String rollBackMessage = "Remove session persistence request canceled.";
 
@@ -496,7 +523,9 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
                 throw new RollbackException(rollBackMessage, e);
             }
         } catch (RemoteException e) {
-            throw new AdapterException(e);
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
         }
     }
 
@@ -507,8 +536,24 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
      * *******************
      */
 
-    private ZxtmServiceStubs getServiceStubs(LoadBalancerEndpointConfiguration config) throws AxisFault {
-        return ZxtmServiceStubs.getServiceStubs(config.getEndpointUrl(), config.getUsername(), config.getPassword());
+    private ZxtmServiceStubs getServiceStubs(LoadBalancerEndpointConfiguration config) throws AdapterException {
+        try {
+            return serviceStubsPool.borrow(config.getEndpointUrl(), config.getUsername(), config.getPassword());
+        } catch (RemoteException e) {
+            throw toAdapterException(config, e);
+        }
+    }
+
+    private void releaseServiceStubs(LoadBalancerEndpointConfiguration config) {
+        serviceStubsPool.release(config.getEndpointUrl(), config.getUsername(), config.getPassword());
+    }
+
+    private AdapterException toAdapterException(LoadBalancerEndpointConfiguration config, RemoteException e) {
+        if (ZxtmServiceStubsPool.isConnectionFailure(e)) {
+            serviceStubsPool.invalidate(config.getEndpointUrl());
+            return new ConnectionException(e.getMessage(), e);
+        }
+        return new AdapterException(e);
     }
 
     private void setLoadBalancingAlgorithm(ZxtmServiceStubs serviceStubs, Integer accountId, Integer lbId, String algorithm) throws AdapterException {
@@ -526,8 +571,7 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
         }
     }
 
-    private void addVirtualIps(LoadBalancerEndpointConfiguration config, LoadBalancer lb) throws RemoteException, AdapterException {
-        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
+    private void addVirtualIps(LoadBalancerEndpointConfiguration config, ZxtmServiceStubs serviceStubs, LoadBalancer lb) throws RemoteException, AdapterException {
         final String virtualServerName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lb.getId(), lb.getAccountId());
         String[] failoverTrafficManagers = config.getFailoverHostNames().toArray(new String[config.getFailoverHostNames().size()]);
         final String rollBackMessage = "Add virtual ips request canceled.";
@@ -641,8 +685,7 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
         }
     }
 
-    private void createNodePool(LoadBalancerEndpointConfiguration config, Integer loadBalancerId, Integer accountId, Collection<Node> nodes) throws RemoteException, AdapterException {
-        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
+    private void createNodePool(ZxtmServiceStubs serviceStubs, Integer loadBalancerId, Integer accountId, Collection<Node> nodes) throws RemoteException, AdapterException {
         final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(loadBalancerId, accountId);
 
         LOG.debug(String.format("Creating pool '%s' and setting nodes...", poolName));
@@ -652,9 +695,9 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
 
         final List<Node> nodeToDisable = getNodesWithCondition(nodes, false);
         final List<String> nodesAsZeusString = NodeHelper.getIpAddressesFromNodes(nodeToDisable);
-        setDisabledNodes(config, poolName, nodesAsZeusString);
+        setDisabledNodes(serviceStubs, poolName, nodesAsZeusString);
 //        setDrainingNodes(config, poolName, getNodesWithCondition(allNodes, NodeCondition.DRAINING));
-        setNodeWeights(config, loadBalancerId, accountId, nodes);
+        setNodeWeights(serviceStubs, loadBalancerId, accountId, nodes);
     }
 
     private List<Node> getNodesWithCondition(Collection<Node> nodes, Boolean enabled) {
@@ -667,19 +710,16 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
         return nodesWithCondition;
     }
 
-    private void setDisabledNodes(LoadBalancerEndpointConfiguration config, String poolName, List<String> nodesToDisable) throws RemoteException, BadRequestException {
-        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
-
+    private void setDisabledNodes(ZxtmServiceStubs serviceStubs, String poolName, List<String> nodesToDisable) throws RemoteException, BadRequestException {
         LOG.debug(String.format("Setting disabled nodes for pool '%s'", poolName));
         serviceStubs.getPoolBinding().setDisabledNodes(new String[]{poolName}, ListUtil.wrap(ListUtil.convert(nodesToDisable)));
     }
 
-    private void setNodeWeights(LoadBalancerEndpointConfiguration config, Integer lbId, Integer accountId, Collection<Node> nodes) throws RemoteException, AdapterException {
-        setNodeWeights(config, lbId, accountId, buildPoolWeightingsDefinition(nodes));
+    private void setNodeWeights(ZxtmServiceStubs serviceStubs, Integer lbId, Integer accountId, Collection<Node> nodes) throws RemoteException, AdapterException {
+        setNodeWeights(serviceStubs, lbId, accountId, buildPoolWeightingsDefinition(nodes));
     }
 
-    private void setNodeWeights(LoadBalancerEndpointConfiguration config, Integer lbId, Integer accountId, PoolWeightingsDefinition[] definitions) throws RemoteException, AdapterException {
-        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
+    private void setNodeWeights(ZxtmServiceStubs serviceStubs, Integer lbId, Integer accountId, PoolWeightingsDefinition[] definitions) throws RemoteException, AdapterException {
         final String poolName = ZxtmNameHelper.generateNameWithAccountIdAndLoadBalancerId(lbId, accountId);
         final String rollBackMessage = "Update node weights request canceled.";
 
@@ -771,8 +811,7 @@ public class ZxtmAdapterImpl implements LoadBalancerAdapter {
     /*
      *  Returns true is the protection class is brand new. Returns false if it already exists.
      */
-    private boolean addProtectionClass(LoadBalancerEndpointConfiguration config, String poolName) throws RemoteException {
-        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
+    private boolean addProtectionClass(ZxtmServiceStubs serviceStubs, String poolName) throws RemoteException {
         boolean isNewProtectionClass = true;
 
         try {
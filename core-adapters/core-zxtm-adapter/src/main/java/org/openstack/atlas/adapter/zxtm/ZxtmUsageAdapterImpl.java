@@ -1,62 +1,70 @@
 package org.openstack.atlas.adapter.zxtm;
 
-import org.apache.axis.AxisFault;
+import com.zxtm.service.client.InvalidObjectName;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
+import org.openstack.atlas.adapter.TransferBytes;
 import org.openstack.atlas.adapter.UsageAdapter;
 import org.openstack.atlas.adapter.exception.AdapterException;
 import org.openstack.atlas.adapter.exception.BadRequestException;
+import org.openstack.atlas.adapter.exception.ConnectionException;
 import org.openstack.atlas.adapter.zxtm.helper.ZxtmNameHelper;
 import org.openstack.atlas.adapter.zxtm.service.ZxtmServiceStubs;
+import org.openstack.atlas.adapter.zxtm.service.ZxtmServiceStubsPool;
 import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
 import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Primary
 @Service
 public class ZxtmUsageAdapterImpl implements UsageAdapter {
     private static Log LOG = LogFactory.getLog(ZxtmUsageAdapterImpl.class.getName());
 
-    @Override
-    public Map<Integer, Long> getTransferBytesIn(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException {
-        try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
-            Map<Integer, Long> bytesInMap = new HashMap<Integer, Long>();
-            List<String> validVsNames = getValidVsNames(config, toVirtualServerNames(lbs));
+    public static final long DEFAULT_VIRTUAL_SERVER_LISTING_TTL_MILLIS = 60000;
 
-            long[] bytesIn = serviceStubs.getSystemStatsBinding().getVirtualserverBytesIn(validVsNames.toArray(new String[validVsNames.size()]));
+    private ZxtmServiceStubsPool serviceStubsPool = ZxtmServiceStubsPool.getSharedPool();
+    private long virtualServerListingTtlMillis = DEFAULT_VIRTUAL_SERVER_LISTING_TTL_MILLIS;
+    private final ConcurrentMap<String, VirtualServerListing> virtualServerListings = new ConcurrentHashMap<String, VirtualServerListing>();
 
-            for (int i = 0; i < validVsNames.size(); i++) {
-                bytesInMap.put(ZxtmNameHelper.stripLbIdFromName(validVsNames.get(i)), bytesIn[i]);
-            }
+    public void setServiceStubsPool(ZxtmServiceStubsPool serviceStubsPool) {
+        this.serviceStubsPool = serviceStubsPool;
+    }
 
-            return bytesInMap;
-        } catch (RemoteException e) {
-            throw new AdapterException(e);
+    @Override
+    public Map<Integer, Long> getTransferBytesIn(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException {
+        Map<Integer, Long> bytesInMap = new HashMap<Integer, Long>();
+
+        for (Map.Entry<Integer, TransferBytes> entry : getTransferBytes(config, lbs, true, false).entrySet()) {
+            bytesInMap.put(entry.getKey(), entry.getValue().getBytesIn());
         }
+
+        return bytesInMap;
     }
 
     @Override
     public Map<Integer, Long> getTransferBytesOut(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException {
-        try {
-            ZxtmServiceStubs serviceStubs = getServiceStubs(config);
-            Map<Integer, Long> bytesOutMap = new HashMap<Integer, Long>();
-            List<String> validVsNames = getValidVsNames(config, toVirtualServerNames(lbs));
+        Map<Integer, Long> bytesOutMap = new HashMap<Integer, Long>();
 
-            long[] bytesOut = serviceStubs.getSystemStatsBinding().getVirtualserverBytesOut(validVsNames.toArray(new String[validVsNames.size()]));
+        for (Map.Entry<Integer, TransferBytes> entry : getTransferBytes(config, lbs, false, true).entrySet()) {
+            bytesOutMap.put(entry.getKey(), entry.getValue().getBytesOut());
+        }
 
-            for (int i = 0; i < validVsNames.size(); i++) {
-                bytesOutMap.put(ZxtmNameHelper.stripLbIdFromName(validVsNames.get(i)), bytesOut[i]);
-            }
+        return bytesOutMap;
+    }
 
-            return bytesOutMap;
-        } catch (RemoteException e) {
-            throw new AdapterException(e);
-        }
+    @Override
+    public Map<Integer, TransferBytes> getTransferBytes(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs) throws AdapterException {
+        return getTransferBytes(config, lbs, true, true);
+    }
+
+    public void setVirtualServerListingTtlMillis(long virtualServerListingTtlMillis) {
+        this.virtualServerListingTtlMillis = virtualServerListingTtlMillis;
     }
 
     /*
@@ -65,8 +73,24 @@ public class ZxtmUsageAdapterImpl implements UsageAdapter {
     * *******************
     */
 
-    private ZxtmServiceStubs getServiceStubs(LoadBalancerEndpointConfiguration config) throws AxisFault {
-        return ZxtmServiceStubs.getServiceStubs(config.getEndpointUrl(), config.getUsername(), config.getPassword());
+    private ZxtmServiceStubs getServiceStubs(LoadBalancerEndpointConfiguration config) throws AdapterException {
+        try {
+            return serviceStubsPool.borrow(config.getEndpointUrl(), config.getUsername(), config.getPassword());
+        } catch (RemoteException e) {
+            throw toAdapterException(config, e);
+        }
+    }
+
+    private void releaseServiceStubs(LoadBalancerEndpointConfiguration config) {
+        serviceStubsPool.release(config.getEndpointUrl(), config.getUsername(), config.getPassword());
+    }
+
+    private AdapterException toAdapterException(LoadBalancerEndpointConfiguration config, RemoteException e) {
+        if (ZxtmServiceStubsPool.isConnectionFailure(e)) {
+            serviceStubsPool.invalidate(config.getEndpointUrl());
+            return new ConnectionException(e.getMessage(), e);
+        }
+        return new AdapterException(e);
     }
 
     private List<String> toVirtualServerNames(List<LoadBalancer> lbs) throws BadRequestException {
@@ -79,17 +103,81 @@ public class ZxtmUsageAdapterImpl implements UsageAdapter {
         return virtualServerNames;
     }
 
-    private List<String> getValidVsNames(LoadBalancerEndpointConfiguration config, List<String> virtualServerNames) throws RemoteException, BadRequestException {
-        Set<String> allLoadBalancerNames = new HashSet<String>(getStatsSystemLoadBalancerNames(config));
-        Set<String> loadBalancerNamesForHost = new HashSet<String>(virtualServerNames);
-        loadBalancerNamesForHost.retainAll(allLoadBalancerNames); // Get the intersection
-        return new ArrayList<String>(loadBalancerNamesForHost);
+    private Map<Integer, TransferBytes> getTransferBytes(LoadBalancerEndpointConfiguration config, List<LoadBalancer> lbs, boolean fetchBytesIn, boolean fetchBytesOut) throws AdapterException {
+        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
+        try {
+            List<String> virtualServerNames = toVirtualServerNames(lbs);
+            try {
+                return getTransferBytes(serviceStubs, getValidVsNames(config, serviceStubs, virtualServerNames, false), fetchBytesIn, fetchBytesOut);
+            } catch (InvalidObjectName ion) {
+                // A virtual server went away since the listing was cached. Refresh the listing and try once more.
+                LOG.debug(String.format("Virtual server listing for '%s' is stale. Refreshing...", config.getEndpointUrl()));
+                return getTransferBytes(serviceStubs, getValidVsNames(config, serviceStubs, virtualServerNames, true), fetchBytesIn, fetchBytesOut);
+            }
+        } catch (RemoteException e) {
+            throw toAdapterException(config, e);
+        } finally {
+            releaseServiceStubs(config);
+        }
     }
 
-    private List<String> getStatsSystemLoadBalancerNames(LoadBalancerEndpointConfiguration config) throws RemoteException {
-        ZxtmServiceStubs serviceStubs = getServiceStubs(config);
-        List<String> loadBalancerNames = new ArrayList<String>();
-        loadBalancerNames.addAll(Arrays.asList(serviceStubs.getSystemStatsBinding().getVirtualservers()));
-        return loadBalancerNames;
+    private Map<Integer, TransferBytes> getTransferBytes(ZxtmServiceStubs serviceStubs, List<String> validVsNames, boolean fetchBytesIn, boolean fetchBytesOut) throws RemoteException {
+        Map<Integer, TransferBytes> transferBytesMap = new HashMap<Integer, TransferBytes>();
+        if (validVsNames.isEmpty()) return transferBytesMap;
+
+        String[] vsNames = validVsNames.toArray(new String[validVsNames.size()]);
+        long[] bytesIn = fetchBytesIn ? serviceStubs.getSystemStatsBinding().getVirtualserverBytesIn(vsNames) : null;
+        long[] bytesOut = fetchBytesOut ? serviceStubs.getSystemStatsBinding().getVirtualserverBytesOut(vsNames) : null;
+
+        for (int i = 0; i < vsNames.length; i++) {
+            Long vsBytesIn = bytesIn == null ? null : bytesIn[i];
+            Long vsBytesOut = bytesOut == null ? null : bytesOut[i];
+            transferBytesMap.put(ZxtmNameHelper.stripLbIdFromName(vsNames[i]), new TransferBytes(vsBytesIn, vsBytesOut));
+        }
+
+        return transferBytesMap;
+    }
+
+    private List<String> getValidVsNames(LoadBalancerEndpointConfiguration config, ZxtmServiceStubs serviceStubs, List<String> virtualServerNames, boolean refresh) throws RemoteException, BadRequestException {
+        Set<String> allLoadBalancerNames = getStatsSystemLoadBalancerNames(config, serviceStubs, refresh);
+        List<String> loadBalancerNamesForHost = new ArrayList<String>();
+        for (String virtualServerName : virtualServerNames) {
+            if (allLoadBalancerNames.contains(virtualServerName)) {
+                loadBalancerNamesForHost.add(virtualServerName); // Get the intersection
+            }
+        }
+        return loadBalancerNamesForHost;
+    }
+
+    /*
+     * Listing every virtual server is the most expensive stats call, so it is kept for a short time
+     * per endpoint. The usage poller asks for one batch after the other, which means the listing is
+     * fetched once per host per poll instead of once per batch.
+     */
+    private Set<String> getStatsSystemLoadBalancerNames(LoadBalancerEndpointConfiguration config, ZxtmServiceStubs serviceStubs, boolean refresh) throws RemoteException {
+        final String endpoint = config.getEndpointUrl().toExternalForm();
+        VirtualServerListing listing = virtualServerListings.get(endpoint);
+
+        if (refresh || listing == null || listing.isExpired()) {
+            Set<String> loadBalancerNames = new HashSet<String>(Arrays.asList(serviceStubs.getSystemStatsBinding().getVirtualservers()));
+            listing = new VirtualServerListing(loadBalancerNames, System.currentTimeMillis() + virtualServerListingTtlMillis);
+            virtualServerListings.put(endpoint, listing);
+        }
+
+        return listing.names;
+    }
+
+    private static class VirtualServerListing {
+        private final Set<String> names;
+        private final long expiresAt;
+
+        public VirtualServerListing(Set<String> names, long expiresAt) {
+            this.names = Collections.unmodifiableSet(names);
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
     }
 }
@@ -0,0 +1,419 @@
+package org.openstack.atlas.adapter.zxtm.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.common.config.Configuration;
+import org.openstack.atlas.common.config.ConfigurationInitializationException;
+import org.openstack.atlas.common.config.LbConfiguration;
+
+import java.net.ConnectException;
+import java.net.URL;
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe, bounded pool of {@link ZxtmServiceStubs} keyed by endpoint url and credentials.
+ * <p/>
+ * Building the eleven Axis binding stubs is expensive, so sessions are handed out to one thread
+ * at a time and returned to the pool afterwards. Borrowing is reentrant: a thread that already
+ * holds a session for an endpoint gets the same session back, which lets adapter operations that
+ * call each other share a single session without exhausting the pool.
+ * <p/>
+ * At most maxActivePerEndpoint sessions are on loan per endpoint. A borrower that cannot get one
+ * within maxWaitMillis gets a RemoteException. A maxActivePerEndpoint of 0 or less removes the
+ * limit, so borrowers never wait.
+ */
+public class ZxtmServiceStubsPool {
+    private static final Log LOG = LogFactory.getLog(ZxtmServiceStubsPool.class);
+
+    public static final int DEFAULT_MAX_ACTIVE_PER_ENDPOINT = 16;
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 30000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 300000;
+    public static final long DEFAULT_VALIDATE_AFTER_IDLE_MILLIS = 60000;
+    public static final long DEFAULT_EVICTION_INTERVAL_MILLIS = 60000;
+
+    private static final ZxtmServiceStubsPool sharedPool = fromConfiguration(new LbConfiguration());
+
+    private final int maxActivePerEndpoint;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long validateAfterIdleMillis;
+
+    private final ConcurrentMap<PoolKey, EndpointPool> endpointPools = new ConcurrentHashMap<PoolKey, EndpointPool>();
+    private final ThreadLocal<Map<PoolKey, Lease>> leases = new ThreadLocal<Map<PoolKey, Lease>>() {
+        @Override
+        protected Map<PoolKey, Lease> initialValue() {
+            return new HashMap<PoolKey, Lease>();
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reentrantBorrows = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong healthCheckFailures = new AtomicLong();
+
+    public ZxtmServiceStubsPool() {
+        this(DEFAULT_MAX_ACTIVE_PER_ENDPOINT, DEFAULT_MAX_WAIT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_VALIDATE_AFTER_IDLE_MILLIS, DEFAULT_EVICTION_INTERVAL_MILLIS);
+    }
+
+    public ZxtmServiceStubsPool(int maxActivePerEndpoint, long maxWaitMillis, long idleTimeoutMillis, long validateAfterIdleMillis, long evictionIntervalMillis) {
+        this.maxActivePerEndpoint = maxActivePerEndpoint > 0 ? maxActivePerEndpoint : Integer.MAX_VALUE;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+
+        if (evictionIntervalMillis > 0) {
+            Timer evictionTimer = new Timer("zxtm-stubs-pool-evictor", true);
+            evictionTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    evictIdle();
+                }
+            }, evictionIntervalMillis, evictionIntervalMillis);
+        }
+    }
+
+    public static ZxtmServiceStubsPool getSharedPool() {
+        return sharedPool;
+    }
+
+    /**
+     * Creates a pool with the session limit and wait time of the configuration. Settings that are
+     * missing or invalid, or a configuration that cannot be read, fall back to the defaults.
+     */
+    public static ZxtmServiceStubsPool fromConfiguration(Configuration configuration) {
+        final long maxActivePerEndpoint = getConfiguredLong(configuration, ZxtmServiceStubsPoolConfigurationKeys.zxtm_stubs_pool_max_active_per_endpoint, DEFAULT_MAX_ACTIVE_PER_ENDPOINT);
+        final long maxWaitMillis = getConfiguredLong(configuration, ZxtmServiceStubsPoolConfigurationKeys.zxtm_stubs_pool_max_wait_millis, DEFAULT_MAX_WAIT_MILLIS);
+        return new ZxtmServiceStubsPool((int) Math.min(maxActivePerEndpoint, Integer.MAX_VALUE), maxWaitMillis, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_VALIDATE_AFTER_IDLE_MILLIS, DEFAULT_EVICTION_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Returns true if the fault was caused by the traffic manager being unreachable.
+     */
+    public static boolean isConnectionFailure(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException) {
+                return true;
+            }
+            if (t.getMessage() != null && t.getMessage().startsWith(ConnectException.class.getName())) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands out a session for the endpoint. Every call must be paired with {@link #release}.
+     */
+    public ZxtmServiceStubs borrow(URL endpoint, String username, String password) throws RemoteException {
+        final PoolKey key = new PoolKey(endpoint, username, password);
+        final Map<PoolKey, Lease> threadLeases = leases.get();
+
+        Lease lease = threadLeases.get(key);
+        if (lease != null) {
+            lease.holds++;
+            reentrantBorrows.incrementAndGet();
+            return lease.entry.stubs;
+        }
+
+        EndpointPool endpointPool = getEndpointPool(key);
+        acquirePermit(endpointPool, key);
+
+        try {
+            PooledStubs entry = pollUsable(endpointPool);
+            if (entry == null) {
+                misses.incrementAndGet();
+                entry = new PooledStubs(ZxtmServiceStubs.getServiceStubs(endpoint, username, password), endpointPool.generation.get());
+            } else {
+                hits.incrementAndGet();
+            }
+            threadLeases.put(key, new Lease(entry));
+            return entry.stubs;
+        } catch (RemoteException e) {
+            endpointPool.permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            endpointPool.permits.release();
+            throw e;
+        }
+    }
+
+    public void release(URL endpoint, String username, String password) {
+        final PoolKey key = new PoolKey(endpoint, username, password);
+        final Map<PoolKey, Lease> threadLeases = leases.get();
+        final Lease lease = threadLeases.get(key);
+
+        if (lease == null) {
+            LOG.warn(String.format("Release called for endpoint '%s' without a matching borrow. Ignoring...", key.endpoint));
+            return;
+        }
+
+        if (--lease.holds > 0) {
+            return;
+        }
+
+        threadLeases.remove(key);
+        EndpointPool endpointPool = getEndpointPool(key);
+        try {
+            if (lease.entry.generation == endpointPool.generation.get()) {
+                lease.entry.lastUsed = System.currentTimeMillis();
+                endpointPool.idle.offerFirst(lease.entry);
+            }
+        } finally {
+            endpointPool.permits.release();
+        }
+    }
+
+    /**
+     * Drops every idle session for the endpoint and makes sessions currently on loan
+     * non-returnable. Used when a connection failure marks the host bad.
+     */
+    public void invalidate(URL endpoint) {
+        final String endpointString = endpoint.toExternalForm();
+        for (Map.Entry<PoolKey, EndpointPool> poolEntry : endpointPools.entrySet()) {
+            if (poolEntry.getKey().endpoint.equals(endpointString)) {
+                EndpointPool endpointPool = poolEntry.getValue();
+                endpointPool.generation.incrementAndGet();
+                endpointPool.idle.clear();
+                invalidations.incrementAndGet();
+            }
+        }
+        LOG.info(String.format("Invalidated pooled ZXTM service stubs for endpoint '%s'.", endpointString));
+    }
+
+    public void evictIdle() {
+        final long now = System.currentTimeMillis();
+        for (EndpointPool endpointPool : endpointPools.values()) {
+            Iterator<PooledStubs> iterator = endpointPool.idle.iterator();
+            while (iterator.hasNext()) {
+                PooledStubs entry = iterator.next();
+                if (now - entry.lastUsed > idleTimeoutMillis && endpointPool.idle.remove(entry)) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int getMaxActivePerEndpoint() {
+        return maxActivePerEndpoint;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getReentrantBorrows() {
+        return reentrantBorrows.get();
+    }
+
+    public long getBorrowWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(borrowWaitNanos.get());
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public long getHealthCheckFailures() {
+        return healthCheckFailures.get();
+    }
+
+    public int getIdleCount() {
+        int idleCount = 0;
+        for (EndpointPool endpointPool : endpointPools.values()) {
+            idleCount += endpointPool.idle.size();
+        }
+        return idleCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ZxtmServiceStubsPool{hits=%d, misses=%d, reentrantBorrows=%d, borrowWaitMillis=%d, borrowTimeouts=%d, evictions=%d, invalidations=%d, healthCheckFailures=%d, idle=%d}",
+                getHits(), getMisses(), getReentrantBorrows(), getBorrowWaitMillis(), getBorrowTimeouts(), getEvictions(), getInvalidations(), getHealthCheckFailures(), getIdleCount());
+    }
+
+    /*
+     * *******************
+     * * PRIVATE METHODS *
+     * *******************
+     */
+
+    private static long getConfiguredLong(Configuration configuration, ZxtmServiceStubsPoolConfigurationKeys key, long defaultValue) {
+        String configuredValue;
+        try {
+            configuredValue = configuration.getString(key);
+        } catch (ConfigurationInitializationException e) {
+            LOG.warn(String.format("Could not read %s. Using default of %d.", key, defaultValue));
+            return defaultValue;
+        }
+
+        if (configuredValue == null || configuredValue.trim().equals("")) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(configuredValue.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn(String.format("Invalid value '%s' for %s. Using default of %d.", configuredValue, key, defaultValue));
+            return defaultValue;
+        }
+    }
+
+    private EndpointPool getEndpointPool(PoolKey key) {
+        EndpointPool endpointPool = endpointPools.get(key);
+        if (endpointPool == null) {
+            EndpointPool newPool = new EndpointPool(maxActivePerEndpoint);
+            endpointPool = endpointPools.putIfAbsent(key, newPool);
+            if (endpointPool == null) {
+                endpointPool = newPool;
+            }
+        }
+        return endpointPool;
+    }
+
+    private void acquirePermit(EndpointPool endpointPool, PoolKey key) throws RemoteException {
+        final long waitStart = System.nanoTime();
+        boolean acquired;
+
+        try {
+            acquired = endpointPool.permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException(String.format("Interrupted while waiting for ZXTM service stubs for endpoint '%s'.", key.endpoint), e);
+        } finally {
+            borrowWaitNanos.addAndGet(System.nanoTime() - waitStart);
+        }
+
+        if (!acquired) {
+            borrowTimeouts.incrementAndGet();
+            throw new RemoteException(String.format("Timed out after %d ms waiting for ZXTM service stubs for endpoint '%s'.", maxWaitMillis, key.endpoint));
+        }
+    }
+
+    private PooledStubs pollUsable(EndpointPool endpointPool) {
+        PooledStubs entry;
+        while ((entry = endpointPool.idle.pollFirst()) != null) {
+            final long idleMillis = System.currentTimeMillis() - entry.lastUsed;
+
+            if (entry.generation != endpointPool.generation.get() || idleMillis > idleTimeoutMillis) {
+                evictions.incrementAndGet();
+                continue;
+            }
+
+            if (idleMillis > validateAfterIdleMillis && !isHealthy(entry.stubs)) {
+                healthCheckFailures.incrementAndGet();
+                continue;
+            }
+
+            return entry;
+        }
+        return null;
+    }
+
+    private boolean isHealthy(ZxtmServiceStubs serviceStubs) {
+        try {
+            serviceStubs.getSystemMachineInfoBinding().getProductVersion();
+            return true;
+        } catch (RemoteException e) {
+            LOG.warn("Health check failed for pooled ZXTM service stubs. Discarding...", e);
+            return false;
+        }
+    }
+
+    private static class PoolKey {
+        private final String endpoint;
+        private final String username;
+        private final String password;
+
+        public PoolKey(URL endpoint, String username, String password) {
+            // URL.equals() resolves host names so the external form is used instead
+            this.endpoint = endpoint.toExternalForm();
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PoolKey)) return false;
+
+            PoolKey poolKey = (PoolKey) o;
+            if (!endpoint.equals(poolKey.endpoint)) return false;
+            if (username != null ? !username.equals(poolKey.username) : poolKey.username != null) return false;
+            if (password != null ? !password.equals(poolKey.password) : poolKey.password != null) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = endpoint.hashCode();
+            result = 31 * result + (username != null ? username.hashCode() : 0);
+            result = 31 * result + (password != null ? password.hashCode() : 0);
+            return result;
+        }
+    }
+
+    private static class EndpointPool {
+        private final Semaphore permits;
+        private final LinkedBlockingDeque<PooledStubs> idle = new LinkedBlockingDeque<PooledStubs>();
+        private final AtomicInteger generation = new AtomicInteger();
+
+        public EndpointPool(int maxActive) {
+            this.permits = new Semaphore(maxActive, true);
+        }
+    }
+
+    private static class PooledStubs {
+        private final ZxtmServiceStubs stubs;
+        private final int generation;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        public PooledStubs(ZxtmServiceStubs stubs, int generation) {
+            this.stubs = stubs;
+            this.generation = generation;
+        }
+    }
+
+    private static class Lease {
+        private final PooledStubs entry;
+        private int holds = 1;
+
+        public Lease(PooledStubs entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.openstack.atlas.adapter.zxtm.service;
+
+import org.openstack.atlas.common.config.ConfigurationKey;
+
+public enum ZxtmServiceStubsPoolConfigurationKeys implements ConfigurationKey {
+    zxtm_stubs_pool_max_active_per_endpoint,
+    zxtm_stubs_pool_max_wait_millis;
+}
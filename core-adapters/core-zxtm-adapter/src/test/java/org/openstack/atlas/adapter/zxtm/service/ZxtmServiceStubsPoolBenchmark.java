@@ -0,0 +1,94 @@
+package org.openstack.atlas.adapter.zxtm.service;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Compares building the ZXTM service stubs for every adapter call, as the adapters did before,
+ * with borrowing them from ZxtmServiceStubsPool. Only the session set up is measured, no SOAP
+ * call is made, so no traffic manager is needed.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dthreads=16 -Dcalls=20000 -cp ... org.openstack.atlas.adapter.zxtm.service.ZxtmServiceStubsPoolBenchmark
+ */
+public class ZxtmServiceStubsPoolBenchmark {
+    private static final String USERNAME = "username";
+    private static final String PASSWORD = "password";
+
+    public static void main(String[] args) throws Exception {
+        final int threads = Integer.getInteger("threads", 16);
+        final int calls = Integer.getInteger("calls", 20000);
+        final URL endpoint = new URL(System.getProperty("endpoint", "https://127.0.0.1:9090/soap"));
+        final ZxtmServiceStubsPool pool = new ZxtmServiceStubsPool(threads, ZxtmServiceStubsPool.DEFAULT_MAX_WAIT_MILLIS,
+                ZxtmServiceStubsPool.DEFAULT_IDLE_TIMEOUT_MILLIS, ZxtmServiceStubsPool.DEFAULT_VALIDATE_AFTER_IDLE_MILLIS, 0);
+
+        final Callable<ZxtmServiceStubs> perCall = new Callable<ZxtmServiceStubs>() {
+            @Override
+            public ZxtmServiceStubs call() throws Exception {
+                return ZxtmServiceStubs.getServiceStubs(endpoint, USERNAME, PASSWORD);
+            }
+        };
+        final Callable<ZxtmServiceStubs> pooled = new Callable<ZxtmServiceStubs>() {
+            @Override
+            public ZxtmServiceStubs call() throws Exception {
+                try {
+                    return pool.borrow(endpoint, USERNAME, PASSWORD);
+                } finally {
+                    pool.release(endpoint, USERNAME, PASSWORD);
+                }
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // Warm up both paths before measuring
+            run(executor, perCall, threads, calls / 10);
+            run(executor, pooled, threads, calls / 10);
+
+            report("stubs per call", run(executor, perCall, threads, calls), calls);
+            report("pooled stubs", run(executor, pooled, threads, calls), calls);
+            System.out.println(pool);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long run(ExecutorService executor, final Callable<ZxtmServiceStubs> session, int threads, final int calls) throws Exception {
+        final int callsPerThread = calls / threads;
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    int sessions = 0;
+                    for (int j = 0; j < callsPerThread; j++) {
+                        if (session.call() != null) sessions++;
+                    }
+                    return sessions;
+                }
+            }));
+        }
+
+        int sessions = 0;
+        for (Future<Integer> result : results) {
+            sessions += result.get();
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        if (sessions != callsPerThread * threads) {
+            throw new IllegalStateException(String.format("Expected %d sessions but got %d", callsPerThread * threads, sessions));
+        }
+        return totalNanos;
+    }
+
+    private static void report(String name, long totalNanos, int calls) {
+        System.out.println(String.format("%-15s %10.2f us per call, %10.0f calls/sec", name, totalNanos / 1000.0 / calls, calls / (totalNanos / 1000000000.0)));
+    }
+}
@@ -0,0 +1,363 @@
+package org.openstack.atlas.adapter.zxtm.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
+import org.openstack.atlas.adapter.exception.ConnectionException;
+import org.openstack.atlas.adapter.zxtm.ZxtmAdapterImpl;
+import org.openstack.atlas.common.config.Configuration;
+import org.openstack.atlas.common.config.ConfigurationInitializationException;
+import org.openstack.atlas.common.config.ConfigurationKey;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+
+import java.net.ConnectException;
+import java.net.URL;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Enclosed.class)
+public class ZxtmServiceStubsPoolTest {
+    // Nothing listens on port 1, so every SOAP call is refused right away
+    private static final String ENDPOINT = "http://127.0.0.1:1/soap";
+    private static final String USERNAME = "username";
+    private static final String PASSWORD = "password";
+    private static final long NEVER = TimeUnit.DAYS.toMillis(1);
+
+    public static class WhenBorrowing {
+        private URL endpoint;
+        private ZxtmServiceStubsPool pool;
+
+        @Before
+        public void standUp() throws Exception {
+            endpoint = new URL(ENDPOINT);
+            pool = new ZxtmServiceStubsPool(2, 1000, NEVER, NEVER, 0);
+        }
+
+        @Test
+        public void shouldReuseAReleasedSession() throws RemoteException {
+            ZxtmServiceStubs first = pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.release(endpoint, USERNAME, PASSWORD);
+            ZxtmServiceStubs second = pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            Assert.assertSame(first, second);
+            Assert.assertEquals(1, pool.getMisses());
+            Assert.assertEquals(1, pool.getHits());
+            Assert.assertEquals(1, pool.getIdleCount());
+        }
+
+        @Test
+        public void shouldHandTheSameSessionToANestedBorrowOfTheSameThread() throws RemoteException {
+            ZxtmServiceStubs outer = pool.borrow(endpoint, USERNAME, PASSWORD);
+            ZxtmServiceStubs inner = pool.borrow(endpoint, USERNAME, PASSWORD);
+
+            Assert.assertSame(outer, inner);
+            Assert.assertEquals(1, pool.getReentrantBorrows());
+
+            pool.release(endpoint, USERNAME, PASSWORD);
+            Assert.assertEquals("The outer borrow still holds the session", 0, pool.getIdleCount());
+
+            pool.release(endpoint, USERNAME, PASSWORD);
+            Assert.assertEquals(1, pool.getIdleCount());
+        }
+
+        @Test
+        public void shouldNotUseAPermitForANestedBorrow() throws Exception {
+            ZxtmServiceStubsPool singleSessionPool = new ZxtmServiceStubsPool(1, 50, NEVER, NEVER, 0);
+            singleSessionPool.borrow(endpoint, USERNAME, PASSWORD);
+            singleSessionPool.borrow(endpoint, USERNAME, PASSWORD);
+            singleSessionPool.release(endpoint, USERNAME, PASSWORD);
+            singleSessionPool.release(endpoint, USERNAME, PASSWORD);
+
+            Assert.assertEquals(0, singleSessionPool.getBorrowTimeouts());
+        }
+
+        @Test
+        public void shouldGiveAnotherThreadItsOwnSession() throws Exception {
+            final ZxtmServiceStubs own = pool.borrow(endpoint, USERNAME, PASSWORD);
+            try {
+                ZxtmServiceStubs other = borrowAndReleaseOnAnotherThread(pool, endpoint).get();
+                Assert.assertNotSame(own, other);
+            } finally {
+                pool.release(endpoint, USERNAME, PASSWORD);
+            }
+        }
+
+        @Test
+        public void shouldKeepSeparateSessionsPerCredentials() throws RemoteException {
+            ZxtmServiceStubs first = pool.borrow(endpoint, USERNAME, PASSWORD);
+            ZxtmServiceStubs second = pool.borrow(endpoint, USERNAME, "other");
+
+            Assert.assertNotSame(first, second);
+            Assert.assertEquals(0, pool.getReentrantBorrows());
+            pool.release(endpoint, USERNAME, "other");
+            pool.release(endpoint, USERNAME, PASSWORD);
+        }
+
+        @Test
+        public void shouldIgnoreAReleaseWithoutABorrow() {
+            pool.release(endpoint, USERNAME, PASSWORD);
+            Assert.assertEquals(0, pool.getIdleCount());
+        }
+    }
+
+    public static class WhenTheEndpointLimitIsReached {
+        private URL endpoint;
+
+        @Before
+        public void standUp() throws Exception {
+            endpoint = new URL(ENDPOINT);
+        }
+
+        @Test
+        public void shouldThrowOnceTheWaitIsOver() throws Exception {
+            ZxtmServiceStubsPool pool = new ZxtmServiceStubsPool(1, 50, NEVER, NEVER, 0);
+            pool.borrow(endpoint, USERNAME, PASSWORD);
+            try {
+                borrowAndReleaseOnAnotherThread(pool, endpoint).get();
+                Assert.fail("Expected a RemoteException");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RemoteException);
+            } finally {
+                pool.release(endpoint, USERNAME, PASSWORD);
+            }
+
+            Assert.assertEquals(1, pool.getBorrowTimeouts());
+        }
+
+        @Test
+        public void shouldHandOutTheSessionOnceItIsReleased() throws Exception {
+            ZxtmServiceStubsPool pool = new ZxtmServiceStubsPool(1, 5000, NEVER, NEVER, 0);
+            ZxtmServiceStubs own = pool.borrow(endpoint, USERNAME, PASSWORD);
+            Future<ZxtmServiceStubs> other = borrowAndReleaseOnAnotherThread(pool, endpoint);
+
+            Thread.sleep(20);
+            Assert.assertFalse(other.isDone());
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            Assert.assertSame(own, other.get());
+            Assert.assertEquals(0, pool.getBorrowTimeouts());
+        }
+
+        @Test
+        public void shouldNotWaitWithoutALimit() throws Exception {
+            ZxtmServiceStubsPool pool = new ZxtmServiceStubsPool(0, 50, NEVER, NEVER, 0);
+            pool.borrow(endpoint, USERNAME, PASSWORD);
+            try {
+                for (int i = 0; i < 20; i++) {
+                    borrowAndReleaseOnAnotherThread(pool, endpoint).get();
+                }
+            } finally {
+                pool.release(endpoint, USERNAME, PASSWORD);
+            }
+
+            Assert.assertEquals(Integer.MAX_VALUE, pool.getMaxActivePerEndpoint());
+            Assert.assertEquals(0, pool.getBorrowTimeouts());
+        }
+    }
+
+    public static class WhenInvalidating {
+        private URL endpoint;
+        private ZxtmServiceStubsPool pool;
+
+        @Before
+        public void standUp() throws Exception {
+            endpoint = new URL(ENDPOINT);
+            pool = new ZxtmServiceStubsPool(2, 1000, NEVER, NEVER, 0);
+        }
+
+        @Test
+        public void shouldDropTheIdleSessions() throws RemoteException {
+            ZxtmServiceStubs first = pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            pool.invalidate(endpoint);
+            Assert.assertEquals(0, pool.getIdleCount());
+
+            Assert.assertNotSame(first, pool.borrow(endpoint, USERNAME, PASSWORD));
+            pool.release(endpoint, USERNAME, PASSWORD);
+        }
+
+        @Test
+        public void shouldNotTakeBackASessionThatWasOnLoan() throws RemoteException {
+            pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.invalidate(endpoint);
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            Assert.assertEquals(0, pool.getIdleCount());
+            Assert.assertEquals(1, pool.getInvalidations());
+        }
+
+        @Test
+        public void shouldInvalidateWhenAnAdapterCallCannotConnect() throws Exception {
+            ZxtmAdapterImpl adapter = new ZxtmAdapterImpl();
+            adapter.setServiceStubsPool(pool);
+
+            Host soapEndpoint = new Host();
+            soapEndpoint.setName("unreachable");
+            soapEndpoint.setEndpoint(ENDPOINT);
+            LoadBalancerEndpointConfiguration config = new LoadBalancerEndpointConfiguration(soapEndpoint, USERNAME, PASSWORD, soapEndpoint, new ArrayList<String>());
+
+            LoadBalancer lb = new LoadBalancer();
+            lb.setId(1);
+            lb.setAccountId(1);
+
+            try {
+                adapter.deleteLoadBalancer(config, lb);
+                Assert.fail("Expected a ConnectionException");
+            } catch (ConnectionException expected) {
+            }
+
+            Assert.assertEquals(1, pool.getInvalidations());
+            Assert.assertEquals(0, pool.getIdleCount());
+        }
+
+        @Test
+        public void shouldRecognizeAConnectionFailureInTheCauseChain() {
+            Assert.assertTrue(ZxtmServiceStubsPool.isConnectionFailure(new RemoteException("wrapped", new ConnectException("Connection refused"))));
+            Assert.assertTrue(ZxtmServiceStubsPool.isConnectionFailure(new RemoteException("java.net.ConnectException: Connection refused")));
+            Assert.assertFalse(ZxtmServiceStubsPool.isConnectionFailure(new RemoteException("ObjectDoesNotExist")));
+        }
+    }
+
+    public static class WhenSessionsSitIdle {
+        private URL endpoint;
+
+        @Before
+        public void standUp() throws Exception {
+            endpoint = new URL(ENDPOINT);
+        }
+
+        @Test
+        public void shouldEvictSessionsPastTheIdleTimeout() throws Exception {
+            ZxtmServiceStubsPool pool = new ZxtmServiceStubsPool(2, 1000, 1, NEVER, 0);
+            pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            Thread.sleep(10);
+            pool.evictIdle();
+
+            Assert.assertEquals(0, pool.getIdleCount());
+            Assert.assertEquals(1, pool.getEvictions());
+        }
+
+        @Test
+        public void shouldKeepSessionsWithinTheIdleTimeout() throws Exception {
+            ZxtmServiceStubsPool pool = new ZxtmServiceStubsPool(2, 1000, NEVER, NEVER, 0);
+            pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            pool.evictIdle();
+
+            Assert.assertEquals(1, pool.getIdleCount());
+            Assert.assertEquals(0, pool.getEvictions());
+        }
+
+        @Test
+        public void shouldDiscardASessionThatFailsItsHealthCheck() throws Exception {
+            ZxtmServiceStubsPool pool = new ZxtmServiceStubsPool(2, 1000, NEVER, 1, 0);
+            ZxtmServiceStubs first = pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            Thread.sleep(10);
+            ZxtmServiceStubs second = pool.borrow(endpoint, USERNAME, PASSWORD);
+            pool.release(endpoint, USERNAME, PASSWORD);
+
+            Assert.assertNotSame(first, second);
+            Assert.assertEquals(1, pool.getHealthCheckFailures());
+        }
+    }
+
+    public static class WhenReadingTheConfiguration {
+
+        @Test
+        public void shouldUseTheConfiguredLimitAndWait() {
+            Map<String, String> values = new HashMap<String, String>();
+            values.put(ZxtmServiceStubsPoolConfigurationKeys.zxtm_stubs_pool_max_active_per_endpoint.name(), "4");
+            values.put(ZxtmServiceStubsPoolConfigurationKeys.zxtm_stubs_pool_max_wait_millis.name(), "500");
+
+            ZxtmServiceStubsPool pool = ZxtmServiceStubsPool.fromConfiguration(new FixedConfiguration(values));
+            Assert.assertEquals(4, pool.getMaxActivePerEndpoint());
+            Assert.assertEquals(500, pool.getMaxWaitMillis());
+        }
+
+        @Test
+        public void shouldRemoveTheLimitWhenConfiguredAsZero() {
+            Map<String, String> values = new HashMap<String, String>();
+            values.put(ZxtmServiceStubsPoolConfigurationKeys.zxtm_stubs_pool_max_active_per_endpoint.name(), "0");
+
+            Assert.assertEquals(Integer.MAX_VALUE, ZxtmServiceStubsPool.fromConfiguration(new FixedConfiguration(values)).getMaxActivePerEndpoint());
+        }
+
+        @Test
+        public void shouldFallBackToTheDefaultsForMissingOrInvalidValues() {
+            Map<String, String> values = new HashMap<String, String>();
+            values.put(ZxtmServiceStubsPoolConfigurationKeys.zxtm_stubs_pool_max_wait_millis.name(), "soon");
+
+            ZxtmServiceStubsPool pool = ZxtmServiceStubsPool.fromConfiguration(new FixedConfiguration(values));
+            Assert.assertEquals(ZxtmServiceStubsPool.DEFAULT_MAX_ACTIVE_PER_ENDPOINT, pool.getMaxActivePerEndpoint());
+            Assert.assertEquals(ZxtmServiceStubsPool.DEFAULT_MAX_WAIT_MILLIS, pool.getMaxWaitMillis());
+        }
+
+        @Test
+        public void shouldFallBackToTheDefaultsWhenTheConfigurationCannotBeRead() {
+            ZxtmServiceStubsPool pool = ZxtmServiceStubsPool.fromConfiguration(new FixedConfiguration(null));
+            Assert.assertEquals(ZxtmServiceStubsPool.DEFAULT_MAX_ACTIVE_PER_ENDPOINT, pool.getMaxActivePerEndpoint());
+            Assert.assertEquals(ZxtmServiceStubsPool.DEFAULT_MAX_WAIT_MILLIS, pool.getMaxWaitMillis());
+        }
+    }
+
+    private static Future<ZxtmServiceStubs> borrowAndReleaseOnAnotherThread(final ZxtmServiceStubsPool pool, final URL endpoint) {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(new Callable<ZxtmServiceStubs>() {
+                @Override
+                public ZxtmServiceStubs call() throws Exception {
+                    ZxtmServiceStubs serviceStubs = pool.borrow(endpoint, USERNAME, PASSWORD);
+                    pool.release(endpoint, USERNAME, PASSWORD);
+                    return serviceStubs;
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * Answers from a fixed map of values, or fails every read when there is none.
+     */
+    private static class FixedConfiguration implements Configuration {
+        private final Map<String, String> values;
+
+        FixedConfiguration(Map<String, String> values) {
+            this.values = values;
+        }
+
+        @Override
+        public String getString(ConfigurationKey key) throws ConfigurationInitializationException {
+            if (values == null) throw new ConfigurationInitializationException("No configuration");
+            return values.get(key.name());
+        }
+
+        @Override
+        public boolean hasKeys(ConfigurationKey... keys) throws ConfigurationInitializationException {
+            if (values == null) throw new ConfigurationInitializationException("No configuration");
+            for (ConfigurationKey key : keys) {
+                if (!values.containsKey(key.name())) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package org.openstack.atlas.api.async;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.api.integration.AsyncMessageCodec;
 import org.openstack.atlas.api.integration.ReverseProxyLoadBalancerService;
+import org.openstack.atlas.common.config.Configuration;
 import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.event.UsageEvent;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
@@ -23,6 +25,9 @@ public abstract class BaseListener implements MessageListener {
     @Autowired
     protected ReverseProxyLoadBalancerService reverseProxyLoadBalancerService;
 
+    @Autowired
+    protected Configuration configuration;
+
     public final void onMessage(Message message) {
         try {
             doOnMessage(message);
@@ -34,17 +39,17 @@ public abstract class BaseListener implements MessageListener {
     public abstract void doOnMessage(Message message) throws Exception;
 
     protected MessageDataContainer getDataContainerFromMessage(Message message) throws JMSException {
-        ObjectMessage object = (ObjectMessage) message;
-        return (MessageDataContainer) object.getObject();
+        return AsyncMessageCodec.readDataContainer(message);
     }
 
     protected void notifyUsageProcessor(final Message message, final LoadBalancer loadBalancer, final UsageEvent event) throws JMSException {
         LOG.debug("Sending notification to usage processor...");
         final String finalDestination = "USAGE_EVENT";
+        final boolean bytesMessageFormat = AsyncMessageCodec.isBytesMessageFormat(configuration);
         jmsTemplate.send(finalDestination, new MessageCreator() {
 
             public Message createMessage(Session session) throws JMSException {
-                ObjectMessage response = session.createObjectMessage(loadBalancer);
+                Message response = AsyncMessageCodec.createMessage(session, loadBalancer, bytesMessageFormat);
                 response.setJMSCorrelationID(message.getJMSCorrelationID());
                 response.setObjectProperty("usageEvent", event.toString());
                 return response;
@@ -10,6 +10,7 @@ import org.openstack.atlas.service.domain.event.UsageEvent;
 import org.openstack.atlas.service.domain.event.entity.EventType;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.service.LoadBalancerService;
 import org.openstack.atlas.service.domain.service.NotificationService;
@@ -60,7 +61,7 @@ public class CreateLoadBalancerListener extends BaseListener {
             lbid = queueLb.getId();
             accountId = queueLb.getAccountId();
 
-            dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(lbid, accountId);
+            dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(lbid, accountId, LoadBalancerFetchPlan.ADAPTER);
         } catch (EntityNotFoundException e) {
             LOG.error("Error retrieving loadbalancer from DB");
             String alertDescription = String.format("Load balancer '%d' not found in database.", queueLb.getId());
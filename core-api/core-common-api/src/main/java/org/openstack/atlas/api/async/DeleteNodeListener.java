@@ -8,6 +8,7 @@ import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.entity.Node;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.repository.NodeRepository;
 import org.openstack.atlas.service.domain.service.NotificationService;
@@ -46,7 +47,7 @@ public class DeleteNodeListener extends BaseListener {
         MessageDataContainer msg = getDataContainerFromMessage(message);
         LoadBalancer dbLoadBalancer;
         try {
-            dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(msg.getLoadBalancerId(), msg.getAccountId());
+            dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(msg.getLoadBalancerId(), msg.getAccountId(), LoadBalancerFetchPlan.ADAPTER);
         } catch (EntityNotFoundException enfe) {
             String alertDescription = String.format("Load balancer '%d' not found in database.", msg.getLoadBalancerId());
             LOG.error(alertDescription, enfe);
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ConfigHelper {
+    private static final Configuration configuration = new RestApiConfiguration();
 
     public static List<String> getPluginsFromConfiguration() {
         String enabledAdapter = getAdapterFromConfiguration();
@@ -30,13 +31,11 @@ public class ConfigHelper {
     }
 
     public static String getAdapterFromConfiguration() {
-        Configuration configuration = new RestApiConfiguration();
         return configuration.getString(PublicApiServiceConfigurationKeys.adapter);
     }
 
     public static List<String> getExtensionPrefixesFromConfiguration() {
         List<String> enabledExtensions = new ArrayList<String>();
-        Configuration configuration = new RestApiConfiguration();
         String extensions = configuration.getString(PublicApiServiceConfigurationKeys.extensions);
 
         if (extensions == null || extensions.equals("")) return enabledExtensions;
@@ -18,5 +18,7 @@ public enum PublicApiServiceConfigurationKeys implements ConfigurationKey {
     access_log_file_location,
     usage_timezone_code,
     adapter,
+    endpoint_config_cache_ttl_seconds,
+    async_message_format,
     extensions;
 }
@@ -0,0 +1,233 @@
+package org.openstack.atlas.api.integration;
+
+import org.hibernate.Hibernate;
+import org.openstack.atlas.api.config.PublicApiServiceConfigurationKeys;
+import org.openstack.atlas.common.config.Configuration;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.entity.Node;
+import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.ObjectMessage;
+import javax.jms.Session;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Writes the data of asynchronous operations as a versioned BytesMessage carrying only what the listeners
+ * use: the ids, the user name, the fields a request changes and the nodes it adds or updates. Listeners
+ * load everything else from the database, so the host, cluster, virtual ips and usage of the load balancer
+ * are left out. Messages are read back whether they are in this format or are ObjectMessages written
+ * before it, so messages still on the queues during an upgrade are processed.
+ *
+ * Messages are only written in this format when async_message_format is set to "bytes". Until then
+ * they stay ObjectMessages, so that listeners and USAGE_EVENT consumers are upgraded before any of
+ * them is sent a BytesMessage. Containers holding a resource other than a load balancer are always
+ * sent as ObjectMessages.
+ */
+public final class AsyncMessageCodec {
+    public static final byte VERSION = 1;
+    public static final String OBJECT_MESSAGE_FORMAT = "object";
+    public static final String BYTES_MESSAGE_FORMAT = "bytes";
+
+    private static final int HAS_ACCOUNT_ID = 1;
+    private static final int HAS_LOAD_BALANCER_ID = 1 << 1;
+    private static final int HAS_RESOURCE_ID = 1 << 2;
+    private static final int HAS_IDS = 1 << 3;
+    private static final int HAS_USER_NAME = 1 << 4;
+    private static final int HAS_LOAD_BALANCER = 1 << 5;
+
+    private AsyncMessageCodec() {
+    }
+
+    public static boolean canEncode(MessageDataContainer dataContainer) {
+        return dataContainer.getResource() == null || dataContainer.getResource() instanceof LoadBalancer;
+    }
+
+    /*
+     * Read on every send so the format can be switched without a restart once every reader is upgraded.
+     */
+    public static boolean isBytesMessageFormat(Configuration configuration) {
+        String format = configuration.getString(PublicApiServiceConfigurationKeys.async_message_format);
+        return format != null && BYTES_MESSAGE_FORMAT.equalsIgnoreCase(format.trim());
+    }
+
+    public static Message createMessage(Session session, MessageDataContainer dataContainer, boolean bytesMessageFormat) throws JMSException {
+        if (!bytesMessageFormat || !canEncode(dataContainer)) {
+            return session.createObjectMessage(dataContainer);
+        }
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(encode(dataContainer));
+        return message;
+    }
+
+    public static Message createMessage(Session session, LoadBalancer loadBalancer, boolean bytesMessageFormat) throws JMSException {
+        if (!bytesMessageFormat) {
+            return session.createObjectMessage(loadBalancer);
+        }
+        MessageDataContainer dataContainer = new MessageDataContainer();
+        dataContainer.setLoadBalancer(loadBalancer);
+        return createMessage(session, dataContainer, true);
+    }
+
+    public static MessageDataContainer readDataContainer(Message message) throws JMSException {
+        if (message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(body);
+            return decode(body);
+        }
+        Object object = ((ObjectMessage) message).getObject();
+        if (object instanceof LoadBalancer) {
+            MessageDataContainer dataContainer = new MessageDataContainer();
+            dataContainer.setLoadBalancer((LoadBalancer) object);
+            return dataContainer;
+        }
+        return (MessageDataContainer) object;
+    }
+
+    public static LoadBalancer readLoadBalancer(Message message) throws JMSException {
+        return readDataContainer(message).getLoadBalancer();
+    }
+
+    public static byte[] encode(MessageDataContainer dataContainer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            // Reads the typed getters, not the shared resource fields, so subclasses overriding them are honoured
+            LoadBalancer loadBalancer = dataContainer.getLoadBalancer();
+            List<Integer> ids = dataContainer.getIds();
+            int flags = (dataContainer.getAccountId() != null ? HAS_ACCOUNT_ID : 0)
+                    | (dataContainer.getLoadBalancerId() != null ? HAS_LOAD_BALANCER_ID : 0)
+                    | (dataContainer.getNodeId() != null ? HAS_RESOURCE_ID : 0)
+                    | (!ids.isEmpty() ? HAS_IDS : 0)
+                    | (dataContainer.getUserName() != null ? HAS_USER_NAME : 0)
+                    | (loadBalancer != null ? HAS_LOAD_BALANCER : 0);
+
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            if ((flags & HAS_ACCOUNT_ID) != 0) out.writeInt(dataContainer.getAccountId());
+            if ((flags & HAS_LOAD_BALANCER_ID) != 0) out.writeInt(dataContainer.getLoadBalancerId());
+            if ((flags & HAS_RESOURCE_ID) != 0) out.writeInt(dataContainer.getNodeId());
+            if ((flags & HAS_IDS) != 0) {
+                out.writeInt(ids.size());
+                for (Integer id : ids) out.writeInt(id);
+            }
+            if ((flags & HAS_USER_NAME) != 0) out.writeUTF(dataContainer.getUserName());
+            if ((flags & HAS_LOAD_BALANCER) != 0) encodeLoadBalancer(out, loadBalancer);
+            out.flush();
+        } catch (IOException e) {
+            // Not thrown by a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static MessageDataContainer decode(byte[] body) throws JMSException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        try {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new JMSException(String.format("Unsupported async message version %d", version));
+            }
+            int flags = in.readByte();
+
+            MessageDataContainer dataContainer = new MessageDataContainer();
+            if ((flags & HAS_ACCOUNT_ID) != 0) dataContainer.setAccountId(in.readInt());
+            if ((flags & HAS_LOAD_BALANCER_ID) != 0) dataContainer.setLoadBalancerId(in.readInt());
+            if ((flags & HAS_RESOURCE_ID) != 0) dataContainer.setNodeId(in.readInt());
+            if ((flags & HAS_IDS) != 0) {
+                int count = in.readInt();
+                List<Integer> ids = dataContainer.getIds();
+                for (int i = 0; i < count; i++) ids.add(in.readInt());
+            }
+            if ((flags & HAS_USER_NAME) != 0) dataContainer.setUserName(in.readUTF());
+            if ((flags & HAS_LOAD_BALANCER) != 0) dataContainer.setLoadBalancer(decodeLoadBalancer(in));
+            return dataContainer;
+        } catch (IOException e) {
+            JMSException jmsException = new JMSException("Malformed async message");
+            jmsException.setLinkedException(e);
+            throw jmsException;
+        }
+    }
+
+    private static void encodeLoadBalancer(DataOutputStream out, LoadBalancer loadBalancer) throws IOException {
+        writeInteger(out, loadBalancer.getId());
+        writeInteger(out, loadBalancer.getAccountId());
+        writeString(out, loadBalancer.getUserName());
+        writeString(out, loadBalancer.getName());
+        writeString(out, loadBalancer.getAlgorithm());
+        writeString(out, loadBalancer.getProtocol());
+        writeInteger(out, loadBalancer.getPort());
+
+        // Java serialization wrote unloaded node collections as is, the listeners never read them
+        Collection<Node> nodes = Hibernate.isInitialized(loadBalancer.getNodes()) ? loadBalancer.getNodes() : Collections.<Node>emptySet();
+        out.writeInt(nodes.size());
+        for (Node node : nodes) {
+            writeInteger(out, node.getId());
+            writeString(out, node.getAddress());
+            writeInteger(out, node.getPort());
+            writeInteger(out, node.getWeight());
+            out.writeByte(node.isEnabled() == null ? -1 : node.isEnabled() ? 1 : 0);
+            writeString(out, node.getStatus());
+            out.writeBoolean(node.isToBeUpdated());
+        }
+    }
+
+    private static LoadBalancer decodeLoadBalancer(DataInputStream in) throws IOException {
+        LoadBalancer loadBalancer = new LoadBalancer();
+        loadBalancer.setId(readInteger(in));
+        loadBalancer.setAccountId(readInteger(in));
+        loadBalancer.setUserName(readString(in));
+        loadBalancer.setName(readString(in));
+        // Validating setters, a missing value keeps the default like it would after Java deserialization
+        String algorithm = readString(in);
+        if (algorithm != null) loadBalancer.setAlgorithm(algorithm);
+        String protocol = readString(in);
+        if (protocol != null) loadBalancer.setProtocol(protocol);
+        loadBalancer.setPort(readInteger(in));
+
+        int nodeCount = in.readInt();
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = new Node();
+            node.setId(readInteger(in));
+            node.setAddress(readString(in));
+            node.setPort(readInteger(in));
+            node.setWeight(readInteger(in));
+            byte enabled = in.readByte();
+            node.setEnabled(enabled < 0 ? null : enabled == 1);
+            String status = readString(in);
+            if (status != null) node.setStatus(status);
+            node.setToBeUpdated(in.readBoolean());
+            node.setLoadBalancer(loadBalancer);
+            loadBalancer.getNodes().add(node);
+        }
+        return loadBalancer;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeInt(value);
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -2,6 +2,7 @@ package org.openstack.atlas.api.integration;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.common.config.Configuration;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,13 +20,16 @@ public class AsyncServiceImpl implements AsyncService {
 
     @Autowired
     private JmsTemplate jmsTemplate;
+    @Autowired
+    private Configuration configuration;
 
     @Override
     public void callAsyncLoadBalancingOperation(Operation operation, final MessageDataContainer dataContainer) throws JMSException {
         LOG.debug(String.format("Sending message to '%s' queue...", operation.name()));
+        final boolean bytesMessageFormat = AsyncMessageCodec.isBytesMessageFormat(configuration);
         jmsTemplate.send(operation.name(), new MessageCreator() {
             public Message createMessage(Session session) throws JMSException {
-                return session.createObjectMessage(dataContainer);
+                return AsyncMessageCodec.createMessage(session, dataContainer, bytesMessageFormat);
             }
         });
     }
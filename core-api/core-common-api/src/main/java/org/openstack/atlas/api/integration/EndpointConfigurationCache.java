@@ -0,0 +1,240 @@
+package org.openstack.atlas.api.integration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
+import org.openstack.atlas.api.config.PublicApiServiceConfigurationKeys;
+import org.openstack.atlas.common.config.Configuration;
+import org.openstack.atlas.common.crypto.CryptoUtil;
+import org.openstack.atlas.common.crypto.exception.DecryptException;
+import org.openstack.atlas.service.domain.entity.Cluster;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.event.HostChangedEvent;
+import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
+import org.openstack.atlas.service.domain.repository.HostRepository;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
+import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the adapter endpoint configuration so that JMS driven operations do not have to
+ * load the load balancer, look up the cluster endpoint, the failover hosts and decrypt the
+ * cluster password on every call.
+ * <p/>
+ * Cluster level data (endpoint host, failover hosts and decrypted credentials) is cached per
+ * cluster; load balancers are mapped to their host through a separate index. Both expire after
+ * a configurable TTL, and a cluster is dropped whenever one of its hosts is written through
+ * HostRepository, once more after that write commits.
+ * <p/>
+ * The cached hosts are shared between threads and must not be modified.
+ */
+@Component
+public class EndpointConfigurationCache implements ApplicationListener<HostChangedEvent> {
+    private final Log LOG = LogFactory.getLog(EndpointConfigurationCache.class);
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    @Autowired
+    private Configuration configuration;
+    @Autowired
+    private LoadBalancerRepository loadBalancerRepository;
+    @Autowired
+    private HostRepository hostRepository;
+
+    private volatile Long ttlMillis;
+
+    private final ConcurrentMap<Integer, ClusterEntry> clusterEntries = new ConcurrentHashMap<Integer, ClusterEntry>();
+    private final ConcurrentMap<Integer, HostEntry> loadBalancerHostIndex = new ConcurrentHashMap<Integer, HostEntry>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public LoadBalancerEndpointConfiguration getConfigByLoadBalancerId(Integer lbId) throws EntityNotFoundException, DecryptException {
+        final Host host = getHostForLoadBalancer(lbId);
+        final Integer clusterId = host.getCluster().getId();
+
+        ClusterEntry clusterEntry = clusterEntries.get(clusterId);
+        if (clusterEntry == null || clusterEntry.isExpired()) {
+            misses.incrementAndGet();
+            clusterEntry = loadClusterEntry(host.getCluster());
+            clusterEntries.put(clusterId, clusterEntry);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        if (clusterEntry.endpointHost == null) {
+            // Do not keep a cluster without endpoints around, one may come back at any time.
+            clusterEntries.remove(clusterId, clusterEntry);
+            throw new EntityNotFoundException(String.format("No active endpoint found for cluster %d.", clusterId));
+        }
+
+        return new LoadBalancerEndpointConfiguration(clusterEntry.endpointHost, clusterEntry.username, clusterEntry.password, host, clusterEntry.failoverHostNames, clusterEntry.logFileLocation);
+    }
+
+    @Override
+    public void onApplicationEvent(final HostChangedEvent event) {
+        invalidateCluster(event.getClusterId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A load racing with the write can still have cached the old host, drop it again once committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateCluster(event.getClusterId());
+                }
+            });
+        }
+    }
+
+    public void invalidateCluster(Integer clusterId) {
+        if (clusterId == null) {
+            invalidateAll();
+            return;
+        }
+
+        clusterEntries.remove(clusterId);
+
+        Iterator<HostEntry> iterator = loadBalancerHostIndex.values().iterator();
+        while (iterator.hasNext()) {
+            if (clusterId.equals(iterator.next().clusterId)) {
+                iterator.remove();
+            }
+        }
+
+        invalidations.incrementAndGet();
+        LOG.info(String.format("Invalidated cached endpoint configuration for cluster %d.", clusterId));
+    }
+
+    public void invalidateLoadBalancer(Integer lbId) {
+        loadBalancerHostIndex.remove(lbId);
+    }
+
+    public void invalidateAll() {
+        clusterEntries.clear();
+        loadBalancerHostIndex.clear();
+        invalidations.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public int getClusterCount() {
+        return clusterEntries.size();
+    }
+
+    public int getLoadBalancerIndexSize() {
+        return loadBalancerHostIndex.size();
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EndpointConfigurationCache{hits=%d, misses=%d, invalidations=%d, clusters=%d, loadBalancers=%d}",
+                getHits(), getMisses(), getInvalidations(), getClusterCount(), getLoadBalancerIndexSize());
+    }
+
+    private Host getHostForLoadBalancer(Integer lbId) throws EntityNotFoundException {
+        HostEntry hostEntry = loadBalancerHostIndex.get(lbId);
+        if (hostEntry != null && !hostEntry.isExpired()) {
+            return hostEntry.host;
+        }
+
+        LoadBalancer loadBalancer = loadBalancerRepository.getById(lbId, LoadBalancerFetchPlan.HOST);
+        Host host = loadBalancer.getHost();
+        loadBalancerHostIndex.put(lbId, new HostEntry(host, expiresAt()));
+        return host;
+    }
+
+    private ClusterEntry loadClusterEntry(Cluster cluster) throws DecryptException {
+        Host endpointHost = hostRepository.getEndPointHost(cluster.getId());
+        List<String> failoverHosts = hostRepository.getFailoverHostNames(cluster.getId());
+        String logFileLocation = configuration.getString(PublicApiServiceConfigurationKeys.access_log_file_location);
+        return new ClusterEntry(endpointHost, failoverHosts, cluster.getUsername(), decrypt(cluster.getPassword()), logFileLocation, expiresAt());
+    }
+
+    private String decrypt(String encrypted) throws DecryptException {
+        // CryptoUtil keeps a bounded cache of decrypted values
+        return CryptoUtil.decrypt(encrypted);
+    }
+
+    private long expiresAt() {
+        return System.currentTimeMillis() + getTtlMillis();
+    }
+
+    private long getTtlMillis() {
+        if (ttlMillis == null) {
+            long ttlSeconds = DEFAULT_TTL_SECONDS;
+            String configuredTtl = configuration.getString(PublicApiServiceConfigurationKeys.endpoint_config_cache_ttl_seconds);
+            if (configuredTtl != null && !configuredTtl.trim().equals("")) {
+                try {
+                    ttlSeconds = Long.parseLong(configuredTtl.trim());
+                } catch (NumberFormatException e) {
+                    LOG.warn(String.format("Invalid value '%s' for %s. Using default of %d seconds.", configuredTtl, PublicApiServiceConfigurationKeys.endpoint_config_cache_ttl_seconds, DEFAULT_TTL_SECONDS));
+                }
+            }
+            ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+        return ttlMillis;
+    }
+
+    private static class ClusterEntry {
+        private final Host endpointHost;
+        private final List<String> failoverHostNames;
+        private final String username;
+        private final String password;
+        private final String logFileLocation;
+        private final long expiresAt;
+
+        public ClusterEntry(Host endpointHost, List<String> failoverHostNames, String username, String password, String logFileLocation, long expiresAt) {
+            this.endpointHost = endpointHost;
+            this.failoverHostNames = failoverHostNames;
+            this.username = username;
+            this.password = password;
+            this.logFileLocation = logFileLocation;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+
+    private static class HostEntry {
+        private final Host host;
+        private final Integer clusterId;
+        private final long expiresAt;
+
+        public HostEntry(Host host, long expiresAt) {
+            this.host = host;
+            this.clusterId = host.getCluster().getId();
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -6,35 +6,27 @@ import org.openstack.atlas.adapter.LoadBalancerAdapter;
 import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
 import org.openstack.atlas.adapter.exception.AdapterException;
 import org.openstack.atlas.adapter.exception.ConnectionException;
-import org.openstack.atlas.api.config.PublicApiServiceConfigurationKeys;
-import org.openstack.atlas.common.config.Configuration;
-import org.openstack.atlas.common.crypto.CryptoUtil;
 import org.openstack.atlas.common.crypto.exception.DecryptException;
 import org.openstack.atlas.service.domain.entity.*;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.repository.HostRepository;
-import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.net.MalformedURLException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 @Service
 public class ReverseProxyLoadBalancerServiceImpl implements ReverseProxyLoadBalancerService {
     private final Log LOG = LogFactory.getLog(ReverseProxyLoadBalancerServiceImpl.class);
 
-    @Autowired
-    private Configuration configuration;
     @Autowired
     private LoadBalancerAdapter loadBalancerAdapter;
     @Autowired
-    private LoadBalancerRepository loadBalancerRepository;
-    @Autowired
     private HostRepository hostRepository;
+    @Autowired
+    private EndpointConfigurationCache endpointConfigurationCache;
 
     @Override
     public void createLoadBalancer(Integer accountId, LoadBalancer lb) throws AdapterException, DecryptException, MalformedURLException, Exception {
@@ -62,6 +54,7 @@ public class ReverseProxyLoadBalancerServiceImpl implements ReverseProxyLoadBala
         LoadBalancerEndpointConfiguration config = getConfigbyLoadBalancerId(lb.getId());
         try {
             loadBalancerAdapter.deleteLoadBalancer(config, lb);
+            endpointConfigurationCache.invalidateLoadBalancer(lb.getId());
         } catch (ConnectionException exc) {
             checkAndSetIfEndPointBad(config, exc);
             throw exc;
@@ -182,13 +175,7 @@ public class ReverseProxyLoadBalancerServiceImpl implements ReverseProxyLoadBala
 
 
     private LoadBalancerEndpointConfiguration getConfigbyLoadBalancerId(Integer lbId) throws EntityNotFoundException, DecryptException, MalformedURLException {
-        org.openstack.atlas.service.domain.entity.LoadBalancer loadBalancer = loadBalancerRepository.getById(lbId);
-        Host host = loadBalancer.getHost();
-        Cluster cluster = host.getCluster();
-        Host endpointHost = hostRepository.getEndPointHost(cluster.getId());
-        List<String> failoverHosts = hostRepository.getFailoverHostNames(cluster.getId());
-        String logFileLocation = configuration.getString(PublicApiServiceConfigurationKeys.access_log_file_location);
-        return new LoadBalancerEndpointConfiguration(endpointHost, cluster.getUsername(), CryptoUtil.decrypt(cluster.getPassword()), host, failoverHosts, logFileLocation);
+        return endpointConfigurationCache.getConfigByLoadBalancerId(lbId);
     }
 
     private boolean isConnectionExcept(Exception exc) {
@@ -206,8 +193,8 @@ public class ReverseProxyLoadBalancerServiceImpl implements ReverseProxyLoadBala
         Host badHost = config.getHost();
         if (isConnectionExcept(exc)) {
             LOG.error(String.format("Endpoint %s went bad marking host[%d] as bad.", badHost.getEndpoint(), badHost.getId()));
-            badHost.setEndpointActive(Boolean.FALSE);
-            hostRepository.update(badHost);
+            // The host is the cached, shared copy, so it is left as is; the cache drops it on the host change
+            hostRepository.deactivateEndpoint(badHost.getId());
         }
     }
 
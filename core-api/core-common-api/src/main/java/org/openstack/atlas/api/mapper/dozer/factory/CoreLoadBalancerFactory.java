@@ -2,12 +2,14 @@ package org.openstack.atlas.api.mapper.dozer.factory;
 
 import org.dozer.BeanFactory;
 import org.openstack.atlas.core.api.v1.LoadBalancer;
+import org.openstack.atlas.service.domain.pojo.SimpleLoadBalancer;
 
 public class CoreLoadBalancerFactory implements BeanFactory {
 
     @Override
     public Object createBean(Object source, Class<?> sourceClass, String targetBeanId) {
-        if (sourceClass.equals(org.openstack.atlas.service.domain.entity.LoadBalancer.class)) {
+        if (sourceClass.equals(org.openstack.atlas.service.domain.entity.LoadBalancer.class)
+                || sourceClass.equals(SimpleLoadBalancer.class)) {
             LoadBalancer lb = new LoadBalancer();
             lb.setNodes(null);
             lb.setVirtualIps(null);
@@ -5,14 +5,12 @@ import org.openstack.atlas.core.api.v1.Algorithm;
 import org.openstack.atlas.core.api.v1.Algorithms;
 import org.openstack.atlas.datamodel.AlgorithmType;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.core.Response;
 
 @Controller
-@Scope("request")
 public class AlgorithmsResource {
 
     @Autowired
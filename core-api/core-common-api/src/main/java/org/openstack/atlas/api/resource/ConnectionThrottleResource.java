@@ -13,7 +13,6 @@ import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
 import org.openstack.atlas.service.domain.repository.ConnectionThrottleRepository;
 import org.openstack.atlas.service.domain.service.ConnectionThrottleService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.*;
@@ -22,11 +21,8 @@ import javax.ws.rs.core.Response;
 import static javax.ws.rs.core.MediaType.*;
 
 @Controller
-@Scope("request")
 public class ConnectionThrottleResource extends CommonDependencyProvider {
     private final Logger LOG = Logger.getLogger(ConnectionThrottleResource.class);
-    protected Integer accountId;
-    protected Integer loadBalancerId;
 
     @Autowired
     protected ConnectionThrottleValidator validator;
@@ -37,7 +33,7 @@ public class ConnectionThrottleResource extends CommonDependencyProvider {
 
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response retrieveConnectionThrottle() {
+    public Response retrieveConnectionThrottle(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             ConnectionThrottle connectionThrottle = dozerMapper.map(repository.getByLoadBalancerId(loadBalancerId), ConnectionThrottle.class);
             return Response.status(Response.Status.OK).entity(connectionThrottle).build();
@@ -48,7 +44,7 @@ public class ConnectionThrottleResource extends CommonDependencyProvider {
 
     @PUT
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response updateConnectionThrottle(ConnectionThrottle _connectionThrottle) {
+    public Response updateConnectionThrottle(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, ConnectionThrottle _connectionThrottle) {
         ValidatorResult result = validator.validate(_connectionThrottle, HttpRequestType.PUT);
 
         if (!result.passedValidation()) {
@@ -76,7 +72,7 @@ public class ConnectionThrottleResource extends CommonDependencyProvider {
     }
 
     @DELETE
-    public Response deleteConnectionThrottle() {
+    public Response deleteConnectionThrottle(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             MessageDataContainer data = new MessageDataContainer();
             LoadBalancer loadBalancer = new LoadBalancer();
@@ -91,12 +87,4 @@ public class ConnectionThrottleResource extends CommonDependencyProvider {
             return ResponseFactory.getErrorResponse(e);
         }
     }
-
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
-    }
-
-    public void setLoadBalancerId(Integer loadBalancerId) {
-        this.loadBalancerId = loadBalancerId;
-    }
 }
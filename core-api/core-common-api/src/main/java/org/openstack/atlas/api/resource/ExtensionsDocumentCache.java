@@ -0,0 +1,204 @@
+package org.openstack.atlas.api.resource;
+
+import org.apache.log4j.Logger;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openstack.atlas.api.config.ConfigHelper;
+import org.openstack.atlas.common.crypto.HashUtil;
+import org.reflections.Reflections;
+import org.reflections.scanners.ResourcesScanner;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSOutput;
+import org.w3c.dom.ls.LSSerializer;
+
+import javax.ws.rs.core.EntityTag;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+ * Builds the extensions document (extensions.xml plus the extension.xml of every enabled
+ * extension) once and keeps it as encoded XML and JSON with an ETag each. It is rebuilt whenever
+ * a Spring context is refreshed, i.e. after the plugins were (re)loaded.
+ */
+@Component
+public class ExtensionsDocumentCache implements ApplicationListener<ContextRefreshedEvent> {
+    private final Logger LOG = Logger.getLogger(ExtensionsDocumentCache.class);
+    private static final String ENCODING = "UTF-8";
+    private static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+
+    private volatile Representations representations;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        try {
+            refresh();
+        } catch (Exception e) {
+            LOG.error("Unable to build the extensions document, it will be built on the next request.", e);
+        }
+    }
+
+    public Representation getXml() throws Exception {
+        return getRepresentations().xml;
+    }
+
+    public Representation getJson() throws Exception {
+        return getRepresentations().json;
+    }
+
+    public synchronized void refresh() throws Exception {
+        Document document = readFileToDom("extensions.xml");
+        addExtensions(document);
+        representations = new Representations(new Representation(toXml(document)), new Representation(toJson(document)));
+        LOG.info(String.format("Built extensions document, xml etag %s.", representations.xml.getEntityTag()));
+    }
+
+    private Representations getRepresentations() throws Exception {
+        Representations current = representations;
+        if (current == null) {
+            synchronized (this) {
+                if (representations == null) refresh();
+                current = representations;
+            }
+        }
+        return current;
+    }
+
+    private void addExtensions(Document root) throws Exception {
+        List<String> enabledExtensions = ConfigHelper.getExtensionPrefixesFromConfiguration();
+
+        if (enabledExtensions.isEmpty()) return;
+
+        ConfigurationBuilder configBuilder = new ConfigurationBuilder();
+
+        for (String enabledExtension : enabledExtensions) {
+            configBuilder.addUrls(ClasspathHelper.forPackage("org.openstack.atlas." + enabledExtension + ".extensions"));
+        }
+
+        Reflections reflections = new Reflections(configBuilder.setScanners(new ResourcesScanner(), new TypeAnnotationsScanner(), new SubTypesScanner()));
+
+        Set<String> xmlFiles = reflections.getResources(Pattern.compile("extension.xml"));
+
+        for (String xmlFile : xmlFiles) {
+            Document extension = readFileToDom(xmlFile);
+            Node extensionNode = root.importNode(extension.getDocumentElement(), true);
+            root.getDocumentElement().appendChild(extensionNode);
+        }
+    }
+
+    private Document readFileToDom(String file) throws Exception {
+        final InputStream inputStream = getClass().getClassLoader().getResourceAsStream(file);
+        if (inputStream == null) {
+            throw new IllegalStateException(String.format("Unable to locate %s on the classpath.", file));
+        }
+
+        try {
+            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+            dbFactory.setNamespaceAware(true);
+            Document doc = dbFactory.newDocumentBuilder().parse(inputStream);
+            doc.getDocumentElement().normalize();
+            return doc;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private byte[] toXml(Document document) throws Exception {
+        DOMImplementationRegistry registry = DOMImplementationRegistry.newInstance();
+        DOMImplementationLS impl = (DOMImplementationLS) registry.getDOMImplementation("LS");
+        LSSerializer writer = impl.createLSSerializer();
+        LSOutput output = impl.createLSOutput();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        output.setEncoding(ENCODING);
+        output.setByteStream(bytes);
+        writer.write(document, output);
+        return bytes.toByteArray();
+    }
+
+    /*
+     * {"extensions": [{"name": ..., "namespace": ..., "alias": ..., "updated": ..., "description": ..., "links": [...]}]}
+     */
+    private byte[] toJson(Document document) throws Exception {
+        List<Map<String, Object>> extensions = new ArrayList<Map<String, Object>>();
+        NodeList children = document.getDocumentElement().getChildNodes();
+
+        for (int i = 0; i < children.getLength(); i++) {
+            if (!(children.item(i) instanceof Element)) continue;
+            Element extensionElement = (Element) children.item(i);
+
+            Map<String, Object> extension = new LinkedHashMap<String, Object>();
+            extension.put("name", extensionElement.getAttribute("name"));
+            extension.put("namespace", extensionElement.getAttribute("namespace"));
+            extension.put("alias", extensionElement.getAttribute("alias"));
+            extension.put("updated", extensionElement.getAttribute("updated"));
+
+            List<Map<String, String>> links = new ArrayList<Map<String, String>>();
+            NodeList extensionChildren = extensionElement.getChildNodes();
+            for (int j = 0; j < extensionChildren.getLength(); j++) {
+                if (!(extensionChildren.item(j) instanceof Element)) continue;
+                Element child = (Element) extensionChildren.item(j);
+
+                if ("description".equals(child.getLocalName())) {
+                    extension.put("description", child.getTextContent().trim().replaceAll("\\s+", " "));
+                } else if ("link".equals(child.getLocalName()) && ATOM_NAMESPACE.equals(child.getNamespaceURI())) {
+                    Map<String, String> link = new LinkedHashMap<String, String>();
+                    link.put("rel", child.getAttribute("rel"));
+                    link.put("type", child.getAttribute("type"));
+                    link.put("href", child.getAttribute("href"));
+                    links.add(link);
+                }
+            }
+            extension.put("links", links);
+            extensions.add(extension);
+        }
+
+        Map<String, Object> root = new LinkedHashMap<String, Object>();
+        root.put("extensions", extensions);
+        return new ObjectMapper().writeValueAsString(root).getBytes(ENCODING);
+    }
+
+    public static class Representation {
+        private final byte[] entity;
+        private final EntityTag entityTag;
+
+        public Representation(byte[] entity) throws Exception {
+            this.entity = entity;
+            this.entityTag = new EntityTag(HashUtil.sha1sumHex(entity));
+        }
+
+        public byte[] getEntity() {
+            return entity;
+        }
+
+        public EntityTag getEntityTag() {
+            return entityTag;
+        }
+    }
+
+    private static class Representations {
+        private final Representation xml;
+        private final Representation json;
+
+        public Representations(Representation xml, Representation json) {
+            this.xml = xml;
+            this.json = json;
+        }
+    }
+}
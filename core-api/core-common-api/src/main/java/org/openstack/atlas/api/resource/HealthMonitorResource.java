@@ -13,7 +13,6 @@ import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
 import org.openstack.atlas.service.domain.repository.HealthMonitorRepository;
 import org.openstack.atlas.service.domain.service.HealthMonitorService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.*;
@@ -22,11 +21,8 @@ import javax.ws.rs.core.Response;
 import static javax.ws.rs.core.MediaType.*;
 
 @Controller
-@Scope("request")
 public class HealthMonitorResource extends CommonDependencyProvider {
     private final Logger LOG = Logger.getLogger(HealthMonitorResource.class);
-    private Integer accountId;
-    private Integer loadBalancerId;
 
     @Autowired
     protected HealthMonitorValidator validator;
@@ -37,7 +33,7 @@ public class HealthMonitorResource extends CommonDependencyProvider {
 
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response retrieveHealthMonitor() {
+    public Response retrieveHealthMonitor(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             HealthMonitor healthMonitor = dozerMapper.map(repository.getByLoadBalancerId(loadBalancerId), HealthMonitor.class);
             return Response.status(Response.Status.OK).entity(healthMonitor).build();
@@ -48,7 +44,7 @@ public class HealthMonitorResource extends CommonDependencyProvider {
 
     @PUT
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response updateHealthMonitor(HealthMonitor _healthMonitor) {
+    public Response updateHealthMonitor(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, HealthMonitor _healthMonitor) {
         ValidatorResult result = validator.validate(_healthMonitor, HttpRequestType.PUT);
 
         if (!result.passedValidation()) {
@@ -73,7 +69,7 @@ public class HealthMonitorResource extends CommonDependencyProvider {
     }
 
     @DELETE
-    public Response deleteHealthMonitor() {
+    public Response deleteHealthMonitor(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             MessageDataContainer data = new MessageDataContainer();
             LoadBalancer loadBalancer = new LoadBalancer();
@@ -88,12 +84,4 @@ public class HealthMonitorResource extends CommonDependencyProvider {
             return ResponseFactory.getErrorResponse(e);
         }
     }
-
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
-    }
-
-    public void setLoadBalancerId(Integer loadBalancerId) {
-        this.loadBalancerId = loadBalancerId;
-    }
 }
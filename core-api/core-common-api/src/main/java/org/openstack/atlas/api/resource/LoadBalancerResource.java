@@ -9,10 +9,10 @@ import org.openstack.atlas.api.validation.validator.LoadBalancerValidator;
 import org.openstack.atlas.core.api.v1.LoadBalancer;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.service.LoadBalancerService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.*;
@@ -21,11 +21,8 @@ import javax.ws.rs.core.Response;
 import static javax.ws.rs.core.MediaType.*;
 
 @Controller
-@Scope("request")
 public class LoadBalancerResource extends CommonDependencyProvider {
     protected final Logger LOG = Logger.getLogger(LoadBalancerResource.class);
-    protected Integer id;
-    protected Integer accountId;
 
     @Autowired
     protected LoadBalancerRepository loadBalancerRepository;
@@ -48,9 +45,9 @@ public class LoadBalancerResource extends CommonDependencyProvider {
 
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response get() {
+    public Response get(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer id) {
         try {
-            org.openstack.atlas.service.domain.entity.LoadBalancer loadBalancer = loadBalancerRepository.getByIdAndAccountId(id, accountId);
+            org.openstack.atlas.service.domain.entity.LoadBalancer loadBalancer = loadBalancerRepository.getByIdAndAccountId(id, accountId, LoadBalancerFetchPlan.DETAIL);
             LoadBalancer _loadBalancer = dozerMapper.map(loadBalancer, LoadBalancer.class);
             return Response.status(Response.Status.OK).entity(_loadBalancer).build();
         } catch (Exception e) {
@@ -60,7 +57,7 @@ public class LoadBalancerResource extends CommonDependencyProvider {
 
     @PUT
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response update(LoadBalancer _loadBalancer) {
+    public Response update(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer id, LoadBalancer _loadBalancer) {
         ValidatorResult result = validator.validate(_loadBalancer, HttpRequestType.PUT);
 
         if (!result.passedValidation()) {
@@ -85,7 +82,7 @@ public class LoadBalancerResource extends CommonDependencyProvider {
     }
 
     @DELETE
-    public Response deleteLoadBalancer() {
+    public Response deleteLoadBalancer(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer id) {
         try {
             org.openstack.atlas.service.domain.entity.LoadBalancer loadBalancer = new org.openstack.atlas.service.domain.entity.LoadBalancer();
             loadBalancer.setId(id);
@@ -105,51 +102,31 @@ public class LoadBalancerResource extends CommonDependencyProvider {
 
     @Path("virtualips")
     public VirtualIpsResource retrieveVirtualIpsResource() {
-        virtualIpsResource.setLoadBalancerId(id);
-        virtualIpsResource.setAccountId(accountId);
         return virtualIpsResource;
     }
 
     @Path("nodes")
     public NodesResource retrieveNodesResource() {
-        nodesResource.setLoadBalancerId(id);
-        nodesResource.setAccountId(accountId);
         return nodesResource;
     }
 
     @Path("healthmonitor")
     public HealthMonitorResource retrieveHealthMonitorResource() {
-        healthMonitorResource.setLoadBalancerId(id);
-        healthMonitorResource.setAccountId(accountId);
         return healthMonitorResource;
     }
 
     @Path("connectionthrottle")
     public ConnectionThrottleResource retrieveConnectionThrottleResource() {
-        connectionThrottleResource.setLoadBalancerId(id);
-        connectionThrottleResource.setAccountId(accountId);
         return connectionThrottleResource;
     }
 
     @Path("sessionpersistence")
     public SessionPersistenceResource retrieveSessionPersistenceResource() {
-        sessionPersistenceResource.setLoadBalancerId(id);
-        sessionPersistenceResource.setAccountId(accountId);
         return sessionPersistenceResource;
     }
 
     @Path("usage")
     public UsageResource retrieveUsageResource() {
-        usageResource.setLoadBalancerId(id);
-        usageResource.setAccountId(accountId);
         return usageResource;
     }
-
-    public void setId(int id) {
-        this.id = id;
-    }
-
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
-    }
 }
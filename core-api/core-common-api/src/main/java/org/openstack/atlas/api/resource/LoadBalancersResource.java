@@ -10,26 +10,28 @@ import org.openstack.atlas.core.api.v1.LoadBalancer;
 import org.openstack.atlas.core.api.v1.LoadBalancers;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.pojo.SimpleLoadBalancer;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.service.LoadBalancerService;
 import org.openstack.atlas.service.domain.service.VirtualIpService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.*;
-import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 import static javax.ws.rs.core.MediaType.*;
 
 @Controller
-@Scope("request")
 public class LoadBalancersResource extends CommonDependencyProvider {
     private final Logger LOG = Logger.getLogger(LoadBalancersResource.class);
-    private HttpHeaders requestHeaders;
-    protected Integer accountId;
+    public static final int DEFAULT_PAGE_LIMIT = 100;
+    public static final int MAX_PAGE_LIMIT = 1000;
 
     @Autowired
     protected LoadBalancerValidator validator;
@@ -44,7 +46,7 @@ public class LoadBalancersResource extends CommonDependencyProvider {
 
     @POST
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response create(LoadBalancer _loadBalancer) {
+    public Response create(@PathParam("accountId") Integer accountId, LoadBalancer _loadBalancer) {
         ValidatorResult result = validator.validate(_loadBalancer, HttpRequestType.POST);
 
         if (!result.passedValidation()) {
@@ -67,30 +69,55 @@ public class LoadBalancersResource extends CommonDependencyProvider {
         }
     }
 
+    /*
+     * Without marker and limit every load balancer of the account is returned, as before paging was added.
+     * A page that is followed by more load balancers carries a Link header to the next one.
+     */
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response list() {
-        LoadBalancers _loadbalancers = new LoadBalancers();
-        List<org.openstack.atlas.service.domain.entity.LoadBalancer> loadbalancers = loadBalancerRepository.getByAccountId(accountId);
-        for (org.openstack.atlas.service.domain.entity.LoadBalancer loadBalancer : loadbalancers) {
-            _loadbalancers.getLoadBalancers().add(dozerMapper.map(loadBalancer, org.openstack.atlas.core.api.v1.LoadBalancer.class, "SIMPLE_LB"));
+    public Response list(@PathParam("accountId") Integer accountId, @QueryParam("marker") Integer marker, @QueryParam("limit") Integer limit, @Context UriInfo uriInfo) {
+        List<String> validationErrors = new ArrayList<String>();
+        if (marker != null && marker < 0) {
+            validationErrors.add("Marker must be a non-negative load balancer id.");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_LIMIT)) {
+            validationErrors.add(String.format("Limit must be between 1 and %d.", MAX_PAGE_LIMIT));
+        }
+        if (!validationErrors.isEmpty()) {
+            return getValidationFaultResponse(validationErrors);
         }
-        return Response.status(Response.Status.OK).entity(_loadbalancers).build();
-
-    }
 
-    @Path("{id: [-+]?[0-9][0-9]*}")
-    public LoadBalancerResource retrieveLoadBalancerResource(@PathParam("id") int id) {
-        loadBalancerResource.setId(id);
-        loadBalancerResource.setAccountId(accountId);
-        return loadBalancerResource;
-    }
+        boolean paged = marker != null || limit != null;
+        if (paged && limit == null) {
+            limit = DEFAULT_PAGE_LIMIT;
+        }
 
-    public void setRequestHeaders(HttpHeaders requestHeaders) {
-        this.requestHeaders = requestHeaders;
+        try {
+            LoadBalancers _loadbalancers = new LoadBalancers();
+            // One more than the page is read to tell whether there is a next page
+            List<SimpleLoadBalancer> loadbalancers = loadBalancerRepository.getSimpleLoadBalancersByAccountId(accountId, marker, paged ? limit + 1 : null);
+            boolean hasNextPage = paged && loadbalancers.size() > limit;
+            if (hasNextPage) {
+                loadbalancers = loadbalancers.subList(0, limit);
+            }
+            for (SimpleLoadBalancer loadBalancer : loadbalancers) {
+                _loadbalancers.getLoadBalancers().add(dozerMapper.map(loadBalancer, LoadBalancer.class, "SIMPLE_LB_LIST"));
+            }
+
+            Response.ResponseBuilder response = Response.status(Response.Status.OK).entity(_loadbalancers);
+            if (hasNextPage) {
+                Integer nextMarker = loadbalancers.get(loadbalancers.size() - 1).getId();
+                URI next = uriInfo.getRequestUriBuilder().replaceQueryParam("marker", nextMarker).replaceQueryParam("limit", limit).build();
+                response.header("Link", String.format("<%s>; rel=\"next\"", next));
+            }
+            return response.build();
+        } catch (Exception e) {
+            return ResponseFactory.getErrorResponse(e);
+        }
     }
 
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
+    @Path("{loadBalancerId: [-+]?[0-9][0-9]*}")
+    public LoadBalancerResource retrieveLoadBalancerResource() {
+        return loadBalancerResource;
     }
 }
@@ -10,14 +10,15 @@ import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.entity.Node;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.repository.NodeRepository;
 import org.openstack.atlas.service.domain.service.NodeService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
@@ -27,13 +28,8 @@ import java.util.List;
 import static javax.ws.rs.core.MediaType.*;
 
 @Controller
-@Scope("request")
 public class NodeResource extends CommonDependencyProvider {
     private final Logger LOG = Logger.getLogger(NodeResource.class);
-    private int id;
-    private Integer accountId;
-    private Integer loadBalancerId;
-    private HttpHeaders requestHeaders;
 
     @Autowired
     protected NodeValidator validator;
@@ -49,11 +45,11 @@ public class NodeResource extends CommonDependencyProvider {
 
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response retrieveNode() {
+    public Response retrieveNode(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, @PathParam("nodeId") int id) {
         Node dnode;
         org.openstack.atlas.core.api.v1.Node rnode;
         try {
-            dnode = nodeRepository.getNodesByLoadBalancer(loadBalancerRepository.getByIdAndAccountId(loadBalancerId, accountId), id);
+            dnode = nodeRepository.getNodesByLoadBalancer(loadBalancerRepository.getByIdAndAccountId(loadBalancerId, accountId, LoadBalancerFetchPlan.NODES), id);
             rnode = dozerMapper.map(dnode, org.openstack.atlas.core.api.v1.Node.class);
             return Response.status(200).entity(rnode).build();
         } catch (Exception e) {
@@ -63,7 +59,7 @@ public class NodeResource extends CommonDependencyProvider {
 
     @PUT
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response updateNode(org.openstack.atlas.core.api.v1.Node _node) {
+    public Response updateNode(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, @PathParam("nodeId") int id, @Context HttpHeaders requestHeaders, org.openstack.atlas.core.api.v1.Node _node) {
         ValidatorResult result = validator.validate(_node, HttpRequestType.PUT);
 
         if (!result.passedValidation()) {
@@ -78,7 +74,7 @@ public class NodeResource extends CommonDependencyProvider {
             LoadBalancer domainLb = dozerMapper.map(apiLb, LoadBalancer.class);
             domainLb.setId(loadBalancerId);
             domainLb.setAccountId(accountId);
-            if (requestHeaders != null) domainLb.setUserName(requestHeaders.getRequestHeader("X-PP-User").get(0));
+            domainLb.setUserName(getUserName(requestHeaders));
 
             LoadBalancer dbLb = nodeService.updateNode(domainLb);
 
@@ -93,7 +89,7 @@ public class NodeResource extends CommonDependencyProvider {
     }
 
     @DELETE
-    public Response deleteNode() {
+    public Response deleteNode(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, @PathParam("nodeId") int id) {
         try {
             MessageDataContainer dataContainer = new MessageDataContainer();
             dataContainer.setAccountId(accountId);
@@ -109,16 +105,4 @@ public class NodeResource extends CommonDependencyProvider {
             return ResponseFactory.getErrorResponse(e);
         }
     }
-
-    public void setId(int id) {
-        this.id = id;
-    }
-
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
-    }
-
-    public void setLbId(Integer loadBalancerId) {
-        this.loadBalancerId = loadBalancerId;
-    }
 }
@@ -1,6 +1,5 @@
 package org.openstack.atlas.api.resource;
 
-import com.sun.org.apache.regexp.internal.RE;
 import org.apache.log4j.Logger;
 import org.openstack.atlas.api.resource.provider.CommonDependencyProvider;
 import org.openstack.atlas.api.response.ResponseFactory;
@@ -15,16 +14,17 @@ import org.openstack.atlas.service.domain.entity.Node;
 import org.openstack.atlas.service.domain.exception.ImmutableEntityException;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.repository.NodeRepository;
 import org.openstack.atlas.service.domain.service.LoadBalancerService;
 import org.openstack.atlas.service.domain.service.NodeService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import static org.openstack.atlas.datamodel.CoreLoadBalancerStatus.*;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import java.util.Collections;
@@ -34,13 +34,8 @@ import java.util.Set;
 import static javax.ws.rs.core.MediaType.*;
 
 @Controller
-@Scope("request")
 public class NodesResource extends CommonDependencyProvider {
     private final Logger LOG = Logger.getLogger(NodesResource.class);
-    protected Integer accountId;
-    protected Integer loadBalancerId;
-    private HttpHeaders requestHeaders;
-
 
     @Autowired
     protected NodesValidator validator;
@@ -57,7 +52,7 @@ public class NodesResource extends CommonDependencyProvider {
 
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response retrieveNodes() {
+    public Response retrieveNodes(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             Nodes returnNodes = new Nodes();
             for (Node node : nodeRepository.getNodesByAccountIdLoadBalancerId(loadBalancerId, accountId)) {
@@ -71,7 +66,7 @@ public class NodesResource extends CommonDependencyProvider {
 
     @POST
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response createNodes(Nodes _nodes) {
+    public Response createNodes(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, @Context HttpHeaders requestHeaders, Nodes _nodes) {
         ValidatorResult result = validator.validate(_nodes, HttpRequestType.POST);
 
         if (!result.passedValidation()) {
@@ -79,7 +74,7 @@ public class NodesResource extends CommonDependencyProvider {
         }
 
         try {
-            loadBalancerRepository.getByIdAndAccountId(loadBalancerId, accountId);
+            loadBalancerRepository.getByIdAndAccountId(loadBalancerId, accountId, LoadBalancerFetchPlan.STATUS);
 
             org.openstack.atlas.core.api.v1.LoadBalancer apiLb = new org.openstack.atlas.core.api.v1.LoadBalancer();
             apiLb.getNodes().addAll(_nodes.getNodes());
@@ -107,7 +102,7 @@ public class NodesResource extends CommonDependencyProvider {
 
     @DELETE
     @Produces({APPLICATION_XML, APPLICATION_JSON})
-    public Response deleteNodes(@QueryParam("id") List<Integer> ids) {
+    public Response deleteNodes(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, @Context HttpHeaders requestHeaders, @QueryParam("id") List<Integer> ids) {
         try {
 
             MessageDataContainer msg = new MessageDataContainer();
@@ -122,11 +117,15 @@ public class NodesResource extends CommonDependencyProvider {
                 throw new ImmutableEntityException("LoadBalancer is not ACTIVE");
             }
 
-            validationErrors = nodeService.prepareForNodesDeletion(accountId, loadBalancerId, ids);
-            if (validationErrors.size() > 0) {
-                LoadBalancer lb = loadBalancerRepository.getByIdAndAccountId(loadBalancerId, accountId);
-                lb.setStatus(CoreLoadBalancerStatus.ACTIVE);
-                loadBalancerRepository.update(lb);
+            validationErrors = null;
+            try {
+                validationErrors = nodeService.prepareForNodesDeletion(accountId, loadBalancerId, ids);
+            } finally {
+                if (validationErrors == null || !validationErrors.isEmpty()) {
+                    loadBalancerRepository.transitionStatus(accountId, loadBalancerId, Collections.singleton(PENDING_DELETE), CoreLoadBalancerStatus.ACTIVE);
+                }
+            }
+            if (!validationErrors.isEmpty()) {
                 return getValidationFaultResponse(validationErrors);
             }
 
@@ -142,19 +141,8 @@ public class NodesResource extends CommonDependencyProvider {
     }
 
 
-    @Path("{id: [-+]?[1-9][0-9]*}")
-    public NodeResource retrieveNodeResource(@PathParam("id") int id) {
-        nodeResource.setId(id);
-        nodeResource.setAccountId(accountId);
-        nodeResource.setLbId(loadBalancerId);
+    @Path("{nodeId: [-+]?[1-9][0-9]*}")
+    public NodeResource retrieveNodeResource() {
         return nodeResource;
     }
-
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
-    }
-
-    public void setLoadBalancerId(Integer loadBalancerId) {
-        this.loadBalancerId = loadBalancerId;
-    }
 }
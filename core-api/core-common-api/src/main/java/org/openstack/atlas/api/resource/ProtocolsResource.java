@@ -5,14 +5,12 @@ import org.openstack.atlas.core.api.v1.Protocol;
 import org.openstack.atlas.core.api.v1.Protocols;
 import org.openstack.atlas.datamodel.ProtocolType;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.core.Response;
 
 @Controller
-@Scope("request")
 public class ProtocolsResource {
 
     @Autowired
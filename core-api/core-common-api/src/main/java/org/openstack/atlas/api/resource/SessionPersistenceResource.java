@@ -13,7 +13,6 @@ import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
 import org.openstack.atlas.service.domain.repository.SessionPersistenceRepository;
 import org.openstack.atlas.service.domain.service.SessionPersistenceService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.*;
@@ -22,11 +21,8 @@ import javax.ws.rs.core.Response;
 import static javax.ws.rs.core.MediaType.*;
 
 @Controller
-@Scope("request")
 public class SessionPersistenceResource extends CommonDependencyProvider {
     private final Logger LOG = Logger.getLogger(SessionPersistenceResource.class);
-    private Integer accountId;
-    private Integer loadBalancerId;
 
     @Autowired
     protected SessionPersistenceValidator validator;
@@ -37,7 +33,7 @@ public class SessionPersistenceResource extends CommonDependencyProvider {
 
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response retrieveSessionPersistence() {
+    public Response retrieveSessionPersistence(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             SessionPersistence sessionPersistence = dozerMapper.map(repository.getByLoadBalancerId(loadBalancerId), SessionPersistence.class);
             return Response.status(Response.Status.OK).entity(sessionPersistence).build();
@@ -48,7 +44,7 @@ public class SessionPersistenceResource extends CommonDependencyProvider {
 
     @PUT
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response createOrUpdateSessionPersistence(SessionPersistence _sessionPersistence) {
+    public Response createOrUpdateSessionPersistence(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, SessionPersistence _sessionPersistence) {
         ValidatorResult result = validator.validate(_sessionPersistence, HttpRequestType.PUT);
 
         if (!result.passedValidation()) {
@@ -73,7 +69,7 @@ public class SessionPersistenceResource extends CommonDependencyProvider {
     }
 
     @DELETE
-    public Response deleteSessionPersistence() {
+    public Response deleteSessionPersistence(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             MessageDataContainer data = new MessageDataContainer();
             LoadBalancer loadBalancer = new LoadBalancer();
@@ -88,12 +84,4 @@ public class SessionPersistenceResource extends CommonDependencyProvider {
             return ResponseFactory.getErrorResponse(e);
         }
     }
-
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
-    }
-
-    public void setLoadBalancerId(Integer loadBalancerId) {
-        this.loadBalancerId = loadBalancerId;
-    }
 }
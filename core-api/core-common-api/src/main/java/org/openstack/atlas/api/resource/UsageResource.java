@@ -8,10 +8,10 @@ import org.openstack.atlas.core.api.v1.LoadBalancerUsageRecords;
 import org.openstack.atlas.service.domain.entity.UsageRecord;
 import org.openstack.atlas.service.domain.repository.UsageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
 
@@ -22,18 +22,15 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 
 @Controller
-@Scope("request")
 public class UsageResource extends CommonDependencyProvider {
     protected final Logger LOG = Logger.getLogger(UsageResource.class);
-    protected Integer accountId;
-    protected Integer loadBalancerId;
 
     @Autowired
     protected UsageRepository usageRepository;
 
     @GET
     @Produces({APPLICATION_XML, APPLICATION_JSON, APPLICATION_ATOM_XML})
-    public Response get() {
+    public Response get(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId) {
         try {
             List<UsageRecord> usageRecordList = usageRepository.getByLoadBalancerId(loadBalancerId);
             LoadBalancerUsageRecords loadBalancerUsageRecords = new LoadBalancerUsageRecords();
@@ -48,12 +45,4 @@ public class UsageResource extends CommonDependencyProvider {
             return ResponseFactory.getErrorResponse(e);
         }
     }
-
-    public void setAccountId(Integer accountId) {
-        this.accountId = accountId;
-    }
-
-    public void setLoadBalancerId(Integer loadBalancerId) {
-        this.loadBalancerId = loadBalancerId;
-    }
 }
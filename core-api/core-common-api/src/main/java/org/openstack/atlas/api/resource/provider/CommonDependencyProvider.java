@@ -25,10 +25,11 @@ public class CommonDependencyProvider {
     protected AsyncService asyncService;
 
     public String getUserName(HttpHeaders headers){
-        if(headers == null || headers.getRequestHeader(USERHEADERNAME).size()<1){
+        List<String> userNames = headers == null ? null : headers.getRequestHeader(USERHEADERNAME);
+        if(userNames == null || userNames.size()<1){
             return NOBODY;
         }
-        String userName = headers.getRequestHeader(USERHEADERNAME).get(0);
+        String userName = userNames.get(0);
         if(userName == null){
             return NOBODY;
         }
@@ -1,36 +1,80 @@
 package org.openstack.atlas.api.validation;
 
+import org.openstack.atlas.api.validation.expectation.CompiledExpectationTarget;
 import org.openstack.atlas.api.validation.expectation.ExpectationTarget;
 import org.openstack.atlas.api.validation.result.ExpectationResult;
 import org.openstack.atlas.api.validation.result.ExpectationResultBuilder;
 import org.openstack.atlas.api.validation.result.ValidatorResult;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * The expectation targets are compiled once, when the validator is built, into one array per
+ * context (e.g. POST and PUT) holding only the expectations for that context. A validator is
+ * immutable afterwards and can be shared by all requests.
+ */
 public class ValidatorImpl<ObjectTypeToValidate> implements Validator<ObjectTypeToValidate> {
 
-    private final List<ExpectationTarget<ObjectTypeToValidate>> validationTargetList;
+    private final Map<Object, CompiledExpectationTarget<ObjectTypeToValidate>[]> targetsByContext;
+    private final CompiledExpectationTarget<ObjectTypeToValidate>[] contextFreeTargets;
 
     public ValidatorImpl(List<ExpectationTarget<ObjectTypeToValidate>> validationTargetList) {
-        this.validationTargetList = validationTargetList;
+        final Set<Object> contexts = new LinkedHashSet<Object>();
+        for (ExpectationTarget<ObjectTypeToValidate> target : validationTargetList) {
+            target.collectContexts(contexts);
+        }
+
+        final Map<Object, CompiledExpectationTarget<ObjectTypeToValidate>[]> compiled = new HashMap<Object, CompiledExpectationTarget<ObjectTypeToValidate>[]>();
+        for (Object context : contexts) {
+            compiled.put(context, compile(validationTargetList, context));
+        }
+
+        targetsByContext = Collections.unmodifiableMap(compiled);
+        // Unknown contexts only get the expectations that don't ask for one
+        contextFreeTargets = compile(validationTargetList, new Object());
     }
 
     @Override
-    public synchronized ValidatorResult validate(ObjectTypeToValidate object, Object context) {
+    public ValidatorResult validate(ObjectTypeToValidate object, Object context) {
         if (object == null) {
             return generateEmptyResult();
         }
 
+        CompiledExpectationTarget<ObjectTypeToValidate>[] targets = targetsByContext.get(context);
+        if (targets == null) {
+            targets = contextFreeTargets;
+        }
+
         final List<ExpectationResult> gatheredResults = new LinkedList<ExpectationResult>();
 
-        for (ExpectationTarget<ObjectTypeToValidate> target : validationTargetList) {
-            gatheredResults.addAll(target.validate(object, context));
+        for (CompiledExpectationTarget<ObjectTypeToValidate> target : targets) {
+            target.validate(object, gatheredResults);
         }
 
         return new ValidatorResult(gatheredResults);
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> CompiledExpectationTarget<T>[] compile(List<ExpectationTarget<T>> validationTargetList, Object context) {
+        final List<CompiledExpectationTarget<T>> compiled = new ArrayList<CompiledExpectationTarget<T>>();
+
+        for (ExpectationTarget<T> target : validationTargetList) {
+            final CompiledExpectationTarget<T> compiledTarget = target.compileFor(context);
+            if (compiledTarget != null) {
+                compiled.add(compiledTarget);
+            }
+        }
+
+        return compiled.toArray(new CompiledExpectationTarget[compiled.size()]);
+    }
+
     /**
      * Used for silent failure in the result of a null root element
      */
@@ -0,0 +1,32 @@
+package org.openstack.atlas.api.validation.expectation;
+
+import org.openstack.atlas.api.validation.exception.ValidationChainExecutionException;
+import org.openstack.atlas.api.validation.result.ExpectationResult;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Immutable, context specific form of an {@link ExpectationTarget}, see
+ * {@link ExpectationTarget#compileFor(Object)}. Safe to share between threads.
+ */
+public final class CompiledExpectationTarget<T> {
+
+    private final Method targetMethod;
+    private final String targetName;
+    private final Expectation[] expectations;
+
+    CompiledExpectationTarget(Method targetMethod, String targetName, Expectation[] expectations) {
+        this.targetMethod = targetMethod;
+        this.targetName = targetName;
+        this.expectations = expectations;
+    }
+
+    public void validate(T target, List<ExpectationResult> failures) throws ValidationChainExecutionException {
+        final Object objectToValidateAgainst = targetMethod == null ? target : ExpectationTarget.invokeMethod(targetMethod, target);
+
+        for (Expectation expectation : expectations) {
+            expectation.validate(objectToValidateAgainst, targetName, failures);
+        }
+    }
+}
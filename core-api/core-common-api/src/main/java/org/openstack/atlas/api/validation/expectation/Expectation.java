@@ -1,10 +1,12 @@
 package org.openstack.atlas.api.validation.expectation;
 
 import org.openstack.atlas.api.validation.Validator;
+import org.openstack.atlas.api.validation.result.ExpectationResult;
 import org.openstack.atlas.api.validation.verifier.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -78,6 +80,52 @@ public class Expectation implements IfExpectation, OngoingExpectation, ThenExpec
         return validationResults;
     }
 
+    /**
+     * Same as {@link #validate(Object, Object)} for an expectation already known to apply to the
+     * current context, but only failures are allocated and they are appended straight to the
+     * caller's list.
+     */
+    public void validate(Object obj, String targetName, List<ExpectationResult> failures) {
+        VerifierResult result;
+
+        if (ifVerifier != null) {
+            result = ifVerifier.verify(obj);
+            if (notFlag == result.passed()) {
+                return;
+            }
+        }
+
+        final boolean negate;
+        if (thenVerifier != null) {
+            result = thenVerifier.verify(obj);
+            negate = notFlagForThen;
+        } else {
+            result = verifier.verify(obj);
+            negate = notFlag;
+        }
+
+        if (negate != result.passed()) {
+            return;
+        }
+
+        failures.add(new ExpectationResult(null, messageTemplate, targetName, false));
+        if (verifier instanceof MustDelegateTo || thenVerifier instanceof MustDelegateTo) {
+            for (ValidationResult delegateResult : result.getResultList()) {
+                if (!delegateResult.expectationWasMet()) {
+                    failures.add(new ExpectationResult(null, delegateResult.getMessage(), targetName, false));
+                }
+            }
+        }
+    }
+
+    public List getContexts() {
+        return Collections.unmodifiableList(contextList);
+    }
+
+    public boolean appliesTo(Object context) {
+        return contextIsMet(context);
+    }
+
     private boolean contextIsMet(Object context) {
         return contextList == null || contextList.isEmpty() ? true : contextList.contains(context);
     }
@@ -10,6 +10,7 @@ import org.openstack.atlas.api.validation.result.ExpectationResultBuilder;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -52,6 +53,29 @@ public class ExpectationTarget<T> {
         return target == targetMethod;
     }
 
+    public synchronized void collectContexts(Collection<Object> contexts) {
+        for (Expectation expectation : expectations) {
+            contexts.addAll(expectation.getContexts());
+        }
+    }
+
+    /**
+     * Returns a copy of this target holding only the expectations that apply to the given context,
+     * in the same order, or null if none of them do. The copy is never modified afterwards and
+     * validates without checking the context again.
+     */
+    public synchronized CompiledExpectationTarget<T> compileFor(Object context) {
+        final List<Expectation> applicable = new LinkedList<Expectation>();
+
+        for (Expectation expectation : expectations) {
+            if (expectation.appliesTo(context)) {
+                applicable.add(expectation);
+            }
+        }
+
+        return applicable.isEmpty() ? null : new CompiledExpectationTarget<T>(targetMethod, getTargetName(), applicable.toArray(new Expectation[applicable.size()]));
+    }
+
     public synchronized List<ExpectationResult> validate(T target, Object context) {
         //TODO: Inline? Too complex?
         final Object objectToValidateAgainst = targetMethod == null ? target : invokeMethod(targetMethod, target);
@@ -80,7 +104,7 @@ public class ExpectationTarget<T> {
         return gatheredResults;
     }
 
-    private Object invokeMethod(Method m, T object) throws ValidationChainExecutionException {
+    static Object invokeMethod(Method m, Object object) throws ValidationChainExecutionException {
         try {
             return m.invoke(object);
         } catch (IllegalAccessException iae) {
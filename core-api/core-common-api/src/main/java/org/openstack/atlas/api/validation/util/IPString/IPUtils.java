@@ -1,5 +1,6 @@
 package org.openstack.atlas.api.validation.util.IPString;
 
+import org.openstack.atlas.common.ip.IPCodec;
 
 import java.util.List;
 import java.util.Random;
@@ -79,13 +80,7 @@ public class IPUtils {
     }
 
     public static boolean isValidIpv6String(String in) {
-        IPv6 ip = new IPv6(in);
-        try {
-            ip.getBytes();
-        } catch (IPStringConversionException ex) {
-            return false;
-        }
-        return true;
+        return IPCodec.isValidIpv6(in);
     }
 
     public static final boolean isValidIpv4Subnet(String in) {
@@ -142,13 +137,7 @@ public class IPUtils {
     }
 
     public static boolean isValidIpv4String(String in) {
-        IPv4 ip = new IPv4(in);
-        try {
-            ip.getBytes();
-        } catch (IPStringConversionException ex) {
-            return false;
-        }
-        return true;
+        return IPCodec.isValidIpv4(in);
     }
 
     public static int nibble2int(byte nibble) {
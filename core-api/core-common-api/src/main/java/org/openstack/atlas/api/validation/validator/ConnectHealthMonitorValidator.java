@@ -5,13 +5,11 @@ import org.openstack.atlas.api.validation.result.ValidatorResult;
 import org.openstack.atlas.api.validation.validator.builder.ConnectMonitorValidatorBuilder;
 import org.openstack.atlas.core.api.v1.HealthMonitor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.ValidatorBuilder.build;
 
 @Component
-@Scope("request")
 public class ConnectHealthMonitorValidator implements ResourceValidator<HealthMonitor> {
     protected Validator<HealthMonitor> validator;
     protected ConnectMonitorValidatorBuilder ruleBuilder;
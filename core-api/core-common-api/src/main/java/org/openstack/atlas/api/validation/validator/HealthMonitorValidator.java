@@ -9,14 +9,12 @@ import org.openstack.atlas.api.validation.verifier.HealthMonitorTypeVerifier;
 import org.openstack.atlas.api.validation.verifier.MustBeIntegerInRange;
 import org.openstack.atlas.datamodel.CoreHealthMonitorType;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.ValidatorBuilder.build;
 import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Component
-@Scope("request")
 public class HealthMonitorValidator implements ResourceValidator<HealthMonitor> {
     protected Validator<HealthMonitor> validator;
     protected HealthMonitorValidatorBuilder ruleBuilder;
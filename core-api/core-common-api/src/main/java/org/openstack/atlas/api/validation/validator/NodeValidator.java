@@ -6,13 +6,11 @@ import org.openstack.atlas.api.validation.result.ValidatorResult;
 import org.openstack.atlas.api.validation.validator.builder.NodeValidatorBuilder;
 import org.openstack.atlas.core.api.v1.Node;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.ValidatorBuilder.build;
 
 @Component
-@Scope("request")
 public class NodeValidator implements ResourceValidator<Node> {
     protected Validator<Node> validator;
     protected NodeValidatorBuilder ruleBuilder;
@@ -9,6 +9,10 @@ import java.util.List;
 public final class ValidatorUtilities {
 
     public static ValidatorResult removeEmptyMessages(ValidatorResult result) {
+        if (result.passedValidation()) {
+            return result;
+        }
+
         List<ExpectationResult> filteredResults = new LinkedList<ExpectationResult>();
 
         for (ExpectationResult expectationResult : result.getValidationResults()) {
@@ -5,13 +5,11 @@ import org.openstack.atlas.api.validation.result.ValidatorResult;
 import org.openstack.atlas.api.validation.validator.builder.VirtualIpValidatorBuilder;
 import org.openstack.atlas.core.api.v1.VirtualIp;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.ValidatorBuilder.build;
 
 @Component
-@Scope("request")
 public class VirtualIpValidator implements ResourceValidator<VirtualIp> {
     protected Validator<VirtualIp> validator;
     protected VirtualIpValidatorBuilder ruleBuilder;
@@ -5,13 +5,11 @@ import org.openstack.atlas.api.validation.verifier.MustBeIntegerInRange;
 import org.openstack.atlas.api.validation.verifier.Verifier;
 import org.openstack.atlas.api.validation.verifier.VerifierResult;
 import org.openstack.atlas.core.api.v1.HealthMonitor;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Component
-@Scope("request")
 public class ConnectMonitorValidatorBuilder extends ValidatorBuilder<HealthMonitor> {
     public final int[] DELAY_RANGE = new int[]{1, 3600};
     public final int[] TIMEOUT_RANGE = new int[]{1, 300};
@@ -5,13 +5,11 @@ import org.openstack.atlas.api.validation.verifier.MustBeIntegerInRange;
 import org.openstack.atlas.api.validation.verifier.Verifier;
 import org.openstack.atlas.api.validation.verifier.VerifierResult;
 import org.openstack.atlas.core.api.v1.ConnectionThrottle;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Component
-@Scope("request")
 public class ConnectionThrottleValidatorBuilder extends ValidatorBuilder<ConnectionThrottle> {
     public final int[] MAX_REQUEST_RATE = new int[]{0, 100000};
     public final int[] RATE_INTERVAL = new int[]{1, 3600};
@@ -7,13 +7,11 @@ import org.openstack.atlas.api.validation.verifier.HealthMonitorTypeVerifier;
 import org.openstack.atlas.core.api.v1.HealthMonitor;
 import org.openstack.atlas.datamodel.CoreHealthMonitorType;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Component
-@Scope("request")
 public class HealthMonitorValidatorBuilder extends ValidatorBuilder<HealthMonitor> {
 
     @Autowired
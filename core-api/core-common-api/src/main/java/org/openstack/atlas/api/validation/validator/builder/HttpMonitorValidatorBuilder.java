@@ -3,13 +3,11 @@ package org.openstack.atlas.api.validation.validator.builder;
 import org.openstack.atlas.api.validation.ValidatorBuilder;
 import org.openstack.atlas.api.validation.verifier.*;
 import org.openstack.atlas.core.api.v1.HealthMonitor;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Component
-@Scope("request")
 public class HttpMonitorValidatorBuilder extends ValidatorBuilder<HealthMonitor> {
     public static final int[] DELAY_RANGE = new int[]{1, 3600};
     public static final int[] TIMEOUT_RANGE = new int[]{1, 300};
@@ -7,14 +7,12 @@ import org.openstack.atlas.core.api.v1.LoadBalancer;
 import org.openstack.atlas.datamodel.AlgorithmType;
 import org.openstack.atlas.datamodel.ProtocolType;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.POST;
 import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Component
-@Scope("request")
 public class LoadBalancerValidatorBuilder extends ValidatorBuilder<LoadBalancer> {
     protected final int MIN_PORT = 1;
     protected final int MAX_PORT = 65535;
@@ -5,14 +5,12 @@ import org.openstack.atlas.api.validation.verifier.*;
 import org.openstack.atlas.common.ip.IPv4ToolSet;
 import org.openstack.atlas.common.ip.exception.IPStringException;
 import org.openstack.atlas.core.api.v1.Node;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.POST;
 import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Component
-@Scope("request")
 public class NodeValidatorBuilder extends ValidatorBuilder<Node> {
     protected final int MIN_PORT = 1;
     protected final int MAX_PORT = 65535;
@@ -5,13 +5,11 @@ import org.openstack.atlas.api.validation.validator.NodeValidator;
 import org.openstack.atlas.api.validation.verifier.DuplicateNodeVerifier;
 import org.openstack.atlas.core.api.v1.Nodes;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.POST;
 
 @Component
-@Scope("request")
 public class NodesValidatorBuilder extends ValidatorBuilder<Nodes> {
     protected final int MIN_NODES = 1;
     protected final int MAX_NODES = 25;
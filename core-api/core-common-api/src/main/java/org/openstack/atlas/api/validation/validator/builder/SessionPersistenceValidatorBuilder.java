@@ -5,11 +5,9 @@ import org.openstack.atlas.api.validation.verifier.MustBeInArray;
 import org.openstack.atlas.core.api.v1.SessionPersistence;
 import org.openstack.atlas.datamodel.PersistenceType;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 @Component
-@Scope("request")
 public class SessionPersistenceValidatorBuilder extends ValidatorBuilder<SessionPersistence> {
 
     @Autowired
@@ -7,13 +7,11 @@ import org.openstack.atlas.api.validation.verifier.VerifierResult;
 import org.openstack.atlas.core.api.v1.IpVersion;
 import org.openstack.atlas.core.api.v1.VipType;
 import org.openstack.atlas.core.api.v1.VirtualIp;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.context.HttpRequestType.POST;
 
 @Component
-@Scope("request")
 public class VirtualIpValidatorBuilder extends ValidatorBuilder<VirtualIp> {
 
     public VirtualIpValidatorBuilder() {
@@ -1,11 +1,11 @@
 package org.openstack.atlas.api.validation.verifier;
 
-import org.openstack.atlas.api.validation.util.IPString.IPUtils;
+import org.openstack.atlas.common.ip.IPCodec;
 
 public class IpAddressVerifier implements Verifier<String> {
 
     @Override
     public VerifierResult verify(String ipAddress) {
-        return new VerifierResult(IPUtils.isValidIpv4String(ipAddress) || IPUtils.isValidIpv6String(ipAddress));
+        return new VerifierResult(IPCodec.isValidIpv4(ipAddress) || IPCodec.isValidIpv6(ipAddress));
     }
 }
\ No newline at end of file
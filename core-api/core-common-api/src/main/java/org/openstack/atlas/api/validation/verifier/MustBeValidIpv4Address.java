@@ -1,14 +1,14 @@
 package org.openstack.atlas.api.validation.verifier;
 
 
-import org.openstack.atlas.api.validation.util.IPString.IPUtils;
+import org.openstack.atlas.common.ip.IPCodec;
 
 public class MustBeValidIpv4Address implements Verifier {
 
     @Override
     public VerifierResult verify(Object obj) {
         boolean out;
-        out = IPUtils.isValidIpv4String((String) obj);
+        out = IPCodec.isValidIpv4((String) obj);
         return new VerifierResult(out); // False by default
     }
 }
@@ -1,13 +1,13 @@
 package org.openstack.atlas.api.validation.verifier;
 
 
-import org.openstack.atlas.api.validation.util.IPString.IPUtils;
+import org.openstack.atlas.common.ip.IPCodec;
 
 public class MustBeValidIpv6Address implements Verifier{
     @Override
     public VerifierResult verify(Object ipStr) {
         boolean out;
-        out = IPUtils.isValidIpv6String((String)ipStr);
+        out = IPCodec.isValidIpv6((String)ipStr);
         return new VerifierResult(out);
     }
 }
@@ -26,10 +26,10 @@ public class MustDelegateTo implements Verifier<Object> {
         try {
             if (obj instanceof Collection) {
                 for (Object o : (Collection) obj) {
-                    validationResults.addAll(fetchValidationResults(o));
+                    fetchValidationResults(o, validationResults);
                 }
             } else {
-                validationResults.addAll(fetchValidationResults(obj));
+                fetchValidationResults(obj, validationResults);
             }
         } catch (Exception ex) {
             //TODO: Catch actual exception
@@ -40,9 +40,7 @@ public class MustDelegateTo implements Verifier<Object> {
         return new VerifierResult(validationResults.isEmpty(), validationResults);
     }
 
-    private List<ValidationResult> fetchValidationResults(Object o) {
-        List<ValidationResult> validationResults = new ArrayList<ValidationResult>();
-
+    private void fetchValidationResults(Object o, List<ValidationResult> validationResults) {
         ValidatorResult validatorResult;
         validatorResult = delegateValidator.validate(o, delegateContext);
 
@@ -52,7 +50,5 @@ public class MustDelegateTo implements Verifier<Object> {
                     validationResults.add(new ValidationResult(false, expectationResult.getMessage()));
             }
         }
-
-        return validationResults;
     }
 }
@@ -0,0 +1,161 @@
+package org.opestack.atlas.api.integration;
+
+import org.openstack.atlas.api.integration.AsyncMessageCodec;
+import org.openstack.atlas.service.domain.entity.Cluster;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.entity.LoadBalancerJoinVip;
+import org.openstack.atlas.service.domain.entity.Node;
+import org.openstack.atlas.service.domain.entity.VirtualIp;
+import org.openstack.atlas.service.domain.entity.VirtualIpType;
+import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.stub.StubFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Compares the Java serialized ObjectMessage bodies AsyncServiceImpl and BaseListener send by default
+ * with the AsyncMessageCodec format, reporting encode plus decode time and the body bytes handed to the broker
+ * per operation. The load balancer carries the graph a create hands to the queue: nodes, a virtual ip
+ * joined through its cluster, and the host.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dnodes=25 -Dops=100000 -cp ... org.opestack.atlas.api.integration.AsyncMessageCodecBenchmark
+ */
+public class AsyncMessageCodecBenchmark {
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        final int nodes = Integer.getInteger("nodes", 25);
+        final int ops = Integer.getInteger("ops", 100000);
+
+        LoadBalancer loadBalancer = createLoadBalancer(nodes);
+        final MessageDataContainer create = new MessageDataContainer();
+        create.setLoadBalancer(loadBalancer);
+
+        final MessageDataContainer deleteNodes = new MessageDataContainer();
+        deleteNodes.setAccountId(loadBalancer.getAccountId());
+        deleteNodes.setLoadBalancerId(loadBalancer.getId());
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int i = 0; i < 10; i++) ids.add(i + 1);
+        deleteNodes.setIds(ids);
+
+        MessageDataContainer decoded = AsyncMessageCodec.decode(AsyncMessageCodec.encode(create));
+        if (!loadBalancer.getId().equals(decoded.getLoadBalancer().getId()) || decoded.getLoadBalancer().getNodes().size() != nodes) {
+            throw new IllegalStateException("Load balancer did not survive the round trip");
+        }
+
+        Codec[] codecs = {
+                new Codec("java serialization") {
+                    byte[] encode(MessageDataContainer dataContainer) throws Exception {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        ObjectOutputStream out = new ObjectOutputStream(bytes);
+                        out.writeObject(dataContainer);
+                        out.close();
+                        return bytes.toByteArray();
+                    }
+
+                    Object decode(byte[] body) throws Exception {
+                        return new ObjectInputStream(new ByteArrayInputStream(body)).readObject();
+                    }
+                },
+                new Codec("AsyncMessageCodec") {
+                    byte[] encode(MessageDataContainer dataContainer) throws Exception {
+                        return AsyncMessageCodec.encode(dataContainer);
+                    }
+
+                    Object decode(byte[] body) throws Exception {
+                        return AsyncMessageCodec.decode(body);
+                    }
+                }
+        };
+
+        // Warm up before measuring
+        for (Codec codec : codecs) {
+            codec.measure(create, ops / 10);
+            codec.measure(deleteNodes, ops / 10);
+        }
+        for (Codec codec : codecs) {
+            codec.report("CREATE_LOADBALANCER", create, ops);
+            codec.report("DELETE_NODES", deleteNodes, ops);
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    private static LoadBalancer createLoadBalancer(int nodes) {
+        LoadBalancer loadBalancer = StubFactory.createMinimalDomainLoadBalancer();
+        loadBalancer.setId(1234);
+        loadBalancer.setUserName("someuser");
+        for (int i = loadBalancer.getNodes().size(); i < nodes; i++) {
+            Node node = new Node();
+            node.setId(i + 1);
+            node.setAddress("10.1." + (i / 256) + "." + (i % 256));
+            node.setPort(80);
+            node.setLoadBalancer(loadBalancer);
+            loadBalancer.getNodes().add(node);
+        }
+
+        Cluster cluster = new Cluster();
+        cluster.setId(1);
+        cluster.setName("cluster-1");
+        cluster.setDescription("First cluster");
+        cluster.setClusterIpv6Cidr("fd24:f480:ce44:91bc::/64");
+
+        Host host = new Host();
+        host.setId(1);
+        host.setName("host-1");
+        host.setCluster(cluster);
+        host.setEndpoint("https://10.0.0.1:9070/soap");
+        host.setIpv4Public("10.0.0.1");
+        host.setIpv4ServiceNet("10.0.1.1");
+        host.setIpv6Public("2001:db8::1");
+        host.setIpv6ServiceNet("fd00::1");
+        loadBalancer.setHost(host);
+
+        VirtualIp virtualIp = new VirtualIp();
+        virtualIp.setId(1);
+        virtualIp.setAddress("10.2.0.1");
+        virtualIp.setVipType(VirtualIpType.PUBLIC);
+        virtualIp.setCluster(cluster);
+        virtualIp.setAllocated(true);
+        LoadBalancerJoinVip join = new LoadBalancerJoinVip(loadBalancer.getPort(), loadBalancer, virtualIp);
+        virtualIp.getLoadBalancerJoinVipSet().add(join);
+        loadBalancer.getLoadBalancerJoinVipSet().add(join);
+        return loadBalancer;
+    }
+
+    private abstract static class Codec {
+        private final String name;
+        private long nanos;
+        private int bytes;
+
+        Codec(String name) {
+            this.name = name;
+        }
+
+        abstract byte[] encode(MessageDataContainer dataContainer) throws Exception;
+
+        abstract Object decode(byte[] body) throws Exception;
+
+        void measure(MessageDataContainer dataContainer, int ops) throws Exception {
+            long start = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                byte[] body = encode(dataContainer);
+                bytes = body.length;
+                sink += decode(body).hashCode();
+            }
+            nanos = System.nanoTime() - start;
+        }
+
+        void report(String operation, MessageDataContainer dataContainer, int ops) throws Exception {
+            measure(dataContainer, ops);
+            System.out.println(String.format("%-20s %-20s %10.0f ops/s %10.1f us/op %8d body bytes", name, operation,
+                    ops / (nanos / 1000000000.0), nanos / 1000.0 / ops, bytes));
+        }
+    }
+}
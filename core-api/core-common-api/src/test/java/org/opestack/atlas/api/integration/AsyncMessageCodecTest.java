@@ -0,0 +1,141 @@
+package org.opestack.atlas.api.integration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.api.config.PublicApiServiceConfigurationKeys;
+import org.openstack.atlas.api.integration.AsyncMessageCodec;
+import org.openstack.atlas.common.config.Configuration;
+import org.openstack.atlas.common.config.ConfigurationKey;
+import org.openstack.atlas.datamodel.CoreProtocolType;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.entity.Node;
+import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.stub.StubFactory;
+
+import javax.jms.JMSException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Enclosed.class)
+public class AsyncMessageCodecTest {
+
+    public static class WhenEncodingALoadBalancer {
+        private LoadBalancer loadBalancer;
+        private MessageDataContainer dataContainer;
+
+        @Before
+        public void standUp() {
+            loadBalancer = StubFactory.createMinimalDomainLoadBalancer();
+            loadBalancer.setId(1234);
+            loadBalancer.setUserName("someuser");
+            loadBalancer.setProtocol(CoreProtocolType.HTTPS);
+            Node node = loadBalancer.getNodes().iterator().next();
+            node.setId(10);
+            node.setToBeUpdated(true);
+
+            dataContainer = new MessageDataContainer();
+            dataContainer.setLoadBalancer(loadBalancer);
+        }
+
+        @Test
+        public void shouldKeepIdsAndUserName() throws JMSException {
+            LoadBalancer decoded = AsyncMessageCodec.decode(AsyncMessageCodec.encode(dataContainer)).getLoadBalancer();
+            assertEquals(loadBalancer.getId(), decoded.getId());
+            assertEquals(loadBalancer.getAccountId(), decoded.getAccountId());
+            assertEquals("someuser", decoded.getUserName());
+            assertTrue(decoded.isUsingSsl());
+        }
+
+        @Test
+        public void shouldKeepTheNodesToUpdate() throws JMSException {
+            LoadBalancer decoded = AsyncMessageCodec.decode(AsyncMessageCodec.encode(dataContainer)).getLoadBalancer();
+            Node node = decoded.getNodes().iterator().next();
+            assertEquals(1, decoded.getNodes().size());
+            assertEquals(Integer.valueOf(10), node.getId());
+            assertEquals(StubFactory.createMinimalDomainLoadBalancer().getNodes().iterator().next().getAddress(), node.getAddress());
+            assertTrue(node.isToBeUpdated());
+        }
+
+        @Test(expected = JMSException.class)
+        public void shouldRejectAnUnknownVersion() throws JMSException {
+            byte[] body = AsyncMessageCodec.encode(dataContainer);
+            body[0] = AsyncMessageCodec.VERSION + 1;
+            AsyncMessageCodec.decode(body);
+        }
+    }
+
+    public static class WhenEncodingIds {
+
+        @Test
+        public void shouldKeepAccountLoadBalancerAndResourceIds() throws JMSException {
+            MessageDataContainer dataContainer = new MessageDataContainer(1, 2);
+            List<Integer> ids = new ArrayList<Integer>();
+            ids.add(3);
+            ids.add(4);
+            dataContainer.setIds(ids);
+
+            MessageDataContainer decoded = AsyncMessageCodec.decode(AsyncMessageCodec.encode(dataContainer));
+            assertEquals(Integer.valueOf(1), decoded.getAccountId());
+            assertEquals(Integer.valueOf(2), decoded.getLoadBalancerId());
+            assertEquals(ids, decoded.getIds());
+            assertNull(decoded.getLoadBalancer());
+        }
+
+        @Test
+        public void shouldLeaveOtherResourcesToJavaSerialization() {
+            MessageDataContainer dataContainer = new MessageDataContainer();
+            dataContainer.setNode(new Node());
+            assertFalse(AsyncMessageCodec.canEncode(dataContainer));
+        }
+    }
+
+    public static class WhenChoosingTheMessageFormat {
+
+        @Test
+        public void shouldKeepObjectMessagesWhenTheFormatIsNotConfigured() {
+            assertFalse(AsyncMessageCodec.isBytesMessageFormat(new FixedConfiguration(null)));
+            assertFalse(AsyncMessageCodec.isBytesMessageFormat(new FixedConfiguration("")));
+        }
+
+        @Test
+        public void shouldKeepObjectMessagesForTheObjectFormat() {
+            assertFalse(AsyncMessageCodec.isBytesMessageFormat(new FixedConfiguration(AsyncMessageCodec.OBJECT_MESSAGE_FORMAT)));
+        }
+
+        @Test
+        public void shouldKeepObjectMessagesForAnUnknownFormat() {
+            assertFalse(AsyncMessageCodec.isBytesMessageFormat(new FixedConfiguration("protobuf")));
+        }
+
+        @Test
+        public void shouldUseBytesMessagesForTheBytesFormat() {
+            assertTrue(AsyncMessageCodec.isBytesMessageFormat(new FixedConfiguration(AsyncMessageCodec.BYTES_MESSAGE_FORMAT)));
+            assertTrue(AsyncMessageCodec.isBytesMessageFormat(new FixedConfiguration(" Bytes ")));
+        }
+    }
+
+    private static class FixedConfiguration implements Configuration {
+        private final String asyncMessageFormat;
+
+        FixedConfiguration(String asyncMessageFormat) {
+            this.asyncMessageFormat = asyncMessageFormat;
+        }
+
+        @Override
+        public String getString(ConfigurationKey key) {
+            return key == PublicApiServiceConfigurationKeys.async_message_format ? asyncMessageFormat : null;
+        }
+
+        @Override
+        public boolean hasKeys(ConfigurationKey... keys) {
+            return false;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.openstack.atlas.core.api.v1.SessionPersistence;
 import org.openstack.atlas.core.api.v1.VipType;
 import org.openstack.atlas.datamodel.CoreNodeStatus;
 import org.openstack.atlas.service.domain.entity.*;
+import org.openstack.atlas.service.domain.pojo.SimpleLoadBalancer;
 import org.openstack.atlas.service.domain.stub.StubFactory;
 
 import java.util.List;
@@ -267,4 +268,42 @@ public class LoadBalancerMappingTest {
             }
         }
     }
+
+    public static class WhenMappingASimpleLoadBalancerToASimpleDataModelLoadBalancer extends MappingBase {
+        private SimpleLoadBalancer loadBalancer;
+        private org.openstack.atlas.core.api.v1.LoadBalancer dataModelLb;
+
+        @Before
+        public void setUp() {
+            org.openstack.atlas.service.domain.entity.LoadBalancer domainLb = StubFactory.createHydratedDomainLoadBalancer();
+            loadBalancer = new SimpleLoadBalancer(domainLb.getId(), domainLb.getName(), domainLb.getAlgorithm(), domainLb.getProtocol(),
+                    domainLb.getPort(), domainLb.getStatus(), domainLb.getCreated(), domainLb.getUpdated());
+            dataModelLb = mapper.map(loadBalancer, org.openstack.atlas.core.api.v1.LoadBalancer.class, "SIMPLE_LB_LIST");
+        }
+
+        @Test
+        public void shouldMapTheSummaryColumns() {
+            Assert.assertEquals(loadBalancer.getId(), dataModelLb.getId());
+            Assert.assertEquals(loadBalancer.getName(), dataModelLb.getName());
+            Assert.assertEquals(loadBalancer.getStatus(), dataModelLb.getStatus());
+            Assert.assertEquals(loadBalancer.getAlgorithm(), dataModelLb.getAlgorithm());
+            Assert.assertEquals(loadBalancer.getProtocol(), dataModelLb.getProtocol());
+            Assert.assertEquals(loadBalancer.getPort(), dataModelLb.getPort());
+
+            Assert.assertNotNull(dataModelLb.getCreated());
+            Assert.assertNotNull(dataModelLb.getUpdated());
+
+            Assert.assertNull(dataModelLb.getVirtualIps());
+            Assert.assertNull(dataModelLb.getNodes());
+        }
+
+        @Test
+        public void shouldNotFailWhenSimpleLoadbalancerIsEmpty() {
+            try {
+                dataModelLb = mapper.map(new SimpleLoadBalancer(), org.openstack.atlas.core.api.v1.LoadBalancer.class, "SIMPLE_LB_LIST");
+            } catch (Exception e) {
+                Assert.fail("Empty simple load balancer caused this exception");
+            }
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package org.opestack.atlas.api.resource;
+
+import org.openstack.atlas.api.resource.ExtensionsDocumentCache;
+
+import javax.ws.rs.core.EntityTag;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Load test for GET /extensions. Compares building the document per request (what
+ * ExtensionsResource used to do) with serving the cached representation, and with answering a
+ * conditional request whose If-None-Match matches the current ETag.
+ *
+ * Not a unit test, run it by hand with extensions.xml and the api configuration on the classpath, e.g.
+ *   java -Dthreads=32 -Drequests=2000 -cp ... org.opestack.atlas.api.resource.ExtensionsDocumentCacheBenchmark
+ */
+public class ExtensionsDocumentCacheBenchmark {
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        final int threads = Integer.getInteger("threads", 32);
+        final int requests = Integer.getInteger("requests", 2000);
+        final ExtensionsDocumentCache cache = new ExtensionsDocumentCache();
+        final EntityTag clientTag = new EntityTag(cache.getXml().getEntityTag().getValue());
+
+        Load[] loads = {
+                new Load("rebuild per request") {
+                    long request() throws Exception {
+                        ExtensionsDocumentCache perRequest = new ExtensionsDocumentCache();
+                        return perRequest.getXml().getEntity().length;
+                    }
+                },
+                new Load("cached 200") {
+                    long request() throws Exception {
+                        return cache.getXml().getEntity().length;
+                    }
+                },
+                new Load("cached 304") {
+                    long request() throws Exception {
+                        return clientTag.equals(cache.getXml().getEntityTag()) ? 0 : cache.getXml().getEntity().length;
+                    }
+                }
+        };
+
+        for (Load load : loads) {
+            load.execute(threads, requests / 10);
+            load.report(threads, requests);
+        }
+    }
+
+    private abstract static class Load {
+        private final String name;
+
+        Load(String name) {
+            this.name = name;
+        }
+
+        abstract long request() throws Exception;
+
+        long[] execute(final int threads, final int requestsPerThread) throws Exception {
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(threads);
+            final AtomicLong totalNanos = new AtomicLong();
+            final AtomicLong maxNanos = new AtomicLong();
+
+            for (int t = 0; t < threads; t++) {
+                new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            start.await();
+                            long bytes = 0;
+                            for (int i = 0; i < requestsPerThread; i++) {
+                                long begin = System.nanoTime();
+                                bytes += request();
+                                long elapsed = System.nanoTime() - begin;
+                                totalNanos.addAndGet(elapsed);
+                                long max = maxNanos.get();
+                                while (elapsed > max && !maxNanos.compareAndSet(max, elapsed)) {
+                                    max = maxNanos.get();
+                                }
+                            }
+                            sink += bytes;
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                }).start();
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            return new long[]{System.nanoTime() - begin, totalNanos.get(), maxNanos.get()};
+        }
+
+        void report(int threads, int requestsPerThread) throws Exception {
+            long[] result = execute(threads, requestsPerThread);
+            long total = (long) threads * requestsPerThread;
+            System.out.printf("%-20s %12.0f req/s %10.1f us avg %10.1f us max%n", name,
+                    total * 1e9 / result[0], result[1] / 1e3 / total, result[2] / 1e3);
+        }
+    }
+}
@@ -1,25 +1,146 @@
 package org.opestack.atlas.api.resource;
 
+import org.apache.cxf.jaxrs.impl.RequestImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
 import org.junit.Assert;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.api.resource.ExtensionsDocumentCache;
 import org.openstack.atlas.api.resource.ExtensionsResource;
 
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
-@Ignore
+@RunWith(Enclosed.class)
 public class ExtensionsResourceTest {
-    private ExtensionsResource extensionsResource;
 
-    @Before
-    public void standUp() {
-        extensionsResource = new ExtensionsResource();
+    public static class WhenRetrievingExtensionsAsXml {
+        private ExtensionsResource extensionsResource;
+        private FixedExtensionsDocumentCache extensionsDocumentCache;
+
+        @Before
+        public void standUp() throws Exception {
+            extensionsDocumentCache = new FixedExtensionsDocumentCache();
+            extensionsResource = new ExtensionsResource();
+            extensionsResource.setExtensionsDocumentCache(extensionsDocumentCache);
+        }
+
+        @Test
+        public void shouldReturn200WithTheDocumentAndItsETag() {
+            final Response response = extensionsResource.retrieveExtensions(getRequest(null));
+            Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            Assert.assertSame(extensionsDocumentCache.xml.getEntity(), response.getEntity());
+            Assert.assertEquals(extensionsDocumentCache.xml.getEntityTag(), response.getMetadata().getFirst("ETag"));
+            Assert.assertEquals(MediaType.APPLICATION_XML, String.valueOf(response.getMetadata().getFirst("Content-Type")));
+        }
+
+        @Test
+        public void shouldReturn200WithoutARequest() {
+            final Response response = extensionsResource.retrieveExtensions(null);
+            Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        }
+
+        @Test
+        public void shouldReturn304WhenIfNoneMatchHasTheCurrentETag() {
+            final Response response = extensionsResource.retrieveExtensions(getRequest(quoted(extensionsDocumentCache.xml.getEntityTag())));
+            Assert.assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+            Assert.assertNull(response.getEntity());
+            Assert.assertEquals(extensionsDocumentCache.xml.getEntityTag(), response.getMetadata().getFirst("ETag"));
+        }
+
+        @Test
+        public void shouldReturn200WhenIfNoneMatchHasAnOldETag() {
+            final Response response = extensionsResource.retrieveExtensions(getRequest("\"stale\""));
+            Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            Assert.assertSame(extensionsDocumentCache.xml.getEntity(), response.getEntity());
+        }
     }
 
-    @Test
-    public void shouldReadXmlFromExtensionsXmlFile() {
-        final Response response = extensionsResource.retrieveExtensions();
-        Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    public static class WhenRetrievingExtensionsAsJson {
+        private ExtensionsResource extensionsResource;
+        private FixedExtensionsDocumentCache extensionsDocumentCache;
+
+        @Before
+        public void standUp() throws Exception {
+            extensionsDocumentCache = new FixedExtensionsDocumentCache();
+            extensionsResource = new ExtensionsResource();
+            extensionsResource.setExtensionsDocumentCache(extensionsDocumentCache);
+        }
+
+        @Test
+        public void shouldBeTheJsonVariantOfTheResource() throws Exception {
+            Produces produces = ExtensionsResource.class.getMethod("retrieveExtensionsAsJson", Request.class).getAnnotation(Produces.class);
+            Assert.assertEquals(Arrays.asList(MediaType.APPLICATION_JSON), Arrays.asList(produces.value()));
+        }
+
+        @Test
+        public void shouldReturn200WithTheJsonDocumentAndItsOwnETag() {
+            final Response response = extensionsResource.retrieveExtensionsAsJson(getRequest(null));
+            Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            Assert.assertSame(extensionsDocumentCache.json.getEntity(), response.getEntity());
+            Assert.assertEquals(extensionsDocumentCache.json.getEntityTag(), response.getMetadata().getFirst("ETag"));
+            Assert.assertFalse(extensionsDocumentCache.xml.getEntityTag().equals(response.getMetadata().getFirst("ETag")));
+            Assert.assertEquals(MediaType.APPLICATION_JSON, String.valueOf(response.getMetadata().getFirst("Content-Type")));
+        }
+
+        @Test
+        public void shouldReturn304WhenIfNoneMatchHasTheCurrentJsonETag() {
+            final Response response = extensionsResource.retrieveExtensionsAsJson(getRequest(quoted(extensionsDocumentCache.json.getEntityTag())));
+            Assert.assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+        }
+
+        @Test
+        public void shouldReturn200WhenIfNoneMatchHasTheXmlETag() {
+            final Response response = extensionsResource.retrieveExtensionsAsJson(getRequest(quoted(extensionsDocumentCache.xml.getEntityTag())));
+            Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        }
+    }
+
+    private static Request getRequest(String ifNoneMatch) {
+        Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        if (ifNoneMatch != null) {
+            headers.put("If-None-Match", Arrays.asList(ifNoneMatch));
+        }
+        Message message = new MessageImpl();
+        message.put(Message.HTTP_REQUEST_METHOD, "GET");
+        message.put(Message.PROTOCOL_HEADERS, headers);
+        return new RequestImpl(message);
+    }
+
+    private static String quoted(EntityTag entityTag) {
+        return "\"" + entityTag.getValue() + "\"";
+    }
+
+    /*
+     * Serves fixed documents so the tests do not depend on the api configuration file.
+     */
+    private static class FixedExtensionsDocumentCache extends ExtensionsDocumentCache {
+        private final Representation xml;
+        private final Representation json;
+
+        FixedExtensionsDocumentCache() throws Exception {
+            xml = new Representation("<extensions xmlns=\"http://docs.openstack.org/common/api/v1.0\"/>".getBytes("UTF-8"));
+            json = new Representation("{\"extensions\":[]}".getBytes("UTF-8"));
+        }
+
+        @Override
+        public Representation getXml() {
+            return xml;
+        }
+
+        @Override
+        public Representation getJson() {
+            return json;
+        }
     }
 }
@@ -0,0 +1,189 @@
+package org.opestack.atlas.api.resource;
+
+import org.openstack.atlas.api.resource.*;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.Scope;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/*
+ * Compares what serving a request costs in the resource layer with request scoped resources (a
+ * new RootResource and every resource reachable from it created and autowired per request, which
+ * is what CXF's SpringResourceFactory got from Spring) against the singleton resources, reporting
+ * ns/op and bytes allocated per op (HotSpot only). The request is GET
+ * /{accountId}/loadbalancers/{loadBalancerId}/virtualips, resolved through the same locators CXF
+ * calls. Services, repositories and other dependencies are stubbed.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dops=200000 -cp ... org.opestack.atlas.api.resource.ResourceScopeBenchmark
+ */
+public class ResourceScopeBenchmark {
+    private static final Class<?>[] RESOURCES = {RootResource.class, LoadBalancersResource.class, LoadBalancerResource.class,
+            VirtualIpsResource.class, NodesResource.class, NodeResource.class, HealthMonitorResource.class,
+            ConnectionThrottleResource.class, SessionPersistenceResource.class, UsageResource.class,
+            AlgorithmsResource.class, ProtocolsResource.class, ExtensionsResource.class};
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        final int ops = Integer.getInteger("ops", 200000);
+        final RequestScope requestScope = new RequestScope();
+        final GenericApplicationContext scoped = createContext("request", requestScope);
+        final GenericApplicationContext singletons = createContext(RootBeanDefinition.SCOPE_SINGLETON, requestScope);
+
+        Benchmark[] benchmarks = {
+                new Benchmark("request scoped") {
+                    void run(int i) {
+                        sink += serve(scoped, i);
+                        requestScope.end();
+                    }
+                },
+                new Benchmark("singleton") {
+                    void run(int i) {
+                        sink += serve(singletons, i);
+                        requestScope.end();
+                    }
+                }
+        };
+
+        for (Benchmark benchmark : benchmarks) {
+            benchmark.measure(ops / 4);
+        }
+        for (Benchmark benchmark : benchmarks) {
+            benchmark.report(ops);
+        }
+        System.out.println(sink);
+    }
+
+    private static int serve(GenericApplicationContext context, int i) {
+        RootResource root = (RootResource) context.getBean("loadBalancingPublicImpl");
+        VirtualIpsResource virtualIpsResource = root.retrieveLoadBalancersResource().retrieveLoadBalancerResource().retrieveVirtualIpsResource();
+        return virtualIpsResource.retrieveVirtualIps(1234, i).getStatus();
+    }
+
+    private static GenericApplicationContext createContext(String resourceScope, Scope requestScope) throws Exception {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.getBeanFactory().registerScope("request", requestScope);
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+
+        Set<Class<?>> resources = new HashSet<Class<?>>(Arrays.asList(RESOURCES));
+        Set<Class<?>> dependencies = new LinkedHashSet<Class<?>>();
+        for (Class<?> resource : RESOURCES) {
+            RootBeanDefinition definition = new RootBeanDefinition(resource);
+            definition.setScope(resourceScope);
+            context.registerBeanDefinition(resource == RootResource.class ? "loadBalancingPublicImpl" : resource.getName(), definition);
+
+            for (Class<?> type = resource; type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(Autowired.class) && !resources.contains(field.getType())) {
+                        dependencies.add(field.getType());
+                    }
+                }
+            }
+        }
+
+        for (Class<?> dependency : dependencies) {
+            context.getBeanFactory().registerSingleton(dependency.getName(), stub(dependency));
+        }
+
+        context.refresh();
+        return context;
+    }
+
+    private static Object stub(Class<?> type) throws Exception {
+        if (type == ExtensionsDocumentCache.class) {
+            return new ExtensionsDocumentCache() {
+                @Override
+                public void onApplicationEvent(ContextRefreshedEvent event) {
+                }
+            };
+        }
+
+        if (type.isInterface()) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+                    if (method.getName().equals("equals")) return proxy == args[0];
+                    if (method.getName().equals("toString")) return "stub";
+                    return null;
+                }
+            });
+        }
+
+        Field unsafeField = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+        unsafeField.setAccessible(true);
+        Object unsafe = unsafeField.get(null);
+        return unsafe.getClass().getMethod("allocateInstance", Class.class).invoke(unsafe, type);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class RequestScope implements Scope {
+        private final Map<String, Object> beans = new HashMap<String, Object>();
+
+        public Object get(String name, ObjectFactory<?> objectFactory) {
+            Object bean = beans.get(name);
+            if (bean == null) {
+                bean = objectFactory.getObject();
+                beans.put(name, bean);
+            }
+            return bean;
+        }
+
+        public Object remove(String name) {
+            return beans.remove(name);
+        }
+
+        public void registerDestructionCallback(String name, Runnable callback) {
+        }
+
+        public Object resolveContextualObject(String key) {
+            return null;
+        }
+
+        public String getConversationId() {
+            return null;
+        }
+
+        void end() {
+            beans.clear();
+        }
+    }
+
+    private abstract static class Benchmark {
+        private final String name;
+        private long nanos;
+        private long bytes;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        abstract void run(int i) throws Exception;
+
+        void measure(int ops) throws Exception {
+            long startBytes = allocatedBytes();
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < ops; i++) run(i);
+            nanos = System.nanoTime() - startNanos;
+            bytes = allocatedBytes() - startBytes;
+        }
+
+        void report(int ops) throws Exception {
+            measure(ops);
+            System.out.println(String.format("%-20s %10.1f ns/op %10.1f bytes/op", name, (double) nanos / ops, (double) bytes / ops));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.opestack.atlas.api.validation.validator;
+
+import org.openstack.atlas.api.validation.validator.LoadBalancerValidator;
+import org.openstack.atlas.api.validation.validator.builder.*;
+import org.openstack.atlas.core.api.v1.LoadBalancer;
+import org.openstack.atlas.core.api.v1.Node;
+import org.openstack.atlas.datamodel.CoreAlgorithmType;
+import org.openstack.atlas.datamodel.CorePersistenceType;
+import org.openstack.atlas.datamodel.CoreProtocolType;
+import org.openstack.atlas.service.domain.stub.StubFactory;
+
+import static org.openstack.atlas.api.validation.context.HttpRequestType.POST;
+import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
+
+/*
+ * Measures validating a POST of a load balancer with 1,000 nodes (and a PUT) the way the validator
+ * used to be used, i.e. rebuilt for every request, against the shared, compiled validator.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dnodes=1000 -Dops=2000 -cp ... org.opestack.atlas.api.validation.validator.LoadBalancerValidatorBenchmark
+ */
+public class LoadBalancerValidatorBenchmark {
+    private static int sink;
+
+    public static void main(String[] args) {
+        final int nodes = Integer.getInteger("nodes", 1000);
+        final int ops = Integer.getInteger("ops", 2000);
+        final LoadBalancer post = createLoadBalancerForPost(nodes);
+        final LoadBalancer put = new LoadBalancer();
+        put.setName("renamed");
+        final LoadBalancerValidator shared = newValidator();
+
+        Benchmark[] benchmarks = {
+                new Benchmark("POST, rebuilt") {
+                    void run() {
+                        sink += newValidator().validate(post, POST).getValidationErrorMessages().size();
+                    }
+                },
+                new Benchmark("POST, shared") {
+                    void run() {
+                        sink += shared.validate(post, POST).getValidationErrorMessages().size();
+                    }
+                },
+                new Benchmark("PUT, rebuilt") {
+                    void run() {
+                        sink += newValidator().validate(put, PUT).getValidationErrorMessages().size();
+                    }
+                },
+                new Benchmark("PUT, shared") {
+                    void run() {
+                        sink += shared.validate(put, PUT).getValidationErrorMessages().size();
+                    }
+                }
+        };
+
+        for (Benchmark benchmark : benchmarks) {
+            benchmark.measure(ops / 4);
+            double nanos = benchmark.measure(ops);
+            System.out.printf("%-16s %12.1f us/op%n", benchmark.name, nanos / ops / 1e3);
+        }
+        System.out.println(sink);
+    }
+
+    static LoadBalancer createLoadBalancerForPost(int nodeCount) {
+        LoadBalancer loadBalancer = StubFactory.createHydratedDataModelLoadBalancerForPost();
+        loadBalancer.getNodes().clear();
+
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = new Node();
+            node.setAddress(String.format("10.%d.%d.%d", (i >> 16) & 0xff, (i >> 8) & 0xff, i & 0xff));
+            node.setPort(80);
+            node.setWeight(1 + i % 100);
+            node.setEnabled(true);
+            loadBalancer.getNodes().add(node);
+        }
+
+        return loadBalancer;
+    }
+
+    private static LoadBalancerValidator newValidator() {
+        return new LoadBalancerValidator(
+                new LoadBalancerValidatorBuilder(
+                        new CoreAlgorithmType(),
+                        new CoreProtocolType(),
+                        new NodeValidatorBuilder(),
+                        new VirtualIpValidatorBuilder(),
+                        new HealthMonitorValidatorBuilder(
+                                new ConnectMonitorValidatorBuilder(),
+                                new HttpMonitorValidatorBuilder()),
+                        new ConnectionThrottleValidatorBuilder(),
+                        new SessionPersistenceValidatorBuilder(
+                                new CorePersistenceType())));
+    }
+
+    private abstract static class Benchmark {
+        private final String name;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        abstract void run();
+
+        double measure(int ops) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                run();
+            }
+            return System.nanoTime() - start;
+        }
+    }
+}
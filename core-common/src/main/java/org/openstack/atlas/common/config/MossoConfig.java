@@ -17,14 +17,14 @@ public final class MossoConfig {
      */
     private static SecretKeySpec cryptoSecretKeySpec;
 
+    private static final Configuration config = new LbConfiguration();
+
     /**
      * Returns the secret key spec for sensitive data
      * 
      * @return The secret key spec for sensitive data
      */
     public static SecretKeySpec getCryptoKeySpec() {
-
-        org.openstack.atlas.common.config.Configuration config = new LbConfiguration();
         String key = config.getString(MossoConfigValues.hm_crypto_key);
         MossoConfig.cryptoSecretKeySpec = new SecretKeySpec(key.getBytes(),
                 CryptoUtilValues.TRANSFORMATION_ALG_AES);
@@ -1,69 +1,32 @@
 package org.openstack.atlas.common.config.osgi.cfg.commons;
 
 import org.openstack.atlas.common.config.*;
-import org.apache.commons.configuration.ConfigurationException;
-import org.apache.commons.configuration.PropertiesConfiguration;
-
-import java.io.File;
 
+/*
+ * Reads from the shared snapshot of the configuration file, see ReloadingConfigurationFile.
+ * Instances are cheap, all instances for the same file share one snapshot and one reloader.
+ */
 public class ApacheCommonsConfiguration implements Configuration {
 
-    private final File configurationFile;
-    private long configurationFileLastModifiedTimestamp;
-    private PropertiesConfiguration configuration;
+    private final ReloadingConfigurationFile configurationFile;
 
     public ApacheCommonsConfiguration(String fileResourceLocation) {
-        configurationFile = new File(fileResourceLocation);
-
-        configurationFileLastModifiedTimestamp = 0L;
-        configuration = null;
-    }
-
-    private boolean fileIsDifferentAndExists() {
-        return configurationFile.length() != 0 && configurationFileLastModifiedTimestamp != configurationFile.length();
-    }
-
-    //TODO: Behavior for non-existent configurations should be passive?
-    private synchronized void checkState() throws ConfigurationInitializationException {
-        if (configuration == null || fileIsDifferentAndExists()) {
-            try {
-                if (!configurationFile.exists()) {
-                    throw new ConfigurationNotFoundException("Unable to locate file: " + configurationFile.getPath());
-                } else if (!configurationFile.canRead()) {
-                    throw new ConfigurationAccessException("Insufficient permissions to read file: " + configurationFile.getPath());
-                }
-            } catch (ConfigurationInitializationException cie) {
-                //Got to love piggy back logic that breaks programatic flow
-                configuration = new PropertiesConfiguration();
-
-                throw cie;
-            } finally {
-                configurationFileLastModifiedTimestamp = configurationFile.lastModified();
-            }
-
-            try {
-                configuration = new PropertiesConfiguration(configurationFile);
-            } catch (ConfigurationException ce) {
-                throw new ConfigurationInitializationException(ce.getMessage(), ce.getCause());
-            }
-        }
+        configurationFile = ReloadingConfigurationFile.forPath(fileResourceLocation);
     }
 
     @Override
     public String getString(ConfigurationKey key) throws ConfigurationInitializationException {
-        checkState();
-
-        return configuration.getString(key.name());
+        return configurationFile.getSnapshot().getString(key.name());
     }
 
     @Override
     public boolean hasKeys(ConfigurationKey... keys) throws ConfigurationInitializationException {
-        checkState();
+        ConfigurationSnapshot snapshot = configurationFile.getSnapshot();
 
         boolean okay = true;
 
         for (ConfigurationKey key : keys) {
-            okay = configuration.containsKey(key.name());
+            okay = snapshot.containsKey(key.name());
 
             if (!okay) {
                 break;
@@ -0,0 +1,61 @@
+package org.openstack.atlas.common.config.osgi.cfg.commons;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.openstack.atlas.common.config.ConfigurationInitializationException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+ * Immutable copy of a configuration file as of one point in time. A snapshot that failed to load
+ * keeps the error and throws it on every read.
+ */
+public final class ConfigurationSnapshot {
+    private final Map<String, String> values;
+    private final long lastModified;
+    private final long length;
+    private final ConfigurationInitializationException error;
+
+    private ConfigurationSnapshot(Map<String, String> values, long lastModified, long length, ConfigurationInitializationException error) {
+        this.values = values;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.error = error;
+    }
+
+    public static ConfigurationSnapshot of(PropertiesConfiguration configuration, long lastModified, long length) {
+        Map<String, String> values = new HashMap<String, String>();
+
+        for (Iterator keys = configuration.getKeys(); keys.hasNext(); ) {
+            String key = (String) keys.next();
+            // getString() resolves interpolation and returns the first value of list properties
+            values.put(key, configuration.getString(key));
+        }
+
+        return new ConfigurationSnapshot(Collections.unmodifiableMap(values), lastModified, length, null);
+    }
+
+    public static ConfigurationSnapshot failed(ConfigurationInitializationException error, long lastModified, long length) {
+        return new ConfigurationSnapshot(Collections.<String, String>emptyMap(), lastModified, length, error);
+    }
+
+    public String getString(String key) throws ConfigurationInitializationException {
+        if (error != null) throw error;
+        return values.get(key);
+    }
+
+    public boolean containsKey(String key) throws ConfigurationInitializationException {
+        if (error != null) throw error;
+        return values.containsKey(key);
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    public boolean isOlderThan(long lastModified, long length) {
+        return this.lastModified != lastModified || this.length != length;
+    }
+}
@@ -0,0 +1,141 @@
+package org.openstack.atlas.common.config.osgi.cfg.commons;
+
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.common.config.ConfigurationAccessException;
+import org.openstack.atlas.common.config.ConfigurationInitializationException;
+import org.openstack.atlas.common.config.ConfigurationNotFoundException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * One shared instance per configuration file. Readers get the current immutable snapshot without
+ * any file access or locking; a single background thread checks every registered file for a new
+ * modification time or size and swaps in a freshly parsed snapshot when it changed.
+ *
+ * If a reload fails after a good snapshot was loaded, the good snapshot stays in place until the
+ * file can be parsed again.
+ */
+public final class ReloadingConfigurationFile {
+    private static final Log LOG = LogFactory.getLog(ReloadingConfigurationFile.class);
+    public static final long RELOAD_INTERVAL_MILLIS = 5000;
+
+    private static final ConcurrentMap<String, ReloadingConfigurationFile> files = new ConcurrentHashMap<String, ReloadingConfigurationFile>();
+    private static final ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "configuration-reloader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    static {
+        reloader.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (ReloadingConfigurationFile file : files.values()) {
+                    try {
+                        file.reloadIfChanged();
+                    } catch (Throwable t) {
+                        LOG.error(String.format("Unable to reload configuration file '%s'.", file.getPath()), t);
+                    }
+                }
+            }
+        }, RELOAD_INTERVAL_MILLIS, RELOAD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private final File file;
+    private final AtomicReference<ConfigurationSnapshot> snapshot = new AtomicReference<ConfigurationSnapshot>();
+
+    private ReloadingConfigurationFile(File file) {
+        this.file = file;
+    }
+
+    public static ReloadingConfigurationFile forPath(String fileLocation) {
+        File file = new File(fileLocation).getAbsoluteFile();
+        try {
+            file = file.getCanonicalFile();
+        } catch (IOException e) {
+            LOG.debug(String.format("Unable to resolve the canonical path of '%s'.", fileLocation), e);
+        }
+        String key = file.getPath();
+
+        ReloadingConfigurationFile configurationFile = files.get(key);
+        if (configurationFile == null) {
+            ReloadingConfigurationFile newFile = new ReloadingConfigurationFile(file);
+            configurationFile = files.putIfAbsent(key, newFile);
+            if (configurationFile == null) {
+                configurationFile = newFile;
+            }
+        }
+        return configurationFile;
+    }
+
+    public ConfigurationSnapshot getSnapshot() {
+        ConfigurationSnapshot current = snapshot.get();
+        if (current == null) {
+            // Only the very first read of a file loads it on the calling thread
+            synchronized (this) {
+                current = snapshot.get();
+                if (current == null) {
+                    current = load();
+                    snapshot.set(current);
+                }
+            }
+        }
+        return current;
+    }
+
+    public synchronized boolean reloadIfChanged() {
+        ConfigurationSnapshot current = snapshot.get();
+        if (current == null || !current.isOlderThan(file.lastModified(), file.length())) {
+            return false;
+        }
+
+        ConfigurationSnapshot reloaded = load();
+        if (reloaded.isFailed() && !current.isFailed()) {
+            return false;
+        }
+
+        snapshot.set(reloaded);
+        LOG.info(String.format("Reloaded configuration file '%s'.", file.getPath()));
+        return true;
+    }
+
+    public String getPath() {
+        return file.getPath();
+    }
+
+    private ConfigurationSnapshot load() {
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+
+        try {
+            if (!file.exists()) {
+                throw new ConfigurationNotFoundException("Unable to locate file: " + file.getPath());
+            } else if (!file.canRead()) {
+                throw new ConfigurationAccessException("Insufficient permissions to read file: " + file.getPath());
+            }
+
+            try {
+                return ConfigurationSnapshot.of(new PropertiesConfiguration(file), lastModified, length);
+            } catch (ConfigurationException ce) {
+                throw new ConfigurationInitializationException(ce.getMessage(), ce.getCause());
+            }
+        } catch (ConfigurationInitializationException cie) {
+            LOG.warn(String.format("Unable to load configuration file '%s': %s", file.getPath(), cie.getMessage()));
+            return ConfigurationSnapshot.failed(cie, lastModified, length);
+        }
+    }
+}
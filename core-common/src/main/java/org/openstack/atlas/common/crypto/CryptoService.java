@@ -0,0 +1,203 @@
+package org.openstack.atlas.common.crypto;
+
+import org.apache.log4j.Logger;
+import org.openstack.atlas.common.config.MossoConfig;
+import org.openstack.atlas.common.crypto.exception.DecryptException;
+import org.openstack.atlas.common.crypto.exception.EncryptException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AES/ECB/NoPadding encryption and decryption of sensitive data with the configured crypto key.
+ * <p/>
+ * The key is read once and only changes through {@link #rotateKey(SecretKeySpec)} or
+ * {@link #reloadKey()}. Every thread keeps its own initialized ciphers, and the most recently
+ * decrypted values are kept in a small LRU cache, both of which are dropped when the key changes.
+ */
+public final class CryptoService {
+    public static final int DEFAULT_DECRYPTED_CACHE_SIZE = 128;
+
+    private static final Logger LOGGER = Logger.getLogger(CryptoService.class);
+    private static final String TRANSFORMATION = CryptoUtilValues.TRANSFORMATION_ALG_AES + "/"
+            + CryptoUtilValues.TRANSFORMATION_MODE_ECB + "/" + CryptoUtilValues.TRANSFORMATION_PADDING_NO_PADDING;
+
+    private static final KeyLoader CONFIGURED_KEY = new KeyLoader() {
+        @Override
+        public SecretKeySpec load() {
+            return MossoConfig.getCryptoKeySpec();
+        }
+    };
+
+    private static volatile CryptoService instance;
+
+    private volatile KeyState keyState;
+    private final Map<String, String> decryptedCache;
+    private final ThreadLocal<Ciphers> ciphers = new ThreadLocal<Ciphers>();
+    private volatile KeyLoader keyLoader = CONFIGURED_KEY;
+
+    public CryptoService(SecretKeySpec key, final int decryptedCacheSize) {
+        this.keyState = new KeyState(key, 0);
+        this.decryptedCache = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > decryptedCacheSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the shared instance using the key from the public api configuration.
+     */
+    public static CryptoService getInstance() {
+        CryptoService current = instance;
+        if (current == null) {
+            synchronized (CryptoService.class) {
+                current = instance;
+                if (current == null) {
+                    current = new CryptoService(MossoConfig.getCryptoKeySpec(), DEFAULT_DECRYPTED_CACHE_SIZE);
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public String decrypt(String encrypted) throws DecryptException {
+        if (encrypted == null) {
+            return null;
+        }
+
+        final KeyState state = keyState;
+        String decrypted = decryptedCache.get(encrypted);
+        if (decrypted != null) {
+            return decrypted;
+        }
+
+        byte[] b;
+        try {
+            b = getCiphers(state).decrypt.doFinal(hexToBytes(encrypted));
+        } catch (GeneralSecurityException e) {
+            LOGGER.error("Could not perform AES decryption on: " + encrypted, e);
+            throw new DecryptException("Could not perform AES decryption on: " + encrypted, e);
+        }
+
+        try {
+            decrypted = new String(b, CryptoUtil.ENCODING).trim();
+        } catch (UnsupportedEncodingException ex) {
+            // This shouldn't happen with UTF-8
+            decrypted = new String(b).trim();
+        }
+
+        // Do not cache a value decrypted with a key that was rotated out in the meantime. Checked under
+        // the cache lock, which rotateKey holds while switching keys and clearing the cache.
+        synchronized (decryptedCache) {
+            if (state.generation == keyState.generation) {
+                decryptedCache.put(encrypted, decrypted);
+            }
+        }
+        return decrypted;
+    }
+
+    public String encrypt(String decrypted) throws EncryptException {
+        if (decrypted == null) {
+            return null;
+        }
+
+        try {
+            return CryptoUtil.asHex(getCiphers(keyState).encrypt.doFinal(CryptoUtil.padString(decrypted)));
+        } catch (GeneralSecurityException e) {
+            LOGGER.error("Could not encrypt data", e);
+            throw new EncryptException("Could not encrypt data", e);
+        }
+    }
+
+    /**
+     * Switches to a new key. Values encrypted with the old key can no longer be decrypted.
+     */
+    public void rotateKey(SecretKeySpec key) {
+        synchronized (decryptedCache) {
+            keyState = new KeyState(key, keyState.generation + 1);
+            decryptedCache.clear();
+        }
+        LOGGER.info("Crypto key rotated.");
+    }
+
+    /**
+     * Reads the key from the configuration again and switches to it.
+     */
+    public void reloadKey() {
+        rotateKey(keyLoader.load());
+    }
+
+    public int getDecryptedCacheSize() {
+        return decryptedCache.size();
+    }
+
+    void setKeyLoader(KeyLoader keyLoader) {
+        this.keyLoader = keyLoader;
+    }
+
+    /**
+     * Decodes a hex string straight into a byte array, without substrings or boxed integers.
+     */
+    static byte[] hexToBytes(String hex) throws DecryptException {
+        final int length = hex.length();
+        if ((length & 1) != 0) {
+            throw new DecryptException("Invalid hex string");
+        }
+
+        byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < length; i += 2) {
+            int hi = Character.digit(hex.charAt(i), 16);
+            int lo = Character.digit(hex.charAt(i + 1), 16);
+            if (hi < 0 || lo < 0) {
+                throw new DecryptException("Invalid hex string");
+            }
+            bytes[i / 2] = (byte) ((hi << 4) | lo);
+        }
+        return bytes;
+    }
+
+    private Ciphers getCiphers(KeyState state) throws GeneralSecurityException {
+        Ciphers current = ciphers.get();
+        if (current == null || current.generation != state.generation) {
+            current = new Ciphers(state);
+            ciphers.set(current);
+        }
+        return current;
+    }
+
+    interface KeyLoader {
+        SecretKeySpec load();
+    }
+
+    private static class KeyState {
+        private final SecretKeySpec key;
+        private final long generation;
+
+        public KeyState(SecretKeySpec key, long generation) {
+            this.key = key;
+            this.generation = generation;
+        }
+    }
+
+    private static class Ciphers {
+        private final long generation;
+        private final Cipher decrypt;
+        private final Cipher encrypt;
+
+        public Ciphers(KeyState state) throws GeneralSecurityException {
+            this.generation = state.generation;
+            this.decrypt = Cipher.getInstance(TRANSFORMATION);
+            this.decrypt.init(Cipher.DECRYPT_MODE, state.key);
+            this.encrypt = Cipher.getInstance(TRANSFORMATION);
+            this.encrypt.init(Cipher.ENCRYPT_MODE, state.key);
+        }
+    }
+}
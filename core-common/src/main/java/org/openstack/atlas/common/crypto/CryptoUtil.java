@@ -2,7 +2,6 @@ package org.openstack.atlas.common.crypto;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
-import org.openstack.atlas.common.config.MossoConfig;
 import org.openstack.atlas.common.crypto.exception.DecryptException;
 import org.openstack.atlas.common.crypto.exception.EncryptException;
 
@@ -21,6 +20,8 @@ public final class CryptoUtil {
 
     private static final Logger LOGGER = Logger.getLogger(CryptoUtil.class);
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private CryptoUtil() {
     }
 
@@ -33,23 +34,7 @@ public final class CryptoUtil {
      * @throws DecryptException
      */
     public static String decrypt(String encrypted) throws DecryptException {
-        String s = null;
-        if (encrypted != null) {
-            byte[] b = decryptAES(MossoConfig.getCryptoKeySpec(),
-                    CryptoUtilValues.TRANSFORMATION_MODE_ECB,
-                    CryptoUtilValues.TRANSFORMATION_PADDING_NO_PADDING, CryptoUtil.asBytes(encrypted,
-                            CryptoUtilValues.CRYPTO_PAD_BYTE));
-            try {
-                s = new String(b, ENCODING);
-            } catch (UnsupportedEncodingException ex) {
-                // This shouldn't happen with UTF-8
-                s = new String(b);
-            }
-            if (s != null) {
-                s = s.trim();
-            }
-        }
-        return s;
+        return CryptoService.getInstance().decrypt(encrypted);
     }
 
     /**
@@ -60,12 +45,7 @@ public final class CryptoUtil {
      * @throws EncryptException If there are any errors
      */
     public static String encrypt(String decrypted) throws EncryptException {
-        if (decrypted == null) {
-            return null;
-        } else {
-            return asHex(encryptAES(MossoConfig.getCryptoKeySpec(), CryptoUtilValues.TRANSFORMATION_MODE_ECB,
-                    CryptoUtilValues.TRANSFORMATION_PADDING_NO_PADDING, padString(decrypted)));
-        }
+        return CryptoService.getInstance().encrypt(decrypted);
     }
 
     /**
@@ -76,19 +56,7 @@ public final class CryptoUtil {
      * @return A byte array
      */
     protected static byte[] asBytes(String hexString, byte padByte) throws DecryptException {
-        byte[] number = new byte[hexString.length() / 2];
-
-        try {
-            for (int i = 0; i < hexString.length(); i += 2) {
-                int j = Integer.parseInt(hexString.substring(i, i + 2), 16);
-                number[i / 2] = (byte) (j & 0x000000ff);
-            }
-        } catch (StringIndexOutOfBoundsException ex) {
-            ex.printStackTrace();
-            throw new DecryptException("Invalid hex string");
-        }
-
-        return number;
+        return CryptoService.hexToBytes(hexString);
     }
 
     /**
@@ -98,17 +66,14 @@ public final class CryptoUtil {
      * @return A hex string
      */
     protected static String asHex(byte bytes[]) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        char[] hex = new char[bytes.length * 2];
 
         for (int i = 0; i < bytes.length; i++) {
-            if ((bytes[i] & 0xff) < 0x10) {
-                sb.append("0");
-            }
-
-            sb.append(Long.toString(bytes[i] & 0xff, 16));
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
         }
 
-        return sb.toString();
+        return new String(hex);
     }
 
     /**
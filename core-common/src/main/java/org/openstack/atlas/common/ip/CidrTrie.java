@@ -0,0 +1,111 @@
+package org.openstack.atlas.common.ip;
+
+import java.util.Arrays;
+
+/*
+ * Binary trie over the bits of an address, stored in flat arrays so that a lookup is one array
+ * step per bit and nothing is allocated. Addresses are given as two longs, most significant bit
+ * first; IPv4 addresses use the upper 32 bits of the first long. Instances are immutable, use
+ * the Builder to create one.
+ */
+class CidrTrie<V> {
+    private static final int NONE = -1;
+
+    private final int[] zeroChildren;
+    private final int[] oneChildren;
+    private final Object[] values;
+    private final int maxBits;
+    private final int size;
+
+    private CidrTrie(Builder<V> builder) {
+        this.zeroChildren = Arrays.copyOf(builder.zeroChildren, builder.nodeCount);
+        this.oneChildren = Arrays.copyOf(builder.oneChildren, builder.nodeCount);
+        this.values = Arrays.copyOf(builder.values, builder.nodeCount);
+        this.maxBits = builder.maxBits;
+        this.size = builder.size;
+    }
+
+    /*
+     * Returns the value of the longest prefix containing the address, or null if none does.
+     */
+    @SuppressWarnings("unchecked")
+    V longestMatch(long hi, long lo) {
+        Object match = values[0];
+        int node = 0;
+
+        for (int bit = 0; bit < maxBits; bit++) {
+            node = bitAt(hi, lo, bit) == 0 ? zeroChildren[node] : oneChildren[node];
+            if (node == NONE) break;
+            if (values[node] != null) match = values[node];
+        }
+
+        return (V) match;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int bitAt(long hi, long lo, int bit) {
+        return bit < 64 ? (int) (hi >>> (63 - bit)) & 1 : (int) (lo >>> (127 - bit)) & 1;
+    }
+
+    static class Builder<V> {
+        private final int maxBits;
+        private int[] zeroChildren = new int[64];
+        private int[] oneChildren = new int[64];
+        private Object[] values = new Object[64];
+        private int nodeCount;
+        private int size;
+
+        Builder(int maxBits) {
+            this.maxBits = maxBits;
+            newNode();
+        }
+
+        /*
+         * Adds a prefix. A later value for the same prefix replaces the earlier one.
+         */
+        void put(long hi, long lo, int prefixLength, V value) {
+            if (prefixLength < 0 || prefixLength > maxBits) {
+                throw new IllegalArgumentException(String.format("Prefix length %d not in [0,%d]", prefixLength, maxBits));
+            }
+            if (value == null) {
+                throw new IllegalArgumentException("Value must not be null");
+            }
+
+            int node = 0;
+            for (int bit = 0; bit < prefixLength; bit++) {
+                int[] children = bitAt(hi, lo, bit) == 0 ? zeroChildren : oneChildren;
+                int child = children[node];
+                if (child == NONE) {
+                    child = newNode();
+                    // newNode may have grown the arrays
+                    children = bitAt(hi, lo, bit) == 0 ? zeroChildren : oneChildren;
+                    children[node] = child;
+                }
+                node = child;
+            }
+
+            if (values[node] == null) size++;
+            values[node] = value;
+        }
+
+        CidrTrie<V> build() {
+            return new CidrTrie<V>(this);
+        }
+
+        private int newNode() {
+            if (nodeCount == zeroChildren.length) {
+                int capacity = nodeCount * 2;
+                zeroChildren = Arrays.copyOf(zeroChildren, capacity);
+                oneChildren = Arrays.copyOf(oneChildren, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            zeroChildren[nodeCount] = NONE;
+            oneChildren[nodeCount] = NONE;
+            values[nodeCount] = null;
+            return nodeCount++;
+        }
+    }
+}
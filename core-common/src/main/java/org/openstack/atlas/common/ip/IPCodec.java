@@ -0,0 +1,292 @@
+package org.openstack.atlas.common.ip;
+
+import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
+
+/*
+ * Parses addresses into primitives without regular expressions, intermediate strings or byte
+ * arrays. IPv4 addresses become an int, IPv6 addresses a pair of longs holding the upper and lower
+ * 64 bits. Accepts the same strings as IPv4.getBytes() and IPv6.getBytes(), including IPv6
+ * addresses ending in dotted IPv4 notation.
+ */
+public final class IPCodec {
+    public static final long INVALID_IPV4 = -1L;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private IPCodec() {
+    }
+
+    /*
+     * Returns the address as an unsigned 32 bit value, or INVALID_IPV4 if the string is not an IPv4 address.
+     */
+    public static long parseIpv4(String ip) {
+        if (ip == null) {
+            return INVALID_IPV4;
+        }
+        return parseIpv4(ip, 0, ip.length());
+    }
+
+    public static int ipv4ToInt(String ip) throws IPStringConversionException1 {
+        long address = parseIpv4(ip);
+        if (address == INVALID_IPV4) {
+            throw new IPStringConversionException1(String.format("Error %s is not a valid IPv4 string", ip));
+        }
+        return (int) address;
+    }
+
+    public static boolean isValidIpv4(String ip) {
+        return parseIpv4(ip) != INVALID_IPV4;
+    }
+
+    public static String ipv4ToString(int address) {
+        return new StringBuilder(15)
+                .append(address >>> 24).append('.')
+                .append((address >>> 16) & 0xff).append('.')
+                .append((address >>> 8) & 0xff).append('.')
+                .append(address & 0xff).toString();
+    }
+
+    public static int ipv4Mask(int prefixLength) {
+        return prefixLength == 0 ? 0 : -1 << (32 - prefixLength);
+    }
+
+    public static boolean ipv4Contains(int network, int prefixLength, int address) {
+        int mask = ipv4Mask(prefixLength);
+        return (network & mask) == (address & mask);
+    }
+
+    public static int compareIpv4(int a, int b) {
+        a ^= Integer.MIN_VALUE;
+        b ^= Integer.MIN_VALUE;
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    /*
+     * Parses an IPv6 address into out[0] (upper 64 bits) and out[1] (lower 64 bits). Returns false,
+     * leaving out untouched, if the string is not an IPv6 address. out may be null to only validate.
+     */
+    public static boolean parseIpv6(String ip, long[] out) {
+        if (ip == null || ip.length() < 2) {
+            return false;
+        }
+
+        final int length = ip.length();
+        long hi = 0;
+        long lo = 0;
+        long headHi = 0;
+        long headLo = 0;
+        int groups = 0;
+        int compressedAt = -1;
+        int ipv4Groups = 0;
+        int i = 0;
+
+        if (ip.charAt(0) == ':') {
+            if (ip.charAt(1) != ':') {
+                return false;
+            }
+            compressedAt = 0;
+            i = 2;
+        }
+
+        while (i < length) {
+            if (groups == 8) {
+                return false;
+            }
+
+            int start = i;
+            int value = 0;
+            while (i < length && hexDigit(ip.charAt(i)) >= 0) {
+                value = (value << 4) | hexDigit(ip.charAt(i));
+                i++;
+                if (i - start > 4) break;
+            }
+
+            if (i < length && ip.charAt(i) == '.') {
+                // Trailing dotted IPv4 part, takes up the last two groups
+                long ipv4 = groups > 6 ? INVALID_IPV4 : parseIpv4(ip, start, length);
+                if (ipv4 == INVALID_IPV4) {
+                    return false;
+                }
+                hi = (hi << 32) | (lo >>> 32);
+                lo = (lo << 32) | ipv4;
+                groups += 2;
+                ipv4Groups = 2;
+                break;
+            }
+
+            if (i == start || i - start > 4) {
+                return false;
+            }
+            hi = (hi << 16) | (lo >>> 48);
+            lo = (lo << 16) | value;
+            groups++;
+
+            if (i == length) break;
+            if (ip.charAt(i++) != ':') {
+                return false;
+            }
+            if (i < length && ip.charAt(i) == ':') {
+                if (compressedAt >= 0) {
+                    return false;
+                }
+                compressedAt = groups;
+                headHi = hi;
+                headLo = lo;
+                hi = 0;
+                lo = 0;
+                i++;
+            } else if (i == length) {
+                return false;
+            }
+        }
+
+        if (compressedAt < 0 && groups != 8) {
+            return false;
+        }
+        // Like IPv6.getBytes(), a leading or trailing "::" stands for at least two groups
+        if (compressedAt >= 0 && groups > (compressedAt == 0 || compressedAt == groups - ipv4Groups ? 6 : 7)) {
+            return false;
+        }
+
+        if (compressedAt >= 0) {
+            // The groups before the "::" go to the top, the ones after it stay at the bottom
+            int shift = (8 - compressedAt) * 16;
+            hi |= shift >= 128 ? 0 : shift >= 64 ? headLo << (shift - 64) : (headHi << shift) | (headLo >>> (64 - shift));
+            lo |= shift >= 64 ? 0 : headLo << shift;
+        }
+
+        if (out != null) {
+            out[0] = hi;
+            out[1] = lo;
+        }
+        return true;
+    }
+
+    public static boolean isValidIpv6(String ip) {
+        return parseIpv6(ip, null);
+    }
+
+    public static long ipv6MaskHi(int prefixLength) {
+        return prefixLength >= 64 ? -1L : prefixLength == 0 ? 0 : -1L << (64 - prefixLength);
+    }
+
+    public static long ipv6MaskLo(int prefixLength) {
+        return prefixLength <= 64 ? 0 : prefixLength == 128 ? -1L : -1L << (128 - prefixLength);
+    }
+
+    public static boolean ipv6Contains(long networkHi, long networkLo, int prefixLength, long hi, long lo) {
+        long maskHi = ipv6MaskHi(prefixLength);
+        long maskLo = ipv6MaskLo(prefixLength);
+        return (networkHi & maskHi) == (hi & maskHi) && (networkLo & maskLo) == (lo & maskLo);
+    }
+
+    public static int compareIpv6(long aHi, long aLo, long bHi, long bLo) {
+        int out = compareUnsigned(aHi, bHi);
+        return out != 0 ? out : compareUnsigned(aLo, bLo);
+    }
+
+    public static String ipv6ToString(long hi, long lo) {
+        return appendIpv6(new StringBuilder(39), hi, lo).toString();
+    }
+
+    /*
+     * Appends the address in RFC 5952 text form: lower case, no leading zeros, and the longest run of
+     * two or more zero groups (the first one on a tie) replaced by "::".
+     */
+    public static StringBuilder appendIpv6(StringBuilder out, long hi, long lo) {
+        int zerosAt = -1;
+        int zeros = 1;
+        int runAt = -1;
+        for (int i = 0; i <= 8; i++) {
+            if (i < 8 && ipv6Group(hi, lo, i) == 0) {
+                if (runAt < 0) runAt = i;
+            } else if (runAt >= 0) {
+                if (i - runAt > zeros) {
+                    zerosAt = runAt;
+                    zeros = i - runAt;
+                }
+                runAt = -1;
+            }
+        }
+
+        for (int i = 0; i < 8; i++) {
+            if (i == zerosAt) {
+                out.append("::");
+                i += zeros - 1;
+                continue;
+            }
+            if (i > 0 && i != zerosAt + zeros) {
+                out.append(':');
+            }
+            int group = ipv6Group(hi, lo, i);
+            boolean leading = true;
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                int nibble = (group >>> shift) & 0xf;
+                if (leading && nibble == 0 && shift > 0) continue;
+                leading = false;
+                out.append(HEX_DIGITS[nibble]);
+            }
+        }
+        return out;
+    }
+
+    /*
+     * Appends the address as eight groups of four lower case hex digits, the form IPv6.expand() gives.
+     */
+    public static StringBuilder appendIpv6Expanded(StringBuilder out, long hi, long lo) {
+        for (int i = 0; i < 8; i++) {
+            if (i > 0) {
+                out.append(':');
+            }
+            int group = ipv6Group(hi, lo, i);
+            out.append(HEX_DIGITS[group >>> 12]).append(HEX_DIGITS[(group >>> 8) & 0xf])
+                    .append(HEX_DIGITS[(group >>> 4) & 0xf]).append(HEX_DIGITS[group & 0xf]);
+        }
+        return out;
+    }
+
+    private static int ipv6Group(long hi, long lo, int group) {
+        return (int) ((group < 4 ? hi >>> (48 - group * 16) : lo >>> (112 - group * 16)) & 0xffff);
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    private static long parseIpv4(String ip, int start, int end) {
+        long address = 0;
+        int octets = 0;
+        int i = start;
+
+        while (octets < 4) {
+            int digitsStart = i;
+            int octet = 0;
+            while (i < end && i - digitsStart < 3 && ip.charAt(i) >= '0' && ip.charAt(i) <= '9') {
+                octet = octet * 10 + (ip.charAt(i) - '0');
+                i++;
+            }
+            if (i == digitsStart || octet > 255) {
+                return INVALID_IPV4;
+            }
+            address = (address << 8) | octet;
+            octets++;
+
+            if (octets < 4) {
+                if (i == end || ip.charAt(i) != '.') {
+                    return INVALID_IPV4;
+                }
+                i++;
+            }
+        }
+
+        return i == end ? address : INVALID_IPV4;
+    }
+
+    private static int compareUnsigned(long a, long b) {
+        a ^= Long.MIN_VALUE;
+        b ^= Long.MIN_VALUE;
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+}
@@ -14,13 +14,7 @@ public class IPUtils {
     private static Random rnd = new Random();
 
     public static boolean isValidIpv6String(String in) {
-        IPv6 ip = new IPv6(in);
-        try {
-            ip.getBytes();
-        } catch (IPStringConversionException1 ex) {
-            return false;
-        }
-        return true;
+        return IPCodec.isValidIpv6(in);
     }
 
     public static final boolean isValidIpv4Subnet(String in) {
@@ -77,13 +71,7 @@ public class IPUtils {
     }
 
     public static boolean isValidIpv4String(String in) {
-        IPv4 ip = new IPv4(in);
-        try {
-            ip.getBytes();
-        } catch (IPStringConversionException1 ex) {
-            return false;
-        }
-        return true;
+        return IPCodec.isValidIpv4(in);
     }
 
 
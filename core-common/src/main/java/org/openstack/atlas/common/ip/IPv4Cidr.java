@@ -14,6 +14,7 @@ public class IPv4Cidr {
     private int subnet;
     private byte[] ipBytes;
     private byte[] maskBytes;
+    private int network;
 
     public IPv4Cidr() {
     }
@@ -40,7 +41,7 @@ public class IPv4Cidr {
             try {
                 subnetint = Integer.parseInt(subnet);
                 if (subnetint < 0 || subnetint > 32 || !IPUtils.isValidIpv4String(ip)) {
-                    msg = String.format("Subnet %i not in [0,32]", subnetint);
+                    msg = String.format("Subnet %d not in [0,32]", subnetint);
                     throw new IPStringConversionException1(msg);
                 }
                 this.subnet = subnetint;
@@ -51,6 +52,7 @@ public class IPv4Cidr {
             this.cidr = in;
             ipBytes = new IPv4(ip).getBytes();
             maskBytes = IPUtils.rollMask(subnetint,4);
+            network = IPCodec.ipv4ToInt(ip);
         } else {
             msg = String.format("INVALID SUBNET: %s", in);
             throw new IPStringConversionException1(msg);
@@ -58,15 +60,12 @@ public class IPv4Cidr {
     }
 
     public boolean contains(String ip) throws IPStringConversionException1, IpTypeMissMatchException {
-        boolean out;
-        if(!IPUtils.isValidIpv4String(ip)) {
-            return false;
-        }
-        byte[] theirBytes = new IPv4(ip).getBytes();
-        byte[] mySubnet = IPUtils.opBytes(ipBytes, maskBytes, ByteStreamOperation.AND);
-        byte[] theirSubnet = IPUtils.opBytes(theirBytes, maskBytes, ByteStreamOperation.AND);
-        out = IPUtils.bytesEqual(theirSubnet, mySubnet);
-        return out;
+        long address = IPCodec.parseIpv4(ip);
+        return address != IPCodec.INVALID_IPV4 && contains((int) address);
+    }
+
+    public boolean contains(int address) {
+        return IPCodec.ipv4Contains(network, subnet, address);
     }
 
     public String getCidr() {
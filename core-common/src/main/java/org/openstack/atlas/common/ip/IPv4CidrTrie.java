@@ -0,0 +1,66 @@
+package org.openstack.atlas.common.ip;
+
+import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
+
+/*
+ * Immutable longest prefix match index of IPv4 CIDR blocks. A lookup takes at most 32 bit steps,
+ * however many blocks the index holds.
+ */
+public final class IPv4CidrTrie<V> {
+    private final CidrTrie<V> trie;
+
+    private IPv4CidrTrie(CidrTrie<V> trie) {
+        this.trie = trie;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<V>();
+    }
+
+    public V longestMatch(int address) {
+        return trie.longestMatch(((long) address) << 32, 0L);
+    }
+
+    public V longestMatch(String ip) {
+        long address = IPCodec.parseIpv4(ip);
+        return address == IPCodec.INVALID_IPV4 ? null : longestMatch((int) address);
+    }
+
+    public boolean contains(int address) {
+        return longestMatch(address) != null;
+    }
+
+    public boolean contains(String ip) {
+        return longestMatch(ip) != null;
+    }
+
+    public int size() {
+        return trie.size();
+    }
+
+    public static final class Builder<V> {
+        private final CidrTrie.Builder<V> trie = new CidrTrie.Builder<V>(32);
+
+        private Builder() {
+        }
+
+        public Builder<V> put(int address, int prefixLength, V value) {
+            trie.put(((long) address) << 32, 0L, prefixLength, value);
+            return this;
+        }
+
+        public Builder<V> put(IPv4Cidr cidr, V value) {
+            byte[] bytes = cidr.getIpBytes();
+            int address = ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+            return put(address, cidr.getSubnet(), value);
+        }
+
+        public Builder<V> put(String cidr, V value) throws IPStringConversionException1 {
+            return put(new IPv4Cidr(cidr), value);
+        }
+
+        public IPv4CidrTrie<V> build() {
+            return new IPv4CidrTrie<V>(trie.build());
+        }
+    }
+}
@@ -24,8 +24,12 @@ public class IPv4Cidrs {
     }
 
     public boolean contains(String ip) throws IPStringConversionException1, IpTypeMissMatchException {
+        long address = IPCodec.parseIpv4(ip);
+        if (address == IPCodec.INVALID_IPV4) {
+            return false;
+        }
         for(IPv4Cidr cidr : cidrs){
-            if(cidr.contains(ip)) {
+            if(cidr.contains((int) address)) {
                 return true;
             }
 
@@ -11,27 +11,15 @@ import java.util.regex.Pattern;
 public class IPv4ToolSet {
 
     public static String long2ip(long ipLong) {
-        long o4 = (ipLong >> 24) & 0xFF;
-        long o3 = (ipLong >> 16) & 0xFF;
-        long o2 = (ipLong >> 8) & 0xFF;
-        long o1 = (ipLong >> 0) & 0xFF;
-        return String.format("%d.%d.%d.%d", o4, o3, o2, o1);
+        return IPCodec.ipv4ToString((int) ipLong);
     }
 
     public static long mask_bits(int bits) throws IPStringConversionException {
-        long mask = 0;
-        long rolling_bit = 1L << 32;
-        int i;
         String parseError = "Error parsing integer";
         if (bits < 0 || bits > 32) {
             throw new IPStringConversionException(parseError);
         }
-        for (i = 1; i <= bits; i++) {
-            rolling_bit >>= 1;
-            mask |= rolling_bit;
-            //System.out.printf("rolling bit = %d mask = %s\n",rolling_bit,mask);
-        }
-        return mask;
+        return IPCodec.ipv4Mask(bits) & 0xFFFFFFFFL;
     }
 
     public static List<String> ipv4BlockToIpStrings(String blockString) throws IPStringConversionException, IPOctetOutOfRangeException, IPCidrBlockOutOfRangeException {
@@ -96,20 +84,17 @@ public class IPv4ToolSet {
     }
 
     public static boolean isValid(String ip) {
-        long ipLong;
-        if(ip==null) {
-            return false;
-        }
-        try {
-            ipLong = ip2long(ip);
-        } catch (Exception ex) {
-            return false;
-        }
-        return true;
+        return IPCodec.isValidIpv4(ip);
     }
 
     public static long ip2long(String ip) throws IPStringConversionException, IPOctetOutOfRangeException {
-        long out = 0;
+        long out = IPCodec.parseIpv4(ip);
+        if (out != IPCodec.INVALID_IPV4) {
+            return out;
+        }
+
+        // Not an address, go the long way round for the detailed error
+        out = 0;
         String ippatternstr = "^([0-9]{1,3})\\.([0-9]{1,3})\\.([0-9]{1,3})\\.([0-9]{1,3})$";
         Pattern ipPattern = Pattern.compile(ippatternstr);
         Matcher ipMatch = ipPattern.matcher(ip);
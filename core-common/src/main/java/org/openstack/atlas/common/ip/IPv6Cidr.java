@@ -14,6 +14,8 @@ public class IPv6Cidr {
     private int subnet;
     private byte[] ipBytes;
     private byte[] maskBytes;
+    private long networkHi;
+    private long networkLo;
 
     public IPv6Cidr() {
     }
@@ -50,6 +52,10 @@ public class IPv6Cidr {
             this.cidr = in;
             ipBytes = new IPv6(ipStr).getBytes();
             maskBytes = IPUtils.rollMask(subnetint, 16);
+            long[] network = new long[2];
+            IPCodec.parseIpv6(ipStr, network);
+            networkHi = network[0];
+            networkLo = network[1];
         } else {
             msg = String.format("INVALID SUBNET: %s", in);
             throw new IPStringConversionException1(msg);
@@ -57,15 +63,12 @@ public class IPv6Cidr {
     }
 
     public boolean contains(String ip) throws IPStringConversionException1, IpTypeMissMatchException {
-        boolean out;
-        if(!IPUtils.isValidIpv6String(ip)) {
-            return false;
-        }
-        byte[] theirBytes = new IPv6(ip).getBytes();
-        byte[] mySubnet = IPUtils.opBytes(ipBytes, maskBytes, ByteStreamOperation.AND);
-        byte[] theirSubnet = IPUtils.opBytes(theirBytes, maskBytes, ByteStreamOperation.AND);
-        out = IPUtils.bytesEqual(theirSubnet, mySubnet);
-        return out;
+        long[] address = new long[2];
+        return IPCodec.parseIpv6(ip, address) && contains(address[0], address[1]);
+    }
+
+    public boolean contains(long hi, long lo) {
+        return IPCodec.ipv6Contains(networkHi, networkLo, subnet, hi, lo);
     }
 
     public boolean matches(IPv6Cidr oCidr) throws IpTypeMissMatchException, IPStringConversionException1 {
@@ -0,0 +1,73 @@
+package org.openstack.atlas.common.ip;
+
+import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
+
+/*
+ * Immutable longest prefix match index of IPv6 CIDR blocks, keyed by the upper and lower 64 bits
+ * of the address. A lookup takes at most 128 bit steps, however many blocks the index holds.
+ */
+public final class IPv6CidrTrie<V> {
+    private final CidrTrie<V> trie;
+
+    private IPv6CidrTrie(CidrTrie<V> trie) {
+        this.trie = trie;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<V>();
+    }
+
+    public V longestMatch(long hi, long lo) {
+        return trie.longestMatch(hi, lo);
+    }
+
+    public V longestMatch(String ip) {
+        long[] address = new long[2];
+        return IPCodec.parseIpv6(ip, address) ? longestMatch(address[0], address[1]) : null;
+    }
+
+    public boolean contains(long hi, long lo) {
+        return longestMatch(hi, lo) != null;
+    }
+
+    public boolean contains(String ip) {
+        return longestMatch(ip) != null;
+    }
+
+    public int size() {
+        return trie.size();
+    }
+
+    static long toLong(byte[] bytes, int offset) {
+        long out = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            out = (out << 8) | (bytes[i] & 0xff);
+        }
+        return out;
+    }
+
+    public static final class Builder<V> {
+        private final CidrTrie.Builder<V> trie = new CidrTrie.Builder<V>(128);
+
+        private Builder() {
+        }
+
+        public Builder<V> put(long hi, long lo, int prefixLength, V value) {
+            trie.put(hi, lo, prefixLength, value);
+            return this;
+        }
+
+        public Builder<V> put(IPv6Cidr cidr, V value) {
+            byte[] bytes = cidr.getIpBytes();
+            return put(toLong(bytes, 0), toLong(bytes, 8), cidr.getSubnet(), value);
+        }
+
+        public Builder<V> put(String cidr, V value) throws IPStringConversionException1 {
+            return put(new IPv6Cidr(cidr), value);
+        }
+
+        public IPv6CidrTrie<V> build() {
+            return new IPv6CidrTrie<V>(trie.build());
+        }
+    }
+}
@@ -24,8 +24,12 @@ public class IPv6Cidrs {
     }
 
     public boolean contains(String ip) throws IPStringConversionException1, IpTypeMissMatchException {
+        long[] address = new long[2];
+        if (!IPCodec.parseIpv6(ip, address)) {
+            return false;
+        }
         for(IPv6Cidr cidr : cidrs){
-            if(cidr.contains(ip)) {
+            if(cidr.contains(address[0], address[1])) {
                 return true;
             }
 
@@ -0,0 +1,80 @@
+package org.openstack.atlas.common.ip;
+
+import org.openstack.atlas.common.crypto.HashUtil;
+import org.openstack.atlas.common.ip.exception.AccountUnHashableException;
+import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Builds IPv6 virtual ip addresses on a pair of longs: the cluster prefix in the upper bits, the first
+ * 32 bits of the SHA-1 of the account id in bits 64-95 and the vip octets in the lowest 32 bits. Gives
+ * the same addresses as IPv6.setClusterPartition, setAccountPartition and setVipOctets followed by
+ * expand(). Parsed cluster prefixes and account partitions are kept in bounded LRU caches, list
+ * responses and adapter pushes render the same few clusters and accounts over and over.
+ */
+public final class IPv6VipSynthesizer {
+    public static final int MAX_CACHED_CLUSTERS = 256;
+    public static final int MAX_CACHED_ACCOUNTS = 10000;
+
+    private static final Map<String, Long> clusterPrefixes = lruCache(MAX_CACHED_CLUSTERS);
+    private static final Map<Integer, Integer> accountPartitions = lruCache(MAX_CACHED_ACCOUNTS);
+
+    private IPv6VipSynthesizer() {
+    }
+
+    public static String vipAddress(String clusterCidr, int accountId, int vipOctets) throws IPStringConversionException1 {
+        return appendVipAddress(new StringBuilder(39), clusterCidr, accountId, vipOctets).toString();
+    }
+
+    /*
+     * Appends the expanded address to out, so callers rendering many virtual ips can reuse one buffer.
+     */
+    public static StringBuilder appendVipAddress(StringBuilder out, String clusterCidr, int accountId, int vipOctets) throws IPStringConversionException1 {
+        long hi = clusterPrefix(clusterCidr);
+        // Like IPv6.setVipOctets, which drops the sign of negative octets
+        long octets = (vipOctets < 0 ? -vipOctets : vipOctets) & 0xffffffffL;
+        long lo = ((long) accountPartition(accountId) << 32) | octets;
+        return IPCodec.appendIpv6Expanded(out, hi, lo);
+    }
+
+    public static long clusterPrefix(String clusterCidr) throws IPStringConversionException1 {
+        Long prefix = clusterPrefixes.get(clusterCidr);
+        if (prefix == null) {
+            IPv6Cidr cidr = new IPv6Cidr(clusterCidr);
+            long[] network = new long[2];
+            IPCodec.parseIpv6(clusterCidr.substring(0, clusterCidr.indexOf('/')), network);
+            // Everything below bit 64 is taken by the account partition and the vip octets
+            prefix = network[0] & IPCodec.ipv6MaskHi(cidr.getSubnet());
+            clusterPrefixes.put(clusterCidr, prefix);
+        }
+        return prefix;
+    }
+
+    public static int accountPartition(int accountId) throws AccountUnHashableException {
+        Integer partition = accountPartitions.get(accountId);
+        if (partition == null) {
+            byte[] accountSha1;
+            try {
+                accountSha1 = HashUtil.sha1sum(String.valueOf(accountId).getBytes(), 0, 4);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new AccountUnHashableException("Account was not sha1 Sum Hashable", ex);
+            }
+            partition = ((accountSha1[0] & 0xff) << 24) | ((accountSha1[1] & 0xff) << 16) | ((accountSha1[2] & 0xff) << 8) | (accountSha1[3] & 0xff);
+            accountPartitions.put(accountId, partition);
+        }
+        return partition;
+    }
+
+    private static <K, V> Map<K, V> lruCache(final int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package org.openstack.atlas.common.config.osgi.cfg.commons;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.openstack.atlas.common.config.Configuration;
+import org.openstack.atlas.common.config.ConfigurationInitializationException;
+import org.openstack.atlas.common.config.ConfigurationKey;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Measures getString throughput of the snapshot based configuration against the previous
+ * synchronized, stat-per-call implementation, with 64 threads reading concurrently.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dthreads=64 -Dseconds=10 -cp ... org.openstack.atlas.common.config.osgi.cfg.commons.ConfigurationBenchmark
+ */
+public class ConfigurationBenchmark {
+    private enum Keys implements ConfigurationKey {
+        adapter, extensions
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int threads = Integer.getInteger("threads", 64);
+        final int seconds = Integer.getInteger("seconds", 10);
+
+        File file = File.createTempFile("public-api", ".conf");
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write("adapter=zxtm\nextensions=rax\n");
+        } finally {
+            writer.close();
+        }
+
+        // Warm up both before measuring
+        run(new SynchronizedConfiguration(file), threads, 2);
+        run(new ApacheCommonsConfiguration(file.getPath()), threads, 2);
+
+        report("synchronized, stat per call", run(new SynchronizedConfiguration(file), threads, seconds), seconds);
+        report("snapshot", run(new ApacheCommonsConfiguration(file.getPath()), threads, seconds), seconds);
+    }
+
+    private static long run(final Configuration configuration, int threads, int seconds) throws Exception {
+        final AtomicLong reads = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long deadline = System.nanoTime() + seconds * 1000000000L;
+        Thread[] readers = new Thread[threads];
+
+        for (int i = 0; i < threads; i++) {
+            readers[i] = new Thread() {
+                @Override
+                public void run() {
+                    long count = 0;
+                    try {
+                        start.await();
+                        while (System.nanoTime() < deadline) {
+                            for (int j = 0; j < 1000; j++) {
+                                if (configuration.getString((j & 1) == 0 ? Keys.adapter : Keys.extensions) == null) {
+                                    throw new IllegalStateException("Missing configuration value");
+                                }
+                            }
+                            count += 1000;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    reads.addAndGet(count);
+                }
+            };
+            readers[i].start();
+        }
+
+        start.countDown();
+        for (Thread reader : readers) reader.join();
+        return reads.get();
+    }
+
+    private static void report(String name, long reads, int seconds) {
+        System.out.println(String.format("%-30s %,15d getString/sec", name, reads / seconds));
+    }
+
+    /*
+     * The checks ApacheCommonsConfiguration used to do on every read.
+     */
+    private static class SynchronizedConfiguration implements Configuration {
+        private final File configurationFile;
+        private long configurationFileLastModifiedTimestamp;
+        private PropertiesConfiguration configuration;
+
+        public SynchronizedConfiguration(File configurationFile) {
+            this.configurationFile = configurationFile;
+        }
+
+        private synchronized void checkState() {
+            if (configuration == null || (configurationFile.length() != 0 && configurationFileLastModifiedTimestamp != configurationFile.length())) {
+                configurationFileLastModifiedTimestamp = configurationFile.lastModified();
+                try {
+                    configuration = new PropertiesConfiguration(configurationFile);
+                } catch (Exception e) {
+                    throw new ConfigurationInitializationException(e.getMessage(), e);
+                }
+            }
+        }
+
+        @Override
+        public String getString(ConfigurationKey key) {
+            checkState();
+            return configuration.getString(key.name());
+        }
+
+        @Override
+        public boolean hasKeys(ConfigurationKey... keys) {
+            checkState();
+            for (ConfigurationKey key : keys) {
+                if (!configuration.containsKey(key.name())) return false;
+            }
+            return true;
+        }
+    }
+}
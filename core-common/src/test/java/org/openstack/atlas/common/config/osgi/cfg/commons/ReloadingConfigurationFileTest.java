@@ -0,0 +1,199 @@
+package org.openstack.atlas.common.config.osgi.cfg.commons;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.common.config.ConfigurationInitializationException;
+import org.openstack.atlas.common.config.ConfigurationNotFoundException;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(Enclosed.class)
+public class ReloadingConfigurationFileTest {
+
+    public static class WhenTheFileChanges {
+        private File file;
+        private ReloadingConfigurationFile configurationFile;
+
+        @Before
+        public void standUp() throws IOException {
+            file = File.createTempFile("public-api", ".conf");
+            write(file, "adapter=zxtm\nextensions=rax\n", 1000000L);
+            configurationFile = ReloadingConfigurationFile.forPath(file.getPath());
+        }
+
+        @After
+        public void tearDown() {
+            file.delete();
+        }
+
+        @Test
+        public void shouldShareOneInstancePerFile() {
+            assertSame(configurationFile, ReloadingConfigurationFile.forPath(file.getPath()));
+        }
+
+        @Test
+        public void shouldReadTheFileOnFirstUse() {
+            assertEquals("zxtm", configurationFile.getSnapshot().getString("adapter"));
+            assertEquals("rax", configurationFile.getSnapshot().getString("extensions"));
+        }
+
+        @Test
+        public void shouldKeepTheSnapshotWhileTheFileIsUnchanged() {
+            ConfigurationSnapshot snapshot = configurationFile.getSnapshot();
+            assertFalse(configurationFile.reloadIfChanged());
+            assertSame(snapshot, configurationFile.getSnapshot());
+        }
+
+        @Test
+        public void shouldSwapTheSnapshotWhenTheFileChanged() throws IOException {
+            ConfigurationSnapshot snapshot = configurationFile.getSnapshot();
+            write(file, "adapter=netscaler\n", 2000000L);
+
+            // The background reloader may have swapped it first, either way the new values are read
+            configurationFile.reloadIfChanged();
+            assertNotSame(snapshot, configurationFile.getSnapshot());
+            assertEquals("netscaler", configurationFile.getSnapshot().getString("adapter"));
+            assertFalse(configurationFile.getSnapshot().containsKey("extensions"));
+            assertEquals("zxtm", snapshot.getString("adapter"));
+        }
+
+        @Test
+        public void shouldKeepTheOldSnapshotWhenTheFileFailsToParse() throws IOException {
+            ConfigurationSnapshot snapshot = configurationFile.getSnapshot();
+            write(file, "adapter=netscaler\ninclude=does-not-exist.conf\n", 2000000L);
+
+            assertFalse(configurationFile.reloadIfChanged());
+            assertSame(snapshot, configurationFile.getSnapshot());
+            assertEquals("zxtm", configurationFile.getSnapshot().getString("adapter"));
+        }
+
+        @Test
+        public void shouldKeepTheOldSnapshotWhenTheFileIsRemoved() {
+            ConfigurationSnapshot snapshot = configurationFile.getSnapshot();
+            assertTrue(file.delete());
+
+            assertFalse(configurationFile.reloadIfChanged());
+            assertSame(snapshot, configurationFile.getSnapshot());
+        }
+
+        @Test
+        public void shouldReadTheFileAgainOnceItParsesAgain() throws IOException {
+            configurationFile.getSnapshot();
+            write(file, "adapter=netscaler\ninclude=does-not-exist.conf\n", 2000000L);
+            configurationFile.reloadIfChanged();
+            write(file, "adapter=netscaler\n", 3000000L);
+
+            configurationFile.reloadIfChanged();
+            assertEquals("netscaler", configurationFile.getSnapshot().getString("adapter"));
+        }
+    }
+
+    public static class WhenTheFileIsMissing {
+        private File file;
+        private ReloadingConfigurationFile configurationFile;
+
+        @Before
+        public void standUp() throws IOException {
+            file = File.createTempFile("public-api", ".conf");
+            assertTrue(file.delete());
+            configurationFile = ReloadingConfigurationFile.forPath(file.getPath());
+        }
+
+        @After
+        public void tearDown() {
+            file.delete();
+        }
+
+        @Test
+        public void shouldThrowOnEveryRead() {
+            try {
+                configurationFile.getSnapshot().getString("adapter");
+                fail("Expected a ConfigurationNotFoundException");
+            } catch (ConfigurationNotFoundException expected) {
+            }
+            assertTrue(configurationFile.getSnapshot().isFailed());
+        }
+
+        @Test
+        public void shouldReadTheFileOnceItAppears() throws IOException {
+            assertTrue(configurationFile.getSnapshot().isFailed());
+            write(file, "adapter=zxtm\n", 1000000L);
+
+            configurationFile.reloadIfChanged();
+            assertFalse(configurationFile.getSnapshot().isFailed());
+            assertEquals("zxtm", configurationFile.getSnapshot().getString("adapter"));
+        }
+    }
+
+    public static class WhenReadingASnapshot {
+
+        @Test
+        public void shouldResolveInterpolationAndTakeTheFirstValueOfAList() throws Exception {
+            File file = File.createTempFile("public-api", ".conf");
+            try {
+                write(file, "host=example.com\nbase_uri=https://${host}/v1\nextensions=rax, ctx\n", 1000000L);
+                ConfigurationSnapshot snapshot = ReloadingConfigurationFile.forPath(file.getPath()).getSnapshot();
+
+                assertEquals("https://example.com/v1", snapshot.getString("base_uri"));
+                assertEquals("rax", snapshot.getString("extensions"));
+            } finally {
+                file.delete();
+            }
+        }
+
+        @Test
+        public void shouldThrowTheLoadErrorFromAFailedSnapshot() {
+            ConfigurationInitializationException error = new ConfigurationInitializationException("broken");
+            ConfigurationSnapshot snapshot = ConfigurationSnapshot.failed(error, 1L, 2L);
+
+            assertTrue(snapshot.isFailed());
+            try {
+                snapshot.getString("adapter");
+                fail("Expected a ConfigurationInitializationException");
+            } catch (ConfigurationInitializationException e) {
+                assertSame(error, e);
+            }
+            try {
+                snapshot.containsKey("adapter");
+                fail("Expected a ConfigurationInitializationException");
+            } catch (ConfigurationInitializationException e) {
+                assertSame(error, e);
+            }
+        }
+
+        @Test
+        public void shouldBeOlderThanAFileWithAnotherTimeOrSize() {
+            ConfigurationSnapshot snapshot = ConfigurationSnapshot.failed(new ConfigurationInitializationException("broken"), 1000L, 20L);
+
+            assertFalse(snapshot.isOlderThan(1000L, 20L));
+            assertTrue(snapshot.isOlderThan(2000L, 20L));
+            assertTrue(snapshot.isOlderThan(1000L, 21L));
+        }
+    }
+
+    /*
+     * Sets the modification time explicitly, file systems with a coarse timestamp would otherwise
+     * not tell two writes within the same second apart when the size does not change either.
+     */
+    private static void write(File file, String content, long lastModified) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+        assertTrue(file.setLastModified(lastModified));
+    }
+}
@@ -0,0 +1,84 @@
+package org.openstack.atlas.common.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/*
+ * Measures decrypt ops/sec of the way CryptoUtil used to decrypt (new key spec, new cipher and
+ * substring based hex decoding per call) against CryptoService, with and without its cache.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dops=500000 -cp ... org.openstack.atlas.common.crypto.CryptoBenchmark
+ */
+public class CryptoBenchmark {
+    private static final String KEY = "0123456789abcdef";
+    private static final int SECRETS = 16;
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        final int ops = Integer.getInteger("ops", 500000);
+        final CryptoService cached = new CryptoService(newKeySpec(), SECRETS);
+        final CryptoService uncached = new CryptoService(newKeySpec(), 0);
+        final String[] encrypted = new String[SECRETS];
+        for (int i = 0; i < SECRETS; i++) {
+            encrypted[i] = cached.encrypt("cluster-password-" + i);
+        }
+
+        Benchmark[] benchmarks = {
+                new Benchmark("cipher per call") {
+                    void run(int i) throws Exception {
+                        String s = encrypted[i % SECRETS];
+                        byte[] bytes = new byte[s.length() / 2];
+                        for (int j = 0; j < s.length(); j += 2) {
+                            bytes[j / 2] = (byte) (Integer.parseInt(s.substring(j, j + 2), 16) & 0xff);
+                        }
+                        Cipher cipher = Cipher.getInstance("AES/ECB/NoPadding");
+                        cipher.init(Cipher.DECRYPT_MODE, newKeySpec());
+                        sink += new String(cipher.doFinal(bytes), CryptoUtil.ENCODING).trim().length();
+                    }
+                },
+                new Benchmark("per-thread cipher") {
+                    void run(int i) throws Exception {
+                        sink += uncached.decrypt(encrypted[i % SECRETS]).length();
+                    }
+                },
+                new Benchmark("per-thread cipher + cache") {
+                    void run(int i) throws Exception {
+                        sink += cached.decrypt(encrypted[i % SECRETS]).length();
+                    }
+                }
+        };
+
+        // Warm up everything before measuring
+        for (Benchmark benchmark : benchmarks) benchmark.measure(ops / 4);
+        for (Benchmark benchmark : benchmarks) benchmark.report(ops);
+        System.out.println("(" + sink + ")");
+    }
+
+    private static SecretKeySpec newKeySpec() {
+        return new SecretKeySpec(KEY.getBytes(), CryptoUtilValues.TRANSFORMATION_ALG_AES);
+    }
+
+    private abstract static class Benchmark {
+        private final String name;
+        private long nanos;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        abstract void run(int i) throws Exception;
+
+        void measure(int ops) throws Exception {
+            long start = System.nanoTime();
+            for (int i = 0; i < ops; i++) run(i);
+            nanos = System.nanoTime() - start;
+        }
+
+        void report(int ops) throws Exception {
+            measure(ops);
+            System.out.println(String.format("%-26s %,12.0f decrypt ops/sec", name, ops / (nanos / 1000000000.0)));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.openstack.atlas.common.crypto;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.common.crypto.exception.DecryptException;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+@RunWith(Enclosed.class)
+public class CryptoServiceTest {
+    private static final String SECRET = "some secret";
+
+    private static SecretKeySpec newKeySpec(char fill) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 32; i++) {
+            key.append(fill);
+        }
+        return new SecretKeySpec(key.toString().getBytes(), CryptoUtilValues.TRANSFORMATION_ALG_AES);
+    }
+
+    public static class WhenEncryptingAndDecrypting {
+        private CryptoService cryptoService;
+
+        @Before
+        public void standUp() {
+            cryptoService = new CryptoService(newKeySpec('a'), CryptoService.DEFAULT_DECRYPTED_CACHE_SIZE);
+        }
+
+        @Test
+        public void shouldDecryptWhatItEncrypted() throws Exception {
+            assertEquals(SECRET, cryptoService.decrypt(cryptoService.encrypt(SECRET)));
+        }
+
+        @Test
+        public void shouldPassNullThrough() throws Exception {
+            assertNull(cryptoService.encrypt(null));
+            assertNull(cryptoService.decrypt(null));
+        }
+
+        @Test
+        public void shouldCacheDecryptedValues() throws Exception {
+            String encrypted = cryptoService.encrypt(SECRET);
+            cryptoService.decrypt(encrypted);
+            cryptoService.decrypt(encrypted);
+            assertEquals(1, cryptoService.getDecryptedCacheSize());
+        }
+
+        @Test
+        public void shouldEvictTheLeastRecentlyUsedValue() throws Exception {
+            CryptoService small = new CryptoService(newKeySpec('a'), 2);
+            small.decrypt(small.encrypt("one"));
+            small.decrypt(small.encrypt("two"));
+            small.decrypt(small.encrypt("three"));
+            assertEquals(2, small.getDecryptedCacheSize());
+        }
+    }
+
+    public static class WhenDecryptingInvalidInput {
+        private CryptoService cryptoService;
+
+        @Before
+        public void standUp() {
+            cryptoService = new CryptoService(newKeySpec('a'), CryptoService.DEFAULT_DECRYPTED_CACHE_SIZE);
+        }
+
+        @Test(expected = DecryptException.class)
+        public void shouldRejectAnOddNumberOfHexDigits() throws DecryptException {
+            cryptoService.decrypt("abc");
+        }
+
+        @Test(expected = DecryptException.class)
+        public void shouldRejectNonHexCharacters() throws DecryptException {
+            cryptoService.decrypt("0123456789abcdefghijklmnopqrstuv");
+        }
+
+        @Test(expected = DecryptException.class)
+        public void shouldRejectAnIncompleteBlock() throws DecryptException {
+            cryptoService.decrypt("0123456789abcdef");
+        }
+
+        @Test
+        public void shouldNotCacheRejectedInput() {
+            try {
+                cryptoService.decrypt("zz");
+            } catch (DecryptException expected) {
+            }
+            assertEquals(0, cryptoService.getDecryptedCacheSize());
+        }
+    }
+
+    public static class WhenChangingTheKey {
+        private CryptoService cryptoService;
+        private String encrypted;
+
+        @Before
+        public void standUp() throws Exception {
+            cryptoService = new CryptoService(newKeySpec('a'), CryptoService.DEFAULT_DECRYPTED_CACHE_SIZE);
+            encrypted = cryptoService.encrypt(SECRET);
+            assertEquals(SECRET, cryptoService.decrypt(encrypted));
+        }
+
+        @Test
+        public void shouldDropCachedValuesOnRotate() throws Exception {
+            cryptoService.rotateKey(newKeySpec('b'));
+            assertEquals(0, cryptoService.getDecryptedCacheSize());
+            assertFalse(SECRET.equals(cryptoService.decrypt(encrypted)));
+        }
+
+        @Test
+        public void shouldEncryptWithTheRotatedKey() throws Exception {
+            cryptoService.rotateKey(newKeySpec('b'));
+            CryptoService other = new CryptoService(newKeySpec('b'), CryptoService.DEFAULT_DECRYPTED_CACHE_SIZE);
+            assertEquals(SECRET, other.decrypt(cryptoService.encrypt(SECRET)));
+        }
+
+        @Test
+        public void shouldDropCachedValuesOnReload() throws Exception {
+            cryptoService.setKeyLoader(new CryptoService.KeyLoader() {
+                @Override
+                public SecretKeySpec load() {
+                    return newKeySpec('c');
+                }
+            });
+            cryptoService.reloadKey();
+            assertEquals(0, cryptoService.getDecryptedCacheSize());
+            assertFalse(SECRET.equals(cryptoService.decrypt(encrypted)));
+        }
+
+        @Test
+        public void shouldNotCacheAValueDecryptedWithTheOldKeyWhileRotating() throws Exception {
+            final SecretKeySpec oldKey = newKeySpec('a');
+            final SecretKeySpec newKey = newKeySpec('b');
+
+            for (int i = 0; i < 200; i++) {
+                cryptoService.rotateKey(oldKey);
+                final String oldEncrypted = cryptoService.encrypt(SECRET + i);
+                final boolean[] stop = new boolean[1];
+                Thread decrypter = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            while (!isStopped()) {
+                                cryptoService.decrypt(oldEncrypted);
+                            }
+                        } catch (DecryptException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+
+                    private boolean isStopped() {
+                        synchronized (stop) {
+                            return stop[0];
+                        }
+                    }
+                });
+                decrypter.start();
+                Thread.yield();
+
+                cryptoService.rotateKey(newKey);
+                synchronized (stop) {
+                    stop[0] = true;
+                }
+                decrypter.join();
+
+                assertFalse(String.format("Value decrypted with the old key was cached in round %d", i),
+                        (SECRET + i).equals(cryptoService.decrypt(oldEncrypted)));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.openstack.atlas.common.ip;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Enclosed.class)
+public class CidrTrieTest {
+
+    public static class WhenMatchingIpv4Addresses {
+        private IPv4CidrTrie<String> trie;
+
+        @Before
+        public void standUp() throws Exception {
+            trie = IPv4CidrTrie.<String>builder()
+                    .put("10.0.0.0/8", "wide")
+                    .put("10.1.0.0/16", "narrow")
+                    .put("10.1.2.3/32", "host")
+                    .put("192.168.0.0/24", "other")
+                    .build();
+        }
+
+        @Test
+        public void shouldReturnTheLongestMatchingPrefix() {
+            assertEquals("wide", trie.longestMatch("10.2.0.1"));
+            assertEquals("narrow", trie.longestMatch("10.1.2.4"));
+            assertEquals("host", trie.longestMatch("10.1.2.3"));
+            assertEquals("other", trie.longestMatch("192.168.0.255"));
+        }
+
+        @Test
+        public void shouldMatchTheEdgesOfABlock() {
+            assertEquals("narrow", trie.longestMatch("10.1.0.0"));
+            assertEquals("narrow", trie.longestMatch("10.1.255.255"));
+            assertEquals("wide", trie.longestMatch("10.2.0.0"));
+        }
+
+        @Test
+        public void shouldMatchIntAddresses() {
+            assertEquals("narrow", trie.longestMatch(0x0a010204));
+            assertTrue(trie.contains(0x0a000001));
+            assertFalse(trie.contains(0x0b000001));
+        }
+
+        @Test
+        public void shouldNotMatchAddressesOutsideEveryBlock() {
+            assertNull(trie.longestMatch("11.0.0.1"));
+            assertNull(trie.longestMatch("192.168.1.0"));
+            assertFalse(trie.contains("9.255.255.255"));
+        }
+
+        @Test
+        public void shouldNotMatchInvalidAddresses() {
+            assertNull(trie.longestMatch("10.1.2"));
+            assertNull(trie.longestMatch("10.1.2.256"));
+            assertNull(trie.longestMatch("not an ip"));
+        }
+
+        @Test
+        public void shouldCountEachPrefixOnce() throws Exception {
+            assertEquals(4, trie.size());
+
+            IPv4CidrTrie<String> replaced = IPv4CidrTrie.<String>builder()
+                    .put("10.0.0.0/8", "first")
+                    .put("10.0.0.0/8", "second")
+                    .build();
+            assertEquals(1, replaced.size());
+            assertEquals("second", replaced.longestMatch("10.0.0.1"));
+        }
+    }
+
+    public static class WhenMatchingIpv6Addresses {
+        private IPv6CidrTrie<String> trie;
+
+        @Before
+        public void standUp() throws Exception {
+            trie = IPv6CidrTrie.<String>builder()
+                    .put("2001:db8::/32", "wide")
+                    .put("2001:db8:1::/48", "narrow")
+                    .put("2001:db8:1::1/128", "host")
+                    .put("fd24:f480:ce44:91bc::/64", "other")
+                    .build();
+        }
+
+        @Test
+        public void shouldReturnTheLongestMatchingPrefix() {
+            assertEquals("wide", trie.longestMatch("2001:db8:2::1"));
+            assertEquals("narrow", trie.longestMatch("2001:db8:1::2"));
+            assertEquals("host", trie.longestMatch("2001:db8:1::1"));
+            assertEquals("other", trie.longestMatch("fd24:f480:ce44:91bc:ffff:ffff:ffff:ffff"));
+        }
+
+        @Test
+        public void shouldMatchPrefixesCrossingTheLowerHalf() throws Exception {
+            IPv6CidrTrie<String> lower = IPv6CidrTrie.<String>builder()
+                    .put("2001:db8::/64", "upper")
+                    .put("2001:db8::8000:0:0:0/65", "lower")
+                    .build();
+            assertEquals("upper", lower.longestMatch("2001:db8::7fff:0:0:1"));
+            assertEquals("lower", lower.longestMatch("2001:db8::8000:0:0:1"));
+            assertEquals("lower", lower.longestMatch(0x20010db800000000L, 0x8000000000000001L));
+        }
+
+        @Test
+        public void shouldNotMatchAddressesOutsideEveryBlock() {
+            assertNull(trie.longestMatch("2001:db9::1"));
+            assertNull(trie.longestMatch("fd24:f480:ce44:91bd::"));
+            assertFalse(trie.contains("::1"));
+        }
+
+        @Test
+        public void shouldNotMatchInvalidAddresses() {
+            assertNull(trie.longestMatch("2001:db8::1::2"));
+            assertNull(trie.longestMatch("10.1.2.3"));
+        }
+    }
+
+    public static class WhenAnEntryCoversEveryAddress {
+
+        @Test
+        public void shouldMatchAnyIpv4AddressNotInALongerPrefix() throws Exception {
+            IPv4CidrTrie<String> trie = IPv4CidrTrie.<String>builder()
+                    .put("0.0.0.0/0", "any")
+                    .put("10.0.0.0/8", "ten")
+                    .build();
+            assertEquals("any", trie.longestMatch("0.0.0.0"));
+            assertEquals("any", trie.longestMatch("255.255.255.255"));
+            assertEquals("any", trie.longestMatch("11.0.0.1"));
+            assertEquals("ten", trie.longestMatch("10.0.0.1"));
+            assertEquals(2, trie.size());
+        }
+
+        @Test
+        public void shouldMatchAnyIpv6AddressNotInALongerPrefix() throws Exception {
+            IPv6CidrTrie<String> trie = IPv6CidrTrie.<String>builder()
+                    .put(0L, 0L, 0, "any")
+                    .put("2001:db8::/32", "doc")
+                    .build();
+            assertEquals("any", trie.longestMatch("::"));
+            assertEquals("any", trie.longestMatch("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"));
+            assertEquals("doc", trie.longestMatch("2001:db8::1"));
+        }
+    }
+
+    public static class WhenBuildingATrie {
+
+        @Test
+        public void shouldBeEmptyWithoutEntries() {
+            IPv4CidrTrie<String> trie = IPv4CidrTrie.<String>builder().build();
+            assertEquals(0, trie.size());
+            assertNull(trie.longestMatch("10.0.0.1"));
+        }
+
+        @Test
+        public void shouldKeepEveryEntryWhenTheNodeArraysGrow() {
+            IPv4CidrTrie.Builder<Integer> builder = IPv4CidrTrie.builder();
+            for (int i = 0; i < 256; i++) {
+                builder.put(0x0a000000 | (i << 8), 24, i);
+            }
+            IPv4CidrTrie<Integer> trie = builder.build();
+            assertEquals(256, trie.size());
+            for (int i = 0; i < 256; i++) {
+                assertEquals(Integer.valueOf(i), trie.longestMatch(0x0a000000 | (i << 8) | 7));
+            }
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldRejectAPrefixLongerThanTheAddress() {
+            IPv4CidrTrie.<String>builder().put(0, 33, "too long");
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldRejectANullValue() {
+            IPv6CidrTrie.<String>builder().put(0L, 0L, 64, null);
+        }
+    }
+}
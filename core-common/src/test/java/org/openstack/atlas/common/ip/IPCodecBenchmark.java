@@ -0,0 +1,114 @@
+package org.openstack.atlas.common.ip;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Compares the byte array based cidr checks IPv4Cidr and IPv6Cidr used to do with the primitive
+ * IPCodec ones, reporting ns/op and bytes allocated per op (HotSpot only).
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dops=2000000 -cp ... org.openstack.atlas.common.ip.IPCodecBenchmark
+ */
+public class IPCodecBenchmark {
+    private static final String[] IPV4_ADDRESSES = {"10.0.0.1", "192.168.100.200", "172.16.254.3", "8.8.8.8"};
+    private static final String[] IPV6_ADDRESSES = {"2001:db8::1", "fe80::202:b3ff:fe1e:8329", "2001:0db8:85a3:0000:0000:8a2e:0370:7334", "::ffff:10.0.0.1"};
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        final int ops = Integer.getInteger("ops", 2000000);
+        final byte[] ipv4Network = new IPv4("10.0.0.0").getBytes();
+        final byte[] ipv4Mask = IPUtils.rollMask(8, 4);
+        final int ipv4NetworkInt = IPCodec.ipv4ToInt("10.0.0.0");
+        final byte[] ipv6Network = new IPv6("2001:db8::").getBytes();
+        final byte[] ipv6Mask = IPUtils.rollMask(32, 16);
+        final long[] ipv6NetworkLongs = new long[2];
+        IPCodec.parseIpv6("2001:db8::", ipv6NetworkLongs);
+
+        Benchmark[] benchmarks = {
+                new Benchmark("IPv4 bytes contains") {
+                    void run(int i) throws Exception {
+                        String ip = IPV4_ADDRESSES[i & 3];
+                        if (!legacyIsValidIpv4(ip)) return;
+                        byte[] mySubnet = IPUtils.opBytes(ipv4Network, ipv4Mask, ByteStreamOperation.AND);
+                        byte[] theirSubnet = IPUtils.opBytes(new IPv4(ip).getBytes(), ipv4Mask, ByteStreamOperation.AND);
+                        if (IPUtils.bytesEqual(mySubnet, theirSubnet)) sink++;
+                    }
+                },
+                new Benchmark("IPv4 codec contains") {
+                    void run(int i) {
+                        long address = IPCodec.parseIpv4(IPV4_ADDRESSES[i & 3]);
+                        if (address != IPCodec.INVALID_IPV4 && IPCodec.ipv4Contains(ipv4NetworkInt, 8, (int) address)) sink++;
+                    }
+                },
+                new Benchmark("IPv6 bytes contains") {
+                    void run(int i) throws Exception {
+                        String ip = IPV6_ADDRESSES[i & 3];
+                        if (!legacyIsValidIpv6(ip)) return;
+                        byte[] mySubnet = IPUtils.opBytes(ipv6Network, ipv6Mask, ByteStreamOperation.AND);
+                        byte[] theirSubnet = IPUtils.opBytes(new IPv6(ip).getBytes(), ipv6Mask, ByteStreamOperation.AND);
+                        if (IPUtils.bytesEqual(mySubnet, theirSubnet)) sink++;
+                    }
+                },
+                new Benchmark("IPv6 codec contains") {
+                    final long[] address = new long[2];
+
+                    void run(int i) {
+                        if (IPCodec.parseIpv6(IPV6_ADDRESSES[i & 3], address) && IPCodec.ipv6Contains(ipv6NetworkLongs[0], ipv6NetworkLongs[1], 32, address[0], address[1])) sink++;
+                    }
+                }
+        };
+
+        // Warm up everything before measuring
+        for (Benchmark benchmark : benchmarks) benchmark.measure(ops / 4);
+        for (Benchmark benchmark : benchmarks) benchmark.report(ops);
+        System.out.println("(" + sink + ")");
+    }
+
+    private static boolean legacyIsValidIpv4(String ip) {
+        try {
+            new IPv4(ip).getBytes();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean legacyIsValidIpv6(String ip) {
+        try {
+            new IPv6(ip).getBytes();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private abstract static class Benchmark {
+        private final String name;
+        private long nanos;
+        private long bytes;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        abstract void run(int i) throws Exception;
+
+        void measure(int ops) throws Exception {
+            long startBytes = allocatedBytes();
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < ops; i++) run(i);
+            nanos = System.nanoTime() - startNanos;
+            bytes = allocatedBytes() - startBytes;
+        }
+
+        void report(int ops) throws Exception {
+            measure(ops);
+            System.out.println(String.format("%-20s %10.1f ns/op %10.1f bytes/op", name, (double) nanos / ops, (double) bytes / ops));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.openstack.atlas.common.ip;
+
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Enclosed.class)
+public class IPCodecTest {
+    private static final String[] IPV4_ADDRESSES = {
+            "0.0.0.0", "255.255.255.255", "10.1.2.3", "192.168.0.1", "01.002.3.4",
+            "256.0.0.1", "1.2.3.256", "1.2.3.1000", "1.2.3", "1.2.3.4.5", "1..2.3", "a.b.c.d", " 1.2.3.4", ""
+    };
+
+    private static final String[] IPV6_ADDRESSES = {
+            "::", "::1", "1::", "1::2", "2001:db8::", "::2001:db8", "2001:db8::1:2", "1:2:3:4:5:6:7:8",
+            "1:2:3::6:7:8", "1::3:4:5:6:7:8", "1:2:3:4:5:6::8", "0:0:0:0:0:0:0:0", "ABCD::Ef01",
+            "::ffff:10.1.2.3", "::10.1.2.3", "1:2:3:4:5:6:10.1.2.3", "1::6:10.1.2.3",
+            "1:2:3:4:5:6:7::", "::2:3:4:5:6:7:8", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7", "12345::1",
+            "1::2::3", ":1::2", "1::2:", "g::1", "::10.1.2.256", "::1.2.3", "1::1.2.3.4.5",
+            "1:2:3:4:5:6:7:10.1.2.3", "1:2:3:4:5::10.1.2.3"
+    };
+
+    public static class WhenParsingIpv4Addresses {
+
+        @Test
+        public void shouldAgreeWithIPv4GetBytes() {
+            for (String ip : IPV4_ADDRESSES) {
+                long address = IPCodec.parseIpv4(ip);
+                byte[] expected;
+                try {
+                    expected = new IPv4(ip).getBytes();
+                } catch (IPStringConversionException1 e) {
+                    assertEquals(ip, IPCodec.INVALID_IPV4, address);
+                    continue;
+                }
+                assertArrayEquals(ip, expected, new byte[]{(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address});
+            }
+        }
+
+        @Test
+        public void shouldRejectOctetsOver255() {
+            assertFalse(IPCodec.isValidIpv4("256.1.1.1"));
+            assertFalse(IPCodec.isValidIpv4("1.1.1.300"));
+            assertTrue(IPCodec.isValidIpv4("255.255.255.255"));
+        }
+
+        @Test
+        public void shouldRejectNull() {
+            assertEquals(IPCodec.INVALID_IPV4, IPCodec.parseIpv4(null));
+        }
+
+        @Test(expected = IPStringConversionException1.class)
+        public void shouldThrowWhenConvertingAnInvalidAddressToAnInt() throws IPStringConversionException1 {
+            IPCodec.ipv4ToInt("10.0.0");
+        }
+
+        @Test
+        public void shouldRoundTripThroughAString() throws IPStringConversionException1 {
+            assertEquals("10.1.2.3", IPCodec.ipv4ToString(IPCodec.ipv4ToInt("10.1.2.3")));
+            assertEquals("255.255.255.255", IPCodec.ipv4ToString(IPCodec.ipv4ToInt("255.255.255.255")));
+        }
+
+        @Test
+        public void shouldCompareAddressesAsUnsigned() throws IPStringConversionException1 {
+            assertTrue(IPCodec.compareIpv4(IPCodec.ipv4ToInt("10.0.0.1"), IPCodec.ipv4ToInt("192.168.0.1")) < 0);
+            assertTrue(IPCodec.compareIpv4(IPCodec.ipv4ToInt("255.0.0.0"), IPCodec.ipv4ToInt("1.0.0.0")) > 0);
+            assertEquals(0, IPCodec.compareIpv4(IPCodec.ipv4ToInt("1.2.3.4"), IPCodec.ipv4ToInt("1.2.3.4")));
+        }
+    }
+
+    public static class WhenParsingIpv6Addresses {
+
+        @Test
+        public void shouldAgreeWithIPv6GetBytes() {
+            for (String ip : IPV6_ADDRESSES) {
+                long[] address = new long[2];
+                boolean parsed = IPCodec.parseIpv6(ip, address);
+                byte[] expected;
+                try {
+                    expected = new IPv6(ip).getBytes();
+                } catch (IPStringConversionException1 e) {
+                    assertFalse(ip, parsed);
+                    continue;
+                }
+                assertTrue(ip, parsed);
+                assertArrayEquals(ip, expected, toBytes(address));
+            }
+        }
+
+        @Test
+        public void shouldExpandACompressionAtTheStart() {
+            assertParses("::1", 0L, 1L);
+            assertParses("::2001:db8", 0L, 0x20010db8L);
+        }
+
+        @Test
+        public void shouldExpandACompressionInTheMiddle() {
+            assertParses("2001:db8::1:2", 0x20010db800000000L, 0x10002L);
+            assertParses("1:2:3:4:5:6::8", 0x0001000200030004L, 0x0005000600000008L);
+        }
+
+        @Test
+        public void shouldExpandACompressionAtTheEnd() {
+            assertParses("2001:db8::", 0x20010db800000000L, 0L);
+            assertParses("::", 0L, 0L);
+        }
+
+        @Test
+        public void shouldReadAnEmbeddedIpv4Address() {
+            assertParses("::ffff:10.1.2.3", 0L, 0xffff0a010203L);
+            assertParses("1:2:3:4:5:6:10.1.2.3", 0x0001000200030004L, 0x000500060a010203L);
+            assertParses("1::6:10.1.2.3", 0x0001000000000000L, 0x000000060a010203L);
+        }
+
+        @Test
+        public void shouldRejectAnInvalidEmbeddedIpv4Address() {
+            assertFalse(IPCodec.isValidIpv6("::ffff:10.1.2.256"));
+            assertFalse(IPCodec.isValidIpv6("::ffff:10.1.2"));
+            assertFalse(IPCodec.isValidIpv6("1:2:3:4:5:6:7:10.1.2.3"));
+        }
+
+        @Test
+        public void shouldRejectTooManyGroups() {
+            assertFalse(IPCodec.isValidIpv6("1:2:3:4:5:6:7:8:9"));
+            assertFalse(IPCodec.isValidIpv6("1:2:3:4:5:6:7:8::"));
+            assertFalse(IPCodec.isValidIpv6("::1:2:3:4:5:6:7:8"));
+        }
+
+        @Test
+        public void shouldRejectTooFewGroupsWithoutACompression() {
+            assertFalse(IPCodec.isValidIpv6("1:2:3:4:5:6:7"));
+        }
+
+        @Test
+        public void shouldRejectGroupsOfFiveDigits() {
+            assertFalse(IPCodec.isValidIpv6("12345::1"));
+            assertFalse(IPCodec.isValidIpv6("1::00001"));
+            assertTrue(IPCodec.isValidIpv6("1::0001"));
+        }
+
+        @Test
+        public void shouldRejectMisplacedColons() {
+            assertFalse(IPCodec.isValidIpv6("1::2::3"));
+            assertFalse(IPCodec.isValidIpv6(":1::2"));
+            assertFalse(IPCodec.isValidIpv6("1::2:"));
+            assertFalse(IPCodec.isValidIpv6(":"));
+            assertFalse(IPCodec.isValidIpv6(null));
+        }
+
+        @Test
+        public void shouldLeaveTheOutputUntouchedWhenRejecting() {
+            long[] address = {7L, 7L};
+            assertFalse(IPCodec.parseIpv6("1::2::3", address));
+            assertEquals(7L, address[0]);
+            assertEquals(7L, address[1]);
+        }
+
+        private static void assertParses(String ip, long hi, long lo) {
+            long[] address = new long[2];
+            assertTrue(ip, IPCodec.parseIpv6(ip, address));
+            assertEquals(ip, hi, address[0]);
+            assertEquals(ip, lo, address[1]);
+        }
+
+        private static byte[] toBytes(long[] address) {
+            byte[] out = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                out[i] = (byte) (address[0] >>> (56 - i * 8));
+                out[i + 8] = (byte) (address[1] >>> (56 - i * 8));
+            }
+            return out;
+        }
+    }
+
+    public static class WhenFormattingIpv6Addresses {
+
+        @Test
+        public void shouldCompressTheLongestRunOfZeroGroups() {
+            assertFormats("2001:0:0:1:0:0:0:1", "2001:0:0:1::1");
+            assertFormats("2001:db8:0:0:0:0:2:1", "2001:db8::2:1");
+        }
+
+        @Test
+        public void shouldCompressTheFirstRunOnATie() {
+            assertFormats("2001:db8:0:0:1:0:0:1", "2001:db8::1:0:0:1");
+        }
+
+        @Test
+        public void shouldNotCompressASingleZeroGroup() {
+            assertFormats("2001:db8:0:1:1:1:1:1", "2001:db8:0:1:1:1:1:1");
+        }
+
+        @Test
+        public void shouldCompressRunsAtEitherEnd() {
+            assertFormats("0:0:0:0:0:0:0:0", "::");
+            assertFormats("0:0:0:0:0:0:0:1", "::1");
+            assertFormats("1:0:0:0:0:0:0:0", "1::");
+        }
+
+        @Test
+        public void shouldUseLowerCaseWithoutLeadingZeros() {
+            assertFormats("2001:0DB8:00AB:000C:0000:0000:0000:0001", "2001:db8:ab:c::1");
+        }
+
+        @Test
+        public void shouldExpandEveryGroup() {
+            long[] address = new long[2];
+            IPCodec.parseIpv6("2001:db8::1", address);
+            assertEquals("2001:0db8:0000:0000:0000:0000:0000:0001", IPCodec.appendIpv6Expanded(new StringBuilder(), address[0], address[1]).toString());
+        }
+
+        private static void assertFormats(String ip, String expected) {
+            long[] address = new long[2];
+            assertTrue(ip, IPCodec.parseIpv6(ip, address));
+            assertEquals(ip, expected, IPCodec.ipv6ToString(address[0], address[1]));
+        }
+    }
+}
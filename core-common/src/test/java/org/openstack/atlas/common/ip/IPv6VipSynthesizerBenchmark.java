@@ -0,0 +1,103 @@
+package org.openstack.atlas.common.ip;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Compares building IPv6 virtual ip addresses through the BigInteger based IPv6 setters, as
+ * VirtualIpv6.getDerivedIpString used to, with IPv6VipSynthesizer, reporting ns/op and bytes
+ * allocated per op (HotSpot only). Checks first that both give the same addresses.
+ *
+ * Not a unit test, run it by hand, e.g.
+ *   java -Dops=1000000 -Daccounts=1000 -cp ... org.openstack.atlas.common.ip.IPv6VipSynthesizerBenchmark
+ */
+public class IPv6VipSynthesizerBenchmark {
+    private static final String[] CLUSTER_CIDRS = {"fd24:f480:ce44:91bc::/64", "2001:db8:1::/48", "2001:db8:2::/48", "fd00::/8"};
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        final int ops = Integer.getInteger("ops", 1000000);
+        final int accounts = Integer.getInteger("accounts", 1000);
+
+        for (int i = 0; i < 10000; i++) {
+            String legacy = legacyVipAddress(CLUSTER_CIDRS[i & 3], i % accounts, i);
+            String synthesized = IPv6VipSynthesizer.vipAddress(CLUSTER_CIDRS[i & 3], i % accounts, i);
+            if (!legacy.equals(synthesized)) {
+                throw new IllegalStateException(String.format("Expected %s but got %s", legacy, synthesized));
+            }
+        }
+
+        Benchmark[] benchmarks = {
+                new Benchmark("BigInteger setters") {
+                    void run(int i) throws Exception {
+                        sink += legacyVipAddress(CLUSTER_CIDRS[i & 3], i % accounts, i).length();
+                    }
+                },
+                new Benchmark("synthesizer") {
+                    void run(int i) throws Exception {
+                        sink += IPv6VipSynthesizer.vipAddress(CLUSTER_CIDRS[i & 3], i % accounts, i).length();
+                    }
+                },
+                new Benchmark("synthesizer, buffer") {
+                    final StringBuilder buffer = new StringBuilder(39);
+
+                    void run(int i) throws Exception {
+                        buffer.setLength(0);
+                        sink += IPv6VipSynthesizer.appendVipAddress(buffer, CLUSTER_CIDRS[i & 3], i % accounts, i).length();
+                    }
+                },
+                new Benchmark("RFC 5952, buffer") {
+                    final StringBuilder buffer = new StringBuilder(39);
+
+                    void run(int i) throws Exception {
+                        buffer.setLength(0);
+                        long hi = IPv6VipSynthesizer.clusterPrefix(CLUSTER_CIDRS[i & 3]);
+                        long lo = ((long) IPv6VipSynthesizer.accountPartition(i % accounts) << 32) | i;
+                        sink += IPCodec.appendIpv6(buffer, hi, lo).length();
+                    }
+                }
+        };
+
+        // Warm up everything before measuring
+        for (Benchmark benchmark : benchmarks) benchmark.measure(ops / 4);
+        for (Benchmark benchmark : benchmarks) benchmark.report(ops);
+        System.out.println("(" + sink + ")");
+    }
+
+    private static String legacyVipAddress(String clusterCidr, int accountId, int vipOctets) throws Exception {
+        IPv6 v6 = new IPv6("::");
+        v6.setClusterPartition(new IPv6Cidr(clusterCidr));
+        v6.setAccountPartition(accountId);
+        v6.setVipOctets(vipOctets);
+        return v6.expand();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private abstract static class Benchmark {
+        private final String name;
+        private long nanos;
+        private long bytes;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        abstract void run(int i) throws Exception;
+
+        void measure(int ops) throws Exception {
+            long startBytes = allocatedBytes();
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < ops; i++) run(i);
+            nanos = System.nanoTime() - startNanos;
+            bytes = allocatedBytes() - startBytes;
+        }
+
+        void report(int ops) throws Exception {
+            measure(ops);
+            System.out.println(String.format("%-20s %10.1f ns/op %10.1f bytes/op", name, (double) nanos / ops, (double) bytes / ops));
+        }
+    }
+}
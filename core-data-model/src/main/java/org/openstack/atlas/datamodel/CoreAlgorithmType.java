@@ -1,13 +1,11 @@
 package org.openstack.atlas.datamodel;
 
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Component
-@Scope("request")
 public class CoreAlgorithmType implements AlgorithmType {
     public static final String LEAST_CONNECTIONS = "LEAST_CONNECTIONS";
     public static final String ROUND_ROBIN = "ROUND_ROBIN";
@@ -1,13 +1,11 @@
 package org.openstack.atlas.datamodel;
 
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Component
-@Scope("request")
 public class CoreProtocolType implements ProtocolType {
     public static final String HTTP = "HTTP";
     public static final String HTTPS = "HTTPS";
@@ -17,6 +17,9 @@ public enum PublicApiServiceConfigurationKeys implements ConfigurationKey {
     db_port,
     access_log_file_location,
     usage_timezone_code,
+    usage_poller_thread_pool_size,
+    usage_poller_host_timeout_seconds,
+    usage_poller_cycle_timeout_seconds,
     adapter,
     extensions;
 }
@@ -4,6 +4,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openstack.atlas.adapter.UsageAdapter;
 import org.openstack.atlas.jobs.JobInterface;
+import org.openstack.atlas.jobs.config.PublicApiServiceConfigurationKeys;
+import org.openstack.atlas.jobs.config.RestApiConfiguration;
+import org.openstack.atlas.jobs.usage.UsagePollerMetrics.HostResult;
+import org.openstack.atlas.jobs.usage.UsagePollerMetrics.Outcome;
 import org.openstack.atlas.service.domain.entity.Host;
 import org.openstack.atlas.service.domain.repository.HostRepository;
 import org.openstack.atlas.service.domain.repository.UsageRepository;
@@ -12,13 +16,36 @@ import org.quartz.JobExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/*
+ *  Polls usage for every active host on a fixed size executor. Each host gets a deadline measured from
+ *  the moment its poll starts and the whole run gets a deadline so it finishes before the next trigger.
+ *  A host whose previous poll is still running (the SOAP calls ignore interrupts) is skipped.
+ */
 @Component
 public class LoadBalancerUsagePoller implements JobInterface {
     private final Log LOG = LogFactory.getLog(LoadBalancerUsagePoller.class);
+    public static final int DEFAULT_THREAD_POOL_SIZE = 20;
+    public static final long DEFAULT_HOST_TIMEOUT_SECONDS = 120;
+    public static final long DEFAULT_CYCLE_TIMEOUT_SECONDS = 270;
+    private static final long WATCH_INTERVAL_MILLIS = 1000;
 
     @Autowired
     UsageAdapter usageAdapter;
@@ -26,6 +53,17 @@ public class LoadBalancerUsagePoller implements JobInterface {
     HostRepository hostRepository;
     @Autowired
     UsageRepository usageRepository;
+    @Autowired(required = false)
+    RestApiConfiguration configuration;
+
+    private Integer threadPoolSize;
+    private Long hostTimeoutMillis;
+    private Long cycleTimeoutMillis;
+    private ExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ConcurrentMap<Integer, HostPoll> hostPolls = new ConcurrentHashMap<Integer, HostPoll>();
+    private final UsagePollerMetrics metrics = new UsagePollerMetrics();
 
     @Override
     public void init(JobExecutionContext jobExecutionContext) throws JobExecutionException {
@@ -35,7 +73,17 @@ public class LoadBalancerUsagePoller implements JobInterface {
     @Override
     public void execute() throws JobExecutionException {
         LOG.debug("EXECUTE");
-        startUsagePoller();
+        if (!running.compareAndSet(false, true)) {
+            LOG.warn("Previous load balancer usage poller run is still active. Skipping this run...");
+            metrics.recordSkippedRun();
+            return;
+        }
+
+        try {
+            startUsagePoller();
+        } finally {
+            running.set(false);
+        }
     }
 
     @Override
@@ -43,12 +91,42 @@ public class LoadBalancerUsagePoller implements JobInterface {
         LOG.debug("DESTROY");
     }
 
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public UsagePollerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setThreadPoolSize(int threadPoolSize) {
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    public void setHostTimeoutMillis(long hostTimeoutMillis) {
+        this.hostTimeoutMillis = hostTimeoutMillis;
+    }
+
+    public void setCycleTimeoutMillis(long cycleTimeoutMillis) {
+        this.cycleTimeoutMillis = cycleTimeoutMillis;
+    }
+
+    protected Callable<Integer> createPollerTask(Host host) {
+        return new LoadBalancerUsagePollerTask(host, usageAdapter, hostRepository, usageRepository);
+    }
+
     private void startUsagePoller() {
         Calendar startTime = Calendar.getInstance();
         LOG.info(String.format("Load balancer usage poller job started at %s (Timezone: %s)", startTime.getTime(), startTime.getTimeZone().getDisplayName()));
 
+        final long cycleDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getCycleTimeoutMillis());
         List<Host> hosts;
-        List<LoadBalancerUsagePollerThread> threads = new ArrayList<LoadBalancerUsagePollerThread>();
+        List<HostPoll> polls = new ArrayList<HostPoll>();
+        List<HostResult> hostResults = new ArrayList<HostResult>();
 
         try {
             hosts = hostRepository.getActiveHosts();
@@ -57,25 +135,191 @@ public class LoadBalancerUsagePoller implements JobInterface {
             return;
         }
 
+        ExecutorService executor = getExecutor();
         for (final Host host : hosts) {
-            LoadBalancerUsagePollerThread thread = new LoadBalancerUsagePollerThread(host.getName() + "-poller-thread", host, usageAdapter, hostRepository, usageRepository);
-            threads.add(thread);
-            thread.start();
+            HostPoll previousPoll = hostPolls.get(host.getId());
+            if (previousPoll != null && previousPoll.isRunning()) {
+                LOG.warn(String.format("Previous usage poll for host '%s' is still running. Skipping host...", host.getName()));
+                hostResults.add(new HostResult(host.getName(), Outcome.SKIPPED, 0, 0));
+                continue;
+            }
+
+            HostPoll poll = new HostPoll(host, createPollerTask(host));
+            hostPolls.put(host.getId(), poll);
+            poll.future = executor.submit(poll);
+            polls.add(poll);
         }
 
-        for (LoadBalancerUsagePollerThread thread : threads) {
-            try {
-                thread.join();
-                LOG.debug(String.format("Load balancer usage poller thread '%s' completed.", thread.getName()));
-            } catch (InterruptedException e) {
-                LOG.error(String.format("Load balancer usage poller thread interrupted for thread '%s'", thread.getName()), e);
-                e.printStackTrace();
-            }
+        awaitPolls(polls, cycleDeadline);
+
+        for (HostPoll poll : polls) {
+            HostResult hostResult = poll.getResult();
+            hostResults.add(hostResult);
+            LOG.debug(String.format("Load balancer usage poll for host %s", hostResult));
         }
 
         Calendar endTime = Calendar.getInstance();
+        metrics.recordRun(endTime.getTimeInMillis() - startTime.getTimeInMillis(), hostResults);
+
         Double elapsedMins = ((endTime.getTimeInMillis() - startTime.getTimeInMillis()) / 1000.0) / 60.0;
         LOG.info(String.format("Usage poller job completed at '%s' (Total Time: %f mins)", endTime.getTime(), elapsedMins));
+        LOG.info(metrics);
+    }
+
+    private void awaitPolls(List<HostPoll> polls, long cycleDeadline) {
+        final long hostTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(getHostTimeoutMillis());
+
+        while (true) {
+            HostPoll pendingPoll = null;
+            long now = System.nanoTime();
+
+            for (HostPoll poll : polls) {
+                if (poll.future.isDone()) continue;
+
+                if (now - cycleDeadline > 0 || (poll.hasStarted() && now - poll.startNanos > hostTimeoutNanos)) {
+                    LOG.error(String.format("Usage poll for host '%s' exceeded its deadline. Cancelling...", poll.host.getName()));
+                    poll.cancel();
+                } else if (pendingPoll == null) {
+                    pendingPoll = poll;
+                }
+            }
+
+            if (pendingPoll == null) return;
+
+            try {
+                pendingPoll.future.get(WATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                LOG.error("Load balancer usage poller interrupted. Cancelling remaining hosts...", e);
+                for (HostPoll poll : polls) {
+                    if (!poll.future.isDone()) poll.cancel();
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (TimeoutException ignored) {
+            } catch (ExecutionException ignored) {
+            } catch (CancellationException ignored) {
+            }
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int poolSize = getThreadPoolSize();
+            LOG.info(String.format("Starting load balancer usage poller executor with %d threads.", poolSize));
+            executor = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "usage-poller-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    private int getThreadPoolSize() {
+        if (threadPoolSize == null) {
+            threadPoolSize = (int) getConfiguredLong(PublicApiServiceConfigurationKeys.usage_poller_thread_pool_size, DEFAULT_THREAD_POOL_SIZE);
+        }
+        return threadPoolSize;
+    }
+
+    private long getHostTimeoutMillis() {
+        if (hostTimeoutMillis == null) {
+            hostTimeoutMillis = TimeUnit.SECONDS.toMillis(getConfiguredLong(PublicApiServiceConfigurationKeys.usage_poller_host_timeout_seconds, DEFAULT_HOST_TIMEOUT_SECONDS));
+        }
+        return hostTimeoutMillis;
+    }
+
+    private long getCycleTimeoutMillis() {
+        if (cycleTimeoutMillis == null) {
+            cycleTimeoutMillis = TimeUnit.SECONDS.toMillis(getConfiguredLong(PublicApiServiceConfigurationKeys.usage_poller_cycle_timeout_seconds, DEFAULT_CYCLE_TIMEOUT_SECONDS));
+        }
+        return cycleTimeoutMillis;
+    }
+
+    private long getConfiguredLong(PublicApiServiceConfigurationKeys key, long defaultValue) {
+        if (configuration == null) return defaultValue;
+
+        try {
+            String value = configuration.getString(key);
+            if (value != null && !value.trim().equals("")) {
+                long parsed = Long.parseLong(value.trim());
+                if (parsed > 0) return parsed;
+            }
+        } catch (NumberFormatException e) {
+            LOG.warn(String.format("Invalid value for %s. Using default of %d.", key, defaultValue));
+        } catch (Exception e) {
+            LOG.warn(String.format("Could not read %s. Using default of %d.", key, defaultValue), e);
+        }
+        return defaultValue;
     }
 
-}
\ No newline at end of file
+    private class HostPoll implements Callable<Integer> {
+        private final Host host;
+        private final Callable<Integer> task;
+        private volatile Future<Integer> future;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile boolean started;
+        private volatile boolean finished;
+        private volatile boolean timedOut;
+
+        public HostPoll(Host host, Callable<Integer> task) {
+            this.host = host;
+            this.task = task;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            startNanos = System.nanoTime();
+            started = true;
+            try {
+                return task.call();
+            } finally {
+                endNanos = System.nanoTime();
+                finished = true;
+                hostPolls.remove(host.getId(), this);
+            }
+        }
+
+        public boolean hasStarted() {
+            return started;
+        }
+
+        public boolean isRunning() {
+            return started && !finished;
+        }
+
+        public void cancel() {
+            timedOut = true;
+            future.cancel(true);
+        }
+
+        public HostResult getResult() {
+            long durationMillis = 0;
+            if (started) {
+                long end = finished ? endNanos : System.nanoTime();
+                durationMillis = TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+            }
+
+            if (timedOut) {
+                return new HostResult(host.getName(), Outcome.TIMED_OUT, durationMillis, 0);
+            }
+
+            try {
+                return new HostResult(host.getName(), Outcome.SUCCEEDED, durationMillis, future.get());
+            } catch (ExecutionException e) {
+                LOG.error(String.format("Usage poll failed for host '%s' (%s)", host.getName(), host.getEndpoint()), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (CancellationException e) {
+                LOG.error(String.format("Usage poll cancelled for host '%s' (%s)", host.getName(), host.getEndpoint()));
+            }
+            return new HostResult(host.getName(), Outcome.FAILED, durationMillis, 0);
+        }
+    }
+}
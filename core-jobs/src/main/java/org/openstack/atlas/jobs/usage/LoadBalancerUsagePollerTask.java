@@ -0,0 +1,71 @@
+package org.openstack.atlas.jobs.usage;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
+import org.openstack.atlas.adapter.UsageAdapter;
+import org.openstack.atlas.datamodel.CoreLoadBalancerStatus;
+import org.openstack.atlas.jobs.batch.BatchAction;
+import org.openstack.atlas.jobs.helper.HostConfigHelper;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.repository.HostRepository;
+import org.openstack.atlas.service.domain.repository.UsageRepository;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.openstack.atlas.jobs.batch.BatchExecutor.executeInBatches;
+
+/*
+ *  Polls usage for a single host machine. Returns the number of load balancers polled.
+ */
+public class LoadBalancerUsagePollerTask implements Callable<Integer> {
+    private final Log LOG = LogFactory.getLog(LoadBalancerUsagePollerTask.class);
+    private final int BATCH_SIZE = 100; // TODO: Externalize
+
+    private UsageAdapter usageAdapter;
+    private UsageRepository usageRepository;
+    private HostRepository hostRepository;
+    private Host host;
+
+    public LoadBalancerUsagePollerTask(Host host, UsageAdapter usageAdapter, HostRepository hostRepository, UsageRepository usageRepository) {
+        this.host = host;
+        this.usageAdapter = usageAdapter;
+        this.usageRepository = usageRepository;
+        this.hostRepository = hostRepository;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        final LoadBalancerEndpointConfiguration config = HostConfigHelper.getConfig(host, hostRepository);
+        List<LoadBalancer> loadBalancersForHost = hostRepository.getUsageLoadBalancersWithStatus(host.getId(), CoreLoadBalancerStatus.ACTIVE);
+
+        UsageCollector usageCollector = new UsageCollector(config, usageAdapter, usageRepository);
+        executeInBatches(loadBalancersForHost, BATCH_SIZE, new InterruptibleBatchAction(usageCollector));
+
+        LOG.info(String.format("Usage for host '%s': %d load balancers polled, %d records inserted, %d records updated, %d failed batches.",
+                host.getName(), usageCollector.getLoadBalancersPolled(), usageCollector.getRecordsInserted(), usageCollector.getRecordsUpdated(), usageCollector.getFailedBatches()));
+
+        return usageCollector.getLoadBalancersPolled();
+    }
+
+    /*
+     *  The SOAP calls do not react to interrupts, so check between batches once the host was cancelled.
+     */
+    private class InterruptibleBatchAction implements BatchAction<LoadBalancer> {
+        private final BatchAction<LoadBalancer> batchAction;
+
+        public InterruptibleBatchAction(BatchAction<LoadBalancer> batchAction) {
+            this.batchAction = batchAction;
+        }
+
+        @Override
+        public void execute(List<LoadBalancer> loadBalancers) throws Exception {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException(String.format("Usage poll for host '%s' was cancelled.", host.getName()));
+            }
+            batchAction.execute(loadBalancers);
+        }
+    }
+}
@@ -3,60 +3,94 @@ package org.openstack.atlas.jobs.usage;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
+import org.openstack.atlas.adapter.TransferBytes;
 import org.openstack.atlas.adapter.UsageAdapter;
 import org.openstack.atlas.adapter.exception.AdapterException;
 import org.openstack.atlas.jobs.batch.BatchAction;
 import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.repository.UsageRepository;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/*
+ *  Retrieves the transfer bytes for a batch of load balancers and streams them straight through
+ *  the usage processor into the database, so nothing is held for the host as a whole.
+ */
 public class UsageCollector implements BatchAction<LoadBalancer> {
     private final Log LOG = LogFactory.getLog(UsageCollector.class);
     private UsageAdapter usageAdapter;
+    private UsageRepository usageRepository;
     private LoadBalancerEndpointConfiguration config;
-    private Map<Integer, Long> bytesInMap;
-    private Map<Integer, Long> bytesOutMap;
+    private int loadBalancersPolled;
+    private int failedBatches;
+    private int recordsInserted;
+    private int recordsUpdated;
 
-    public UsageCollector(LoadBalancerEndpointConfiguration config, UsageAdapter usageAdapter) {
+    public UsageCollector(LoadBalancerEndpointConfiguration config, UsageAdapter usageAdapter, UsageRepository usageRepository) {
         this.config = config;
         this.usageAdapter = usageAdapter;
+        this.usageRepository = usageRepository;
     }
 
     @Override
     public void execute(List<LoadBalancer> loadBalancers) throws Exception {
-        try {
-            LOG.info(String.format("Retrieving transfer bytes in from '%s' (%s)...", config.getHost().getName(), config.getHost().getEndpoint()));
-            bytesInMap = usageAdapter.getTransferBytesIn(config, loadBalancers);
-
-            LOG.debug("Listing transfer bytes in...");
-            for (Integer loadBalancerId : bytesInMap.keySet()) {
-                LOG.debug(String.format("LB Id: '%d', Transfer Bytes In: %d", loadBalancerId, bytesInMap.get(loadBalancerId)));
-            }
+        Map<Integer, TransferBytes> transferBytesMap;
 
-            LOG.info(String.format("Retrieving transfer bytes out from '%s' (%s)...", config.getHost().getName(), config.getHost().getEndpoint()));
-            bytesOutMap = usageAdapter.getTransferBytesOut(config, loadBalancers);
-
-            LOG.debug("Listing transfer bytes out...");
-            for (Integer loadBalancerId : bytesOutMap.keySet()) {
-                LOG.debug(String.format("LB Id: '%d', Transfer Bytes Out: %d", loadBalancerId, bytesOutMap.get(loadBalancerId)));
-            }
+        try {
+            LOG.info(String.format("Retrieving transfer bytes from '%s' (%s)...", config.getHost().getName(), config.getHost().getEndpoint()));
+            transferBytesMap = usageAdapter.getTransferBytes(config, loadBalancers);
         } catch (AdapterException e) {
             // TODO: Discuss how to handle exceptions better
             LOG.error("Adapter exception occurred. Load balancer id(s) removed from batch. Skipping batch...", e);
             for (LoadBalancer ignoredLoadBalancer : loadBalancers) {
                 LOG.error(String.format("LB id in bad batch: '%s'", ignoredLoadBalancer.getId()));
             }
+            failedBatches++;
+            return;
         }
+
+        Map<Integer, Long> bytesInMap = new HashMap<Integer, Long>();
+        Map<Integer, Long> bytesOutMap = new HashMap<Integer, Long>();
+
+        LOG.debug("Listing transfer bytes...");
+        for (Map.Entry<Integer, TransferBytes> entry : transferBytesMap.entrySet()) {
+            TransferBytes transferBytes = entry.getValue();
+            LOG.debug(String.format("LB Id: '%d', Transfer Bytes In: %d, Transfer Bytes Out: %d", entry.getKey(), transferBytes.getBytesIn(), transferBytes.getBytesOut()));
+            if (transferBytes.getBytesIn() != null) bytesInMap.put(entry.getKey(), transferBytes.getBytesIn());
+            if (transferBytes.getBytesOut() != null) bytesOutMap.put(entry.getKey(), transferBytes.getBytesOut());
+        }
+
+        UsageProcessor usageProcessor = new UsageProcessor(usageRepository, bytesInMap, bytesOutMap);
+        usageProcessor.execute(loadBalancers);
+
+        if (!usageProcessor.getRecordsToInsert().isEmpty()) {
+            new UsageInsert(usageRepository).execute(usageProcessor.getRecordsToInsert());
+        }
+
+        if (!usageProcessor.getRecordsToUpdate().isEmpty()) {
+            new UsageUpdate(usageRepository).execute(usageProcessor.getRecordsToUpdate());
+        }
+
+        loadBalancersPolled += loadBalancers.size();
+        recordsInserted += usageProcessor.getRecordsToInsert().size();
+        recordsUpdated += usageProcessor.getRecordsToUpdate().size();
+    }
+
+    public int getLoadBalancersPolled() {
+        return loadBalancersPolled;
+    }
+
+    public int getFailedBatches() {
+        return failedBatches;
     }
 
-    public Map<Integer, Long> getBytesInMap() {
-        if(bytesInMap == null) throw new RuntimeException("Please call execute first before retrieving data.");
-        return bytesInMap;
+    public int getRecordsInserted() {
+        return recordsInserted;
     }
 
-    public Map<Integer, Long> getBytesOutMap() {
-        if(bytesOutMap == null) throw new RuntimeException("Please call execute first before retrieving data.");
-        return bytesOutMap;
+    public int getRecordsUpdated() {
+        return recordsUpdated;
     }
 }
@@ -0,0 +1,130 @@
+package org.openstack.atlas.jobs.usage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ *  Counters for the usage poller job. Totals are kept since startup, host results only for the last run.
+ */
+public class UsagePollerMetrics {
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong skippedRuns = new AtomicLong();
+    private final AtomicLong hostsPolled = new AtomicLong();
+    private final AtomicLong hostsSkipped = new AtomicLong();
+    private final AtomicLong hostFailures = new AtomicLong();
+    private final AtomicLong hostTimeouts = new AtomicLong();
+    private final AtomicLong loadBalancersPolled = new AtomicLong();
+    private volatile long lastRunDurationMillis;
+    private volatile List<HostResult> lastRunHostResults = Collections.emptyList();
+
+    public void recordRun(long durationMillis, List<HostResult> hostResults) {
+        runs.incrementAndGet();
+        lastRunDurationMillis = durationMillis;
+        lastRunHostResults = Collections.unmodifiableList(new ArrayList<HostResult>(hostResults));
+
+        for (HostResult hostResult : hostResults) {
+            switch (hostResult.getOutcome()) {
+                case SUCCEEDED:
+                    hostsPolled.incrementAndGet();
+                    loadBalancersPolled.addAndGet(hostResult.getLoadBalancersPolled());
+                    break;
+                case FAILED:
+                    hostFailures.incrementAndGet();
+                    break;
+                case TIMED_OUT:
+                    hostTimeouts.incrementAndGet();
+                    break;
+                case SKIPPED:
+                    hostsSkipped.incrementAndGet();
+                    break;
+            }
+        }
+    }
+
+    public void recordSkippedRun() {
+        skippedRuns.incrementAndGet();
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getSkippedRuns() {
+        return skippedRuns.get();
+    }
+
+    public long getHostsPolled() {
+        return hostsPolled.get();
+    }
+
+    public long getHostsSkipped() {
+        return hostsSkipped.get();
+    }
+
+    public long getHostFailures() {
+        return hostFailures.get();
+    }
+
+    public long getHostTimeouts() {
+        return hostTimeouts.get();
+    }
+
+    public long getLoadBalancersPolled() {
+        return loadBalancersPolled.get();
+    }
+
+    public long getLastRunDurationMillis() {
+        return lastRunDurationMillis;
+    }
+
+    public List<HostResult> getLastRunHostResults() {
+        return lastRunHostResults;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UsagePollerMetrics{runs=%d, skippedRuns=%d, hostsPolled=%d, hostsSkipped=%d, hostFailures=%d, hostTimeouts=%d, loadBalancersPolled=%d, lastRunDurationMillis=%d}",
+                getRuns(), getSkippedRuns(), getHostsPolled(), getHostsSkipped(), getHostFailures(), getHostTimeouts(), getLoadBalancersPolled(), getLastRunDurationMillis());
+    }
+
+    public enum Outcome {
+        SUCCEEDED, FAILED, TIMED_OUT, SKIPPED
+    }
+
+    public static class HostResult {
+        private final String hostName;
+        private final Outcome outcome;
+        private final long durationMillis;
+        private final int loadBalancersPolled;
+
+        public HostResult(String hostName, Outcome outcome, long durationMillis, int loadBalancersPolled) {
+            this.hostName = hostName;
+            this.outcome = outcome;
+            this.durationMillis = durationMillis;
+            this.loadBalancersPolled = loadBalancersPolled;
+        }
+
+        public String getHostName() {
+            return hostName;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public int getLoadBalancersPolled() {
+            return loadBalancersPolled;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s in %d ms (%d load balancers)", hostName, outcome, durationMillis, loadBalancersPolled);
+        }
+    }
+}
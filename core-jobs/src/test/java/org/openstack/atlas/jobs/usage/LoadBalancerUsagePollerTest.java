@@ -0,0 +1,172 @@
+package org.openstack.atlas.jobs.usage;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.repository.HostRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(Enclosed.class)
+public class LoadBalancerUsagePollerTest {
+
+    public static class WhenAHostHangsOrFails {
+        private PollerFixture fixture;
+
+        @Before
+        public void standUp() {
+            fixture = new PollerFixture();
+        }
+
+        @After
+        public void tearDown() {
+            fixture.tearDown();
+        }
+
+        @Test
+        public void shouldRecordOutcomeForEveryHost() throws Exception {
+            fixture.usagePoller.execute();
+
+            UsagePollerMetrics metrics = fixture.usagePoller.getMetrics();
+            Assert.assertEquals(1, metrics.getRuns());
+            Assert.assertEquals(1, metrics.getHostsPolled());
+            Assert.assertEquals(10, metrics.getLoadBalancersPolled());
+            Assert.assertEquals(1, metrics.getHostTimeouts());
+            Assert.assertEquals(1, metrics.getHostFailures());
+            Assert.assertEquals(3, metrics.getLastRunHostResults().size());
+        }
+
+        @Test
+        public void shouldNotWaitForHungHostBeyondItsDeadline() throws Exception {
+            long start = System.currentTimeMillis();
+            fixture.usagePoller.execute();
+
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        }
+    }
+
+    public static class WhenAHostsPreviousPollIsStillRunning {
+        private PollerFixture fixture;
+
+        @Before
+        public void standUp() throws Exception {
+            fixture = new PollerFixture();
+            fixture.usagePoller.execute();
+        }
+
+        @After
+        public void tearDown() {
+            fixture.tearDown();
+        }
+
+        @Test
+        public void shouldSkipTheHost() throws Exception {
+            fixture.usagePoller.execute();
+
+            UsagePollerMetrics metrics = fixture.usagePoller.getMetrics();
+            Assert.assertEquals(2, metrics.getRuns());
+            Assert.assertEquals(1, metrics.getHostsSkipped());
+            Assert.assertEquals(2, metrics.getHostsPolled());
+            Assert.assertEquals(UsagePollerMetrics.Outcome.SKIPPED, fixture.findResult("hung-host").getOutcome());
+        }
+
+        @Test
+        public void shouldPollTheHostAgainOnceThePreviousPollCompletes() throws Exception {
+            fixture.hungHostLatch.countDown();
+            Thread.sleep(100);
+            fixture.usagePoller.execute();
+
+            Assert.assertEquals(0, fixture.usagePoller.getMetrics().getHostsSkipped());
+            Assert.assertEquals(UsagePollerMetrics.Outcome.SUCCEEDED, fixture.findResult("hung-host").getOutcome());
+        }
+    }
+
+    /*
+     * A poller over three hosts: one that answers, one that hangs until released and one that fails.
+     */
+    private static class PollerFixture {
+        private final StubbedUsagePoller usagePoller = new StubbedUsagePoller();
+        private final CountDownLatch hungHostLatch = new CountDownLatch(1);
+
+        PollerFixture() {
+            List<Host> hosts = new ArrayList<Host>();
+            hosts.add(createHost(1, "healthy-host"));
+            hosts.add(createHost(2, "hung-host"));
+            hosts.add(createHost(3, "failing-host"));
+
+            HostRepository hostRepository = mock(HostRepository.class);
+            when(hostRepository.getActiveHosts()).thenReturn(hosts);
+
+            usagePoller.hostRepository = hostRepository;
+            usagePoller.setThreadPoolSize(2);
+            usagePoller.setHostTimeoutMillis(200);
+            usagePoller.setCycleTimeoutMillis(5000);
+
+            usagePoller.tasks.put("healthy-host", new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return 10;
+                }
+            });
+            usagePoller.tasks.put("hung-host", new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    // Behaves like a blocked socket read, which does not react to the interrupt
+                    while (true) {
+                        try {
+                            hungHostLatch.await();
+                            return 5;
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                }
+            });
+            usagePoller.tasks.put("failing-host", new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    throw new Exception("Endpoint unavailable");
+                }
+            });
+        }
+
+        void tearDown() {
+            hungHostLatch.countDown();
+            usagePoller.shutdown();
+        }
+
+        UsagePollerMetrics.HostResult findResult(String hostName) {
+            for (UsagePollerMetrics.HostResult hostResult : usagePoller.getMetrics().getLastRunHostResults()) {
+                if (hostResult.getHostName().equals(hostName)) return hostResult;
+            }
+            throw new AssertionError("No result for host " + hostName);
+        }
+
+        private static Host createHost(Integer id, String name) {
+            Host host = new Host();
+            host.setId(id);
+            host.setName(name);
+            return host;
+        }
+    }
+
+    private static class StubbedUsagePoller extends LoadBalancerUsagePoller {
+        private final Map<String, Callable<Integer>> tasks = new HashMap<String, Callable<Integer>>();
+
+        @Override
+        protected Callable<Integer> createPollerTask(Host host) {
+            return tasks.get(host.getName());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.openstack.atlas.jobs.usage;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openstack.atlas.adapter.LoadBalancerEndpointConfiguration;
+import org.openstack.atlas.adapter.TransferBytes;
+import org.openstack.atlas.adapter.UsageAdapter;
+import org.openstack.atlas.adapter.exception.AdapterException;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.entity.UsageRecord;
+import org.openstack.atlas.service.domain.repository.UsageRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openstack.atlas.jobs.batch.BatchExecutor.executeInBatches;
+
+public class UsageCollectorTest {
+    private UsageAdapter usageAdapter;
+    private UsageRepository usageRepository;
+    private LoadBalancerEndpointConfiguration config;
+    private List<LoadBalancer> firstBatch;
+    private List<LoadBalancer> secondBatch;
+    private List<LoadBalancer> loadBalancers;
+
+    @Before
+    public void standUp() throws Exception {
+        Host host = new Host();
+        host.setName("usage-host");
+        host.setEndpoint("https://localhost:9090/soap");
+        config = new LoadBalancerEndpointConfiguration(host, "user", "pass", host, new ArrayList<String>());
+
+        firstBatch = createLoadBalancers(1, 2);
+        secondBatch = createLoadBalancers(3, 4);
+        loadBalancers = new ArrayList<LoadBalancer>(firstBatch);
+        loadBalancers.addAll(secondBatch);
+
+        usageAdapter = mock(UsageAdapter.class);
+        when(usageAdapter.getTransferBytes(eq(config), eq(firstBatch))).thenReturn(createTransferBytes(firstBatch));
+        when(usageAdapter.getTransferBytes(eq(config), eq(secondBatch))).thenReturn(createTransferBytes(secondBatch));
+
+        usageRepository = mock(UsageRepository.class);
+        when(usageRepository.getMostRecentUsageRecordsForLoadBalancers(anySetOf(Integer.class))).thenReturn(new ArrayList<UsageRecord>());
+    }
+
+    @Test
+    public void shouldMakeOneAdapterCallPerBatch() throws Exception {
+        UsageCollector usageCollector = new UsageCollector(config, usageAdapter, usageRepository);
+        executeInBatches(loadBalancers, 2, usageCollector);
+
+        verify(usageAdapter, times(2)).getTransferBytes(eq(config), anyListOf(LoadBalancer.class));
+        verify(usageAdapter, never()).getTransferBytesIn(any(LoadBalancerEndpointConfiguration.class), anyListOf(LoadBalancer.class));
+        verify(usageAdapter, never()).getTransferBytesOut(any(LoadBalancerEndpointConfiguration.class), anyListOf(LoadBalancer.class));
+    }
+
+    @Test
+    public void shouldStoreUsageForEveryBatch() throws Exception {
+        UsageCollector usageCollector = new UsageCollector(config, usageAdapter, usageRepository);
+        executeInBatches(loadBalancers, 2, usageCollector);
+
+        verify(usageRepository, times(2)).batchCreate(anyListOf(UsageRecord.class));
+        Assert.assertEquals(4, usageCollector.getLoadBalancersPolled());
+        Assert.assertEquals(4, usageCollector.getRecordsInserted());
+        Assert.assertEquals(0, usageCollector.getFailedBatches());
+    }
+
+    @Test
+    public void shouldSkipOnlyTheFailedBatch() throws Exception {
+        when(usageAdapter.getTransferBytes(eq(config), eq(firstBatch))).thenThrow(new AdapterException("Endpoint unavailable"));
+
+        UsageCollector usageCollector = new UsageCollector(config, usageAdapter, usageRepository);
+        executeInBatches(loadBalancers, 2, usageCollector);
+
+        verify(usageRepository, times(1)).batchCreate(anyListOf(UsageRecord.class));
+        Assert.assertEquals(2, usageCollector.getLoadBalancersPolled());
+        Assert.assertEquals(1, usageCollector.getFailedBatches());
+    }
+
+    private List<LoadBalancer> createLoadBalancers(Integer... ids) {
+        List<LoadBalancer> lbs = new ArrayList<LoadBalancer>();
+        for (Integer id : ids) {
+            LoadBalancer lb = new LoadBalancer();
+            lb.setId(id);
+            lb.setAccountId(1234);
+            lbs.add(lb);
+        }
+        return lbs;
+    }
+
+    private Map<Integer, TransferBytes> createTransferBytes(List<LoadBalancer> lbs) {
+        Map<Integer, TransferBytes> transferBytesMap = new HashMap<Integer, TransferBytes>();
+        for (LoadBalancer lb : lbs) {
+            transferBytesMap.put(lb.getId(), new TransferBytes(100l * lb.getId(), 1000l * lb.getId()));
+        }
+        return transferBytesMap;
+    }
+}
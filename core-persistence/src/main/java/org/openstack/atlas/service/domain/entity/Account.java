@@ -21,6 +21,12 @@ public class Account implements Serializable {
     @Column(name = "sha1sum_ipv6", unique = true, nullable = false)
     private String sha1SumForIpv6;
 
+    @Column(name = "next_vip_octet")
+    private Integer nextVipOctet;
+
+    @Column(name = "load_balancer_count")
+    private Integer loadBalancerCount;
+
     public static long getSerialVersionUID() {
         return serialVersionUID;
     }
@@ -40,4 +46,20 @@ public class Account implements Serializable {
     public void setSha1SumForIpv6(String sha1SumForIpv6) {
         this.sha1SumForIpv6 = sha1SumForIpv6;
     }
+
+    public Integer getNextVipOctet() {
+        return nextVipOctet;
+    }
+
+    public void setNextVipOctet(Integer nextVipOctet) {
+        this.nextVipOctet = nextVipOctet;
+    }
+
+    public Integer getLoadBalancerCount() {
+        return loadBalancerCount;
+    }
+
+    public void setLoadBalancerCount(Integer loadBalancerCount) {
+        this.loadBalancerCount = loadBalancerCount;
+    }
 }
@@ -0,0 +1,38 @@
+package org.openstack.atlas.service.domain.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/*
+ * Points at the newest usage record of each load balancer so that it can be found by key
+ * instead of by grouping the whole usage table. Written by the usage repository together
+ * with the usage records themselves.
+ */
+@javax.persistence.Entity
+@Table(name = "load_balancer_usage_latest")
+public class LatestUsageRecord implements Serializable {
+    private final static long serialVersionUID = 532512316L;
+
+    @Id
+    @Column(name = "load_balancer_id", unique = true, nullable = false)
+    private Integer loadBalancerId;
+
+    @Column(name = "usage_id", nullable = false)
+    private Integer usageId;
+
+    public Integer getLoadBalancerId() {
+        return loadBalancerId;
+    }
+
+    public void setLoadBalancerId(Integer loadBalancerId) {
+        this.loadBalancerId = loadBalancerId;
+    }
+
+    public Integer getUsageId() {
+        return usageId;
+    }
+
+    public void setUsageId(Integer usageId) {
+        this.usageId = usageId;
+    }
+}
@@ -19,6 +19,7 @@ import java.util.Set;
 )
 @DiscriminatorValue("CORE")
 @Table(name = "load_balancer")
+@org.hibernate.annotations.Table(appliesTo = "load_balancer", indexes = {@org.hibernate.annotations.Index(name = "load_balancer_account_id", columnNames = {"account_id", "id"})})
 public class LoadBalancer extends Entity implements Serializable {
     private final static long serialVersionUID = 532512316L;
 
@@ -46,21 +47,21 @@ public class LoadBalancer extends Entity implements Serializable {
     @Column(name = "status", nullable = false)
     private String status;
 
-    @OneToMany(mappedBy = "loadBalancer", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "loadBalancer", fetch = FetchType.LAZY)
     private Set<LoadBalancerJoinVip> loadBalancerJoinVipSet = new HashSet<LoadBalancerJoinVip>();
 
-    @OneToMany(mappedBy = "loadBalancer", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "loadBalancer", fetch = FetchType.LAZY)
     private Set<LoadBalancerJoinVip6> loadBalancerJoinVip6Set = new HashSet<LoadBalancerJoinVip6>();
 
     @OrderBy("id")
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "loadBalancer", orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "loadBalancer", orphanRemoval = true, fetch = FetchType.LAZY)
     private Set<Node> nodes = new HashSet<Node>();
 
     @OrderBy("id")
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loadBalancer", fetch = FetchType.LAZY)
     private Set<UsageRecord> usage = new HashSet<UsageRecord>();
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "host_id", nullable = true)
     private Host host;
 
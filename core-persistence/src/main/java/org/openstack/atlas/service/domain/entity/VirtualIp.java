@@ -14,6 +14,7 @@ import java.util.Set;
 )
 @DiscriminatorValue("CORE")
 @Table(name = "virtual_ipv4")
+@org.hibernate.annotations.Table(appliesTo = "virtual_ipv4", indexes = {@org.hibernate.annotations.Index(name = "virtual_ipv4_free", columnNames = {"cluster_id", "type", "is_allocated"})})
 public class VirtualIp extends org.openstack.atlas.service.domain.entity.Entity implements Serializable {
     private final static long serialVersionUID = 532512316L;
 
@@ -1,7 +1,6 @@
 package org.openstack.atlas.service.domain.entity;
 
-import org.openstack.atlas.common.ip.IPv6;
-import org.openstack.atlas.common.ip.IPv6Cidr;
+import org.openstack.atlas.common.ip.IPv6VipSynthesizer;
 import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
 
 import javax.persistence.*;
@@ -66,18 +65,11 @@ public class VirtualIpv6 extends org.openstack.atlas.service.domain.entity.Entit
     }
 
     public String getDerivedIpString() throws IPStringConversionException1 {
-        String out;
         String clusterCidrString = this.getCluster().getClusterIpv6Cidr();
         if (clusterCidrString == null) {
             String msg = String.format("Cluster[%d] has null value for ClusterIpv6Cider", this.getCluster().getId());
             throw new IPStringConversionException1(msg);
         }
-        IPv6Cidr v6Cidr = new IPv6Cidr(clusterCidrString);
-        IPv6 v6 = new IPv6("::");
-        v6.setClusterPartition(v6Cidr);
-        v6.setAccountPartition(this.getAccountId());
-        v6.setVipOctets(this.getVipOctets());
-        out = v6.expand();
-        return out;
+        return IPv6VipSynthesizer.vipAddress(clusterCidrString, this.getAccountId(), this.getVipOctets());
     }
 }
@@ -0,0 +1,13 @@
+package org.openstack.atlas.service.domain.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/*
+ * Published by BlacklistRepository whenever it writes a blacklist item, inside the writing transaction.
+ */
+public class BlacklistChangedEvent extends ApplicationEvent {
+
+    public BlacklistChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,27 @@
+package org.openstack.atlas.service.domain.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/*
+ * Published by HostRepository whenever it writes a host, so that anything keeping hosts in memory
+ * can drop them. Published inside the writing transaction, before it commits.
+ */
+public class HostChangedEvent extends ApplicationEvent {
+    private final Integer hostId;
+    private final Integer clusterId;
+
+    public HostChangedEvent(Object source, Integer hostId, Integer clusterId) {
+        super(source);
+        this.hostId = hostId;
+        this.clusterId = clusterId;
+    }
+
+    public Integer getHostId() {
+        return hostId;
+    }
+
+    /* Null when the cluster of the host is not known */
+    public Integer getClusterId() {
+        return clusterId;
+    }
+}
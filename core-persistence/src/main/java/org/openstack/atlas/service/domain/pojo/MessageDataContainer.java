@@ -99,6 +99,10 @@ public class MessageDataContainer implements Serializable {
         this.resourceIds = newNodeIds;
     }
 
+    public Object getResource() {
+        return resource;
+    }
+
     public void setLoadBalancer(LoadBalancer loadBalancer) {
         this.resource = loadBalancer;
     }
@@ -0,0 +1,97 @@
+package org.openstack.atlas.service.domain.pojo;
+
+import java.util.Calendar;
+
+/*
+ * The columns GET /loadbalancers shows (the SIMPLE_LB_LIST mapping), selected directly by
+ * LoadBalancerRepository.getSimpleLoadBalancersByAccountId so no nodes, virtual ips or host
+ * have to be loaded.
+ */
+public class SimpleLoadBalancer {
+    private Integer id;
+    private String name;
+    private String algorithm;
+    private String protocol;
+    private Integer port;
+    private String status;
+    private Calendar created;
+    private Calendar updated;
+
+    public SimpleLoadBalancer() {
+    }
+
+    public SimpleLoadBalancer(Integer id, String name, String algorithm, String protocol, Integer port, String status, Calendar created, Calendar updated) {
+        this.id = id;
+        this.name = name;
+        this.algorithm = algorithm;
+        this.protocol = protocol;
+        this.port = port;
+        this.status = status;
+        this.created = created;
+        this.updated = updated;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    public void setPort(Integer port) {
+        this.port = port;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Calendar getCreated() {
+        return created;
+    }
+
+    public void setCreated(Calendar created) {
+        this.created = created;
+    }
+
+    public Calendar getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(Calendar updated) {
+        this.updated = updated;
+    }
+}
@@ -2,8 +2,12 @@ package org.openstack.atlas.service.domain.repository;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hibernate.ejb.QueryHints;
 import org.openstack.atlas.service.domain.entity.BlacklistItem;
+import org.openstack.atlas.service.domain.event.BlacklistChangedEvent;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,13 +20,40 @@ import java.util.List;
 @Transactional
 public class BlacklistRepository {
     final Log LOG = LogFactory.getLog(BlacklistRepository.class);
+    private static final String BLACKLIST_QUERY_REGION = "query.BlacklistItem";
 
     @PersistenceContext(unitName = "loadbalancing")
     private EntityManager entityManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     public List<BlacklistItem> getAllBlacklistItems() {
-        Query query = entityManager.createQuery("SELECT b FROM BlacklistItem b");
+        Query query = entityManager.createQuery("SELECT b FROM BlacklistItem b")
+                .setHint(QueryHints.HINT_CACHEABLE, true).setHint(QueryHints.HINT_CACHE_REGION, BLACKLIST_QUERY_REGION);
         return query.getResultList();
     }
 
+    public BlacklistItem create(BlacklistItem blacklistItem) {
+        entityManager.persist(blacklistItem);
+        publishBlacklistChanged();
+        return blacklistItem;
+    }
+
+    public BlacklistItem update(BlacklistItem blacklistItem) {
+        blacklistItem = entityManager.merge(blacklistItem);
+        publishBlacklistChanged();
+        return blacklistItem;
+    }
+
+    public void delete(BlacklistItem blacklistItem) {
+        entityManager.remove(entityManager.merge(blacklistItem));
+        publishBlacklistChanged();
+    }
+
+    private void publishBlacklistChanged() {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new BlacklistChangedEvent(this));
+        }
+    }
+
 }
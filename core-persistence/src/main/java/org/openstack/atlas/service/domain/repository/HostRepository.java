@@ -2,10 +2,15 @@ package org.openstack.atlas.service.domain.repository;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hibernate.ejb.QueryHints;
+import org.openstack.atlas.datamodel.CoreLoadBalancerStatus;
 import org.openstack.atlas.service.domain.entity.Host;
 import org.openstack.atlas.service.domain.entity.HostStatus;
 import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.event.HostChangedEvent;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,15 +18,20 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @Transactional
 public class HostRepository {
 
     final Log LOG = LogFactory.getLog(HostRepository.class);
+    private static final String HOST_QUERY_REGION = "query.Host";
     @PersistenceContext(unitName = "loadbalancing")
     private EntityManager entityManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
 //    public Host getById(Integer id) throws EntityNotFoundException {
 //        Host host = entityManager.find(Host.class, id);
@@ -38,7 +48,8 @@ public class HostRepository {
                 + "and h.hostStatus in ('ACTIVE_TARGET', 'FAILOVER') "
                 + "and h.cluster.id = :clusterId "
                 + "order by h.hostStatus desc, h.id asc";
-        Query query = entityManager.createQuery(hqlStr).setParameter("clusterId", clusterId).setMaxResults(1);
+        Query query = entityManager.createQuery(hqlStr).setParameter("clusterId", clusterId).setMaxResults(1)
+                .setHint(QueryHints.HINT_CACHEABLE, true).setHint(QueryHints.HINT_CACHE_REGION, HOST_QUERY_REGION);
         List<Host> results = query.getResultList();
         if (results.size() < 1) {
             LOG.error(String.format("Error no more endpoints left for ClusterId %d.", clusterId));
@@ -55,13 +66,29 @@ public class HostRepository {
         return host.getEndpoint();
     }*/
 
+    /* Joins the caller's transaction; the cached host and the cached host queries are updated when that transaction commits */
     public Host update(Host host) {
         LOG.info("Updating Host " + host.getId() + "...");
         host = entityManager.merge(host);
         entityManager.flush();
+        publishHostChanged(host.getId(), host.getCluster() == null ? null : host.getCluster().getId());
         return host;
     }
 
+    /* Only touches endpoint_active, so no other column of the host is written back from a stale copy */
+    public void deactivateEndpoint(Integer hostId) {
+        LOG.info("Marking endpoint of Host " + hostId + " inactive...");
+        entityManager.createQuery("update Host h set h.endpointActive = false where h.id = :id").setParameter("id", hostId).executeUpdate();
+        List<Integer> clusterIds = entityManager.createQuery("select h.cluster.id from Host h where h.id = :id").setParameter("id", hostId).getResultList();
+        publishHostChanged(hostId, clusterIds.isEmpty() ? null : clusterIds.get(0));
+    }
+
+    private void publishHostChanged(Integer hostId, Integer clusterId) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new HostChangedEvent(this, hostId, clusterId));
+        }
+    }
+
     public List<String> getFailoverHostNames(Integer clusterId) {
         String hql = "select h.name from Host h where h.hostStatus = 'FAILOVER' and h.cluster.id = :clusterId";
 
@@ -73,7 +100,7 @@ public class HostRepository {
     public List<Host> getHosts() {
         String sql = "SELECT h from Host h";
 
-        Query query = entityManager.createQuery(sql);
+        Query query = entityManager.createQuery(sql).setHint(QueryHints.HINT_CACHEABLE, true).setHint(QueryHints.HINT_CACHE_REGION, HOST_QUERY_REGION);
         List<Host> hosts = query.getResultList();
         return hosts;
     }
@@ -87,6 +114,18 @@ public class HostRepository {
 
     }
 
+    /* Number of non deleted load balancers per host id, hosts without any are left out */
+    public Map<Integer, Long> getLoadBalancerCountsByHost() {
+        String query = "select lb.host.id, count(lb) from LoadBalancer lb where lb.host is not null and lb.status <> :deleted group by lb.host.id";
+
+        List<Object[]> rows = entityManager.createQuery(query).setParameter("deleted", CoreLoadBalancerStatus.DELETED).getResultList();
+        Map<Integer, Long> counts = new HashMap<Integer, Long>();
+        for (Object[] row : rows) {
+            counts.put((Integer) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
     public Host getHostWithMinimumLoadBalancers(List<Host> hosts) {
 
         long mincount = 0;
@@ -0,0 +1,40 @@
+package org.openstack.atlas.service.domain.repository;
+
+/**
+ * Names the lazy associations of a LoadBalancer that a use case needs, so the repository can
+ * initialize them before the entity leaves the transaction.
+ */
+public enum LoadBalancerFetchPlan {
+    /** Status checks and transitions: the load balancer row only. */
+    STATUS(false, false, false),
+    /** Endpoint lookups: the host the load balancer lives on. */
+    HOST(false, false, true),
+    /** Single node lookups. */
+    NODES(true, false, false),
+    /** The API detail view: nodes and virtual ips. */
+    DETAIL(true, true, false),
+    /** Pushing the configuration to the adapter: nodes, virtual ips and host. */
+    ADAPTER(true, true, true);
+
+    private final boolean nodes;
+    private final boolean virtualIps;
+    private final boolean host;
+
+    LoadBalancerFetchPlan(boolean nodes, boolean virtualIps, boolean host) {
+        this.nodes = nodes;
+        this.virtualIps = virtualIps;
+        this.host = host;
+    }
+
+    public boolean fetchesNodes() {
+        return nodes;
+    }
+
+    public boolean fetchesVirtualIps() {
+        return virtualIps;
+    }
+
+    public boolean fetchesHost() {
+        return host;
+    }
+}
@@ -5,27 +5,68 @@ import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.entity.LoadBalancerJoinVip;
 import org.openstack.atlas.service.domain.entity.SessionPersistence;
 import org.openstack.atlas.service.domain.exception.*;
+import org.openstack.atlas.service.domain.pojo.SimpleLoadBalancer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 public interface LoadBalancerRepository {
+    /**
+     * Loads the load balancer with nodes, virtual ips and host, i.e. the ADAPTER fetch plan.
+     */
     LoadBalancer getById(Integer id) throws EntityNotFoundException;
 
+    LoadBalancer getById(Integer id, LoadBalancerFetchPlan fetchPlan) throws EntityNotFoundException;
+
     List<LoadBalancer> getByAccountId(Integer accountId);
 
+    /**
+     * Returns at most limit load balancers (all of them when limit is null) of the account with an id
+     * greater than marker (any id when marker is null), ordered by id, without loading nodes, virtual
+     * ips or host.
+     */
+    List<SimpleLoadBalancer> getSimpleLoadBalancersByAccountId(Integer accountId, Integer marker, Integer limit);
+
+    /**
+     * Loads the load balancer with nodes, virtual ips and host, i.e. the ADAPTER fetch plan.
+     */
     LoadBalancer getByIdAndAccountId(Integer id, Integer accountId) throws EntityNotFoundException;
 
+    LoadBalancer getByIdAndAccountId(Integer id, Integer accountId, LoadBalancerFetchPlan fetchPlan) throws EntityNotFoundException;
+
     LoadBalancer create(LoadBalancer loadBalancer);
 
     LoadBalancer update(LoadBalancer loadBalancer);
 
     Integer getNumNonDeletedLoadBalancersForAccount(Integer accountId);
 
+    /**
+     * Reads the account's load balancer counter, falling back to counting its non deleted load balancers
+     * when the counter has not been seeded yet.
+     */
+    int getLoadBalancerCount(Integer accountId);
+
+    /**
+     * Counts a new load balancer against the account with a conditional UPDATE that only matches while the
+     * counter is below limit. The account row stays locked until the caller's transaction ends, so racing
+     * creates are admitted one at a time. Returns false when the limit is reached.
+     */
+    boolean incrementLoadBalancerCount(Integer accountId, int limit);
+
+    void decrementLoadBalancerCount(Integer accountId);
+
     void changeStatus(Integer accountId, Integer loadbalancerId, String newStatus, boolean allowConcurrentModifications) throws EntityNotFoundException, UnprocessableEntityException, ImmutableEntityException;
 
     void changeStatus(Integer accountId, Integer loadbalancerId, String newStatus) throws EntityNotFoundException, UnprocessableEntityException, ImmutableEntityException;
 
+    /**
+     * Moves the load balancer to newStatus with a single conditional UPDATE that only matches while its
+     * status is one of expectedStatuses. Returns the number of rows changed, 0 when the load balancer
+     * does not exist for the account or is in another status.
+     */
+    int transitionStatus(Integer accountId, Integer loadbalancerId, Collection<String> expectedStatuses, String newStatus);
+
     void updatePortInJoinTable(LoadBalancer lb);
 
     boolean canUpdateToNewPort(Integer newPort, Set<LoadBalancerJoinVip> setToCheckAgainst);
@@ -2,16 +2,14 @@ package org.openstack.atlas.service.domain.repository;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.openstack.atlas.service.domain.common.Constants;
-import org.openstack.atlas.service.domain.common.ErrorMessages;
 import org.openstack.atlas.service.domain.entity.*;
-import org.openstack.atlas.service.domain.exception.OutOfVipsException;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -63,59 +61,55 @@ public class VirtualIpRepository {
         LOG.info(String.format("Virtual Ip '%d' de-allocated.", virtualIp.getId()));
     }
 
-    public VirtualIp allocateIpv4VipBeforeDate(Cluster cluster, Calendar vipReuseTime, VirtualIpType vipType) throws OutOfVipsException {
-        VirtualIp vipCandidate;
-        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<VirtualIp> criteria = builder.createQuery(VirtualIp.class);
-        Root<VirtualIp> vipRoot = criteria.from(VirtualIp.class);
-
-        Predicate isNotAllocated = builder.equal(vipRoot.get(VirtualIp_.isAllocated), false);
-        Predicate lastDeallocationIsNull = builder.isNull(vipRoot.get(VirtualIp_.lastDeallocation));
-        Predicate isBeforeLastDeallocation = builder.lessThan(vipRoot.get(VirtualIp_.lastDeallocation), vipReuseTime);
-        Predicate isVipType = builder.equal(vipRoot.get(VirtualIp_.vipType), vipType);
-        Predicate belongsToCluster = builder.equal(vipRoot.get(VirtualIp_.cluster), cluster);
-
-        criteria.select(vipRoot);
-        criteria.where(builder.and(isNotAllocated, isVipType, belongsToCluster, builder.or(lastDeallocationIsNull, isBeforeLastDeallocation)));
-
-        try {
-            vipCandidate = entityManager.createQuery(criteria).setLockMode(LockModeType.PESSIMISTIC_WRITE).setMaxResults(1).getSingleResult();
-        } catch (Exception e) {
-            LOG.error(e);
-            throw new OutOfVipsException(ErrorMessages.OUT_OF_VIPS);
+    /* Ids of free virtual ips that were never de-allocated or were de-allocated before the reuse time, lowest id first */
+    public List<Integer> getFreeIpv4VipIdsBeforeDate(Integer clusterId, Calendar vipReuseTime, VirtualIpType vipType, Collection<Integer> excludedVipIds, int maxResults) {
+        String query = "select v.id from VirtualIp v where v.isAllocated = false and v.vipType = :vipType and v.cluster.id = :clusterId " +
+                "and (v.lastDeallocation is null or v.lastDeallocation < :vipReuseTime)" + excluding(excludedVipIds) + " order by v.id";
+
+        return getFreeIpv4VipIds(query, clusterId, vipReuseTime, vipType, excludedVipIds, maxResults);
+    }
+
+    /* Ids of free virtual ips that were de-allocated after the reuse time, longest de-allocated first */
+    public List<Integer> getFreeIpv4VipIdsAfterDate(Integer clusterId, Calendar vipReuseTime, VirtualIpType vipType, Collection<Integer> excludedVipIds, int maxResults) {
+        String query = "select v.id from VirtualIp v where v.isAllocated = false and v.vipType = :vipType and v.cluster.id = :clusterId " +
+                "and v.lastDeallocation >= :vipReuseTime" + excluding(excludedVipIds) + " order by v.lastDeallocation, v.id";
+
+        return getFreeIpv4VipIds(query, clusterId, vipReuseTime, vipType, excludedVipIds, maxResults);
+    }
+
+    private List<Integer> getFreeIpv4VipIds(String query, Integer clusterId, Calendar vipReuseTime, VirtualIpType vipType, Collection<Integer> excludedVipIds, int maxResults) {
+        Query freeVipIds = entityManager.createQuery(query).setParameter("vipType", vipType).setParameter("clusterId", clusterId)
+                .setParameter("vipReuseTime", vipReuseTime).setMaxResults(maxResults);
+        if (!excludedVipIds.isEmpty()) {
+            freeVipIds.setParameter("excludedVipIds", excludedVipIds);
         }
+        return freeVipIds.getResultList();
+    }
 
-        vipCandidate.setAllocated(true);
-        vipCandidate.setLastAllocation(Calendar.getInstance());
-        entityManager.merge(vipCandidate);
-        return vipCandidate;
+    // An empty "not in ()" list is not valid JPQL, so the restriction is only added when there are ids to exclude
+    private static String excluding(Collection<Integer> excludedVipIds) {
+        return excludedVipIds.isEmpty() ? "" : " and v.id not in (:excludedVipIds)";
     }
 
-    public VirtualIp allocateIpv4VipAfterDate(Cluster cluster, Calendar vipReuseTime, VirtualIpType vipType) throws OutOfVipsException {
-        VirtualIp vipCandidate;
-        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<VirtualIp> criteria = builder.createQuery(VirtualIp.class);
-        Root<VirtualIp> vipRoot = criteria.from(VirtualIp.class);
-
-        Predicate isNotAllocated = builder.equal(vipRoot.get(VirtualIp_.isAllocated), false);
-        Predicate isAfterLastDeallocation = builder.greaterThan(vipRoot.get(VirtualIp_.lastDeallocation), vipReuseTime);
-        Predicate isVipType = builder.equal(vipRoot.get(VirtualIp_.vipType), vipType);
-        Predicate belongsToCluster = builder.equal(vipRoot.get(VirtualIp_.cluster), cluster);
-
-        criteria.select(vipRoot);
-        criteria.where(isNotAllocated, isAfterLastDeallocation, isVipType, belongsToCluster);
-
-        try {
-            vipCandidate = entityManager.createQuery(criteria).setLockMode(LockModeType.PESSIMISTIC_WRITE).setMaxResults(1).getSingleResult();
-        } catch (Exception e) {
-            LOG.error(e);
-            throw new OutOfVipsException(ErrorMessages.OUT_OF_VIPS);
+    /*
+     * Allocates the virtual ip if it is still free. The conditional update is the reservation, so a
+     * create that rolls back or a node that dies leaves the virtual ip free. Returns null when another
+     * transaction allocated it first.
+     */
+    public VirtualIp claimIpv4Vip(Integer vipId) {
+        String query = "update VirtualIp v set v.isAllocated = true, v.lastAllocation = :now where v.id = :vipId and v.isAllocated = false";
+
+        int claimed = entityManager.createQuery(query).setParameter("now", Calendar.getInstance()).setParameter("vipId", vipId).executeUpdate();
+        if (claimed == 0) {
+            return null;
         }
 
-        vipCandidate.setAllocated(true);
-        vipCandidate.setLastAllocation(Calendar.getInstance());
-        entityManager.merge(vipCandidate);
-        return vipCandidate;
+        VirtualIp virtualIp = entityManager.find(VirtualIp.class, vipId);
+        if (!virtualIp.isAllocated()) {
+            // Loaded before the update, bulk updates bypass the persistence context
+            entityManager.refresh(virtualIp);
+        }
+        return virtualIp;
     }
 
     public Map<Integer, List<LoadBalancer>> getPorts(Integer vid) {
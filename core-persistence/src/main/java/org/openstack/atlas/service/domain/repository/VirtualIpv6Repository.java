@@ -3,8 +3,9 @@ package org.openstack.atlas.service.domain.repository;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openstack.atlas.service.domain.entity.*;
-import org.openstack.atlas.service.domain.exception.ServiceUnavailableException;
+import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.*;
@@ -27,8 +28,19 @@ public class VirtualIpv6Repository {
         return vips;
     }
 
-    public List<Integer> getAccountIdsAlreadyShaHashed() {
-        return entityManager.createQuery("select a.id from Account a").getResultList();
+    /*
+     * Registers the account in its own transaction, so that concurrent creates for a new account do not
+     * wait on each other's uncommitted row. Returns false when the account is already registered, a
+     * concurrent registration surfaces as a PersistenceException on flush.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean addAccountRecord(Account account) {
+        if (entityManager.find(Account.class, account.getId()) != null) {
+            return false;
+        }
+        entityManager.persist(account);
+        entityManager.flush();
+        return true;
     }
 
     public void deleteVirtualIp(VirtualIpv6 virtualIpv6) {
@@ -57,48 +69,33 @@ public class VirtualIpv6Repository {
     }
 
 
-    public Account getLockedAccountRecord(Integer accountId) {
-        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Account> criteria = builder.createQuery(Account.class);
-        Root<Account> accountRoot = criteria.from(Account.class);
-
-        Predicate recordWithId = builder.equal(accountRoot.get(Account_.id), accountId);
-
-        criteria.select(accountRoot);
-        criteria.where(recordWithId);
-        return entityManager.createQuery(criteria).setLockMode(LockModeType.PESSIMISTIC_WRITE).getSingleResult();
-    }
-
-    public Integer getNextVipOctet(Integer accountId) {
-        List<Integer> maxList;
-        Integer max;
-        int retry_count = 3;
-
-        String qStr = "SELECT max(v.vipOctets) from VirtualIpv6 v where v.accountId=:aid";
-
-        while (retry_count > 0) {
-            retry_count--;
-            try {
-                maxList = entityManager.createQuery(qStr).setLockMode(LockModeType.PESSIMISTIC_WRITE).setParameter("aid", accountId).getResultList();
-                max = maxList.get(0);
-                if (max == null) {
-                    max = 0;
-                }
-                max++; // The next VipOctet
-                return max;
-            } catch (PersistenceException e) {
-                LOG.warn(String.format("Deadlock detected. %d retries left.", retry_count));
-                if (retry_count <= 0) throw e;
-
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e1) {
-                    e1.printStackTrace();
-                }
+    /*
+     * Hands out the next vip octet of the account from its next_vip_octet counter. The increment commits in
+     * its own transaction so the account row is only locked for the update itself; an octet given to a create
+     * that rolls back is simply skipped. Accounts registered before the counter existed are seeded from
+     * their highest vip octet on first use.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Integer allocateVipOctet(Integer accountId) throws EntityNotFoundException {
+        String increment = "update Account a set a.nextVipOctet = a.nextVipOctet + 1 where a.id = :aid and a.nextVipOctet is not null";
+        String seed = "update Account a set a.nextVipOctet = :next where a.id = :aid and a.nextVipOctet is null";
+
+        if (entityManager.createQuery(increment).setParameter("aid", accountId).executeUpdate() == 0) {
+            Integer max = (Integer) entityManager.createQuery("select max(v.vipOctets) from VirtualIpv6 v where v.accountId = :aid")
+                    .setParameter("aid", accountId).getSingleResult();
+            int vipOctet = max == null ? 1 : max + 1;
+            if (entityManager.createQuery(seed).setParameter("next", vipOctet + 1).setParameter("aid", accountId).executeUpdate() > 0) {
+                return vipOctet;
+            }
+            // Seeded by a concurrent create in the meantime, or not registered at all
+            if (entityManager.createQuery(increment).setParameter("aid", accountId).executeUpdate() == 0) {
+                throw new EntityNotFoundException(String.format("Account '%d' is not registered.", accountId));
             }
         }
 
-        throw new ServiceUnavailableException("Too many create requests received. Please try again in a few moments.");
+        Integer next = (Integer) entityManager.createQuery("select a.nextVipOctet from Account a where a.id = :aid")
+                .setParameter("aid", accountId).getSingleResult();
+        return next - 1;
     }
 
     public Map<Integer, List<LoadBalancer>> getPorts(Integer vid) {
@@ -2,6 +2,7 @@ package org.openstack.atlas.service.domain.repository.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hibernate.ejb.QueryHints;
 import org.openstack.atlas.service.domain.entity.*;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.repository.AccountLimitRepository;
@@ -12,6 +13,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -23,6 +25,7 @@ import java.util.List;
 public class AccountLimitRepositoryImpl implements AccountLimitRepository {
     final Log LOG = LogFactory.getLog(AccountLimitRepositoryImpl.class);
     private static final String entityNotFound = "Account limit not found";
+    private static final String ACCOUNT_LIMIT_QUERY_REGION = "query.AccountLimit";
     @PersistenceContext(unitName = "loadbalancing")
     private EntityManager entityManager;
 
@@ -42,7 +45,7 @@ public class AccountLimitRepositoryImpl implements AccountLimitRepository {
 
         criteria.select(accountLimitRoot);
         criteria.where(hasAccountId);
-        return entityManager.createQuery(criteria).getResultList();
+        return cacheable(entityManager.createQuery(criteria)).getResultList();
     }
 
     @Override
@@ -56,7 +59,7 @@ public class AccountLimitRepositoryImpl implements AccountLimitRepository {
         criteria.select(limitTypeRoot);
         criteria.where(hasName);
 
-        LimitType limitType = entityManager.createQuery(criteria).getSingleResult();
+        LimitType limitType = cacheable(entityManager.createQuery(criteria)).getSingleResult();
         if (limitType == null) {
             String message = String.format("No limit type found for '%s'", accountLimitType.name());
             LOG.error(message);
@@ -77,7 +80,7 @@ public class AccountLimitRepositoryImpl implements AccountLimitRepository {
         criteria.where(belongsToAccount);
 
         try {
-            return entityManager.createQuery(criteria).getResultList();
+            return cacheable(entityManager.createQuery(criteria)).getResultList();
         } catch (NoResultException e) {
             throw new EntityNotFoundException(entityNotFound);
         }
@@ -89,4 +92,8 @@ public class AccountLimitRepositoryImpl implements AccountLimitRepository {
         accountLimit = entityManager.merge(accountLimit); // Re-attach hibernate instance
         entityManager.remove(accountLimit);
     }
+
+    private static <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+        return query.setHint(QueryHints.HINT_CACHEABLE, true).setHint(QueryHints.HINT_CACHE_REGION, ACCOUNT_LIMIT_QUERY_REGION);
+    }
 }
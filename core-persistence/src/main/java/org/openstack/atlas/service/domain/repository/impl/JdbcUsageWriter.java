@@ -0,0 +1,172 @@
+package org.openstack.atlas.service.domain.repository.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.service.domain.entity.UsageRecord;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.List;
+
+/*
+ * Writes usage records with parameterized statements sent in JDBC batches. Statements are only
+ * parsed once per batch and, with rewriteBatchedStatements=true on the MySQL connection url,
+ * each batch goes over the wire as a single multi-row statement.
+ */
+public class JdbcUsageWriter {
+    private final Log LOG = LogFactory.getLog(JdbcUsageWriter.class);
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    private static final String VENDOR = "CORE";
+
+    private static final String INSERT_SQL = "INSERT INTO load_balancer_usage(vendor, load_balancer_id, transfer_bytes_in, transfer_bytes_out, " +
+            "last_bytes_in_count, last_bytes_out_count, start_time, end_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Updates the row in place on the primary key instead of REPLACE INTO, which deletes and re-inserts it.
+    private static final String UPSERT_SQL = "INSERT INTO load_balancer_usage(id, vendor, load_balancer_id, transfer_bytes_in, transfer_bytes_out, " +
+            "last_bytes_in_count, last_bytes_out_count, start_time, end_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE transfer_bytes_in = VALUES(transfer_bytes_in), transfer_bytes_out = VALUES(transfer_bytes_out), " +
+            "last_bytes_in_count = VALUES(last_bytes_in_count), last_bytes_out_count = VALUES(last_bytes_out_count), end_time = VALUES(end_time)";
+
+    private static final String LATEST_SQL = "INSERT INTO load_balancer_usage_latest(load_balancer_id, usage_id) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE usage_id = VALUES(usage_id)";
+
+    private final int batchSize;
+    private volatile boolean connectionChecked;
+
+    public JdbcUsageWriter(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+        this.batchSize = batchSize;
+    }
+
+    /*
+     * Inserts the records, sets their generated ids and points the latest usage of their load balancers at them.
+     */
+    public int insert(Connection connection, List<UsageRecord> usageRecords) throws SQLException {
+        int rows = write(connection, INSERT_SQL, usageRecords, false);
+        updateLatest(connection, usageRecords);
+        return rows;
+    }
+
+    public int upsert(Connection connection, List<UsageRecord> usageRecords) throws SQLException {
+        return write(connection, UPSERT_SQL, usageRecords, true);
+    }
+
+    public void updateLatest(Connection connection, List<UsageRecord> usageRecords) throws SQLException {
+        if (usageRecords.isEmpty()) return;
+        PreparedStatement statement = connection.prepareStatement(LATEST_SQL);
+
+        try {
+            int pending = 0;
+            for (UsageRecord usageRecord : usageRecords) {
+                statement.setInt(1, usageRecord.getLoadBalancer().getId());
+                statement.setInt(2, usageRecord.getId());
+                statement.addBatch();
+
+                if (++pending == batchSize) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+
+            if (pending > 0) statement.executeBatch();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private int write(Connection connection, String sql, List<UsageRecord> usageRecords, boolean withId) throws SQLException {
+        if (usageRecords.isEmpty()) return 0;
+        checkConnection(connection);
+
+        final long startNanos = System.nanoTime();
+        int rows = 0;
+        int batches = 0;
+        PreparedStatement statement = withId ? connection.prepareStatement(sql) : connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+
+        try {
+            int pending = 0;
+            for (UsageRecord usageRecord : usageRecords) {
+                bind(statement, usageRecord, withId);
+                statement.addBatch();
+
+                if (++pending == batchSize) {
+                    executeBatch(statement, usageRecords.subList(rows, rows + pending), withId);
+                    rows += pending;
+                    batches++;
+                    pending = 0;
+                }
+            }
+
+            if (pending > 0) {
+                executeBatch(statement, usageRecords.subList(rows, rows + pending), withId);
+                rows += pending;
+                batches++;
+            }
+        } finally {
+            statement.close();
+        }
+
+        if (LOG.isInfoEnabled()) {
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1000000000.0;
+            LOG.info(String.format("Wrote %d usage records in %d batches (%.3f s, %.0f rows/sec)", rows, batches, elapsedSeconds, elapsedSeconds > 0 ? rows / elapsedSeconds : (double) rows));
+        }
+
+        return rows;
+    }
+
+    private void executeBatch(PreparedStatement statement, List<UsageRecord> batch, boolean withId) throws SQLException {
+        statement.executeBatch();
+        if (withId) return;
+
+        ResultSet generatedKeys = statement.getGeneratedKeys();
+        try {
+            for (UsageRecord usageRecord : batch) {
+                if (!generatedKeys.next()) throw new SQLException("Missing generated id for usage record of load balancer " + usageRecord.getLoadBalancer().getId());
+                usageRecord.setId(generatedKeys.getInt(1));
+            }
+        } finally {
+            generatedKeys.close();
+        }
+    }
+
+    private void bind(PreparedStatement statement, UsageRecord usageRecord, boolean withId) throws SQLException {
+        int i = 1;
+        if (withId) statement.setInt(i++, usageRecord.getId());
+        statement.setString(i++, VENDOR);
+        statement.setInt(i++, usageRecord.getLoadBalancer().getId());
+        statement.setLong(i++, usageRecord.getTransferBytesIn());
+        statement.setLong(i++, usageRecord.getTransferBytesOut());
+        statement.setLong(i++, usageRecord.getLastBytesInCount());
+        statement.setLong(i++, usageRecord.getLastBytesOutCount());
+        setTimestamp(statement, i++, usageRecord.getStartTime());
+        setTimestamp(statement, i, usageRecord.getEndTime());
+    }
+
+    private void setTimestamp(PreparedStatement statement, int index, Calendar calendar) throws SQLException {
+        if (calendar == null) {
+            statement.setNull(index, Types.TIMESTAMP);
+        } else {
+            statement.setTimestamp(index, new Timestamp(calendar.getTimeInMillis()));
+        }
+    }
+
+    private void checkConnection(Connection connection) {
+        if (connectionChecked) return;
+        connectionChecked = true;
+
+        try {
+            String url = connection.getMetaData().getURL();
+            if (url != null && url.startsWith("jdbc:mysql:") && !url.contains("rewriteBatchedStatements=true")) {
+                LOG.warn("The database connection url does not set rewriteBatchedStatements=true. Usage batches will be sent one statement at a time.");
+            }
+        } catch (SQLException e) {
+            LOG.debug("Could not read the database connection url.", e);
+        }
+    }
+}
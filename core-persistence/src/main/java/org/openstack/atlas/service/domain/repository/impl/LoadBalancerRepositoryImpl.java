@@ -2,6 +2,13 @@ package org.openstack.atlas.service.domain.repository.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hibernate.EntityMode;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.EntityEntry;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.PersistenceContext;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.openstack.atlas.datamodel.CoreLoadBalancerStatus;
 import org.openstack.atlas.service.domain.common.Constants;
 import org.openstack.atlas.service.domain.common.ErrorMessages;
@@ -9,16 +16,21 @@ import org.openstack.atlas.service.domain.entity.*;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.exception.ImmutableEntityException;
 import org.openstack.atlas.service.domain.exception.UnprocessableEntityException;
+import org.openstack.atlas.service.domain.pojo.SimpleLoadBalancer;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
-import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import javax.persistence.TemporalType;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -28,28 +40,58 @@ import java.util.Set;
 public class LoadBalancerRepositoryImpl implements LoadBalancerRepository {
 
     final Log LOG = LogFactory.getLog(LoadBalancerRepositoryImpl.class);
+    private static final Collection<String> ACTIVE = Collections.singleton(CoreLoadBalancerStatus.ACTIVE);
+    private static final Collection<String> ACTIVE_OR_PENDING_UPDATE = Arrays.asList(CoreLoadBalancerStatus.ACTIVE, CoreLoadBalancerStatus.PENDING_UPDATE);
     @PersistenceContext(unitName = "loadbalancing")
     private EntityManager entityManager;
 
     @Override
     public LoadBalancer getById(Integer id) throws EntityNotFoundException {
+        return getById(id, LoadBalancerFetchPlan.ADAPTER);
+    }
+
+    @Override
+    public LoadBalancer getById(Integer id, LoadBalancerFetchPlan fetchPlan) throws EntityNotFoundException {
         LoadBalancer loadBalancer = entityManager.find(LoadBalancer.class, id);
         if (loadBalancer == null) {
             throw new EntityNotFoundException(ErrorMessages.LB_NOT_FOUND);
         }
+        applyFetchPlan(loadBalancer, fetchPlan);
         return loadBalancer;
     }
 
     @Override
     public LoadBalancer getByIdAndAccountId(Integer id, Integer accountId) throws EntityNotFoundException {
-        LoadBalancer loadBalancer = getById(id);
-        if (!loadBalancer.getAccountId().equals(accountId)) {
+        return getByIdAndAccountId(id, accountId, LoadBalancerFetchPlan.ADAPTER);
+    }
+
+    @Override
+    public LoadBalancer getByIdAndAccountId(Integer id, Integer accountId, LoadBalancerFetchPlan fetchPlan) throws EntityNotFoundException {
+        LoadBalancer loadBalancer = entityManager.find(LoadBalancer.class, id);
+        if (loadBalancer == null || !loadBalancer.getAccountId().equals(accountId)) {
             throw new EntityNotFoundException(ErrorMessages.LB_NOT_FOUND);
         }
-
+        applyFetchPlan(loadBalancer, fetchPlan);
         return loadBalancer;
     }
 
+    /**
+     * Initializes the lazy associations the fetch plan asks for, one select per association,
+     * while the entity is still attached.
+     */
+    protected void applyFetchPlan(final LoadBalancer loadBalancer, final LoadBalancerFetchPlan fetchPlan) {
+        if (fetchPlan.fetchesNodes()) {
+            Hibernate.initialize(loadBalancer.getNodes());
+        }
+        if (fetchPlan.fetchesVirtualIps()) {
+            Hibernate.initialize(loadBalancer.getLoadBalancerJoinVipSet());
+            Hibernate.initialize(loadBalancer.getLoadBalancerJoinVip6Set());
+        }
+        if (fetchPlan.fetchesHost()) {
+            Hibernate.initialize(loadBalancer.getHost());
+        }
+    }
+
     @Override
     public List<LoadBalancer> getByAccountId(Integer accountId) {
         return entityManager.createQuery("SELECT lb FROM LoadBalancer lb WHERE lb.accountId = :accountId")
@@ -57,6 +99,17 @@ public class LoadBalancerRepositoryImpl implements LoadBalancerRepository {
                 .getResultList();
     }
 
+    @Override
+    public List<SimpleLoadBalancer> getSimpleLoadBalancersByAccountId(Integer accountId, Integer marker, Integer limit) {
+        Query query = entityManager.createQuery("SELECT NEW org.openstack.atlas.service.domain.pojo.SimpleLoadBalancer(lb.id, lb.name, lb.algorithm, lb.protocol, lb.port, lb.status, lb.created, lb.updated) " +
+                "FROM LoadBalancer lb WHERE lb.accountId = :accountId AND lb.id > :marker ORDER BY lb.id")
+                .setParameter("accountId", accountId)
+                .setParameter("marker", marker == null ? 0 : marker);
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList();
+    }
 
     @Override
     public LoadBalancer create(LoadBalancer loadBalancer) {
@@ -157,6 +210,38 @@ public class LoadBalancerRepositoryImpl implements LoadBalancerRepository {
         return ((BigInteger) query.getSingleResult()).intValue();
     }
 
+    @Override
+    public int getLoadBalancerCount(Integer accountId) {
+        List<Integer> counts = entityManager.createQuery("select a.loadBalancerCount from Account a where a.id = :aid")
+                .setParameter("aid", accountId).getResultList();
+        if (counts.isEmpty() || counts.get(0) == null) {
+            return getNumNonDeletedLoadBalancersForAccount(accountId);
+        }
+        return counts.get(0);
+    }
+
+    @Override
+    public boolean incrementLoadBalancerCount(Integer accountId, int limit) {
+        String increment = "update Account a set a.loadBalancerCount = a.loadBalancerCount + 1 where a.id = :aid and a.loadBalancerCount < :limit";
+        String seed = "update Account a set a.loadBalancerCount = :count where a.id = :aid and a.loadBalancerCount is null";
+
+        if (entityManager.createQuery(increment).setParameter("aid", accountId).setParameter("limit", limit).executeUpdate() > 0) {
+            return true;
+        }
+        // Accounts registered before the counter existed are seeded from their load balancers on first use.
+        // The seed matches no row when the counter is already set, either because the account is at its
+        // limit or because a concurrent create seeded it first; the increment is tried again in both cases.
+        int count = getNumNonDeletedLoadBalancersForAccount(accountId);
+        entityManager.createQuery(seed).setParameter("count", count).setParameter("aid", accountId).executeUpdate();
+        return entityManager.createQuery(increment).setParameter("aid", accountId).setParameter("limit", limit).executeUpdate() > 0;
+    }
+
+    @Override
+    public void decrementLoadBalancerCount(Integer accountId) {
+        entityManager.createQuery("update Account a set a.loadBalancerCount = a.loadBalancerCount - 1 where a.id = :aid and a.loadBalancerCount > 0")
+                .setParameter("aid", accountId).executeUpdate();
+    }
+
     public void changeStatus(Integer accountId, Integer loadbalancerId, String newStatus) throws EntityNotFoundException, UnprocessableEntityException, ImmutableEntityException {
         changeStatus(accountId, loadbalancerId, newStatus, false);
     }
@@ -164,31 +249,74 @@ public class LoadBalancerRepositoryImpl implements LoadBalancerRepository {
     public void changeStatus(Integer accountId, Integer loadbalancerId, String newStatus, boolean allowConcurrentModifications) throws EntityNotFoundException, UnprocessableEntityException, ImmutableEntityException {
         // TODO: Hook up AOP logging here
 
-        String queryString = "from LoadBalancer lb where lb.accountId=:aid and lb.id=:lid";
-        Query q = entityManager.createQuery(queryString).setLockMode(LockModeType.PESSIMISTIC_WRITE).
-                setParameter("aid", accountId).
-                setParameter("lid", loadbalancerId);
+        if (transitionStatus(accountId, loadbalancerId, getMutableStatuses(allowConcurrentModifications), newStatus) > 0) {
+            return;
+        }
 
-        List<LoadBalancer> lbList = q.getResultList();
-        if (lbList.size() < 1) {
+        String currentStatus = getStatus(accountId, loadbalancerId);
+        if (currentStatus == null) {
             throw new EntityNotFoundException(ErrorMessages.LB_NOT_FOUND);
         }
-
-        LoadBalancer lb = lbList.get(0);
-        if (lb.getStatus().equals(CoreLoadBalancerStatus.DELETED)) {
+        if (currentStatus.equals(CoreLoadBalancerStatus.DELETED)) {
             throw new UnprocessableEntityException(ErrorMessages.LB_DELETED);
         }
-        final boolean isActive = lb.getStatus().equals(CoreLoadBalancerStatus.ACTIVE);
-        final boolean isPendingOrActive = lb.getStatus().equals(CoreLoadBalancerStatus.PENDING_UPDATE) || isActive;
 
-        if (allowConcurrentModifications ? isPendingOrActive : isActive) {
-            lb.setStatus(newStatus);
-            lb.setUpdated(Calendar.getInstance());
-            entityManager.merge(lb);
+        throw new ImmutableEntityException("Load Balancer can not be updated as it is currently being updated.");
+    }
+
+    @Override
+    public int transitionStatus(Integer accountId, Integer loadbalancerId, Collection<String> expectedStatuses, String newStatus) {
+        Calendar now = Calendar.getInstance();
+        int updated = entityManager.createQuery("UPDATE LoadBalancer lb SET lb.status = :newStatus, lb.updated = :updated " +
+                "WHERE lb.id = :lid AND lb.accountId = :aid AND lb.status IN (:expectedStatuses)")
+                .setParameter("newStatus", newStatus)
+                .setParameter("updated", now, TemporalType.TIMESTAMP)
+                .setParameter("lid", loadbalancerId)
+                .setParameter("aid", accountId)
+                .setParameter("expectedStatuses", expectedStatuses)
+                .executeUpdate();
+
+        if (updated > 0) {
+            syncLoadedStatus(loadbalancerId, newStatus, now);
+        }
+        return updated;
+    }
+
+    private static Collection<String> getMutableStatuses(boolean allowConcurrentModifications) {
+        return allowConcurrentModifications ? ACTIVE_OR_PENDING_UPDATE : ACTIVE;
+    }
+
+    private String getStatus(Integer accountId, Integer loadbalancerId) {
+        List<String> statuses = entityManager.createQuery("SELECT lb.status FROM LoadBalancer lb WHERE lb.id = :lid AND lb.accountId = :aid")
+                .setParameter("lid", loadbalancerId)
+                .setParameter("aid", accountId)
+                .getResultList();
+        return statuses.isEmpty() ? null : statuses.get(0);
+    }
+
+    /*
+     * Bulk updates bypass the persistence context. Copy the new status onto the instance this
+     * transaction has already loaded, if any, and into its loaded state, so the dirty check sees no
+     * change and a later flush neither writes the old status back nor issues a second UPDATE.
+     */
+    private void syncLoadedStatus(Integer loadbalancerId, String newStatus, Calendar updated) {
+        SessionImplementor session = (SessionImplementor) entityManager.getDelegate();
+        EntityPersister persister = session.getFactory().getEntityPersister(LoadBalancer.class.getName());
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+        Object loaded = persistenceContext.getEntity(new EntityKey(loadbalancerId, persister, EntityMode.POJO));
+        if (!(loaded instanceof LoadBalancer)) {
             return;
         }
 
-        throw new ImmutableEntityException("Load Balancer can not be updated as it is currently being updated.");
+        ((LoadBalancer) loaded).setStatus(newStatus);
+        ((LoadBalancer) loaded).setUpdated(updated);
+
+        EntityEntry entry = persistenceContext.getEntry(loaded);
+        Object[] loadedState = entry == null ? null : entry.getLoadedState();
+        if (loadedState != null) {
+            loadedState[persister.getEntityMetamodel().getPropertyIndex("status")] = newStatus;
+            loadedState[persister.getEntityMetamodel().getPropertyIndex("updated")] = updated;
+        }
     }
 
     public void updatePortInJoinTable(LoadBalancer lb) {
@@ -220,46 +348,36 @@ public class LoadBalancerRepositoryImpl implements LoadBalancerRepository {
         return true;
     }
 
-     public boolean testAndSetStatus(Integer accountId, Integer loadbalancerId, String statusToChangeTo, boolean allowConcurrentModifications) throws EntityNotFoundException, UnprocessableEntityException {
-        String qStr = "from LoadBalancer lb where lb.accountId=:aid and lb.id=:lid";
-        List<LoadBalancer> lbList;
-        Query q = entityManager.createQuery(qStr).setLockMode(LockModeType.PESSIMISTIC_WRITE).
-                setParameter("aid", accountId).
-                setParameter("lid", loadbalancerId);
-        lbList = q.getResultList();
-        if (lbList.size() < 1) {
-            throw new EntityNotFoundException("");
+    public boolean testAndSetStatus(Integer accountId, Integer loadbalancerId, String statusToChangeTo, boolean allowConcurrentModifications) throws EntityNotFoundException, UnprocessableEntityException {
+        if (transitionStatus(accountId, loadbalancerId, getMutableStatuses(allowConcurrentModifications), statusToChangeTo) > 0) {
+            return true;
         }
 
-        LoadBalancer lb = lbList.get(0);
-        if (lb.getStatus().equals(CoreLoadBalancerStatus.DELETED)) throw new UnprocessableEntityException(Constants.LoadBalancerDeleted);
-        final boolean isActive = lb.getStatus().equals(CoreLoadBalancerStatus.ACTIVE);
-        final boolean isPendingOrActive = lb.getStatus().equals(CoreLoadBalancerStatus.PENDING_UPDATE) || isActive;
-
-        if(allowConcurrentModifications ? isPendingOrActive : isActive) {
-            lb.setStatus(statusToChangeTo);
-            lb.setUpdated(Calendar.getInstance());
-            entityManager.merge(lb);
-            return true;
+        String currentStatus = getStatus(accountId, loadbalancerId);
+        if (currentStatus == null) {
+            throw new EntityNotFoundException("");
         }
+        if (currentStatus.equals(CoreLoadBalancerStatus.DELETED)) throw new UnprocessableEntityException(Constants.LoadBalancerDeleted);
 
         return false;
     }
 
     public LoadBalancer changeStatus(LoadBalancer loadBalancer, String status) throws EntityNotFoundException {
-        String qStr = "from LoadBalancer lb where lb.accountId=:aid and lb.id=:lid";
-        List<LoadBalancer> lbList;
-        Query q = entityManager.createQuery(qStr).setLockMode(LockModeType.PESSIMISTIC_WRITE).
-                setParameter("aid", loadBalancer.getAccountId()).
-                setParameter("lid", loadBalancer.getId());
-        lbList = q.getResultList();
-        if (lbList.size() < 1) {
+        Calendar now = Calendar.getInstance();
+        int updated = entityManager.createQuery("UPDATE LoadBalancer lb SET lb.status = :newStatus, lb.updated = :updated " +
+                "WHERE lb.id = :lid AND lb.accountId = :aid")
+                .setParameter("newStatus", status)
+                .setParameter("updated", now, TemporalType.TIMESTAMP)
+                .setParameter("lid", loadBalancer.getId())
+                .setParameter("aid", loadBalancer.getAccountId())
+                .executeUpdate();
+        if (updated < 1) {
             throw new EntityNotFoundException(ErrorMessages.LB_NOT_FOUND);
         }
 
-        loadBalancer = lbList.get(0);
+        syncLoadedStatus(loadBalancer.getId(), status, now);
         loadBalancer.setStatus(status);
-        entityManager.persist(loadBalancer);
+        loadBalancer.setUpdated(now);
         return loadBalancer;
     }
 }
@@ -5,19 +5,22 @@ import org.apache.commons.logging.LogFactory;
 import org.openstack.atlas.service.domain.entity.*;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.repository.UsageRepository;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
 import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -27,6 +30,8 @@ public class UsageRepositoryImpl implements UsageRepository {
     final Log LOG = LogFactory.getLog(UsageRepositoryImpl.class);
     @PersistenceContext(unitName = "loadbalancing")
     private EntityManager entityManager;
+    private final HibernateJpaDialect jpaDialect = new HibernateJpaDialect();
+    private JdbcUsageWriter usageWriter = new JdbcUsageWriter(JdbcUsageWriter.DEFAULT_BATCH_SIZE);
 
     @Override
     public List<UsageRecord> getByLoadBalancerId(Integer loadBalancerId) throws EntityNotFoundException {
@@ -48,14 +53,20 @@ public class UsageRepositoryImpl implements UsageRepository {
     public List<UsageRecord> getMostRecentUsageRecordsForLoadBalancers(Set<Integer> lbIds) {
         if (lbIds == null || lbIds.isEmpty()) return new ArrayList<UsageRecord>();
 
-        Query query = entityManager.createNativeQuery("SELECT a.* " +
-                "FROM load_balancer_usage a, " +
-                "(SELECT load_balancer_id, max(end_time) as end_time FROM load_balancer_usage WHERE load_balancer_id in (:lbIds) GROUP BY load_balancer_id) b " +
-                "WHERE a.load_balancer_id in (:lbIds) and a.load_balancer_id = b.load_balancer_id and a.end_time = b.end_time;", UsageRecord.class)
+        Query query = entityManager.createNativeQuery("SELECT u.* " +
+                "FROM load_balancer_usage_latest l, load_balancer_usage u " +
+                "WHERE l.load_balancer_id in (:lbIds) and u.id = l.usage_id", UsageRecord.class)
                 .setParameter("lbIds", lbIds);
 
-        List<UsageRecord> usage = (List<UsageRecord>) query.getResultList();
-        if (usage == null) return new ArrayList<UsageRecord>();
+        List<UsageRecord> usage = new ArrayList<UsageRecord>((List<UsageRecord>) query.getResultList());
+
+        if (usage.size() < lbIds.size()) {
+            Set<Integer> lbIdsWithoutLatest = new HashSet<Integer>(lbIds);
+            for (UsageRecord usageRecord : usage) {
+                lbIdsWithoutLatest.remove(usageRecord.getLoadBalancer().getId());
+            }
+            usage.addAll(getAndIndexMostRecentUsageRecords(lbIdsWithoutLatest));
+        }
 
         return usage;
     }
@@ -63,55 +74,55 @@ public class UsageRepositoryImpl implements UsageRepository {
     @Override
     public void batchCreate(List<UsageRecord> recordsToInsert) {
         LOG.debug(String.format("batchCreate() called with %d records", recordsToInsert.size()));
-        String query = generateBatchInsertQuery(recordsToInsert);
-        entityManager.createNativeQuery(query).executeUpdate();
+        try {
+            usageWriter.insert(getConnection(), recordsToInsert);
+        } catch (SQLException e) {
+            throw new PersistenceException("Failed to insert usage records.", e);
+        }
     }
 
     @Override
     public void batchUpdate(List<UsageRecord> recordsToUpdate) {
         LOG.debug(String.format("batchUpdate() called with %d records", recordsToUpdate.size()));
-        String query = generateBatchUpdateQuery(recordsToUpdate);
-        entityManager.createNativeQuery(query).executeUpdate();
+        try {
+            usageWriter.upsert(getConnection(), recordsToUpdate);
+        } catch (SQLException e) {
+            throw new PersistenceException("Failed to update usage records.", e);
+        }
     }
 
-    private String generateBatchInsertQuery(List<UsageRecord> usages) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append("INSERT INTO load_balancer_usage(vendor, load_balancer_id, transfer_bytes_in, transfer_bytes_out, last_bytes_in_count, last_bytes_out_count, start_time, end_time) values");
-        sb.append(generateFormattedValues(usages));
-        return sb.toString();
+    public void setBatchSize(int batchSize) {
+        this.usageWriter = new JdbcUsageWriter(batchSize);
     }
 
-    private String generateBatchUpdateQuery(List<UsageRecord> usages) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append("REPLACE INTO load_balancer_usage(vendor, id, load_balancer_id, transfer_bytes_in, transfer_bytes_out, last_bytes_in_count, last_bytes_out_count, start_time, end_time) values");
-        sb.append(generateFormattedValues(usages));
-        return sb.toString();
+    /*
+     * The connection of the current transaction. It belongs to the entity manager and must not be closed.
+     */
+    private Connection getConnection() throws SQLException {
+        return jpaDialect.getJdbcConnection(entityManager, false).getConnection();
     }
 
-    private String generateFormattedValues(List<UsageRecord> usages) {
-        StringBuilder sb = new StringBuilder();
-
-        for (UsageRecord usage : usages) {
-            DateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            String startTime = formatter.format(usage.getStartTime().getTime());
-            String endTime = formatter.format(usage.getEndTime().getTime());
-            
-            sb.append("(");
-            sb.append("'CORE'").append(",");
-            if (usage.getId() != null) sb.append(usage.getId()).append(",");
-            sb.append(usage.getLoadBalancer().getId()).append(",");
-            sb.append(usage.getTransferBytesIn()).append(",");
-            sb.append(usage.getTransferBytesOut()).append(",");
-            sb.append(usage.getLastBytesInCount()).append(",");
-            sb.append(usage.getLastBytesOutCount()).append(",");
-            sb.append("'").append(startTime).append("',");
-            sb.append("'").append(endTime).append("'");
-            sb.append("),");
+    /*
+     * Falls back to grouping the usage table for load balancers that have no latest usage pointer yet,
+     * i.e. usage written before the pointer table existed, and records the pointer for next time.
+     */
+    private List<UsageRecord> getAndIndexMostRecentUsageRecords(Set<Integer> lbIds) {
+        Query query = entityManager.createNativeQuery("SELECT a.* " +
+                "FROM load_balancer_usage a, " +
+                "(SELECT load_balancer_id, max(end_time) as end_time FROM load_balancer_usage WHERE load_balancer_id in (:lbIds) GROUP BY load_balancer_id) b " +
+                "WHERE a.load_balancer_id in (:lbIds) and a.load_balancer_id = b.load_balancer_id and a.end_time = b.end_time;", UsageRecord.class)
+                .setParameter("lbIds", lbIds);
 
+        List<UsageRecord> usage = (List<UsageRecord>) query.getResultList();
+        if (usage == null || usage.isEmpty()) return new ArrayList<UsageRecord>();
+
+        LOG.debug(String.format("Indexing latest usage for %d load balancers", usage.size()));
+        try {
+            usageWriter.updateLatest(getConnection(), usage);
+        } catch (SQLException e) {
+            throw new PersistenceException("Failed to index latest usage records.", e);
         }
-        if (sb.toString().endsWith(",")) {
-            sb.deleteCharAt(sb.lastIndexOf(","));
-        }
-        return sb.toString();
+
+        return usage;
     }
 }
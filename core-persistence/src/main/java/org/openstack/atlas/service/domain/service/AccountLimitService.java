@@ -12,6 +12,14 @@ public interface AccountLimitService {
 
     void verifyLoadBalancerLimit(Integer accountId) throws EntityNotFoundException, LimitReachedException;
 
+    /**
+     * Counts a new load balancer against the account's limit in the caller's transaction, so the count
+     * is given back if the create rolls back. Racing creates cannot exceed the limit together.
+     */
+    void reserveLoadBalancer(Integer accountId) throws EntityNotFoundException, LimitReachedException;
+
+    void releaseLoadBalancer(Integer accountId);
+
     int getLimit(Integer accountId, AccountLimitType accountLimitType) throws EntityNotFoundException;
 
     void delete(Integer accountId) throws PersistenceServiceException;
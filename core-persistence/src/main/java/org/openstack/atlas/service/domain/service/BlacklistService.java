@@ -10,4 +10,8 @@ public interface BlacklistService {
 
     void verifyNoBlacklistNodes(Set<Node> nodes) throws BadRequestException;
 
+    Node getBlacklistedNode(Set<Node> nodes);
+
+    void refreshBlacklist();
+
 }
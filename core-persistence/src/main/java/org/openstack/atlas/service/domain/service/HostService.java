@@ -6,4 +6,6 @@ import org.openstack.atlas.service.domain.exception.PersistenceServiceException;
 
 public interface HostService {
     Host getDefaultActiveHost() throws PersistenceServiceException;
+
+    void removeLoadBalancerFromHost(Host host);
 }
@@ -0,0 +1,7 @@
+package org.openstack.atlas.service.domain.service.helpers;
+
+import org.openstack.atlas.common.config.ConfigurationKey;
+
+public enum CacheStatisticsConfigurationKeys implements ConfigurationKey {
+    hibernate_statistics_enabled;
+}
@@ -0,0 +1,111 @@
+package org.openstack.atlas.service.domain.service.helpers;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.management.ManagementService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.jmx.StatisticsService;
+import org.openstack.atlas.common.config.Configuration;
+import org.openstack.atlas.common.config.ConfigurationInitializationException;
+import org.openstack.atlas.common.config.LbConfiguration;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Publishes the Hibernate statistics and the per region Ehcache statistics of the loadbalancing
+ * persistence unit over JMX, so second level and query cache hit ratios can be watched in production.
+ * <p/>
+ * Hibernate only collects its statistics while hibernate_statistics_enabled is true in public-api.conf,
+ * since every session then updates shared counters. They can also be switched on later through the
+ * StatisticsEnabled attribute of the MBean.
+ */
+@Component
+public class CacheStatisticsExporter {
+    private final Log LOG = LogFactory.getLog(CacheStatisticsExporter.class);
+    public static final String HIBERNATE_STATISTICS_NAME = "org.openstack.atlas:type=HibernateStatistics,unit=loadbalancing";
+
+    @PersistenceUnit(unitName = "loadbalancing")
+    private EntityManagerFactory entityManagerFactory;
+
+    private Configuration configuration;
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName statisticsName;
+
+    @PostConstruct
+    public void register() {
+        try {
+            SessionFactory sessionFactory = getSessionFactory();
+            sessionFactory.getStatistics().setStatisticsEnabled(isStatisticsEnabled());
+
+            StatisticsService statisticsService = new StatisticsService();
+            statisticsService.setSessionFactory(sessionFactory);
+            statisticsName = new ObjectName(HIBERNATE_STATISTICS_NAME);
+            if (!mBeanServer.isRegistered(statisticsName)) {
+                mBeanServer.registerMBean(statisticsService, statisticsName);
+            }
+        } catch (JMException e) {
+            LOG.warn("Could not register the Hibernate statistics MBean", e);
+            statisticsName = null;
+        }
+
+        for (CacheManager cacheManager : CacheManager.ALL_CACHE_MANAGERS) {
+            try {
+                ManagementService.registerMBeans(cacheManager, mBeanServer, false, false, false, true);
+            } catch (RuntimeException e) {
+                // Ehcache wraps the JMException, e.g. when another unit in this JVM registered the manager first
+                LOG.warn(String.format("Could not register the cache statistics MBeans of cache manager '%s'", cacheManager.getName()), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (statisticsName == null) return;
+        try {
+            mBeanServer.unregisterMBean(statisticsName);
+        } catch (JMException e) {
+            LOG.warn("Could not unregister the Hibernate statistics MBean", e);
+        }
+    }
+
+    private boolean isStatisticsEnabled() {
+        if (configuration == null) {
+            configuration = new LbConfiguration();
+        }
+        try {
+            String enabled = configuration.getString(CacheStatisticsConfigurationKeys.hibernate_statistics_enabled);
+            return enabled != null && Boolean.parseBoolean(enabled.trim());
+        } catch (ConfigurationInitializationException e) {
+            LOG.warn(String.format("Could not read %s. Hibernate statistics stay off.", CacheStatisticsConfigurationKeys.hibernate_statistics_enabled));
+            return false;
+        }
+    }
+
+    private SessionFactory getSessionFactory() {
+        EntityManagerFactory nativeFactory = entityManagerFactory;
+        if (nativeFactory instanceof EntityManagerFactoryInfo) {
+            nativeFactory = ((EntityManagerFactoryInfo) nativeFactory).getNativeEntityManagerFactory();
+        }
+        return ((HibernateEntityManagerFactory) nativeFactory).getSessionFactory();
+    }
+
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+    }
+}
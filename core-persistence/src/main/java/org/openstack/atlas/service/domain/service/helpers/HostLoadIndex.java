@@ -0,0 +1,193 @@
+package org.openstack.atlas.service.domain.service.helpers;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.HostStatus;
+import org.openstack.atlas.service.domain.event.HostChangedEvent;
+import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
+import org.openstack.atlas.service.domain.repository.HostRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the number of load balancers on each ACTIVE_TARGET host in memory so that placing a new
+ * load balancer does not have to count them host by host in the database.
+ * <p/>
+ * The index is seeded with a single grouped count, adjusted as load balancers are placed and
+ * deleted, and rebuilt from the database once it is older than the reconcile interval, which also
+ * picks up new hosts and corrects placements whose transaction rolled back. It is dropped whenever
+ * a host is written through HostRepository, so a host leaving ACTIVE_TARGET stops receiving load
+ * balancers right away. Placement samples two
+ * random hosts and takes the less loaded one, so concurrent creates spread out instead of all
+ * landing on the single least loaded host.
+ */
+@Component
+public class HostLoadIndex implements ApplicationListener<HostChangedEvent> {
+    private final Log LOG = LogFactory.getLog(HostLoadIndex.class);
+    public static final long DEFAULT_RECONCILE_INTERVAL_MILLIS = 60000;
+
+    @Autowired
+    private HostRepository hostRepository;
+
+    private volatile long reconcileIntervalMillis = DEFAULT_RECONCILE_INTERVAL_MILLIS;
+    private volatile Snapshot snapshot;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    /**
+     * Picks the host for a new load balancer and counts the load balancer against it.
+     */
+    public Host placeLoadBalancer() throws EntityNotFoundException {
+        Snapshot current = getSnapshot();
+        int hostCount = current.hosts.length;
+        if (hostCount == 0) {
+            throw new EntityNotFoundException("ACTIVE_TARGET host not found");
+        }
+
+        int chosen = 0;
+        if (hostCount > 1) {
+            Random r = random.get();
+            int first = r.nextInt(hostCount);
+            int second = r.nextInt(hostCount - 1);
+            if (second >= first) {
+                second++;
+            }
+            chosen = current.counts.get(second) < current.counts.get(first) ? second : first;
+        }
+
+        current.counts.incrementAndGet(chosen);
+        return current.hosts[chosen];
+    }
+
+    /**
+     * Stops counting a deleted load balancer against its host.
+     */
+    public void removeLoadBalancer(Integer hostId) {
+        Snapshot current = snapshot;
+        if (current == null || hostId == null) {
+            return;
+        }
+
+        Integer index = current.indexByHostId.get(hostId);
+        if (index != null && current.counts.decrementAndGet(index) < 0) {
+            current.counts.incrementAndGet(index);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database.
+     */
+    public void reconcile() {
+        rebuild();
+    }
+
+    private Snapshot rebuild() {
+        List<Host> hosts = new ArrayList<Host>();
+        for (Host host : hostRepository.getHosts()) {
+            if (host.getHostStatus() == HostStatus.ACTIVE_TARGET) {
+                hosts.add(host);
+            }
+        }
+        Map<Integer, Long> counts = hostRepository.getLoadBalancerCountsByHost();
+        Snapshot rebuilt = new Snapshot(hosts, counts, System.currentTimeMillis());
+        snapshot = rebuilt;
+        LOG.debug(String.format("Reconciled host load index with %d hosts.", hosts.size()));
+        return rebuilt;
+    }
+
+    @Override
+    public void onApplicationEvent(HostChangedEvent event) {
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A rebuild racing with the write can still have read the old host, drop it again once committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the index, the next placement rebuilds it from the database.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    public long getLoadBalancerCount(Integer hostId) {
+        Snapshot current = getSnapshot();
+        Integer index = current.indexByHostId.get(hostId);
+        return index == null ? 0 : current.counts.get(index);
+    }
+
+    public void setHostRepository(HostRepository hostRepository) {
+        this.hostRepository = hostRepository;
+    }
+
+    public void setReconcileIntervalMillis(long reconcileIntervalMillis) {
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                return current != null ? current : rebuild();
+            }
+        }
+
+        // Only one caller rebuilds an expired index; the others keep placing against the old one
+        if (System.currentTimeMillis() - current.loadedAt > reconcileIntervalMillis && reconciling.compareAndSet(false, true)) {
+            try {
+                current = rebuild();
+            } catch (RuntimeException e) {
+                LOG.warn("Could not reconcile host load index, keeping the previous counts.", e);
+            } finally {
+                reconciling.set(false);
+            }
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final Host[] hosts;
+        private final AtomicLongArray counts;
+        private final Map<Integer, Integer> indexByHostId;
+        private final long loadedAt;
+
+        private Snapshot(List<Host> hosts, Map<Integer, Long> loadBalancerCounts, long loadedAt) {
+            this.hosts = hosts.toArray(new Host[hosts.size()]);
+            this.counts = new AtomicLongArray(this.hosts.length);
+            this.indexByHostId = new HashMap<Integer, Integer>();
+            this.loadedAt = loadedAt;
+
+            for (int i = 0; i < this.hosts.length; i++) {
+                Integer hostId = this.hosts[i].getId();
+                Long count = loadBalancerCounts.get(hostId);
+                counts.set(i, count == null ? 0 : count);
+                indexByHostId.put(hostId, i);
+            }
+        }
+    }
+}
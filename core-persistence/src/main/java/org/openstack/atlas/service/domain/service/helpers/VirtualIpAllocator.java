@@ -0,0 +1,153 @@
+package org.openstack.atlas.service.domain.service.helpers;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openstack.atlas.service.domain.common.Constants;
+import org.openstack.atlas.service.domain.common.ErrorMessages;
+import org.openstack.atlas.service.domain.entity.Cluster;
+import org.openstack.atlas.service.domain.entity.VirtualIp;
+import org.openstack.atlas.service.domain.entity.VirtualIpType;
+import org.openstack.atlas.service.domain.exception.OutOfVipsException;
+import org.openstack.atlas.service.domain.repository.VirtualIpRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out IPv4 virtual ips from an in-memory free list per cluster and virtual ip type, so that
+ * concurrent creates claim different rows instead of all locking the first free one.
+ * <p/>
+ * The free list only holds candidate ids, refilled in chunks from the database. A candidate is
+ * allocated by a conditional update in the caller's transaction, so nothing is lost when a create
+ * rolls back or the node goes down, and a candidate already taken by another node is skipped.
+ * Virtual ips de-allocated less than {@link Constants#NUM_DAYS_BEFORE_VIP_REUSE} days ago are only
+ * handed out once there are no others left, longest de-allocated first.
+ */
+@Component
+public class VirtualIpAllocator {
+    private final Log LOG = LogFactory.getLog(VirtualIpAllocator.class);
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+    public static final int DEFAULT_MAX_CLAIM_ATTEMPTS = 256;
+
+    @Autowired
+    private VirtualIpRepository virtualIpRepository;
+
+    private volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+    private volatile int maxClaimAttempts = DEFAULT_MAX_CLAIM_ATTEMPTS;
+    private final ConcurrentMap<String, FreeList> freeLists = new ConcurrentHashMap<String, FreeList>();
+
+    public VirtualIp allocateIpv4Vip(Cluster cluster, VirtualIpType vipType) throws OutOfVipsException {
+        Calendar vipReuseTime = Calendar.getInstance();
+        vipReuseTime.add(Calendar.DATE, -Constants.NUM_DAYS_BEFORE_VIP_REUSE);
+
+        // Candidates this create already tried are left out of every later query. Under REPEATABLE READ
+        // the queries keep returning the snapshot of the create's transaction, so without that a create
+        // would retry the ids other creates claimed since, for as long as it holds its connection.
+        Set<Integer> triedVipIds = new HashSet<Integer>();
+        FreeList freeList = getFreeList(cluster.getId(), vipType);
+        Integer vipId;
+        while (triedVipIds.size() < maxClaimAttempts && (vipId = freeList.next(vipReuseTime, triedVipIds)) != null) {
+            triedVipIds.add(vipId);
+            VirtualIp virtualIp = virtualIpRepository.claimIpv4Vip(vipId);
+            if (virtualIp != null) {
+                return virtualIp;
+            }
+        }
+
+        LOG.warn(String.format("Out of IPv4 virtual ips that were de-allocated before '%s'.", vipReuseTime.getTime()));
+
+        // Only reached when the cluster is nearly out, so these are read straight from the database
+        List<Integer> vipIds;
+        while (triedVipIds.size() < maxClaimAttempts
+                && !(vipIds = virtualIpRepository.getFreeIpv4VipIdsAfterDate(cluster.getId(), vipReuseTime, vipType, triedVipIds, chunkSize)).isEmpty()) {
+            for (Integer recentVipId : vipIds) {
+                triedVipIds.add(recentVipId);
+                VirtualIp virtualIp = virtualIpRepository.claimIpv4Vip(recentVipId);
+                if (virtualIp != null) {
+                    return virtualIp;
+                }
+            }
+        }
+
+        if (triedVipIds.size() >= maxClaimAttempts) {
+            LOG.warn(String.format("Gave up allocating an IPv4 virtual ip after %d candidates were taken by other creates.", triedVipIds.size()));
+        }
+        throw new OutOfVipsException(ErrorMessages.OUT_OF_VIPS);
+    }
+
+    public void setVirtualIpRepository(VirtualIpRepository virtualIpRepository) {
+        this.virtualIpRepository = virtualIpRepository;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setMaxClaimAttempts(int maxClaimAttempts) {
+        this.maxClaimAttempts = maxClaimAttempts;
+    }
+
+    private FreeList getFreeList(Integer clusterId, VirtualIpType vipType) {
+        String key = clusterId + ":" + vipType;
+        FreeList freeList = freeLists.get(key);
+        if (freeList == null) {
+            FreeList newFreeList = new FreeList(clusterId, vipType);
+            freeList = freeLists.putIfAbsent(key, newFreeList);
+            if (freeList == null) {
+                freeList = newFreeList;
+            }
+        }
+        return freeList;
+    }
+
+    private class FreeList {
+        private final Integer clusterId;
+        private final VirtualIpType vipType;
+        private final LinkedList<Integer> vipIds = new LinkedList<Integer>();
+        private Set<Integer> lastChunk = Collections.emptySet();
+
+        private FreeList(Integer clusterId, VirtualIpType vipType) {
+            this.clusterId = clusterId;
+            this.vipType = vipType;
+        }
+
+        private synchronized Integer next(Calendar vipReuseTime, Set<Integer> triedVipIds) {
+            Integer vipId = poll(triedVipIds);
+            if (vipId == null) {
+                refill(vipReuseTime, triedVipIds);
+                vipId = poll(triedVipIds);
+            }
+            return vipId;
+        }
+
+        private Integer poll(Set<Integer> triedVipIds) {
+            Integer vipId;
+            while ((vipId = vipIds.poll()) != null && triedVipIds.contains(vipId)) {
+                // Already taken by another create, the caller's claim of it failed
+            }
+            return vipId;
+        }
+
+        // Ids of the previous chunk can still show up as free while their creates are in flight, so they
+        // are skipped for one refill, unless nothing else is left; if such a create rolled back the id comes
+        // back with the next one. The caller's tried ids are always skipped, so a refill never hands them out again.
+        private void refill(Calendar vipReuseTime, Set<Integer> triedVipIds) {
+            Set<Integer> excludedVipIds = new HashSet<Integer>(lastChunk);
+            excludedVipIds.addAll(triedVipIds);
+            List<Integer> freeVipIds = virtualIpRepository.getFreeIpv4VipIdsBeforeDate(clusterId, vipReuseTime, vipType, excludedVipIds, chunkSize);
+            if (freeVipIds.isEmpty() && !lastChunk.isEmpty()) {
+                freeVipIds = virtualIpRepository.getFreeIpv4VipIdsBeforeDate(clusterId, vipReuseTime, vipType, triedVipIds, chunkSize);
+            }
+            vipIds.addAll(freeVipIds);
+            lastChunk = new HashSet<Integer>(freeVipIds);
+        }
+    }
+}
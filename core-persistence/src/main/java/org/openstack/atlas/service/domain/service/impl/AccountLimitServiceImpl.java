@@ -43,17 +43,26 @@ public class AccountLimitServiceImpl implements AccountLimitService {
     }
 
     public void verifyLoadBalancerLimit(Integer accountId) throws EntityNotFoundException, LimitReachedException {
-        Integer limit = this.getLimit(accountId, AccountLimitType.LOADBALANCER_LIMIT);
-        final Integer numNonDeletedLoadBalancers = loadBalancerRepository.getNumNonDeletedLoadBalancersForAccount(accountId);
-        boolean limitReached = (numNonDeletedLoadBalancers >= limit);
+        int limit = this.getLimit(accountId, AccountLimitType.LOADBALANCER_LIMIT);
+        boolean limitReached = (loadBalancerRepository.getLoadBalancerCount(accountId) >= limit);
         if (limitReached) {
-            LOG.error("Load balancer limit reached. Sending error response to client...");
-            throw new LimitReachedException(String.format("Load balancer limit reached. "
-                    + "Limit is set to '%d'. Contact support if you would like to increase your limit.",
-                    limit));
+            throw limitReached(limit);
         }
     }
 
+    @Override
+    public void reserveLoadBalancer(Integer accountId) throws EntityNotFoundException, LimitReachedException {
+        int limit = this.getLimit(accountId, AccountLimitType.LOADBALANCER_LIMIT);
+        if (!loadBalancerRepository.incrementLoadBalancerCount(accountId, limit)) {
+            throw limitReached(limit);
+        }
+    }
+
+    @Override
+    public void releaseLoadBalancer(Integer accountId) {
+        loadBalancerRepository.decrementLoadBalancerCount(accountId);
+    }
+
     public int getLimit(Integer accountId, AccountLimitType accountLimitType) throws EntityNotFoundException {
         List<AccountLimit> allAccountLimits = accountLimitRepository.getAccountLimits(accountId);
 
@@ -74,4 +83,11 @@ public class AccountLimitServiceImpl implements AccountLimitService {
             accountLimitRepository.delete(accountLimit);
         }
     }
+
+    private LimitReachedException limitReached(int limit) {
+        LOG.error("Load balancer limit reached. Sending error response to client...");
+        return new LimitReachedException(String.format("Load balancer limit reached. "
+                + "Limit is set to '%d'. Contact support if you would like to increase your limit.",
+                limit));
+    }
 }
@@ -2,10 +2,6 @@ package org.openstack.atlas.service.domain.service.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.openstack.atlas.common.ip.IPv4Cidr;
-import org.openstack.atlas.common.ip.IPv4Cidrs;
-import org.openstack.atlas.common.ip.IPv6Cidr;
-import org.openstack.atlas.common.ip.IPv6Cidrs;
 import org.openstack.atlas.common.ip.exception.IPStringConversionException;
 import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
 import org.openstack.atlas.common.ip.exception.IpTypeMissMatchException;
@@ -17,12 +13,13 @@ import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.exception.ImmutableEntityException;
 import org.openstack.atlas.service.domain.exception.UnprocessableEntityException;
 import org.openstack.atlas.service.domain.repository.BlacklistRepository;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.repository.VirtualIpv6Repository;
+import org.openstack.atlas.service.domain.service.BlacklistService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Set;
 
 @Service
@@ -35,6 +32,9 @@ public class BaseService {
     @Autowired
     protected BlacklistRepository blacklistRepository;
 
+    @Autowired
+    protected BlacklistService blacklistService;
+
     public void isLbActive(LoadBalancer dbLoadBalancer) throws UnprocessableEntityException, ImmutableEntityException {
         if (dbLoadBalancer.getStatus().equals(CoreLoadBalancerStatus.DELETED)) {
             throw new UnprocessableEntityException(Constants.LoadBalancerDeleted);
@@ -51,7 +51,7 @@ public class BaseService {
         boolean out;
         LoadBalancer testLb;
         if (refetch) {
-            testLb = loadBalancerRepository.getByIdAndAccountId(rLb.getId(), rLb.getAccountId());
+            testLb = loadBalancerRepository.getByIdAndAccountId(rLb.getId(), rLb.getAccountId(), LoadBalancerFetchPlan.STATUS);
         } else {
             testLb = rLb;
         }
@@ -60,30 +60,6 @@ public class BaseService {
     }
 
     protected Node blackListedItemNode(Set<Node> nodes) throws IPStringConversionException1, IpTypeMissMatchException {
-        IPv4Cidrs ip4Cidr = new IPv4Cidrs();
-        IPv6Cidrs ip6Cidr = new IPv6Cidrs();
-        Node badNode = new Node();
-        List<BlacklistItem> blackItems = blacklistRepository.getAllBlacklistItems();
-
-        for (Node testMe : nodes) {
-            for (BlacklistItem bli : blackItems) {
-                if (bli.getBlacklistType() == null || bli.getBlacklistType().equals(BlacklistType.NODE)) {
-                    if (bli.getIpVersion().equals(IpVersion.IPV4)) {
-                        ip4Cidr.getCidrs().add(new IPv4Cidr(bli.getCidrBlock()));
-                        badNode.setAddress(testMe.getAddress());
-                        if (ip4Cidr.contains(testMe.getAddress())) {
-                            return badNode;
-                        }
-                    } else if (bli.getIpVersion().equals(IpVersion.IPV6)) {
-                        ip6Cidr.getCidrs().add(new IPv6Cidr(bli.getCidrBlock()));
-                        badNode.setAddress(testMe.getAddress());
-                        if (ip6Cidr.contains(testMe.getAddress())) {
-                            return badNode;
-                        }
-                    }
-                }
-            }
-        }
-        return null;
+        return blacklistService.getBlacklistedNode(nodes);
     }
 }
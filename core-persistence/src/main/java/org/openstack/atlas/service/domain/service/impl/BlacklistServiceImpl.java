@@ -2,62 +2,153 @@ package org.openstack.atlas.service.domain.service.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.openstack.atlas.common.ip.IPv4Cidr;
-import org.openstack.atlas.common.ip.IPv4Cidrs;
-import org.openstack.atlas.common.ip.IPv6Cidr;
-import org.openstack.atlas.common.ip.IPv6Cidrs;
+import org.openstack.atlas.common.ip.IPv4CidrTrie;
+import org.openstack.atlas.common.ip.IPv6CidrTrie;
+import org.openstack.atlas.common.ip.exception.IPStringConversionException1;
 import org.openstack.atlas.service.domain.entity.BlacklistItem;
 import org.openstack.atlas.service.domain.entity.BlacklistType;
 import org.openstack.atlas.service.domain.entity.IpVersion;
 import org.openstack.atlas.service.domain.entity.Node;
+import org.openstack.atlas.service.domain.event.BlacklistChangedEvent;
 import org.openstack.atlas.service.domain.exception.BadRequestException;
 import org.openstack.atlas.service.domain.repository.BlacklistRepository;
 import org.openstack.atlas.service.domain.service.BlacklistService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+/*
+ * Node blacklist checks go against prefix tries compiled from the blacklist items, without a query per
+ * check. The tries are dropped whenever BlacklistRepository writes an item, once more after that write
+ * commits, and rebuilt at least every MAX_INDEX_AGE_MILLIS to pick up items written through other nodes.
+ */
 @Service
-public class BlacklistServiceImpl implements BlacklistService {
+public class BlacklistServiceImpl implements BlacklistService, ApplicationListener<BlacklistChangedEvent> {
     private final Log LOG = LogFactory.getLog(BlacklistServiceImpl.class);
+    private static final long MAX_INDEX_AGE_MILLIS = 5 * 60 * 1000;
 
     @Autowired
     private BlacklistRepository blacklistRepository;
 
+    private volatile BlacklistIndex index;
+    private final AtomicLong generation = new AtomicLong();
+
     public void verifyNoBlacklistNodes(Set<Node> nodes) throws BadRequestException {
-        IPv4Cidrs ip4Cidr = new IPv4Cidrs();
-        IPv6Cidrs ip6Cidr = new IPv6Cidrs();
-        Node badNode = new Node();
-        List<BlacklistItem> blackItems = blacklistRepository.getAllBlacklistItems();
+        Node badNode;
 
         try {
-            loop: for (Node node : nodes) {
-                for (BlacklistItem blacklistItem : blackItems) {
-                    if (blacklistItem.getBlacklistType() == null || blacklistItem.getBlacklistType().equals(BlacklistType.NODE)) {
-                        if (blacklistItem.getIpVersion().equals(IpVersion.IPV4)) {
-                            ip4Cidr.getCidrs().add(new IPv4Cidr(blacklistItem.getCidrBlock()));
-                            if (ip4Cidr.contains(node.getAddress())) {
-                                badNode.setAddress(node.getAddress());
-                                break loop;
-                            }
-                        } else if (blacklistItem.getIpVersion().equals(IpVersion.IPV6)) {
-                            ip6Cidr.getCidrs().add(new IPv6Cidr(blacklistItem.getCidrBlock()));
-                            if (ip6Cidr.contains(node.getAddress())) {
-                                badNode.setAddress(node.getAddress());
-                                break loop;
-                            }
-                        }
-                    }
-                }
-            }
+            badNode = getBlacklistedNode(nodes);
         } catch (Exception e) {
             throw new BadRequestException(String.format("Error while trying to validate the nodes."));
         }
-        if (badNode != null && badNode.getAddress() != null) {
+        if (badNode != null) {
             LOG.info("Found a blacklisted node: " + badNode);
             throw new BadRequestException(String.format("Invalid node address. The address '%s' is currently not accepted for this request.", badNode.getAddress()));
         }
     }
+
+    /*
+     * Returns the first node whose address falls into a blacklisted block, or null if there is none.
+     */
+    public Node getBlacklistedNode(Set<Node> nodes) {
+        BlacklistIndex currentIndex = getIndex();
+
+        for (Node node : nodes) {
+            if (currentIndex.ipv4Blacklist.contains(node.getAddress()) || currentIndex.ipv6Blacklist.contains(node.getAddress())) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void refreshBlacklist() {
+        generation.incrementAndGet();
+        index = buildIndex();
+    }
+
+    @Override
+    public void onApplicationEvent(BlacklistChangedEvent event) {
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // An index built while the write was in flight can hold the old items, drop it again once committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        index = null;
+    }
+
+    private BlacklistIndex getIndex() {
+        BlacklistIndex currentIndex = index;
+
+        if (currentIndex == null || currentIndex.isExpired()) {
+            synchronized (this) {
+                currentIndex = index;
+                if (currentIndex == null || currentIndex.isExpired()) {
+                    long buildGeneration = generation.get();
+                    currentIndex = buildIndex();
+                    // Not kept when the blacklist changed while it was built, the next check builds it again
+                    if (generation.get() == buildGeneration) {
+                        index = currentIndex;
+                    }
+                }
+            }
+        }
+
+        return currentIndex;
+    }
+
+    private BlacklistIndex buildIndex() {
+        IPv4CidrTrie.Builder<BlacklistItem> ipv4Builder = IPv4CidrTrie.builder();
+        IPv6CidrTrie.Builder<BlacklistItem> ipv6Builder = IPv6CidrTrie.builder();
+        List<BlacklistItem> blacklistItems = blacklistRepository.getAllBlacklistItems();
+
+        for (BlacklistItem blacklistItem : blacklistItems) {
+            if (blacklistItem.getBlacklistType() != null && !blacklistItem.getBlacklistType().equals(BlacklistType.NODE)) {
+                continue;
+            }
+
+            try {
+                if (IpVersion.IPV4.equals(blacklistItem.getIpVersion())) {
+                    ipv4Builder.put(blacklistItem.getCidrBlock(), blacklistItem);
+                } else if (IpVersion.IPV6.equals(blacklistItem.getIpVersion())) {
+                    ipv6Builder.put(blacklistItem.getCidrBlock(), blacklistItem);
+                }
+            } catch (IPStringConversionException1 e) {
+                LOG.warn(String.format("Ignoring blacklist item %d with invalid cidr block '%s'.", blacklistItem.getId(), blacklistItem.getCidrBlock()));
+            }
+        }
+
+        BlacklistIndex newIndex = new BlacklistIndex(ipv4Builder.build(), ipv6Builder.build());
+        LOG.info(String.format("Loaded node blacklist: %d IPv4 and %d IPv6 blocks.", newIndex.ipv4Blacklist.size(), newIndex.ipv6Blacklist.size()));
+        return newIndex;
+    }
+
+    private static class BlacklistIndex {
+        private final long loadedAt = System.currentTimeMillis();
+        private final IPv4CidrTrie<BlacklistItem> ipv4Blacklist;
+        private final IPv6CidrTrie<BlacklistItem> ipv6Blacklist;
+
+        public BlacklistIndex(IPv4CidrTrie<BlacklistItem> ipv4Blacklist, IPv6CidrTrie<BlacklistItem> ipv6Blacklist) {
+            this.ipv4Blacklist = ipv4Blacklist;
+            this.ipv6Blacklist = ipv6Blacklist;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > MAX_INDEX_AGE_MILLIS;
+        }
+    }
 }
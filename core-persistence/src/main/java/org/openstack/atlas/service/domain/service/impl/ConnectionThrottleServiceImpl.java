@@ -11,6 +11,7 @@ import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.entity.SessionPersistence;
 import org.openstack.atlas.service.domain.exception.*;
 import org.openstack.atlas.service.domain.repository.ConnectionThrottleRepository;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.service.ConnectionThrottleService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,7 +30,7 @@ public class ConnectionThrottleServiceImpl implements ConnectionThrottleService
     @Override
     @Transactional(rollbackFor = {EntityNotFoundException.class, ImmutableEntityException.class, UnprocessableEntityException.class})
     public ConnectionThrottle update(Integer loadBalancerId, ConnectionThrottle connectionThrottle) throws PersistenceServiceException {
-        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId);
+        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId, LoadBalancerFetchPlan.STATUS);
         ConnectionThrottle dbConnectionThrottle = dbLoadBalancer.getConnectionThrottle();
 
         if(dbConnectionThrottle == null) {
@@ -48,7 +49,7 @@ public class ConnectionThrottleServiceImpl implements ConnectionThrottleService
     @Override
     @Transactional(rollbackFor = {EntityNotFoundException.class})
     public void preDelete(Integer loadBalancerId) throws EntityNotFoundException {
-        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId);
+        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId, LoadBalancerFetchPlan.STATUS);
         if (dbLoadBalancer.getConnectionThrottle() == null)
             throw new EntityNotFoundException("Connection throttle not found");
     }
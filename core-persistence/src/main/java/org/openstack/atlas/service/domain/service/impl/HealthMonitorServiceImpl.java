@@ -10,6 +10,7 @@ import org.openstack.atlas.service.domain.entity.HealthMonitor;
 import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.exception.*;
 import org.openstack.atlas.service.domain.repository.HealthMonitorRepository;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.service.HealthMonitorService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,7 +29,7 @@ public class HealthMonitorServiceImpl implements HealthMonitorService {
     @Override
     @Transactional(rollbackFor = {EntityNotFoundException.class, ImmutableEntityException.class, UnprocessableEntityException.class})
     public HealthMonitor update(Integer loadBalancerId, HealthMonitor healthMonitor) throws PersistenceServiceException {
-        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId);
+        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId, LoadBalancerFetchPlan.STATUS);
         HealthMonitor dbHealthMonitor = dbLoadBalancer.getHealthMonitor();
         HealthMonitor healthMonitorToUpdate = dbHealthMonitor == null ? healthMonitor : dbHealthMonitor;
         healthMonitorToUpdate.setLoadBalancer(dbLoadBalancer); // Needs to be set for hibernate
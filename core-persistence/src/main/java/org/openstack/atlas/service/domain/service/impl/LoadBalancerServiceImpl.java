@@ -9,6 +9,7 @@ import org.openstack.atlas.service.domain.exception.BadRequestException;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.exception.LimitReachedException;
 import org.openstack.atlas.service.domain.exception.PersistenceServiceException;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,6 +50,8 @@ public class LoadBalancerServiceImpl implements LoadBalancerService {
 
         validateCreate(loadBalancer);
         addDefaultValuesForCreate(loadBalancer);
+        // Last step before the insert, the account row stays locked until the create commits
+        accountLimitService.reserveLoadBalancer(loadBalancer.getAccountId());
         LoadBalancer dbLoadBalancer = loadBalancerRepository.create(loadBalancer);
         dbLoadBalancer.setUserName(loadBalancer.getUserName());
         return dbLoadBalancer;
@@ -57,7 +60,7 @@ public class LoadBalancerServiceImpl implements LoadBalancerService {
     @Override
     @Transactional
     public LoadBalancer update(final LoadBalancer loadBalancer) throws PersistenceServiceException {
-        LoadBalancer dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(loadBalancer.getId(), loadBalancer.getAccountId());
+        LoadBalancer dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(loadBalancer.getId(), loadBalancer.getAccountId(), LoadBalancerFetchPlan.STATUS);
 
         loadBalancerRepository.changeStatus(dbLoadBalancer.getAccountId(), dbLoadBalancer.getId(), CoreLoadBalancerStatus.PENDING_UPDATE);
 
@@ -90,9 +93,14 @@ public class LoadBalancerServiceImpl implements LoadBalancerService {
     @Transactional
     public void delete(final LoadBalancer lb) throws PersistenceServiceException {
         LoadBalancer dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(lb.getId(), lb.getAccountId());
+        boolean alreadyDeleted = CoreLoadBalancerStatus.DELETED.equals(dbLoadBalancer.getStatus());
         dbLoadBalancer.setStatus(CoreLoadBalancerStatus.DELETED);
         dbLoadBalancer = loadBalancerRepository.update(dbLoadBalancer);
         virtualIpService.removeAllVipsFromLoadBalancer(dbLoadBalancer);
+        if (!alreadyDeleted) {
+            hostService.removeLoadBalancerFromHost(dbLoadBalancer.getHost());
+            accountLimitService.releaseLoadBalancer(dbLoadBalancer.getAccountId());
+        }
     }
 
     protected void addDefaultValuesForCreate(final LoadBalancer loadBalancer) throws PersistenceServiceException {
@@ -118,7 +126,7 @@ public class LoadBalancerServiceImpl implements LoadBalancerService {
         List<Integer> badLbStatusIds = new ArrayList<Integer>();
         for (int loadBalancerId : loadBalancerIds) {
             try {
-                LoadBalancer dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(loadBalancerId, accountId);
+                LoadBalancer dbLoadBalancer = loadBalancerRepository.getByIdAndAccountId(loadBalancerId, accountId, LoadBalancerFetchPlan.STATUS);
                 if (!dbLoadBalancer.getStatus().equals(CoreLoadBalancerStatus.ACTIVE)) {
                     LOG.warn(StringHelper.immutableLoadBalancer(dbLoadBalancer));
                     badLbStatusIds.add(loadBalancerId);
@@ -83,7 +83,7 @@ public class NodeServiceImpl extends BaseService implements NodeService {
         }
 
         LOG.debug("Updating the lb status to pending_update");
-        dbLoadBalancer.setStatus(CoreLoadBalancerStatus.PENDING_UPDATE);
+        loadBalancerRepository.changeStatus(dbLoadBalancer.getAccountId(), dbLoadBalancer.getId(), CoreLoadBalancerStatus.PENDING_UPDATE);
 
         LOG.debug("Current number of nodes for loadbalancer: " + dbLoadBalancer.getNodes().size());
         LOG.debug("Number of new nodes to be added: " + loadBalancer.getNodes().size());
@@ -143,7 +143,7 @@ public class NodeServiceImpl extends BaseService implements NodeService {
             }
         }
         LOG.debug("Updating the lb status to pending_update");
-        dbLoadBalancer.setStatus(CoreLoadBalancerStatus.PENDING_UPDATE);
+        loadBalancerRepository.changeStatus(dbLoadBalancer.getAccountId(), dbLoadBalancer.getId(), CoreLoadBalancerStatus.PENDING_UPDATE);
         dbLoadBalancer.setUserName(loadBalancer.getUserName());
 
         nodeRepository.update(dbLoadBalancer);
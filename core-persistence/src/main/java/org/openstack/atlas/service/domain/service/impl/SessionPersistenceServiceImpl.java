@@ -11,6 +11,7 @@ import org.openstack.atlas.service.domain.exception.BadRequestException;
 import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
 import org.openstack.atlas.service.domain.exception.ImmutableEntityException;
 import org.openstack.atlas.service.domain.exception.UnprocessableEntityException;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.openstack.atlas.service.domain.repository.LoadBalancerRepository;
 import org.openstack.atlas.service.domain.repository.SessionPersistenceRepository;
 import org.openstack.atlas.service.domain.service.SessionPersistenceService;
@@ -30,7 +31,7 @@ public class SessionPersistenceServiceImpl implements SessionPersistenceService
     @Override
     @Transactional(rollbackFor = {EntityNotFoundException.class, ImmutableEntityException.class, UnprocessableEntityException.class})
     public SessionPersistence update(Integer loadBalancerId, SessionPersistence sessionPersistence) throws EntityNotFoundException, ImmutableEntityException, UnprocessableEntityException, BadRequestException {
-        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId);
+        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId, LoadBalancerFetchPlan.STATUS);
         SessionPersistence dbSessionPersistence = dbLoadBalancer.getSessionPersistence();
         SessionPersistence sessionPersistenceToUpdate = dbSessionPersistence == null ? sessionPersistence : dbSessionPersistence;
         sessionPersistenceToUpdate.setLoadBalancer(dbLoadBalancer); // Needs to be set for hibernate
@@ -47,7 +48,7 @@ public class SessionPersistenceServiceImpl implements SessionPersistenceService
     @Override
     @Transactional(rollbackFor = {EntityNotFoundException.class})
     public void preDelete(Integer loadBalancerId) throws EntityNotFoundException {
-        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId);
+        LoadBalancer dbLoadBalancer = loadBalancerRepository.getById(loadBalancerId, LoadBalancerFetchPlan.STATUS);
         if (dbLoadBalancer.getSessionPersistence() == null) throw new EntityNotFoundException("Session persistence not found");
     }
 
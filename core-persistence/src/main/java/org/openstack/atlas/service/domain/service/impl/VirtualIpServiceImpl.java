@@ -3,19 +3,18 @@ package org.openstack.atlas.service.domain.service.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openstack.atlas.common.crypto.HashUtil;
-import org.openstack.atlas.service.domain.common.Constants;
 import org.openstack.atlas.service.domain.entity.*;
 import org.openstack.atlas.service.domain.exception.*;
 import org.openstack.atlas.service.domain.repository.ClusterRepository;
 import org.openstack.atlas.service.domain.repository.VirtualIpRepository;
 import org.openstack.atlas.service.domain.repository.VirtualIpv6Repository;
 import org.openstack.atlas.service.domain.service.VirtualIpService;
+import org.openstack.atlas.service.domain.service.helpers.VirtualIpAllocator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.NoSuchAlgorithmException;
-import java.util.Calendar;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,6 +32,9 @@ public class VirtualIpServiceImpl implements VirtualIpService {
     @Autowired
     private ClusterRepository clusterRepository;
 
+    @Autowired
+    private VirtualIpAllocator virtualIpAllocator;
+
     @Override
     @Transactional
     public LoadBalancer assignVipsToLoadBalancer(LoadBalancer loadBalancer) throws PersistenceServiceException {
@@ -131,16 +133,13 @@ public class VirtualIpServiceImpl implements VirtualIpService {
 
     @Transactional
     public void addAccountRecord(Integer accountId) throws NoSuchAlgorithmException {
-        Set<Integer> accountsInAccount = new HashSet<Integer>(virtualIpv6Repository.getAccountIdsAlreadyShaHashed());
-
-        if (accountsInAccount.contains(accountId)) return;
-
         Account account = new Account();
         String accountIdStr = String.format("%d", accountId);
         account.setId(accountId);
         account.setSha1SumForIpv6(HashUtil.sha1sumHex(accountIdStr.getBytes(), 0, 4));
+        account.setNextVipOctet(1);
         try {
-            virtualIpRepository.persist(account);
+            virtualIpv6Repository.addAccountRecord(account);
         } catch (Exception e) {
             LOG.warn("High concurrency detected. Ignoring...");
         }
@@ -194,32 +193,16 @@ public class VirtualIpServiceImpl implements VirtualIpService {
 
     @Transactional
     public VirtualIp allocateIpv4VirtualIp(VirtualIp virtualIp, Cluster cluster) throws OutOfVipsException {
-        Calendar timeConstraintForVipReuse = Calendar.getInstance();
-        timeConstraintForVipReuse.add(Calendar.DATE, -Constants.NUM_DAYS_BEFORE_VIP_REUSE);
-
         if (virtualIp.getVipType() == null) {
             virtualIp.setVipType(VirtualIpType.PUBLIC);
         }
 
-        try {
-            return virtualIpRepository.allocateIpv4VipBeforeDate(cluster, timeConstraintForVipReuse, virtualIp.getVipType());
-        } catch (OutOfVipsException e) {
-            LOG.warn(String.format("Out of IPv4 virtual ips that were de-allocated before '%s'.", timeConstraintForVipReuse.getTime()));
-            try {
-                return virtualIpRepository.allocateIpv4VipAfterDate(cluster, timeConstraintForVipReuse, virtualIp.getVipType());
-            } catch (OutOfVipsException e2) {
-                e2.printStackTrace();
-                throw e2;
-            }
-        }
+        return virtualIpAllocator.allocateIpv4Vip(cluster, virtualIp.getVipType());
     }
 
     @Transactional
     public VirtualIpv6 allocateIpv6VirtualIp(LoadBalancer loadBalancer) throws EntityNotFoundException {
-        // Acquire lock on account row due to concurrency issue
-        virtualIpv6Repository.getLockedAccountRecord(loadBalancer.getAccountId());
-
-        Integer vipOctets = virtualIpv6Repository.getNextVipOctet(loadBalancer.getAccountId());
+        Integer vipOctets = virtualIpv6Repository.allocateVipOctet(loadBalancer.getAccountId());
         Cluster c = clusterRepository.getById(loadBalancer.getHost().getCluster().getId());
 
         VirtualIpv6 ipv6 = new VirtualIpv6();
@@ -0,0 +1,267 @@
+package org.openstack.atlas.service.domain.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Compares the old account registration and IPv6 vip octet allocation of a load balancer create with the
+ * ones VirtualIpServiceImpl now uses. Registration used to read every account id to check for one, it is
+ * now a primary key lookup. The octet used to be the account's max(vip_octets) + 1 read under a lock on
+ * the account row held until the create committed, it is now the account's next_vip_octet counter
+ * incremented in its own short transaction. The octet runs have every creator work on the same account.
+ *
+ * Not a unit test, run it by hand against an in-memory H2 database, e.g.
+ *   java -Xmx2g -Daccounts=1000000 -Dthreads=32 -Dcreates=200 -cp ... org.openstack.atlas.service.domain.repository.AccountRegistrationBenchmark
+ */
+public class AccountRegistrationBenchmark {
+    private static final int ACCOUNT_ID = 1000;
+    private static final String URL = "jdbc:h2:mem:accountbenchmark;MVCC=TRUE;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1";
+
+    private static final String ALL_ACCOUNTS_SQL = "SELECT id FROM account";
+    private static final String ACCOUNT_SQL = "SELECT id FROM account WHERE id = ?";
+
+    private static final String LOCK_SQL = "SELECT * FROM account WHERE id = ? FOR UPDATE";
+    private static final String MAX_OCTET_SQL = "SELECT max(vip_octets) FROM virtual_ipv6 WHERE account_id = ?";
+    private static final String INCREMENT_SQL = "UPDATE account SET next_vip_octet = next_vip_octet + 1 WHERE id = ?";
+    private static final String NEXT_OCTET_SQL = "SELECT next_vip_octet FROM account WHERE id = ?";
+    private static final String INSERT_VIP_SQL = "INSERT INTO virtual_ipv6(account_id, vip_octets, cluster_id) VALUES (?, ?, 1)";
+
+    private interface OctetAllocation {
+        int allocate(Connection connection, Connection counterConnection) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int accounts = Integer.getInteger("accounts", 1000000);
+        final int threads = Integer.getInteger("threads", 32);
+        final int creates = Integer.getInteger("creates", 200);
+        final int samples = Integer.getInteger("samples", 20);
+
+        Class.forName("org.h2.Driver");
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+
+        try {
+            long start = System.currentTimeMillis();
+            createSchema(connection, accounts);
+            System.out.println(String.format("Loaded %d accounts in %d ms", accounts, System.currentTimeMillis() - start));
+
+            // Warm up both registration checks before measuring
+            loadAllAccountIds(connection);
+            lookUpAccount(connection);
+
+            long totalNanos = 0;
+            for (int i = 0; i < samples; i++) {
+                long sampleStart = System.nanoTime();
+                if (!loadAllAccountIds(connection).contains(ACCOUNT_ID)) {
+                    throw new IllegalStateException("Account not found");
+                }
+                totalNanos += System.nanoTime() - sampleStart;
+            }
+            System.out.println(String.format("%-25s %10.3f ms per create", "all account ids", totalNanos / 1000000.0 / samples));
+
+            totalNanos = 0;
+            for (int i = 0; i < samples * 1000; i++) {
+                long sampleStart = System.nanoTime();
+                if (!lookUpAccount(connection)) {
+                    throw new IllegalStateException("Account not found");
+                }
+                totalNanos += System.nanoTime() - sampleStart;
+            }
+            System.out.println(String.format("%-25s %10.3f ms per create", "primary key lookup", totalNanos / 1000000.0 / (samples * 1000)));
+
+            OctetAllocation lockAndMax = new OctetAllocation() {
+                @Override
+                public int allocate(Connection connection, Connection counterConnection) throws SQLException {
+                    PreparedStatement lock = connection.prepareStatement(LOCK_SQL);
+                    PreparedStatement max = connection.prepareStatement(MAX_OCTET_SQL);
+                    try {
+                        lock.setInt(1, ACCOUNT_ID);
+                        lock.executeQuery().close();
+                        max.setInt(1, ACCOUNT_ID);
+                        ResultSet resultSet = max.executeQuery();
+                        resultSet.next();
+                        int vipOctet = resultSet.getInt(1) + 1;
+                        resultSet.close();
+                        return vipOctet;
+                    } finally {
+                        lock.close();
+                        max.close();
+                    }
+                }
+            };
+
+            OctetAllocation counter = new OctetAllocation() {
+                @Override
+                public int allocate(Connection connection, Connection counterConnection) throws SQLException {
+                    PreparedStatement increment = counterConnection.prepareStatement(INCREMENT_SQL);
+                    PreparedStatement next = counterConnection.prepareStatement(NEXT_OCTET_SQL);
+                    try {
+                        increment.setInt(1, ACCOUNT_ID);
+                        increment.executeUpdate();
+                        next.setInt(1, ACCOUNT_ID);
+                        ResultSet resultSet = next.executeQuery();
+                        resultSet.next();
+                        int vipOctet = resultSet.getInt(1) - 1;
+                        resultSet.close();
+                        counterConnection.commit();
+                        return vipOctet;
+                    } finally {
+                        increment.close();
+                        next.close();
+                    }
+                }
+            };
+
+            run("warm up", lockAndMax, threads, 5);
+            run("warm up", counter, threads, 5);
+
+            run("lock and max(octet)", lockAndMax, threads, creates);
+            run("next_vip_octet counter", counter, threads, creates);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void createSchema(Connection connection, int accounts) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("CREATE TABLE account (id INT PRIMARY KEY, sha1sum_ipv6 VARCHAR(255) NOT NULL, next_vip_octet INT)");
+            statement.execute("INSERT INTO account SELECT X, RAWTOHEX(HASH('SHA256', STRINGTOUTF8(X), 1)), 1 FROM SYSTEM_RANGE(1, " + accounts + ")");
+            statement.execute("CREATE TABLE virtual_ipv6 (id INT AUTO_INCREMENT PRIMARY KEY, account_id INT NOT NULL, vip_octets INT NOT NULL, " +
+                    "cluster_id INT NOT NULL)");
+            statement.execute("CREATE INDEX virtual_ipv6_account_id ON virtual_ipv6(account_id)");
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static Set<Integer> loadAllAccountIds(Connection connection) throws SQLException {
+        Set<Integer> accountIds = new HashSet<Integer>();
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery(ALL_ACCOUNTS_SQL);
+            while (resultSet.next()) {
+                accountIds.add(resultSet.getInt(1));
+            }
+            resultSet.close();
+        } finally {
+            statement.close();
+        }
+        return accountIds;
+    }
+
+    private static boolean lookUpAccount(Connection connection) throws SQLException {
+        PreparedStatement select = connection.prepareStatement(ACCOUNT_SQL);
+        try {
+            select.setInt(1, ACCOUNT_ID);
+            ResultSet resultSet = select.executeQuery();
+            boolean found = resultSet.next();
+            resultSet.close();
+            return found;
+        } finally {
+            select.close();
+        }
+    }
+
+    private static void reset() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.execute("DELETE FROM virtual_ipv6");
+                statement.execute("UPDATE account SET next_vip_octet = 1 WHERE id = " + ACCOUNT_ID);
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void run(String name, final OctetAllocation allocation, int threads, final int creates) throws Exception {
+        reset();
+        final AtomicLong created = new AtomicLong();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Thread creator = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Connection connection = null;
+                    Connection counterConnection = null;
+                    try {
+                        connection = DriverManager.getConnection(URL, "sa", "");
+                        connection.setAutoCommit(false);
+                        counterConnection = DriverManager.getConnection(URL, "sa", "");
+                        counterConnection.setAutoCommit(false);
+                        PreparedStatement insert = connection.prepareStatement(INSERT_VIP_SQL);
+                        try {
+                            start.await();
+                            for (int i = 0; i < creates; i++) {
+                                insert.setInt(1, ACCOUNT_ID);
+                                insert.setInt(2, allocation.allocate(connection, counterConnection));
+                                insert.executeUpdate();
+                                connection.commit();
+                                created.incrementAndGet();
+                            }
+                        } finally {
+                            insert.close();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        close(connection);
+                        close(counterConnection);
+                        done.countDown();
+                    }
+                }
+            });
+            creator.start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1000000000.0;
+
+        System.out.println(String.format("%-25s %10.0f creates/s %8d duplicate octets %5d failed creators", name,
+                created.get() / elapsedSeconds, countDuplicateOctets(), failures.get()));
+    }
+
+    private static long countDuplicateOctets() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                ResultSet resultSet = statement.executeQuery("SELECT count(*) - count(DISTINCT vip_octets) FROM virtual_ipv6 WHERE account_id = " + ACCOUNT_ID);
+                resultSet.next();
+                long duplicates = resultSet.getLong(1);
+                resultSet.close();
+                return duplicates;
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void close(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+}
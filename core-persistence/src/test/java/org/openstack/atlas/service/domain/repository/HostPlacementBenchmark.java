@@ -0,0 +1,264 @@
+package org.openstack.atlas.service.domain.repository;
+
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.HostStatus;
+import org.openstack.atlas.service.domain.service.helpers.HostLoadIndex;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Compares the old host placement, which read the hosts and counted the load balancers of each
+ * one with its own query before inserting, with the HostLoadIndex that HostServiceImpl now places
+ * against. Every creator inserts load balancers as fast as it can and the spread is the difference
+ * between the most and least loaded host once all creators are done.
+ *
+ * Not a unit test, run it by hand against an in-memory H2 database, e.g.
+ *   java -Dhosts=500 -Dthreads=32 -Dcreates=200 -cp ... org.openstack.atlas.service.domain.repository.HostPlacementBenchmark
+ */
+public class HostPlacementBenchmark {
+    private static final String URL = "jdbc:h2:mem:hostbenchmark;MVCC=TRUE;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1";
+
+    private static final String HOSTS_SQL = "SELECT id, name, host_status FROM host";
+    private static final String HOST_COUNT_SQL = "SELECT count(*) FROM load_balancer WHERE host_id = ? AND status <> 'DELETED'";
+    private static final String GROUPED_COUNT_SQL = "SELECT host_id, count(*) FROM load_balancer " +
+            "WHERE host_id IS NOT NULL AND status <> 'DELETED' GROUP BY host_id";
+    private static final String INSERT_SQL = "INSERT INTO load_balancer(account_id, name, status, host_id, created, updated) " +
+            "VALUES (?, ?, 'BUILD', ?, ?, ?)";
+
+    private interface Placement {
+        int pickHost(Connection connection) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int hosts = Integer.getInteger("hosts", 500);
+        final int threads = Integer.getInteger("threads", 32);
+        final int creates = Integer.getInteger("creates", 200);
+
+        Class.forName("org.h2.Driver");
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+
+        try {
+            createSchema(connection, hosts);
+
+            Placement countPerHost = new Placement() {
+                @Override
+                public int pickHost(Connection connection) throws SQLException {
+                    List<Integer> hostIds = new ArrayList<Integer>();
+                    Statement statement = connection.createStatement();
+                    try {
+                        ResultSet resultSet = statement.executeQuery(HOSTS_SQL);
+                        while (resultSet.next()) {
+                            hostIds.add(resultSet.getInt(1));
+                        }
+                        resultSet.close();
+                    } finally {
+                        statement.close();
+                    }
+
+                    PreparedStatement count = connection.prepareStatement(HOST_COUNT_SQL);
+                    try {
+                        int chosen = hostIds.get(0);
+                        long minimum = Long.MAX_VALUE;
+                        for (Integer hostId : hostIds) {
+                            count.setInt(1, hostId);
+                            ResultSet resultSet = count.executeQuery();
+                            resultSet.next();
+                            long lbs = resultSet.getLong(1);
+                            resultSet.close();
+                            if (lbs < minimum) {
+                                minimum = lbs;
+                                chosen = hostId;
+                            }
+                        }
+                        return chosen;
+                    } finally {
+                        count.close();
+                    }
+                }
+            };
+
+            final HostLoadIndex hostLoadIndex = new HostLoadIndex();
+            hostLoadIndex.setHostRepository(new JdbcHostRepository());
+            Placement loadIndex = new Placement() {
+                @Override
+                public int pickHost(Connection connection) throws SQLException {
+                    return hostLoadIndex.placeLoadBalancer().getId();
+                }
+            };
+
+            // Warm up both paths before measuring
+            run("warm up", countPerHost, threads, 5);
+            run("warm up", loadIndex, threads, 5);
+
+            clearLoadBalancers(connection);
+            run("count per host", countPerHost, threads, creates);
+            clearLoadBalancers(connection);
+            hostLoadIndex.reconcile();
+            run("host load index", loadIndex, threads, creates);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void createSchema(Connection connection, int hosts) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("CREATE TABLE host (id INT PRIMARY KEY, name VARCHAR(128) NOT NULL, host_status VARCHAR(32) NOT NULL)");
+            statement.execute("CREATE TABLE load_balancer (id INT AUTO_INCREMENT PRIMARY KEY, account_id INT NOT NULL, name VARCHAR(128), " +
+                    "status VARCHAR(32) NOT NULL, host_id INT, created TIMESTAMP, updated TIMESTAMP)");
+            statement.execute("CREATE INDEX load_balancer_host_id ON load_balancer(host_id)");
+            statement.execute("INSERT INTO host SELECT X, 'host' || X, 'ACTIVE_TARGET' FROM SYSTEM_RANGE(1, " + hosts + ")");
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void clearLoadBalancers(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("DELETE FROM load_balancer");
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void run(String name, final Placement placement, int threads, final int creates) throws Exception {
+        final AtomicLong created = new AtomicLong();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            final int accountId = 1000 + t;
+            Thread creator = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Connection connection = null;
+                    try {
+                        connection = DriverManager.getConnection(URL, "sa", "");
+                        connection.setAutoCommit(false);
+                        PreparedStatement insert = connection.prepareStatement(INSERT_SQL);
+                        try {
+                            start.await();
+                            for (int i = 0; i < creates; i++) {
+                                Timestamp now = new Timestamp(System.currentTimeMillis());
+                                insert.setInt(1, accountId);
+                                insert.setString(2, "lb" + i);
+                                insert.setInt(3, placement.pickHost(connection));
+                                insert.setTimestamp(4, now);
+                                insert.setTimestamp(5, now);
+                                insert.executeUpdate();
+                                connection.commit();
+                                created.incrementAndGet();
+                            }
+                        } finally {
+                            insert.close();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        if (connection != null) {
+                            try {
+                                connection.close();
+                            } catch (SQLException ignored) {
+                            }
+                        }
+                        done.countDown();
+                    }
+                }
+            });
+            creator.start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1000000000.0;
+
+        long[] spread = spread();
+        System.out.println(String.format("%-20s %10.0f creates/s %6d min %6d max lbs per host %5d failed creators", name,
+                created.get() / elapsedSeconds, spread[0], spread[1], failures.get()));
+    }
+
+    private static long[] spread() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                ResultSet resultSet = statement.executeQuery("SELECT min(lbs), max(lbs) FROM (SELECT h.id, count(lb.id) lbs " +
+                        "FROM host h LEFT JOIN load_balancer lb ON lb.host_id = h.id GROUP BY h.id)");
+                resultSet.next();
+                long[] spread = {resultSet.getLong(1), resultSet.getLong(2)};
+                resultSet.close();
+                return spread;
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    // Feeds the index from the benchmark tables instead of the entity manager
+    private static class JdbcHostRepository extends HostRepository {
+
+        @Override
+        public List<Host> getHosts() {
+            List<Host> hosts = new ArrayList<Host>();
+            try {
+                Connection connection = DriverManager.getConnection(URL, "sa", "");
+                try {
+                    Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(HOSTS_SQL);
+                    while (resultSet.next()) {
+                        Host host = new Host();
+                        host.setId(resultSet.getInt(1));
+                        host.setName(resultSet.getString(2));
+                        host.setHostStatus(HostStatus.valueOf(resultSet.getString(3)));
+                        hosts.add(host);
+                    }
+                    statement.close();
+                } finally {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return hosts;
+        }
+
+        @Override
+        public Map<Integer, Long> getLoadBalancerCountsByHost() {
+            Map<Integer, Long> counts = new HashMap<Integer, Long>();
+            try {
+                Connection connection = DriverManager.getConnection(URL, "sa", "");
+                try {
+                    Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(GROUPED_COUNT_SQL);
+                    while (resultSet.next()) {
+                        counts.put(resultSet.getInt(1), resultSet.getLong(2));
+                    }
+                    statement.close();
+                } finally {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return counts;
+        }
+    }
+}
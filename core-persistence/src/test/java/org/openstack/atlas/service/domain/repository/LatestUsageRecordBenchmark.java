@@ -0,0 +1,130 @@
+package org.openstack.atlas.service.domain.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+/*
+ * Compares the max(end_time) self-join with the load_balancer_usage_latest lookup that the usage
+ * repository uses to find the most recent usage record of a batch of load balancers.
+ *
+ * Not a unit test, run it by hand against an in-memory H2 database, e.g.
+ *   java -Xmx8g -Dlbs=50000 -Ddays=365 -cp ... org.openstack.atlas.service.domain.repository.LatestUsageRecordBenchmark
+ */
+public class LatestUsageRecordBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    private static final String SELF_JOIN_SQL = "SELECT a.* " +
+            "FROM load_balancer_usage a, " +
+            "(SELECT load_balancer_id, max(end_time) as end_time FROM load_balancer_usage WHERE load_balancer_id in (%1$s) GROUP BY load_balancer_id) b " +
+            "WHERE a.load_balancer_id in (%1$s) and a.load_balancer_id = b.load_balancer_id and a.end_time = b.end_time";
+
+    private static final String LATEST_SQL = "SELECT u.* " +
+            "FROM load_balancer_usage_latest l, load_balancer_usage u " +
+            "WHERE l.load_balancer_id in (%1$s) and u.id = l.usage_id";
+
+    public static void main(String[] args) throws Exception {
+        final int lbs = Integer.getInteger("lbs", 50000);
+        final int days = Integer.getInteger("days", 365);
+        final int samples = Integer.getInteger("samples", 200);
+
+        Class.forName("org.h2.Driver");
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:usagebenchmark;LOG=0;UNDO_LOG=0", "sa", "");
+
+        try {
+            long start = System.currentTimeMillis();
+            createSchema(connection);
+            loadUsage(connection, lbs, days);
+            System.out.println(String.format("Loaded %d load balancers x %d days in %d ms", lbs, days, System.currentTimeMillis() - start));
+
+            // Warm up both plans before measuring
+            run(connection, SELF_JOIN_SQL, lbs, 10, new Random(1));
+            run(connection, LATEST_SQL, lbs, 10, new Random(1));
+
+            report("max(end_time) self-join", run(connection, SELF_JOIN_SQL, lbs, samples, new Random(42)), samples);
+            report("latest usage pointer", run(connection, LATEST_SQL, lbs, samples, new Random(42)), samples);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("CREATE TABLE load_balancer_usage (id INT AUTO_INCREMENT PRIMARY KEY, vendor VARCHAR(31) NOT NULL, " +
+                    "load_balancer_id INT NOT NULL, transfer_bytes_in BIGINT NOT NULL, transfer_bytes_out BIGINT NOT NULL, " +
+                    "last_bytes_in_count BIGINT NOT NULL, last_bytes_out_count BIGINT NOT NULL, start_time TIMESTAMP, end_time TIMESTAMP)");
+            statement.execute("CREATE INDEX load_balancer_usage_lb ON load_balancer_usage(load_balancer_id)");
+            statement.execute("CREATE TABLE load_balancer_usage_latest (load_balancer_id INT PRIMARY KEY, usage_id INT NOT NULL)");
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void loadUsage(Connection connection, int lbs, int days) throws SQLException {
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO load_balancer_usage(vendor, load_balancer_id, transfer_bytes_in, transfer_bytes_out, " +
+                "last_bytes_in_count, last_bytes_out_count, start_time, end_time) SELECT 'CORE', X, X, X, X, X, ?, ? FROM SYSTEM_RANGE(1, ?)");
+        Calendar day = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        day.clear();
+        day.set(2011, Calendar.JANUARY, 1);
+
+        try {
+            for (int i = 0; i < days; i++) {
+                insert.setTimestamp(1, new Timestamp(day.getTimeInMillis()));
+                day.add(Calendar.DAY_OF_YEAR, 1);
+                insert.setTimestamp(2, new Timestamp(day.getTimeInMillis() - 1000));
+                insert.setInt(3, lbs);
+                insert.executeUpdate();
+            }
+        } finally {
+            insert.close();
+        }
+
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("INSERT INTO load_balancer_usage_latest(load_balancer_id, usage_id) SELECT load_balancer_id, MAX(id) FROM load_balancer_usage GROUP BY load_balancer_id");
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static long run(Connection connection, String sql, int lbs, int samples, Random random) throws SQLException {
+        long totalNanos = 0;
+        int rows = 0;
+
+        for (int i = 0; i < samples; i++) {
+            int firstLbId = 1 + random.nextInt(Math.max(1, lbs - BATCH_SIZE));
+            StringBuilder lbIds = new StringBuilder();
+            for (int lbId = firstLbId; lbId < firstLbId + BATCH_SIZE; lbId++) {
+                if (lbIds.length() > 0) lbIds.append(",");
+                lbIds.append(lbId);
+            }
+
+            long start = System.nanoTime();
+            Statement statement = connection.createStatement();
+            try {
+                ResultSet resultSet = statement.executeQuery(String.format(sql, lbIds));
+                while (resultSet.next()) rows++;
+            } finally {
+                statement.close();
+            }
+            totalNanos += System.nanoTime() - start;
+        }
+
+        if (rows != samples * Math.min(BATCH_SIZE, lbs)) {
+            throw new IllegalStateException(String.format("Expected %d rows but got %d", samples * Math.min(BATCH_SIZE, lbs), rows));
+        }
+        return totalNanos;
+    }
+
+    private static void report(String name, long totalNanos, int samples) {
+        System.out.println(String.format("%-25s %8.3f ms per batch of %d load balancers", name, totalNanos / 1000000.0 / samples, BATCH_SIZE));
+    }
+}
@@ -0,0 +1,84 @@
+package org.openstack.atlas.service.domain.repository;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.openstack.atlas.datamodel.CoreLoadBalancerStatus;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.entity.Node;
+import org.openstack.atlas.service.domain.service.LoadBalancerService;
+import org.openstack.atlas.service.domain.stub.StubFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+
+import javax.persistence.EntityManagerFactory;
+
+/*
+ * Reports the SQL statements, entities and collections Hibernate loads per repository call for each
+ * LoadBalancerFetchPlan. ADAPTER initializes the same graph that every load used to fetch eagerly, so
+ * its line is the "before" figure for the other plans.
+ *
+ * Not a unit test, run it by hand against the H2 database of the service integration tests, e.g.
+ *   java -Dnodes=25 -Dsamples=200 -cp ... org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlanBenchmark
+ */
+public class LoadBalancerFetchPlanBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int nodes = Integer.getInteger("nodes", 25);
+        final int samples = Integer.getInteger("samples", 200);
+
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("db-services-test.xml");
+        try {
+            LoadBalancerService loadBalancerService = context.getBean(LoadBalancerService.class);
+            LoadBalancerRepository loadBalancerRepository = context.getBean(LoadBalancerRepository.class);
+            EntityManagerFactory entityManagerFactory = ((EntityManagerFactoryInfo) context.getBean(EntityManagerFactory.class)).getNativeEntityManagerFactory();
+            Statistics statistics = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+            statistics.setStatisticsEnabled(true);
+
+            LoadBalancer loadBalancer = StubFactory.createMinimalDomainLoadBalancer();
+            for (int i = loadBalancer.getNodes().size(); i < nodes; i++) {
+                Node node = new Node();
+                node.setAddress("10.1." + (i / 256) + "." + (i % 256));
+                node.setPort(80);
+                loadBalancer.getNodes().add(node);
+            }
+            loadBalancer = loadBalancerService.create(loadBalancer);
+            loadBalancerRepository.changeStatus(loadBalancer, CoreLoadBalancerStatus.ACTIVE);
+
+            try {
+                for (LoadBalancerFetchPlan fetchPlan : LoadBalancerFetchPlan.values()) {
+                    // Warm up before measuring
+                    for (int i = 0; i < 10; i++) {
+                        loadBalancerRepository.getByIdAndAccountId(loadBalancer.getId(), loadBalancer.getAccountId(), fetchPlan);
+                    }
+
+                    statistics.clear();
+                    long start = System.nanoTime();
+                    for (int i = 0; i < samples; i++) {
+                        loadBalancerRepository.getByIdAndAccountId(loadBalancer.getId(), loadBalancer.getAccountId(), fetchPlan);
+                    }
+                    report("get " + fetchPlan.name(), statistics, System.nanoTime() - start, samples);
+                }
+
+                statistics.clear();
+                long start = System.nanoTime();
+                for (int i = 0; i < samples; i++) {
+                    loadBalancerRepository.testAndSetStatus(loadBalancer.getAccountId(), loadBalancer.getId(), CoreLoadBalancerStatus.PENDING_UPDATE, false);
+                    loadBalancerRepository.changeStatus(loadBalancer, CoreLoadBalancerStatus.ACTIVE);
+                }
+                report("status transition", statistics, System.nanoTime() - start, samples);
+            } finally {
+                loadBalancerService.delete(loadBalancer);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void report(String name, Statistics statistics, long totalNanos, int samples) {
+        System.out.println(String.format("%-20s %6.1f statements %6.1f entities %5.1f collections %8.3f ms per call", name,
+                (double) statistics.getPrepareStatementCount() / samples,
+                (double) statistics.getEntityLoadCount() / samples,
+                (double) statistics.getCollectionLoadCount() / samples,
+                totalNanos / 1000000.0 / samples));
+    }
+}
@@ -0,0 +1,219 @@
+package org.openstack.atlas.service.domain.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Compares the old GET /loadbalancers read path, which loaded every load balancer of the account as an
+ * entity and let Hibernate fetch its nodes, virtual ips and host one load balancer at a time, with the
+ * marker/limit column projection that LoadBalancerRepository.getSimpleLoadBalancersByAccountId issues.
+ *
+ * Not a unit test, run it by hand against an in-memory H2 database, e.g.
+ *   java -Xmx4g -Dlbs=10000 -Dnodes=50 -cp ... org.openstack.atlas.service.domain.repository.LoadBalancerListBenchmark
+ */
+public class LoadBalancerListBenchmark {
+    private static final int ACCOUNT_ID = 1000;
+    private static final int PAGE_LIMIT = 100;
+
+    private static final String ENTITY_SQL = "SELECT * FROM load_balancer WHERE account_id = ?";
+    private static final String NODES_SQL = "SELECT * FROM node WHERE load_balancer_id = ?";
+    private static final String VIPS_SQL = "SELECT j.*, v.* FROM load_balancer_virtual_ipv4 j, virtual_ipv4 v " +
+            "WHERE j.load_balancer_id = ? AND v.id = j.virtual_ipv4_id";
+    private static final String HOST_SQL = "SELECT * FROM host WHERE id = ?";
+
+    private static final String PAGE_SQL = "SELECT id, name, algorithm, protocol, port, status, created, updated " +
+            "FROM load_balancer WHERE account_id = ? AND id > ? ORDER BY id LIMIT ?";
+
+    public static void main(String[] args) throws Exception {
+        final int lbs = Integer.getInteger("lbs", 10000);
+        final int nodes = Integer.getInteger("nodes", 50);
+        final int samples = Integer.getInteger("samples", 5);
+
+        Class.forName("org.h2.Driver");
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:lblistbenchmark;LOG=0;UNDO_LOG=0", "sa", "");
+
+        try {
+            long start = System.currentTimeMillis();
+            createSchema(connection);
+            loadLoadBalancers(connection, lbs, nodes);
+            System.out.println(String.format("Loaded %d load balancers x %d nodes in %d ms", lbs, nodes, System.currentTimeMillis() - start));
+
+            // Warm up both plans before measuring
+            runEntityGraph(connection, lbs, 1);
+            runFirstPage(connection, 100);
+            runAllPages(connection, lbs, 1);
+
+            report("entity graph (N+1)", runEntityGraph(connection, lbs, samples), samples, "full list");
+            report("projection, first page", runFirstPage(connection, samples * 100), samples * 100, "page of " + PAGE_LIMIT);
+            report("projection, all pages", runAllPages(connection, lbs, samples), samples, "full walk");
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("CREATE TABLE host (id INT PRIMARY KEY, name VARCHAR(128) NOT NULL, endpoint VARCHAR(128) NOT NULL, " +
+                    "endpoint_active BOOLEAN NOT NULL, username VARCHAR(32) NOT NULL, password VARCHAR(64) NOT NULL, host_status VARCHAR(32) NOT NULL)");
+            statement.execute("CREATE TABLE load_balancer (id INT PRIMARY KEY, account_id INT NOT NULL, name VARCHAR(128), " +
+                    "algorithm VARCHAR(32) NOT NULL, protocol VARCHAR(32) NOT NULL, port INT NOT NULL, status VARCHAR(32) NOT NULL, " +
+                    "connection_logging BOOLEAN, host_id INT, created TIMESTAMP, updated TIMESTAMP)");
+            statement.execute("CREATE INDEX load_balancer_account_id ON load_balancer(account_id, id)");
+            statement.execute("CREATE TABLE node (id INT AUTO_INCREMENT PRIMARY KEY, load_balancer_id INT NOT NULL, address VARCHAR(39) NOT NULL, " +
+                    "port INT NOT NULL, weight INT NOT NULL, enabled BOOLEAN NOT NULL, status VARCHAR(32))");
+            statement.execute("CREATE INDEX node_load_balancer_id ON node(load_balancer_id)");
+            statement.execute("CREATE TABLE virtual_ipv4 (id INT PRIMARY KEY, address VARCHAR(39) NOT NULL, type VARCHAR(32), " +
+                    "is_allocated BOOLEAN NOT NULL, last_allocation TIMESTAMP, last_deallocation TIMESTAMP)");
+            statement.execute("CREATE TABLE load_balancer_virtual_ipv4 (load_balancer_id INT NOT NULL, virtual_ipv4_id INT NOT NULL, port INT, " +
+                    "PRIMARY KEY (load_balancer_id, virtual_ipv4_id))");
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void loadLoadBalancers(Connection connection, int lbs, int nodes) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("INSERT INTO host SELECT X, 'host' || X, 'https://host' || X, TRUE, 'admin', 'secret', 'ACTIVE' FROM SYSTEM_RANGE(1, 10)");
+            statement.execute("INSERT INTO load_balancer SELECT X, " + ACCOUNT_ID + ", 'lb' || X, 'ROUND_ROBIN', 'HTTP', 80, 'ACTIVE', FALSE, " +
+                    "MOD(X, 10) + 1, CURRENT_TIMESTAMP(), CURRENT_TIMESTAMP() FROM SYSTEM_RANGE(1, " + lbs + ")");
+            statement.execute("INSERT INTO virtual_ipv4 SELECT X, '10.' || (X / 65536) || '.' || MOD(X / 256, 256) || '.' || MOD(X, 256), " +
+                    "'PUBLIC', TRUE, CURRENT_TIMESTAMP(), NULL FROM SYSTEM_RANGE(1, " + lbs + ")");
+            statement.execute("INSERT INTO load_balancer_virtual_ipv4 SELECT X, X, 80 FROM SYSTEM_RANGE(1, " + lbs + ")");
+        } finally {
+            statement.close();
+        }
+
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO node(load_balancer_id, address, port, weight, enabled, status) " +
+                "SELECT X, '192.168.' || MOD(X, 256) || '.' || ?, 80, 1, TRUE, 'ONLINE' FROM SYSTEM_RANGE(1, ?)");
+        try {
+            for (int i = 1; i <= nodes; i++) {
+                insert.setInt(1, i);
+                insert.setInt(2, lbs);
+                insert.executeUpdate();
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    private static long runEntityGraph(Connection connection, int lbs, int samples) throws SQLException {
+        PreparedStatement lbSelect = connection.prepareStatement(ENTITY_SQL);
+        PreparedStatement nodeSelect = connection.prepareStatement(NODES_SQL);
+        PreparedStatement vipSelect = connection.prepareStatement(VIPS_SQL);
+        PreparedStatement hostSelect = connection.prepareStatement(HOST_SQL);
+        long totalNanos = 0;
+
+        try {
+            for (int i = 0; i < samples; i++) {
+                long start = System.nanoTime();
+                List<int[]> loadBalancers = new ArrayList<int[]>();
+                lbSelect.setInt(1, ACCOUNT_ID);
+                ResultSet resultSet = lbSelect.executeQuery();
+                while (resultSet.next()) {
+                    loadBalancers.add(new int[]{resultSet.getInt("id"), resultSet.getInt("host_id")});
+                }
+                resultSet.close();
+
+                for (int[] loadBalancer : loadBalancers) {
+                    drain(nodeSelect, loadBalancer[0]);
+                    drain(vipSelect, loadBalancer[0]);
+                    drain(hostSelect, loadBalancer[1]);
+                }
+                totalNanos += System.nanoTime() - start;
+
+                if (loadBalancers.size() != lbs) {
+                    throw new IllegalStateException(String.format("Expected %d load balancers but got %d", lbs, loadBalancers.size()));
+                }
+            }
+        } finally {
+            lbSelect.close();
+            nodeSelect.close();
+            vipSelect.close();
+            hostSelect.close();
+        }
+        return totalNanos;
+    }
+
+    private static long runFirstPage(Connection connection, int samples) throws SQLException {
+        PreparedStatement pageSelect = connection.prepareStatement(PAGE_SQL);
+        long totalNanos = 0;
+
+        try {
+            for (int i = 0; i < samples; i++) {
+                long start = System.nanoTime();
+                readPage(pageSelect, new int[]{0});
+                totalNanos += System.nanoTime() - start;
+            }
+        } finally {
+            pageSelect.close();
+        }
+        return totalNanos;
+    }
+
+    private static long runAllPages(Connection connection, int lbs, int samples) throws SQLException {
+        PreparedStatement pageSelect = connection.prepareStatement(PAGE_SQL);
+        long totalNanos = 0;
+
+        try {
+            for (int i = 0; i < samples; i++) {
+                long start = System.nanoTime();
+                int rows = 0;
+                int[] marker = {0};
+                int pageRows;
+                while ((pageRows = readPage(pageSelect, marker)) > 0) {
+                    rows += pageRows;
+                }
+                totalNanos += System.nanoTime() - start;
+
+                if (rows != lbs) {
+                    throw new IllegalStateException(String.format("Expected %d load balancers but got %d", lbs, rows));
+                }
+            }
+        } finally {
+            pageSelect.close();
+        }
+        return totalNanos;
+    }
+
+    // Reads one page after marker[0] and advances it to the last id seen, as a client following the marker would
+    private static int readPage(PreparedStatement pageSelect, int[] marker) throws SQLException {
+        int rows = 0;
+        pageSelect.setInt(1, ACCOUNT_ID);
+        pageSelect.setInt(2, marker[0]);
+        pageSelect.setInt(3, PAGE_LIMIT);
+        ResultSet resultSet = pageSelect.executeQuery();
+        try {
+            while (resultSet.next()) {
+                marker[0] = resultSet.getInt(1);
+                rows++;
+            }
+        } finally {
+            resultSet.close();
+        }
+        return rows;
+    }
+
+    private static void drain(PreparedStatement statement, int id) throws SQLException {
+        statement.setInt(1, id);
+        ResultSet resultSet = statement.executeQuery();
+        try {
+            while (resultSet.next()) {
+                resultSet.getObject(1);
+            }
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    private static void report(String name, long totalNanos, int samples, String unit) {
+        System.out.println(String.format("%-25s %10.3f ms per %s", name, totalNanos / 1000000.0 / samples, unit));
+    }
+}
@@ -0,0 +1,194 @@
+package org.openstack.atlas.service.domain.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Compares the old status transition, a SELECT ... FOR UPDATE of the load balancer and its eagerly
+ * fetched children followed by an UPDATE in the same transaction, with the single conditional UPDATE
+ * that LoadBalancerRepository.transitionStatus issues. Every updater works on the load balancers of
+ * one account, moving a random one from ACTIVE to PENDING_UPDATE and back as a request and its
+ * listener would.
+ *
+ * Not a unit test, run it by hand against an in-memory H2 database, e.g.
+ *   java -Dthreads=200 -Dlbs=25 -Dseconds=10 -cp ... org.openstack.atlas.service.domain.repository.LoadBalancerStatusContentionBenchmark
+ */
+public class LoadBalancerStatusContentionBenchmark {
+    private static final int ACCOUNT_ID = 1000;
+    private static final String URL = "jdbc:h2:mem:statusbenchmark;MVCC=TRUE;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1";
+
+    private static final String LOCK_SQL = "SELECT * FROM load_balancer WHERE id = ? AND account_id = ? FOR UPDATE";
+    private static final String NODES_SQL = "SELECT * FROM node WHERE load_balancer_id = ?";
+    private static final String UPDATE_SQL = "UPDATE load_balancer SET status = ?, updated = ? WHERE id = ?";
+
+    private static final String TRANSITION_SQL = "UPDATE load_balancer SET status = ?, updated = ? " +
+            "WHERE id = ? AND account_id = ? AND status IN (?)";
+
+    private interface Transition {
+        boolean apply(Connection connection, int lbId, String from, String to) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int threads = Integer.getInteger("threads", 200);
+        final int lbs = Integer.getInteger("lbs", 25);
+        final int nodes = Integer.getInteger("nodes", 25);
+        final int seconds = Integer.getInteger("seconds", 10);
+
+        Class.forName("org.h2.Driver");
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+
+        try {
+            createSchema(connection, lbs, nodes);
+
+            Transition lockAndUpdate = new Transition() {
+                @Override
+                public boolean apply(Connection connection, int lbId, String from, String to) throws SQLException {
+                    PreparedStatement lock = connection.prepareStatement(LOCK_SQL);
+                    PreparedStatement children = connection.prepareStatement(NODES_SQL);
+                    PreparedStatement update = connection.prepareStatement(UPDATE_SQL);
+                    try {
+                        lock.setInt(1, lbId);
+                        lock.setInt(2, ACCOUNT_ID);
+                        ResultSet resultSet = lock.executeQuery();
+                        String status = resultSet.next() ? resultSet.getString("status") : null;
+                        resultSet.close();
+
+                        children.setInt(1, lbId);
+                        resultSet = children.executeQuery();
+                        while (resultSet.next()) {
+                            resultSet.getObject(1);
+                        }
+                        resultSet.close();
+
+                        if (!from.equals(status)) {
+                            connection.rollback();
+                            return false;
+                        }
+                        update.setString(1, to);
+                        update.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+                        update.setInt(3, lbId);
+                        update.executeUpdate();
+                        connection.commit();
+                        return true;
+                    } finally {
+                        lock.close();
+                        children.close();
+                        update.close();
+                    }
+                }
+            };
+
+            Transition conditionalUpdate = new Transition() {
+                @Override
+                public boolean apply(Connection connection, int lbId, String from, String to) throws SQLException {
+                    PreparedStatement transition = connection.prepareStatement(TRANSITION_SQL);
+                    try {
+                        transition.setString(1, to);
+                        transition.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+                        transition.setInt(3, lbId);
+                        transition.setInt(4, ACCOUNT_ID);
+                        transition.setString(5, from);
+                        int updated = transition.executeUpdate();
+                        connection.commit();
+                        return updated > 0;
+                    } finally {
+                        transition.close();
+                    }
+                }
+            };
+
+            // Warm up both paths before measuring
+            run("warm up", lockAndUpdate, threads, lbs, 2);
+            run("warm up", conditionalUpdate, threads, lbs, 2);
+
+            run("select for update", lockAndUpdate, threads, lbs, seconds);
+            run("conditional update", conditionalUpdate, threads, lbs, seconds);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void createSchema(Connection connection, int lbs, int nodes) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("CREATE TABLE load_balancer (id INT PRIMARY KEY, account_id INT NOT NULL, name VARCHAR(128), " +
+                    "algorithm VARCHAR(32) NOT NULL, protocol VARCHAR(32) NOT NULL, port INT NOT NULL, status VARCHAR(32) NOT NULL, " +
+                    "host_id INT, created TIMESTAMP, updated TIMESTAMP)");
+            statement.execute("CREATE TABLE node (id INT AUTO_INCREMENT PRIMARY KEY, load_balancer_id INT NOT NULL, address VARCHAR(39) NOT NULL, " +
+                    "port INT NOT NULL, weight INT NOT NULL, enabled BOOLEAN NOT NULL, status VARCHAR(32))");
+            statement.execute("CREATE INDEX node_load_balancer_id ON node(load_balancer_id)");
+            statement.execute("INSERT INTO load_balancer SELECT X, " + ACCOUNT_ID + ", 'lb' || X, 'ROUND_ROBIN', 'HTTP', 80, 'ACTIVE', 1, " +
+                    "CURRENT_TIMESTAMP(), CURRENT_TIMESTAMP() FROM SYSTEM_RANGE(1, " + lbs + ")");
+            for (int i = 1; i <= nodes; i++) {
+                statement.execute("INSERT INTO node(load_balancer_id, address, port, weight, enabled, status) " +
+                        "SELECT X, '10.0.' || MOD(X, 256) || '." + i + "', 80, 1, TRUE, 'ONLINE' FROM SYSTEM_RANGE(1, " + lbs + ")");
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void run(String name, final Transition transition, int threads, final int lbs, int seconds) throws Exception {
+        final AtomicLong transitions = new AtomicLong();
+        final AtomicLong conflicts = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final long deadline = System.nanoTime() + seconds * 1000000000L;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            Thread updater = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    Connection connection = null;
+                    try {
+                        connection = DriverManager.getConnection(URL, "sa", "");
+                        connection.setAutoCommit(false);
+                        start.await();
+                        while (System.nanoTime() < deadline) {
+                            int lbId = 1 + random.nextInt(lbs);
+                            if (transition.apply(connection, lbId, "ACTIVE", "PENDING_UPDATE")) {
+                                transitions.incrementAndGet();
+                                // The listener finishing the request moves it back
+                                if (transition.apply(connection, lbId, "PENDING_UPDATE", "ACTIVE")) {
+                                    transitions.incrementAndGet();
+                                }
+                            } else {
+                                conflicts.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        if (connection != null) {
+                            try {
+                                connection.close();
+                            } catch (SQLException ignored) {
+                            }
+                        }
+                        done.countDown();
+                    }
+                }
+            });
+            updater.start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1000000000.0;
+
+        System.out.println(String.format("%-20s %10.0f transitions/s %10.0f conflicts/s %5d failed updaters", name,
+                transitions.get() / elapsedSeconds, conflicts.get() / elapsedSeconds, failures.get()));
+    }
+}
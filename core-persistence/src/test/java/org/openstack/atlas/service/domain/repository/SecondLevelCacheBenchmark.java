@@ -0,0 +1,82 @@
+package org.openstack.atlas.service.domain.repository;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.service.LoadBalancerService;
+import org.openstack.atlas.service.domain.stub.StubFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Reports the SQL statements per load balancer create and the second level and query cache hit
+ * ratios, once with every cache region emptied before each create, as if there were no second level
+ * cache, and once with warm caches. The difference is the hosts, clusters, limits and blacklist
+ * items a create no longer reads from the database.
+ *
+ * Not a unit test, run it by hand against the H2 database of the service integration tests, e.g.
+ *   java -Dcreates=200 -cp ... org.openstack.atlas.service.domain.repository.SecondLevelCacheBenchmark
+ */
+public class SecondLevelCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int creates = Integer.getInteger("creates", 200);
+
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("db-services-test.xml");
+        try {
+            LoadBalancerService loadBalancerService = context.getBean(LoadBalancerService.class);
+            EntityManagerFactory entityManagerFactory = ((EntityManagerFactoryInfo) context.getBean(EntityManagerFactory.class)).getNativeEntityManagerFactory();
+            Statistics statistics = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+            statistics.setStatisticsEnabled(true);
+
+            // Warm up before measuring
+            run(loadBalancerService, entityManagerFactory, false, 10);
+
+            statistics.clear();
+            long start = System.nanoTime();
+            run(loadBalancerService, entityManagerFactory, true, creates);
+            report("cold caches", statistics, System.nanoTime() - start, creates);
+
+            statistics.clear();
+            start = System.nanoTime();
+            run(loadBalancerService, entityManagerFactory, false, creates);
+            report("warm caches", statistics, System.nanoTime() - start, creates);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(LoadBalancerService loadBalancerService, EntityManagerFactory entityManagerFactory, boolean evict, int creates) throws Exception {
+        List<LoadBalancer> created = new ArrayList<LoadBalancer>();
+        try {
+            for (int i = 0; i < creates; i++) {
+                if (evict) {
+                    entityManagerFactory.getCache().evictAll();
+                }
+                created.add(loadBalancerService.create(StubFactory.createMinimalDomainLoadBalancer()));
+            }
+        } finally {
+            for (LoadBalancer loadBalancer : created) {
+                loadBalancerService.delete(loadBalancer);
+            }
+        }
+    }
+
+    private static void report(String name, Statistics statistics, long totalNanos, int creates) {
+        // The deletes of the run are counted too, they are the same for both runs
+        System.out.println(String.format("%-12s %6.1f statements per create %5.1f%% entity cache hits %5.1f%% query cache hits %8.3f ms per create",
+                name,
+                (double) statistics.getPrepareStatementCount() / creates,
+                ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()),
+                ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()),
+                totalNanos / 1000000.0 / creates));
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses);
+    }
+}
@@ -0,0 +1,265 @@
+package org.openstack.atlas.service.domain.repository;
+
+import org.openstack.atlas.service.domain.entity.Cluster;
+import org.openstack.atlas.service.domain.entity.VirtualIp;
+import org.openstack.atlas.service.domain.entity.VirtualIpType;
+import org.openstack.atlas.service.domain.service.helpers.VirtualIpAllocator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Compares the old IPv4 virtual ip allocation, a SELECT ... FOR UPDATE of the first free row followed
+ * by an UPDATE in the same transaction, with the free list and conditional update of VirtualIpAllocator.
+ * Every allocator thread allocates virtual ips of the same cluster and type, one transaction each, and
+ * the run checks that no virtual ip was handed out twice.
+ *
+ * Not a unit test, run it by hand against an in-memory H2 database, e.g.
+ *   java -Dthreads=32 -Dvips=20000 -Dallocations=500 -cp ... org.openstack.atlas.service.domain.repository.VirtualIpAllocationBenchmark
+ */
+public class VirtualIpAllocationBenchmark {
+    private static final int CLUSTER_ID = 1;
+    private static final String URL = "jdbc:h2:mem:vipbenchmark;MVCC=TRUE;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1";
+
+    private static final String FREE_SQL = "SELECT id FROM virtual_ipv4 WHERE is_allocated = FALSE AND type = 'PUBLIC' AND cluster_id = ? " +
+            "AND (last_deallocation IS NULL OR last_deallocation < ?)";
+    private static final String LOCK_SQL = FREE_SQL + " LIMIT 1 FOR UPDATE";
+    private static final String ALLOCATE_SQL = "UPDATE virtual_ipv4 SET is_allocated = TRUE, last_allocation = ? WHERE id = ?";
+
+    private static final String CLAIM_SQL = "UPDATE virtual_ipv4 SET is_allocated = TRUE, last_allocation = ? WHERE id = ? AND is_allocated = FALSE";
+
+    private static final ThreadLocal<Connection> CONNECTION = new ThreadLocal<Connection>();
+
+    private interface Allocation {
+        Integer allocate(Connection connection) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int threads = Integer.getInteger("threads", 32);
+        final int vips = Integer.getInteger("vips", 20000);
+        final int allocations = Integer.getInteger("allocations", 500);
+
+        Class.forName("org.h2.Driver");
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+
+        try {
+            createSchema(connection, vips);
+
+            Allocation lockFirstFree = new Allocation() {
+                @Override
+                public Integer allocate(Connection connection) throws Exception {
+                    PreparedStatement lock = connection.prepareStatement(LOCK_SQL);
+                    PreparedStatement update = connection.prepareStatement(ALLOCATE_SQL);
+                    try {
+                        lock.setInt(1, CLUSTER_ID);
+                        lock.setTimestamp(2, reuseTime());
+                        ResultSet resultSet = lock.executeQuery();
+                        if (!resultSet.next()) {
+                            throw new IllegalStateException("Out of virtual ips");
+                        }
+                        int vipId = resultSet.getInt(1);
+                        resultSet.close();
+
+                        update.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+                        update.setInt(2, vipId);
+                        update.executeUpdate();
+                        return vipId;
+                    } finally {
+                        lock.close();
+                        update.close();
+                    }
+                }
+            };
+
+            final VirtualIpAllocator allocator = new VirtualIpAllocator();
+            allocator.setVirtualIpRepository(new JdbcVirtualIpRepository());
+            final Cluster cluster = new Cluster();
+            cluster.setId(CLUSTER_ID);
+            Allocation freeList = new Allocation() {
+                @Override
+                public Integer allocate(Connection connection) throws Exception {
+                    CONNECTION.set(connection);
+                    return allocator.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC).getId();
+                }
+            };
+
+            // Warm up both paths before measuring
+            run("warm up", lockFirstFree, threads, 10);
+            run("warm up", freeList, threads, 10);
+
+            run("select for update", lockFirstFree, threads, allocations);
+            run("free list", freeList, threads, allocations);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static Timestamp reuseTime() {
+        return new Timestamp(System.currentTimeMillis() - 24L * 60 * 60 * 1000);
+    }
+
+    private static void createSchema(Connection connection, int vips) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("CREATE TABLE virtual_ipv4 (id INT PRIMARY KEY, address VARCHAR(39) NOT NULL, type VARCHAR(32), cluster_id INT, " +
+                    "is_allocated BOOLEAN NOT NULL, last_allocation TIMESTAMP, last_deallocation TIMESTAMP)");
+            statement.execute("CREATE INDEX virtual_ipv4_free ON virtual_ipv4(cluster_id, type, is_allocated)");
+            statement.execute("INSERT INTO virtual_ipv4 SELECT X, '10.' || (X / 65536) || '.' || MOD(X / 256, 256) || '.' || MOD(X, 256), " +
+                    "'PUBLIC', " + CLUSTER_ID + ", FALSE, NULL, NULL FROM SYSTEM_RANGE(1, " + vips + ")");
+        } finally {
+            statement.close();
+        }
+    }
+
+    // Frees every virtual ip as de-allocated two days ago, so they are all past the reuse time again
+    private static void freeAll() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.execute("UPDATE virtual_ipv4 SET is_allocated = FALSE, last_deallocation = DATEADD('DAY', -2, CURRENT_TIMESTAMP())");
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void run(String name, final Allocation allocation, int threads, final int allocations) throws Exception {
+        freeAll();
+        final AtomicLong allocated = new AtomicLong();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Thread allocator = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Connection connection = null;
+                    try {
+                        connection = DriverManager.getConnection(URL, "sa", "");
+                        connection.setAutoCommit(false);
+                        start.await();
+                        for (int i = 0; i < allocations; i++) {
+                            allocation.allocate(connection);
+                            connection.commit();
+                            allocated.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        if (connection != null) {
+                            try {
+                                connection.close();
+                            } catch (SQLException ignored) {
+                            }
+                        }
+                        done.countDown();
+                    }
+                }
+            });
+            allocator.start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1000000000.0;
+
+        long allocatedRows = countAllocated();
+        System.out.println(String.format("%-20s %10.0f allocations/s %8d allocated rows %5d failed allocators", name,
+                allocated.get() / elapsedSeconds, allocatedRows, failures.get()));
+        if (allocatedRows != allocated.get()) {
+            throw new IllegalStateException(String.format("Allocated %d virtual ips but %d rows are marked allocated", allocated.get(), allocatedRows));
+        }
+    }
+
+    private static long countAllocated() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM virtual_ipv4 WHERE is_allocated = TRUE");
+                resultSet.next();
+                long count = resultSet.getLong(1);
+                resultSet.close();
+                return count;
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    // Runs the allocator's queries on the connection of the calling allocator thread instead of the entity manager
+    private static class JdbcVirtualIpRepository extends VirtualIpRepository {
+
+        @Override
+        public List<Integer> getFreeIpv4VipIdsBeforeDate(Integer clusterId, Calendar vipReuseTime, VirtualIpType vipType, Collection<Integer> excludedVipIds, int maxResults) {
+            List<Integer> vipIds = new ArrayList<Integer>();
+            try {
+                // Excluded ids are filtered here rather than in the SQL, over-fetching by as many rows
+                PreparedStatement select = CONNECTION.get().prepareStatement(FREE_SQL + " ORDER BY id LIMIT ?");
+                try {
+                    select.setInt(1, clusterId);
+                    select.setTimestamp(2, new Timestamp(vipReuseTime.getTimeInMillis()));
+                    select.setInt(3, maxResults + excludedVipIds.size());
+                    ResultSet resultSet = select.executeQuery();
+                    while (resultSet.next() && vipIds.size() < maxResults) {
+                        if (!excludedVipIds.contains(resultSet.getInt(1))) {
+                            vipIds.add(resultSet.getInt(1));
+                        }
+                    }
+                    resultSet.close();
+                } finally {
+                    select.close();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return vipIds;
+        }
+
+        @Override
+        public List<Integer> getFreeIpv4VipIdsAfterDate(Integer clusterId, Calendar vipReuseTime, VirtualIpType vipType, Collection<Integer> excludedVipIds, int maxResults) {
+            return new ArrayList<Integer>();
+        }
+
+        @Override
+        public VirtualIp claimIpv4Vip(Integer vipId) {
+            try {
+                PreparedStatement claim = CONNECTION.get().prepareStatement(CLAIM_SQL);
+                try {
+                    claim.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+                    claim.setInt(2, vipId);
+                    if (claim.executeUpdate() == 0) {
+                        return null;
+                    }
+                } finally {
+                    claim.close();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            VirtualIp virtualIp = new VirtualIp();
+            virtualIp.setId(vipId);
+            virtualIp.setAllocated(true);
+            return virtualIp;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package org.openstack.atlas.service.domain.repository.impl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
+import org.openstack.atlas.service.domain.entity.UsageRecord;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/*
+ * Runs the writer against an in-memory H2 database in MySQL mode, which understands
+ * INSERT ... ON DUPLICATE KEY UPDATE and VALUES(column).
+ */
+@RunWith(Enclosed.class)
+public class JdbcUsageWriterITest {
+    private static final String URL = "jdbc:h2:mem:usagewriter;MODE=MySQL";
+
+    public static class WhenUpsertingUsageRecords {
+        private Connection connection;
+        private JdbcUsageWriter usageWriter;
+
+        @Before
+        public void standUp() throws Exception {
+            connection = openConnection();
+            usageWriter = new JdbcUsageWriter(2);
+            insertUsage(connection, 1, 10, 100L, time(0), time(1));
+            insertUsage(connection, 2, 20, 200L, time(0), time(1));
+            insertUsage(connection, 3, 30, 300L, time(0), time(1));
+        }
+
+        @After
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+
+        @Test
+        public void shouldUpdateExistingRowsInPlace() throws SQLException {
+            int rows = usageWriter.upsert(connection, Arrays.asList(newUsageRecord(1, 10, 150L, time(0), time(2)),
+                    newUsageRecord(2, 20, 250L, time(0), time(2)), newUsageRecord(3, 30, 350L, time(0), time(2))));
+
+            Assert.assertEquals(3, rows);
+            Assert.assertEquals(3, countRows(connection, "load_balancer_usage"));
+            Assert.assertEquals(150L, getLong(connection, "transfer_bytes_in", 1));
+            Assert.assertEquals(250L, getLong(connection, "transfer_bytes_out", 2));
+            Assert.assertEquals(350L, getLong(connection, "last_bytes_in_count", 3));
+            Assert.assertEquals(350L, getLong(connection, "last_bytes_out_count", 3));
+            Assert.assertEquals(time(2).getTimeInMillis(), getTime(connection, "end_time", 3));
+        }
+
+        @Test
+        public void shouldOnlyUpdateTheCountersAndTheEndTime() throws SQLException {
+            usageWriter.upsert(connection, Arrays.asList(newUsageRecord(1, 99, 150L, time(5), time(6))));
+
+            Assert.assertEquals(10L, getLong(connection, "load_balancer_id", 1));
+            Assert.assertEquals(time(0).getTimeInMillis(), getTime(connection, "start_time", 1));
+            Assert.assertEquals(time(6).getTimeInMillis(), getTime(connection, "end_time", 1));
+        }
+
+        @Test
+        public void shouldInsertRecordsThatDoNotExistYet() throws SQLException {
+            usageWriter.upsert(connection, Arrays.asList(newUsageRecord(2, 20, 250L, time(0), time(2)), newUsageRecord(7, 70, 700L, time(1), time(2))));
+
+            Assert.assertEquals(4, countRows(connection, "load_balancer_usage"));
+            Assert.assertEquals(250L, getLong(connection, "transfer_bytes_in", 2));
+            Assert.assertEquals(700L, getLong(connection, "transfer_bytes_in", 7));
+            Assert.assertEquals(70L, getLong(connection, "load_balancer_id", 7));
+        }
+
+        @Test
+        public void shouldWriteNullEndTimes() throws SQLException {
+            usageWriter.upsert(connection, Arrays.asList(newUsageRecord(1, 10, 150L, time(0), null)));
+
+            Assert.assertEquals(0L, getTime(connection, "end_time", 1));
+        }
+
+        @Test
+        public void shouldNotWriteAnEmptyList() throws SQLException {
+            Assert.assertEquals(0, usageWriter.upsert(connection, Collections.<UsageRecord>emptyList()));
+            Assert.assertEquals(3, countRows(connection, "load_balancer_usage"));
+        }
+
+        @Test
+        public void shouldLeaveTheLatestUsagePointersAlone() throws SQLException {
+            usageWriter.updateLatest(connection, Arrays.asList(newUsageRecord(1, 10, 100L, time(0), time(1))));
+            usageWriter.upsert(connection, Arrays.asList(newUsageRecord(7, 10, 700L, time(1), time(2))));
+
+            Assert.assertEquals(Integer.valueOf(1), getLatestUsageId(connection, 10));
+            Assert.assertNull(getLatestUsageId(connection, 70));
+        }
+    }
+
+    public static class WhenUpdatingTheLatestUsagePointers {
+        private Connection connection;
+        private JdbcUsageWriter usageWriter;
+
+        @Before
+        public void standUp() throws Exception {
+            connection = openConnection();
+            usageWriter = new JdbcUsageWriter(2);
+        }
+
+        @After
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+
+        @Test
+        public void shouldAddAPointerPerLoadBalancer() throws SQLException {
+            usageWriter.updateLatest(connection, Arrays.asList(newUsageRecord(1, 10, 100L, time(0), time(1)),
+                    newUsageRecord(2, 20, 100L, time(0), time(1)), newUsageRecord(3, 30, 100L, time(0), time(1))));
+
+            Assert.assertEquals(3, countRows(connection, "load_balancer_usage_latest"));
+            Assert.assertEquals(Integer.valueOf(1), getLatestUsageId(connection, 10));
+            Assert.assertEquals(Integer.valueOf(2), getLatestUsageId(connection, 20));
+            Assert.assertEquals(Integer.valueOf(3), getLatestUsageId(connection, 30));
+        }
+
+        @Test
+        public void shouldMoveTheExistingPointerOfALoadBalancer() throws SQLException {
+            usageWriter.updateLatest(connection, Arrays.asList(newUsageRecord(1, 10, 100L, time(0), time(1)), newUsageRecord(2, 20, 100L, time(0), time(1))));
+            usageWriter.updateLatest(connection, Arrays.asList(newUsageRecord(5, 10, 100L, time(1), time(2))));
+
+            Assert.assertEquals(2, countRows(connection, "load_balancer_usage_latest"));
+            Assert.assertEquals(Integer.valueOf(5), getLatestUsageId(connection, 10));
+            Assert.assertEquals(Integer.valueOf(2), getLatestUsageId(connection, 20));
+        }
+
+        @Test
+        public void shouldKeepTheLastRecordOfALoadBalancerWithinOneCall() throws SQLException {
+            usageWriter.updateLatest(connection, Arrays.asList(newUsageRecord(1, 10, 100L, time(0), time(1)),
+                    newUsageRecord(2, 10, 100L, time(1), time(2)), newUsageRecord(3, 10, 100L, time(2), time(3))));
+
+            Assert.assertEquals(1, countRows(connection, "load_balancer_usage_latest"));
+            Assert.assertEquals(Integer.valueOf(3), getLatestUsageId(connection, 10));
+        }
+    }
+
+    /*
+     * H2 only returns the generated key of the last row of a batch, MySQL returns one per row. A batch
+     * size of one keeps the generated keys exact here.
+     */
+    public static class WhenInsertingUsageRecords {
+        private Connection connection;
+        private JdbcUsageWriter usageWriter;
+
+        @Before
+        public void standUp() throws Exception {
+            connection = openConnection();
+            usageWriter = new JdbcUsageWriter(1);
+        }
+
+        @After
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+
+        @Test
+        public void shouldSetTheGeneratedIds() throws SQLException {
+            List<UsageRecord> usageRecords = Arrays.asList(newUsageRecord(null, 10, 100L, time(0), time(1)), newUsageRecord(null, 20, 200L, time(0), time(1)));
+            Assert.assertEquals(2, usageWriter.insert(connection, usageRecords));
+
+            for (UsageRecord usageRecord : usageRecords) {
+                Assert.assertNotNull(usageRecord.getId());
+                Assert.assertEquals(usageRecord.getTransferBytesIn().longValue(), getLong(connection, "transfer_bytes_in", usageRecord.getId()));
+            }
+            Assert.assertFalse(usageRecords.get(0).getId().equals(usageRecords.get(1).getId()));
+        }
+
+        @Test
+        public void shouldPointTheLatestUsageAtTheInsertedRecords() throws SQLException {
+            List<UsageRecord> usageRecords = Arrays.asList(newUsageRecord(null, 10, 100L, time(0), time(1)), newUsageRecord(null, 20, 200L, time(0), time(1)));
+            usageWriter.insert(connection, usageRecords);
+
+            Assert.assertEquals(usageRecords.get(0).getId(), getLatestUsageId(connection, 10));
+            Assert.assertEquals(usageRecords.get(1).getId(), getLatestUsageId(connection, 20));
+        }
+
+        @Test
+        public void shouldMoveThePointerToTheNewestInsert() throws SQLException {
+            UsageRecord first = newUsageRecord(null, 10, 100L, time(0), time(1));
+            usageWriter.insert(connection, Arrays.asList(first));
+            UsageRecord second = newUsageRecord(null, 10, 150L, time(1), time(2));
+            usageWriter.insert(connection, Arrays.asList(second));
+
+            Assert.assertEquals(2, countRows(connection, "load_balancer_usage"));
+            Assert.assertEquals(1, countRows(connection, "load_balancer_usage_latest"));
+            Assert.assertEquals(second.getId(), getLatestUsageId(connection, 10));
+        }
+    }
+
+    private static Connection openConnection() throws Exception {
+        Class.forName("org.h2.Driver");
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+
+        // The in-memory database is dropped when its last connection closes, so every test starts empty
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("CREATE TABLE load_balancer_usage (id INT AUTO_INCREMENT PRIMARY KEY, vendor VARCHAR(31) NOT NULL, " +
+                    "load_balancer_id INT NOT NULL, transfer_bytes_in BIGINT NOT NULL, transfer_bytes_out BIGINT NOT NULL, " +
+                    "last_bytes_in_count BIGINT NOT NULL, last_bytes_out_count BIGINT NOT NULL, start_time TIMESTAMP, end_time TIMESTAMP)");
+            statement.execute("CREATE TABLE load_balancer_usage_latest (load_balancer_id INT PRIMARY KEY, usage_id INT NOT NULL)");
+        } finally {
+            statement.close();
+        }
+        return connection;
+    }
+
+    private static void insertUsage(Connection connection, Integer id, Integer lbId, long bytes, Calendar startTime, Calendar endTime) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement("INSERT INTO load_balancer_usage(id, vendor, load_balancer_id, transfer_bytes_in, " +
+                "transfer_bytes_out, last_bytes_in_count, last_bytes_out_count, start_time, end_time) VALUES (?, 'CORE', ?, ?, ?, ?, ?, ?, ?)");
+        try {
+            statement.setInt(1, id);
+            statement.setInt(2, lbId);
+            for (int i = 3; i <= 6; i++) {
+                statement.setLong(i, bytes);
+            }
+            statement.setTimestamp(7, new Timestamp(startTime.getTimeInMillis()));
+            statement.setTimestamp(8, new Timestamp(endTime.getTimeInMillis()));
+            statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static UsageRecord newUsageRecord(Integer id, Integer lbId, long bytes, Calendar startTime, Calendar endTime) {
+        LoadBalancer loadBalancer = new LoadBalancer();
+        loadBalancer.setId(lbId);
+
+        UsageRecord usageRecord = new UsageRecord();
+        usageRecord.setId(id);
+        usageRecord.setLoadBalancer(loadBalancer);
+        usageRecord.setTransferBytesIn(bytes);
+        usageRecord.setTransferBytesOut(bytes);
+        usageRecord.setLastBytesInCount(bytes);
+        usageRecord.setLastBytesOutCount(bytes);
+        usageRecord.setStartTime(startTime);
+        usageRecord.setEndTime(endTime);
+        return usageRecord;
+    }
+
+    private static Calendar time(int hours) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(2011, Calendar.JUNE, 1);
+        calendar.add(Calendar.HOUR_OF_DAY, hours);
+        return calendar;
+    }
+
+    private static int countRows(Connection connection, String table) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM " + table);
+            resultSet.next();
+            return resultSet.getInt(1);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static long getLong(Connection connection, String column, Integer id) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT " + column + " FROM load_balancer_usage WHERE id = " + id);
+            Assert.assertTrue("No usage record " + id, resultSet.next());
+            return resultSet.getLong(1);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static Integer getLatestUsageId(Connection connection, Integer lbId) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT usage_id FROM load_balancer_usage_latest WHERE load_balancer_id = " + lbId);
+            return resultSet.next() ? resultSet.getInt(1) : null;
+        } finally {
+            statement.close();
+        }
+    }
+
+    /*
+     * Returns 0 for a null timestamp.
+     */
+    private static long getTime(Connection connection, String column, Integer id) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT " + column + " FROM load_balancer_usage WHERE id = " + id);
+            Assert.assertTrue("No usage record " + id, resultSet.next());
+            Timestamp timestamp = resultSet.getTimestamp(1);
+            return timestamp == null ? 0L : timestamp.getTime();
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -1,17 +1,30 @@
 package org.openstack.atlas.service.domain.service;
 
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 import org.openstack.atlas.service.domain.entity.AccountLimit;
 import org.openstack.atlas.service.domain.entity.AccountLimitType;
+import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.exception.EntityExistsException;
 import org.openstack.atlas.service.domain.exception.LimitReachedException;
 import org.openstack.atlas.service.domain.exception.PersistenceServiceException;
+import org.openstack.atlas.service.domain.stub.StubFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(Enclosed.class)
 public class AccountLimitServiceITest {
@@ -45,6 +58,86 @@ public class AccountLimitServiceITest {
         }
     }
 
+    @RunWith(SpringJUnit4ClassRunner.class)
+    public static class WhenCreatingLoadBalancersConcurrently extends AccountLimitServiceBase {
+        private static final int LIMIT = 3;
+        private static final int CREATORS = 8;
+
+        @Before
+        public void raiseLimit() throws PersistenceServiceException {
+            accountLimitService.delete(loadBalancer.getAccountId());
+            AccountLimit raisedLimit = new AccountLimit();
+            raisedLimit.setAccountId(loadBalancer.getAccountId());
+            raisedLimit.setLimit(LIMIT);
+            raisedLimit.setLimitType(accountLimit.getLimitType());
+            accountLimitService.create(loadBalancer.getAccountId(), raisedLimit);
+        }
+
+        @Test
+        public void shouldAdmitExactlyTheLimitWhenCreatesRace() throws Exception {
+            Race race = new Race(loadBalancerService, CREATORS);
+
+            race.assertNoUnexpectedFailures();
+            Assert.assertEquals(LIMIT, race.created.get());
+            Assert.assertEquals(CREATORS - LIMIT, race.rejected.get());
+            Assert.assertEquals(LIMIT, loadBalancerRepository.getNumNonDeletedLoadBalancersForAccount(loadBalancer.getAccountId()).intValue());
+            Assert.assertEquals(LIMIT, loadBalancerRepository.getLoadBalancerCount(loadBalancer.getAccountId()));
+        }
+
+        @Test
+        public void shouldAdmitAgainAfterADelete() throws Exception {
+            LoadBalancer dbLoadBalancer = null;
+            for (int i = 0; i < LIMIT; i++) {
+                dbLoadBalancer = loadBalancerService.create(StubFactory.createMinimalDomainLoadBalancer());
+            }
+            loadBalancerService.delete(dbLoadBalancer);
+            loadBalancerService.create(StubFactory.createMinimalDomainLoadBalancer());
+            Assert.assertEquals(LIMIT, loadBalancerRepository.getLoadBalancerCount(loadBalancer.getAccountId()));
+        }
+    }
+
+    @RunWith(SpringJUnit4ClassRunner.class)
+    public static class WhenCreatingLoadBalancersConcurrentlyOnAnUnseededCounter extends AccountLimitServiceBase {
+        private static final int CREATORS = 4;
+        private static final int LIMIT = CREATORS + 2;
+
+        @Autowired
+        private VirtualIpService virtualIpService;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @Before
+        public void clearCounter() throws Exception {
+            accountLimitService.delete(loadBalancer.getAccountId());
+            AccountLimit raisedLimit = new AccountLimit();
+            raisedLimit.setAccountId(loadBalancer.getAccountId());
+            raisedLimit.setLimit(LIMIT);
+            raisedLimit.setLimitType(accountLimit.getLimitType());
+            accountLimitService.create(loadBalancer.getAccountId(), raisedLimit);
+
+            // Like an account registered before the counter existed
+            virtualIpService.addAccountRecord(loadBalancer.getAccountId());
+            new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    entityManager.createQuery("update Account a set a.loadBalancerCount = null where a.id = :aid")
+                            .setParameter("aid", loadBalancer.getAccountId()).executeUpdate();
+                }
+            });
+        }
+
+        @Test
+        public void shouldNotRejectAnyCreateBelowTheLimit() throws Exception {
+            Race race = new Race(loadBalancerService, CREATORS);
+
+            race.assertNoUnexpectedFailures();
+            Assert.assertEquals(0, race.rejected.get());
+            Assert.assertEquals(CREATORS, race.created.get());
+            Assert.assertEquals(CREATORS, loadBalancerRepository.getLoadBalancerCount(loadBalancer.getAccountId()));
+        }
+    }
+
     @RunWith(SpringJUnit4ClassRunner.class)
     public static class WhenGettingLimits extends AccountLimitServiceBase {
 
@@ -77,4 +170,72 @@ public class AccountLimitServiceITest {
             Assert.assertTrue(limits.isEmpty());
         }
     }
+
+    /*
+     * Starts the creators together, each creating one load balancer. Creates that time out on a lock roll
+     * back and are tried again; any other failure is kept so the test can fail on it.
+     */
+    private static class Race {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<Exception>());
+
+        Race(final LoadBalancerService loadBalancerService, int creators) throws InterruptedException {
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<Thread>();
+
+            for (int i = 0; i < creators; i++) {
+                Thread creator = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int attempt = 0; attempt < 20; attempt++) {
+                            try {
+                                loadBalancerService.create(StubFactory.createMinimalDomainLoadBalancer());
+                                created.incrementAndGet();
+                                return;
+                            } catch (LimitReachedException e) {
+                                rejected.incrementAndGet();
+                                return;
+                            } catch (Exception e) {
+                                if (!isLockTimeout(e)) {
+                                    failures.add(e);
+                                    return;
+                                }
+                            }
+                        }
+                    }
+                });
+                creator.start();
+                threads.add(creator);
+            }
+            start.countDown();
+            for (Thread creator : threads) {
+                creator.join();
+            }
+        }
+
+        void assertNoUnexpectedFailures() {
+            if (!failures.isEmpty()) {
+                throw new AssertionError("Create failed: " + failures.get(0));
+            }
+        }
+
+        // H2 reports lock timeouts with SQL state HYT00 and deadlocks with 40001
+        private static boolean isLockTimeout(Throwable e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof SQLException) {
+                    String sqlState = ((SQLException) cause).getSQLState();
+                    if ("HYT00".equals(sqlState) || "40001".equals(sqlState)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
 }
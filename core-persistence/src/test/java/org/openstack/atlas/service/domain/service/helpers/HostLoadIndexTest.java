@@ -0,0 +1,229 @@
+package org.openstack.atlas.service.domain.service.helpers;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openstack.atlas.service.domain.entity.Host;
+import org.openstack.atlas.service.domain.entity.HostStatus;
+import org.openstack.atlas.service.domain.event.HostChangedEvent;
+import org.openstack.atlas.service.domain.exception.EntityNotFoundException;
+import org.openstack.atlas.service.domain.repository.HostRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(Enclosed.class)
+public class HostLoadIndexTest {
+
+    public static class WhenPlacingLoadBalancers {
+        private FixedHostRepository hostRepository;
+        private HostLoadIndex hostLoadIndex;
+
+        @Before
+        public void standUp() {
+            hostRepository = new FixedHostRepository();
+            hostRepository.addHost(1, HostStatus.ACTIVE_TARGET, 0);
+            hostRepository.addHost(2, HostStatus.OFFLINE, 0);
+            hostRepository.addHost(3, HostStatus.ACTIVE_TARGET, 0);
+            hostRepository.addHost(4, HostStatus.FAIL_OVER, 0);
+            hostRepository.addHost(5, HostStatus.ACTIVE, 0);
+            hostRepository.addHost(6, HostStatus.BURN_IN, 0);
+
+            hostLoadIndex = new HostLoadIndex();
+            hostLoadIndex.setHostRepository(hostRepository);
+        }
+
+        @Test
+        public void shouldOnlyPlaceOnActiveTargetHosts() throws EntityNotFoundException {
+            Set<Integer> chosen = new HashSet<Integer>();
+            for (int i = 0; i < 200; i++) {
+                chosen.add(hostLoadIndex.placeLoadBalancer().getId());
+            }
+
+            Set<Integer> expected = new HashSet<Integer>();
+            expected.add(1);
+            expected.add(3);
+            Assert.assertEquals(expected, chosen);
+            Assert.assertEquals(0, hostLoadIndex.getLoadBalancerCount(2));
+            Assert.assertEquals(200, hostLoadIndex.getLoadBalancerCount(1) + hostLoadIndex.getLoadBalancerCount(3));
+        }
+
+        @Test
+        public void shouldPlaceOnTheLessLoadedHost() throws EntityNotFoundException {
+            hostRepository.setLoadBalancerCount(1, 10);
+            hostLoadIndex.reconcile();
+
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(Integer.valueOf(3), hostLoadIndex.placeLoadBalancer().getId());
+            }
+            Assert.assertEquals(10, hostLoadIndex.getLoadBalancerCount(3));
+        }
+
+        @Test(expected = EntityNotFoundException.class)
+        public void shouldThrowWhenNoHostIsAnActiveTarget() throws EntityNotFoundException {
+            hostRepository.setHostStatus(1, HostStatus.OFFLINE);
+            hostRepository.setHostStatus(3, HostStatus.FAIL_OVER);
+            hostLoadIndex.placeLoadBalancer();
+        }
+
+        @Test
+        public void shouldStopPlacingOnAHostThatLeftActiveTargetOnceItIsWritten() throws EntityNotFoundException {
+            hostLoadIndex.placeLoadBalancer();
+            hostRepository.setHostStatus(1, HostStatus.OFFLINE);
+            hostLoadIndex.onApplicationEvent(new HostChangedEvent(hostRepository, 1, null));
+
+            for (int i = 0; i < 20; i++) {
+                Assert.assertEquals(Integer.valueOf(3), hostLoadIndex.placeLoadBalancer().getId());
+            }
+        }
+    }
+
+    public static class WhenDeletingLoadBalancers {
+        private FixedHostRepository hostRepository;
+        private HostLoadIndex hostLoadIndex;
+
+        @Before
+        public void standUp() {
+            hostRepository = new FixedHostRepository();
+            hostRepository.addHost(1, HostStatus.ACTIVE_TARGET, 2);
+
+            hostLoadIndex = new HostLoadIndex();
+            hostLoadIndex.setHostRepository(hostRepository);
+        }
+
+        @Test
+        public void shouldDecrementTheCountOfTheHost() throws EntityNotFoundException {
+            hostLoadIndex.placeLoadBalancer();
+            Assert.assertEquals(3, hostLoadIndex.getLoadBalancerCount(1));
+
+            hostLoadIndex.removeLoadBalancer(1);
+            Assert.assertEquals(2, hostLoadIndex.getLoadBalancerCount(1));
+        }
+
+        @Test
+        public void shouldNotDecrementBelowZero() {
+            hostLoadIndex.reconcile();
+            for (int i = 0; i < 5; i++) {
+                hostLoadIndex.removeLoadBalancer(1);
+            }
+            Assert.assertEquals(0, hostLoadIndex.getLoadBalancerCount(1));
+        }
+
+        @Test
+        public void shouldIgnoreUnknownHosts() {
+            hostLoadIndex.reconcile();
+            hostLoadIndex.removeLoadBalancer(99);
+            hostLoadIndex.removeLoadBalancer(null);
+            Assert.assertEquals(2, hostLoadIndex.getLoadBalancerCount(1));
+        }
+    }
+
+    public static class WhenReconciling {
+        private FixedHostRepository hostRepository;
+        private HostLoadIndex hostLoadIndex;
+
+        @Before
+        public void standUp() {
+            hostRepository = new FixedHostRepository();
+            hostRepository.addHost(1, HostStatus.ACTIVE_TARGET, 4);
+            hostRepository.addHost(2, HostStatus.ACTIVE_TARGET, 4);
+
+            hostLoadIndex = new HostLoadIndex();
+            hostLoadIndex.setHostRepository(hostRepository);
+        }
+
+        @Test
+        public void shouldReplaceDriftedCountsWithTheDatabaseCounts() throws EntityNotFoundException {
+            // Placements whose transaction rolled back are never written to the database
+            for (int i = 0; i < 6; i++) {
+                hostLoadIndex.placeLoadBalancer();
+            }
+            Assert.assertEquals(14, hostLoadIndex.getLoadBalancerCount(1) + hostLoadIndex.getLoadBalancerCount(2));
+
+            hostLoadIndex.reconcile();
+            Assert.assertEquals(4, hostLoadIndex.getLoadBalancerCount(1));
+            Assert.assertEquals(4, hostLoadIndex.getLoadBalancerCount(2));
+        }
+
+        @Test
+        public void shouldPickUpNewHosts() throws EntityNotFoundException {
+            hostLoadIndex.reconcile();
+            hostRepository.addHost(3, HostStatus.ACTIVE_TARGET, 0);
+            hostLoadIndex.reconcile();
+
+            Set<Integer> chosen = new HashSet<Integer>();
+            for (int i = 0; i < 4; i++) {
+                chosen.add(hostLoadIndex.placeLoadBalancer().getId());
+            }
+            Assert.assertTrue(chosen.contains(3));
+        }
+
+        @Test
+        public void shouldReconcileOnceTheIntervalHasPassed() throws Exception {
+            hostLoadIndex.setReconcileIntervalMillis(1);
+            hostLoadIndex.placeLoadBalancer();
+            int reconciles = hostRepository.reconciles;
+
+            Thread.sleep(5);
+            hostLoadIndex.placeLoadBalancer();
+            Assert.assertEquals(reconciles + 1, hostRepository.reconciles);
+
+            hostLoadIndex.setReconcileIntervalMillis(HostLoadIndex.DEFAULT_RECONCILE_INTERVAL_MILLIS);
+            Assert.assertEquals(9, hostLoadIndex.getLoadBalancerCount(1) + hostLoadIndex.getLoadBalancerCount(2));
+        }
+
+        @Test
+        public void shouldKeepTheCountsUntilTheIntervalHasPassed() throws EntityNotFoundException {
+            hostLoadIndex.placeLoadBalancer();
+            hostLoadIndex.placeLoadBalancer();
+            Assert.assertEquals(1, hostRepository.reconciles);
+            Assert.assertEquals(10, hostLoadIndex.getLoadBalancerCount(1) + hostLoadIndex.getLoadBalancerCount(2));
+        }
+    }
+
+    /*
+     * Answers from a fixed list of hosts and load balancer counts, the counts are not changed by placements.
+     */
+    private static class FixedHostRepository extends HostRepository {
+        private final List<Host> hosts = new ArrayList<Host>();
+        private final Map<Integer, Long> counts = new HashMap<Integer, Long>();
+        private int reconciles;
+
+        void addHost(Integer id, HostStatus status, long loadBalancerCount) {
+            Host host = new Host();
+            host.setId(id);
+            host.setHostStatus(status);
+            hosts.add(host);
+            counts.put(id, loadBalancerCount);
+        }
+
+        void setHostStatus(Integer id, HostStatus status) {
+            for (Host host : hosts) {
+                if (host.getId().equals(id)) {
+                    host.setHostStatus(status);
+                }
+            }
+        }
+
+        void setLoadBalancerCount(Integer id, long loadBalancerCount) {
+            counts.put(id, loadBalancerCount);
+        }
+
+        @Override
+        public List<Host> getHosts() {
+            return new ArrayList<Host>(hosts);
+        }
+
+        @Override
+        public Map<Integer, Long> getLoadBalancerCountsByHost() {
+            reconciles++;
+            return new HashMap<Integer, Long>(counts);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.openstack.atlas.service.domain.service.helpers;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openstack.atlas.service.domain.entity.Cluster;
+import org.openstack.atlas.service.domain.entity.VirtualIp;
+import org.openstack.atlas.service.domain.entity.VirtualIpType;
+import org.openstack.atlas.service.domain.exception.OutOfVipsException;
+import org.openstack.atlas.service.domain.repository.VirtualIpRepository;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class VirtualIpAllocatorTest {
+    private static final int POOL_SIZE = 4;
+
+    private SnapshotVirtualIpRepository repository;
+    private VirtualIpAllocator firstNode;
+    private VirtualIpAllocator secondNode;
+    private Cluster cluster;
+
+    @Before
+    public void standUp() {
+        repository = new SnapshotVirtualIpRepository();
+        firstNode = new VirtualIpAllocator();
+        firstNode.setVirtualIpRepository(repository);
+        secondNode = new VirtualIpAllocator();
+        secondNode.setVirtualIpRepository(repository);
+        cluster = new Cluster();
+        cluster.setId(1);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldHandOutEveryVirtualIpOnceAcrossBothAllocators() throws OutOfVipsException {
+        Set<Integer> allocated = new HashSet<Integer>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            VirtualIpAllocator allocator = i % 2 == 0 ? firstNode : secondNode;
+            Assert.assertTrue(allocated.add(allocator.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC).getId()));
+        }
+        Assert.assertEquals(POOL_SIZE, allocated.size());
+    }
+
+    @Test(timeout = 5000)
+    public void shouldThrowWhenTheOtherAllocatorTookTheRestOfTheChunk() throws OutOfVipsException {
+        firstNode.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC);
+        for (int i = 1; i < POOL_SIZE; i++) {
+            secondNode.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC);
+        }
+
+        int claimsBefore = repository.claims;
+        try {
+            firstNode.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC);
+            Assert.fail("Expected an OutOfVipsException");
+        } catch (OutOfVipsException expected) {
+        }
+        Assert.assertTrue(repository.claims - claimsBefore <= POOL_SIZE);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldThrowOnBothAllocatorsOnceThePoolIsExhausted() throws OutOfVipsException {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            firstNode.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC);
+        }
+        for (VirtualIpAllocator allocator : new VirtualIpAllocator[]{firstNode, secondNode}) {
+            try {
+                allocator.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC);
+                Assert.fail("Expected an OutOfVipsException");
+            } catch (OutOfVipsException expected) {
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void shouldGiveUpAfterTheMaximumClaimAttempts() throws OutOfVipsException {
+        firstNode.setMaxClaimAttempts(2);
+        for (int i = 0; i < POOL_SIZE - 1; i++) {
+            secondNode.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC);
+        }
+
+        int claimsBefore = repository.claims;
+        try {
+            firstNode.allocateIpv4Vip(cluster, VirtualIpType.PUBLIC);
+            Assert.fail("Expected an OutOfVipsException");
+        } catch (OutOfVipsException expected) {
+        }
+        Assert.assertEquals(2, repository.claims - claimsBefore);
+    }
+
+    /*
+     * Answers the free id queries from the snapshot taken when the pool was created, the way a
+     * REPEATABLE READ transaction that read it first keeps seeing it, while claims see the latest state.
+     */
+    private static class SnapshotVirtualIpRepository extends VirtualIpRepository {
+        private final List<Integer> snapshot = new ArrayList<Integer>();
+        private final Set<Integer> allocated = new HashSet<Integer>();
+        private int claims;
+
+        SnapshotVirtualIpRepository() {
+            for (int i = 1; i <= POOL_SIZE; i++) {
+                snapshot.add(i);
+            }
+        }
+
+        @Override
+        public List<Integer> getFreeIpv4VipIdsBeforeDate(Integer clusterId, Calendar vipReuseTime, VirtualIpType vipType, Collection<Integer> excludedVipIds, int maxResults) {
+            List<Integer> vipIds = new ArrayList<Integer>();
+            for (Integer vipId : snapshot) {
+                if (vipIds.size() < maxResults && !excludedVipIds.contains(vipId)) {
+                    vipIds.add(vipId);
+                }
+            }
+            return vipIds;
+        }
+
+        @Override
+        public List<Integer> getFreeIpv4VipIdsAfterDate(Integer clusterId, Calendar vipReuseTime, VirtualIpType vipType, Collection<Integer> excludedVipIds, int maxResults) {
+            return new ArrayList<Integer>();
+        }
+
+        @Override
+        public VirtualIp claimIpv4Vip(Integer vipId) {
+            claims++;
+            if (!allocated.add(vipId)) {
+                return null;
+            }
+            VirtualIp virtualIp = new VirtualIp();
+            virtualIp.setId(vipId);
+            virtualIp.setAllocated(true);
+            return virtualIp;
+        }
+    }
+}
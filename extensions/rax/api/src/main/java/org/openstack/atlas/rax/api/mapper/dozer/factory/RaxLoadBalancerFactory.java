@@ -2,6 +2,7 @@ package org.openstack.atlas.rax.api.mapper.dozer.factory;
 
 import org.dozer.BeanFactory;
 import org.openstack.atlas.core.api.v1.LoadBalancer;
+import org.openstack.atlas.service.domain.pojo.SimpleLoadBalancer;
 
 public class RaxLoadBalancerFactory implements BeanFactory {
 
@@ -9,7 +10,8 @@ public class RaxLoadBalancerFactory implements BeanFactory {
     public Object createBean(Object source, Class<?> sourceClass, String targetBeanId) {
 //        if (source instanceof org.openstack.atlas.service.domain.entity.LoadBalancer) {
         if (sourceClass.equals(org.openstack.atlas.rax.domain.entity.RaxLoadBalancer.class)
-                || sourceClass.equals(org.openstack.atlas.service.domain.entity.LoadBalancer.class)) {
+                || sourceClass.equals(org.openstack.atlas.service.domain.entity.LoadBalancer.class)
+                || sourceClass.equals(SimpleLoadBalancer.class)) {
             LoadBalancer lb = new LoadBalancer();
             lb.setNodes(null);
             lb.setVirtualIps(null);
@@ -11,11 +11,11 @@ import org.openstack.atlas.service.domain.entity.LoadBalancer;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.PUT;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.core.Response;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
@@ -23,13 +23,12 @@ import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 
 @Primary
 @Controller
-@Scope("request")
 public class RaxConnectionThrottleResource extends ConnectionThrottleResource {
     private final Logger LOG = Logger.getLogger(RaxConnectionThrottleResource.class);
 
     @PUT
     @Consumes({APPLICATION_XML, APPLICATION_JSON})
-    public Response updateConnectionThrottle(ConnectionThrottle _connectionThrottle) {
+    public Response updateConnectionThrottle(@PathParam("accountId") Integer accountId, @PathParam("loadBalancerId") Integer loadBalancerId, ConnectionThrottle _connectionThrottle) {
         ValidatorResult result = validator.validate(_connectionThrottle, HttpRequestType.PUT);
 
         if (!result.passedValidation()) {
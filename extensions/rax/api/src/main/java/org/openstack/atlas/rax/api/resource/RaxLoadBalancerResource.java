@@ -8,21 +8,20 @@ import org.openstack.atlas.core.api.v1.LoadBalancer;
 import org.openstack.atlas.rax.domain.entity.RaxLoadBalancer;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.openstack.atlas.service.domain.pojo.MessageDataContainer;
+import org.openstack.atlas.service.domain.repository.LoadBalancerFetchPlan;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.core.Response;
 
 @Primary
 @Controller
-@Scope("request")
 public class RaxLoadBalancerResource extends LoadBalancerResource {
 
     @Override
-    public Response get() {
+    public Response get(Integer accountId, Integer id) {
         try {
-            org.openstack.atlas.service.domain.entity.LoadBalancer loadBalancer = loadBalancerRepository.getByIdAndAccountId(id, accountId);
+            org.openstack.atlas.service.domain.entity.LoadBalancer loadBalancer = loadBalancerRepository.getByIdAndAccountId(id, accountId, LoadBalancerFetchPlan.DETAIL);
             LoadBalancer _loadBalancer = dozerMapper.map(loadBalancer, LoadBalancer.class);
             return Response.status(Response.Status.OK).entity(_loadBalancer).build();
         } catch (Exception e) {
@@ -32,7 +31,7 @@ public class RaxLoadBalancerResource extends LoadBalancerResource {
 
 
     @Override
-    public Response update(LoadBalancer loadBalancer) {
+    public Response update(Integer accountId, Integer id, LoadBalancer loadBalancer) {
         ValidatorResult result = validator.validate(loadBalancer, HttpRequestType.PUT);
 
         if (!result.passedValidation()) {
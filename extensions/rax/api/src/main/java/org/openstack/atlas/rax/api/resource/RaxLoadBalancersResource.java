@@ -11,19 +11,17 @@ import org.openstack.atlas.rax.domain.entity.RaxLoadBalancer;
 import org.openstack.atlas.rax.domain.pojo.RaxMessageDataContainer;
 import org.openstack.atlas.service.domain.operation.Operation;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Controller;
 
 import javax.ws.rs.core.Response;
 
 @Primary
 @Controller
-@Scope("request")
 public class RaxLoadBalancersResource extends LoadBalancersResource {
     public static Log LOG = LogFactory.getLog(RaxLoadBalancersResource.class.getName());
 
     @Override
-    public Response create(LoadBalancer _loadBalancer) {
+    public Response create(Integer accountId, LoadBalancer _loadBalancer) {
         LOG.debug("loadbalancer: " + _loadBalancer);
 
         ValidatorResult result = validator.validate(_loadBalancer, HttpRequestType.POST);
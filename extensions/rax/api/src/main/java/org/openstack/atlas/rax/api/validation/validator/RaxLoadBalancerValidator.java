@@ -8,7 +8,6 @@ import org.openstack.atlas.api.validation.validator.ValidatorUtilities;
 import org.openstack.atlas.api.validation.verifier.IsInstanceOf;
 import org.openstack.atlas.rax.domain.entity.AccessList;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import static org.openstack.atlas.api.validation.ValidatorBuilder.build;
@@ -16,7 +15,6 @@ import static org.openstack.atlas.api.validation.context.HttpRequestType.POST;
 
 @Primary
 @Component
-@Scope("request")
 public class RaxLoadBalancerValidator implements ResourceValidator<Object> {
 
     private final Validator<Object> validator;
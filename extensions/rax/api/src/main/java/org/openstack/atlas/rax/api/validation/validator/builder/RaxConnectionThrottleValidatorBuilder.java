@@ -11,7 +11,6 @@ import org.openstack.atlas.core.api.v1.ConnectionThrottle;
 import org.openstack.atlas.rax.api.mapper.dozer.converter.ExtensionObjectMapper;
 import org.openstack.atlas.rax.api.validation.validator.RaxLoadBalancerValidator;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import javax.xml.namespace.QName;
@@ -22,7 +21,6 @@ import static org.openstack.atlas.api.validation.context.HttpRequestType.PUT;
 
 @Primary
 @Component
-@Scope("request")
 public class RaxConnectionThrottleValidatorBuilder extends ConnectionThrottleValidatorBuilder {
     private final int[] MIN_CONNECTIONS = new int[]{0, 1000};
     private final int[] MAX_CONNECTIONS = new int[]{1, 100000};
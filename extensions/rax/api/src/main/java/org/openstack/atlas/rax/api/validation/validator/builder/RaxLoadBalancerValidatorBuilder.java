@@ -10,7 +10,6 @@ import org.openstack.atlas.rax.api.mapper.dozer.converter.ExtensionObjectMapper;
 import org.openstack.atlas.rax.api.validation.validator.RaxLoadBalancerValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import javax.xml.namespace.QName;
@@ -20,7 +19,6 @@ import static org.openstack.atlas.api.validation.context.HttpRequestType.POST;
 
 @Primary
 @Component
-@Scope("request")
 public class RaxLoadBalancerValidatorBuilder extends LoadBalancerValidatorBuilder {
 
     @Autowired
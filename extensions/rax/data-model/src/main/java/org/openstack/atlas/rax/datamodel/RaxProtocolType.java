@@ -2,12 +2,10 @@ package org.openstack.atlas.rax.datamodel;
 
 import org.openstack.atlas.datamodel.CoreProtocolType;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 @Primary
 @Component
-@Scope("request")
 public class RaxProtocolType extends CoreProtocolType {
     public static final String FTP = "FTP";
     public static final String IMAPv2 = "IMAPv2";